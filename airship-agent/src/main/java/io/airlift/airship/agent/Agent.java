@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.http.server.HttpServerInfo;
@@ -52,8 +53,10 @@ public class Agent
     private final String location;
     private final Map<String, Integer> resources;
     private final Duration maxLockWait;
+    private final SlotOperationThrottle slotOperationThrottle;
     private final URI internalUri;
     private final URI externalUri;
+    private final SlotStatusJournal slotStatusJournal = new SlotStatusJournal();
 
     @Inject
     public Agent(AgentConfig config,
@@ -70,7 +73,8 @@ public class Agent
                 config.getResourcesFile(),
                 deploymentManagerFactory,
                 lifecycleManager,
-                config.getMaxLockWait()
+                config.getMaxLockWait(),
+                new SlotOperationThrottle(config.getMaxConcurrentSlotOperations(), config.getMaxSlotOperationWait())
         );
     }
 
@@ -84,6 +88,30 @@ public class Agent
             DeploymentManagerFactory deploymentManagerFactory,
             LifecycleManager lifecycleManager,
             Duration maxLockWait)
+    {
+        this(agentId,
+                location,
+                slotsDirName,
+                internalUri,
+                externalUri,
+                resourcesFilename,
+                deploymentManagerFactory,
+                lifecycleManager,
+                maxLockWait,
+                new SlotOperationThrottle(new AgentConfig().getMaxConcurrentSlotOperations(), new AgentConfig().getMaxSlotOperationWait()));
+    }
+
+    public Agent(
+            String agentId,
+            String location,
+            String slotsDirName,
+            URI internalUri,
+            URI externalUri,
+            String resourcesFilename,
+            DeploymentManagerFactory deploymentManagerFactory,
+            LifecycleManager lifecycleManager,
+            Duration maxLockWait,
+            SlotOperationThrottle slotOperationThrottle)
     {
         Preconditions.checkNotNull(agentId, "agentId is null");
         Preconditions.checkNotNull(location, "location is null");
@@ -93,11 +121,13 @@ public class Agent
         Preconditions.checkNotNull(deploymentManagerFactory, "deploymentManagerFactory is null");
         Preconditions.checkNotNull(lifecycleManager, "lifecycleManager is null");
         Preconditions.checkNotNull(maxLockWait, "maxLockWait is null");
+        Preconditions.checkNotNull(slotOperationThrottle, "slotOperationThrottle is null");
 
         this.agentId = agentId;
         this.internalUri = internalUri;
         this.externalUri = externalUri;
         this.maxLockWait = maxLockWait;
+        this.slotOperationThrottle = slotOperationThrottle;
         this.location = location;
 
         this.deploymentManagerFactory = deploymentManagerFactory;
@@ -118,7 +148,7 @@ public class Agent
             UUID slotId = deploymentManager.getSlotId();
             URI slotInternalUri = uriBuilderFrom(internalUri).appendPath("/v1/agent/slot/").appendPath(slotId.toString()).build();
             URI slotExternalUri = uriBuilderFrom(externalUri).appendPath("/v1/agent/slot/").appendPath(slotId.toString()).build();
-            Slot slot = new DeploymentSlot(slotInternalUri, slotExternalUri, deploymentManager, lifecycleManager, maxLockWait);
+            Slot slot = new DeploymentSlot(slotInternalUri, slotExternalUri, deploymentManager, lifecycleManager, slotOperationThrottle, maxLockWait);
             slots.put(slotId, slot);
         }
 
@@ -171,6 +201,15 @@ public class Agent
         return agentStatus;
     }
 
+    /**
+     * Returns the slots in the specified status, taken from {@link #getAgentStatus()},
+     * that changed since the sequence.
+     */
+    public AgentStatusDeltaRepresentation getAgentStatusDelta(AgentStatus agentStatus, Long sinceSequence)
+    {
+        return slotStatusJournal.getDelta(agentStatus, sinceSequence);
+    }
+
     public Slot getSlot(UUID slotId)
     {
         Preconditions.checkNotNull(slotId, "slotId must not be null");
@@ -188,7 +227,7 @@ public class Agent
 
         URI slotInternalUri = uriBuilderFrom(internalUri).appendPath("/v1/agent/slot/").appendPath(slotId.toString()).build();
         URI slotExternalUri = uriBuilderFrom(externalUri).appendPath("/v1/agent/slot/").appendPath(slotId.toString()).build();
-        Slot slot = new DeploymentSlot(slotInternalUri, slotExternalUri, deploymentManager, lifecycleManager, installation, maxLockWait);
+        Slot slot = new DeploymentSlot(slotInternalUri, slotExternalUri, deploymentManager, lifecycleManager, installation, slotOperationThrottle, maxLockWait);
         slots.put(slotId, slot);
 
         // return last slot status
@@ -15,10 +15,13 @@ package io.airlift.airship.agent;
 
 import com.google.common.base.Preconditions;
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.Duration;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.net.URI;
 import java.util.concurrent.TimeUnit;
 
 public class AgentConfig
@@ -29,6 +32,11 @@ public class AgentConfig
     private Duration launcherStopTimeout = new Duration(15, TimeUnit.SECONDS);
     private Duration tarTimeout = new Duration(1, TimeUnit.MINUTES);
     private Duration maxLockWait = new Duration(1, TimeUnit.SECONDS);
+    private URI coordinatorUri;
+    private Duration heartbeatInterval = new Duration(30, TimeUnit.SECONDS);
+    private Duration heartbeatCheckInterval = new Duration(5, TimeUnit.SECONDS);
+    private int maxConcurrentSlotOperations = 4;
+    private Duration maxSlotOperationWait = new Duration(1, TimeUnit.HOURS);
 
     @NotNull
     public String getSlotsDir()
@@ -111,4 +119,73 @@ public class AgentConfig
         this.maxLockWait = lockWait;
         return this;
     }
+
+    public URI getCoordinatorUri()
+    {
+        return coordinatorUri;
+    }
+
+    @Config("agent.coordinator-uri")
+    @ConfigDescription("Coordinator to push status heartbeats to; if not set the agent is only polled")
+    public AgentConfig setCoordinatorUri(URI coordinatorUri)
+    {
+        this.coordinatorUri = coordinatorUri;
+        return this;
+    }
+
+    @NotNull
+    public Duration getHeartbeatInterval()
+    {
+        return heartbeatInterval;
+    }
+
+    @Config("agent.heartbeat-interval")
+    @ConfigDescription("Maximum time between status heartbeats when the agent status has not changed")
+    public AgentConfig setHeartbeatInterval(Duration heartbeatInterval)
+    {
+        this.heartbeatInterval = heartbeatInterval;
+        return this;
+    }
+
+    @NotNull
+    public Duration getHeartbeatCheckInterval()
+    {
+        return heartbeatCheckInterval;
+    }
+
+    @Config("agent.heartbeat-check-interval")
+    @ConfigDescription("How often the agent checks for a status change that should be pushed to the coordinator")
+    public AgentConfig setHeartbeatCheckInterval(Duration heartbeatCheckInterval)
+    {
+        this.heartbeatCheckInterval = heartbeatCheckInterval;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxConcurrentSlotOperations()
+    {
+        return maxConcurrentSlotOperations;
+    }
+
+    @Config("agent.max-concurrent-slot-operations")
+    @ConfigDescription("Maximum number of slot installs, assignments, starts and restarts that run at the same time")
+    public AgentConfig setMaxConcurrentSlotOperations(int maxConcurrentSlotOperations)
+    {
+        this.maxConcurrentSlotOperations = maxConcurrentSlotOperations;
+        return this;
+    }
+
+    @NotNull
+    public Duration getMaxSlotOperationWait()
+    {
+        return maxSlotOperationWait;
+    }
+
+    @Config("agent.max-slot-operation-wait")
+    @ConfigDescription("Maximum time a slot operation waits for one of the concurrent operation permits")
+    public AgentConfig setMaxSlotOperationWait(Duration maxSlotOperationWait)
+    {
+        this.maxSlotOperationWait = maxSlotOperationWait;
+        return this;
+    }
 }
@@ -16,9 +16,13 @@ package io.airlift.airship.agent;
 import com.google.inject.Binder;
 import com.google.inject.Module;
 import com.google.inject.Scopes;
+import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.SmileMapper;
 import io.airlift.airship.shared.VersionConflictExceptionMapper;
 import io.airlift.configuration.ConfigurationModule;
 
+import static io.airlift.http.client.HttpClientBinder.httpClientBinder;
+import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static org.weakref.jmx.guice.ExportBinder.newExporter;
 
 public class AgentMainModule
@@ -37,13 +41,19 @@ public class AgentMainModule
         binder.bind(SlotResource.class).in(Scopes.SINGLETON);
         binder.bind(AssignmentResource.class).in(Scopes.SINGLETON);
         binder.bind(LifecycleResource.class).in(Scopes.SINGLETON);
+        binder.bind(SlotCommandResource.class).in(Scopes.SINGLETON);
         binder.bind(VersionConflictExceptionMapper.class).in(Scopes.SINGLETON);
+        binder.bind(SmileMapper.class).in(Scopes.SINGLETON);
 
         binder.bind(DeploymentManagerFactory.class).to(DirectoryDeploymentManagerFactory.class).in(Scopes.SINGLETON);
         binder.bind(LifecycleManager.class).to(LauncherLifecycleManager.class).in(Scopes.SINGLETON);
 
         binder.bind(ServiceInventoryResource.class).in(Scopes.SINGLETON);
 
+        binder.bind(CoordinatorHeartbeat.class).in(Scopes.SINGLETON);
+        jsonCodecBinder(binder).bindJsonCodec(AgentStatusRepresentation.class);
+        httpClientBinder(binder).bindAsyncHttpClient("heartbeat", ForHeartbeat.class);
+
         ConfigurationModule.bindConfig(binder).to(AgentConfig.class);
     }
 }
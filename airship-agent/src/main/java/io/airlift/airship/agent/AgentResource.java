@@ -16,15 +16,23 @@ package io.airlift.airship.agent;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.entityTagMatches;
+import static io.airlift.airship.shared.VersionsUtil.toEntityTag;
 
 @Path("/v1/agent/")
 public class AgentResource
@@ -40,13 +48,45 @@ public class AgentResource
     }
 
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllSlotsStatus()
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
+    public Response getAllSlotsStatus(@HeaderParam(IF_NONE_MATCH) String ifNoneMatch)
     {
         AgentStatus agentStatus = agent.getAgentStatus();
+
+        // the coordinator polls with the last version it saw, so skip encoding the status if nothing changed
+        if (entityTagMatches(ifNoneMatch, agentStatus.getVersion())) {
+            return Response.notModified()
+                    .header(ETAG, toEntityTag(agentStatus.getVersion()))
+                    .header(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion())
+                    .build();
+        }
+
         AgentStatusRepresentation agentStatusRepresentation = AgentStatusRepresentation.from(agentStatus);
         return Response.ok(agentStatusRepresentation)
+                .header(ETAG, toEntityTag(agentStatus.getVersion()))
                 .header(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion())
                 .build();
     }
+
+    @GET
+    @Path("delta")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
+    public Response getSlotsStatusDelta(@QueryParam("since") Long sinceSequence, @HeaderParam(IF_NONE_MATCH) String ifNoneMatch)
+    {
+        AgentStatus agentStatus = agent.getAgentStatus();
+
+        // an unchanged agent has nothing new to journal, so answer before building the delta
+        if (sinceSequence != null && entityTagMatches(ifNoneMatch, agentStatus.getVersion())) {
+            return Response.notModified()
+                    .header(ETAG, toEntityTag(agentStatus.getVersion()))
+                    .header(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion())
+                    .build();
+        }
+
+        AgentStatusDeltaRepresentation delta = agent.getAgentStatusDelta(agentStatus, sinceSequence);
+        return Response.ok(delta)
+                .header(ETAG, toEntityTag(delta.getVersion()))
+                .header(AIRSHIP_AGENT_VERSION_HEADER, delta.getVersion())
+                .build();
+    }
 }
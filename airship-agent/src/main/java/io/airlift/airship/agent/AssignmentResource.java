@@ -30,6 +30,7 @@ import javax.ws.rs.core.Response;
 
 import java.util.UUID;
 
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.checkAgentVersion;
@@ -50,7 +51,7 @@ public class AssignmentResource
 
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response assign(@HeaderParam(AIRSHIP_AGENT_VERSION_HEADER) String agentVersion,
             @HeaderParam(AIRSHIP_SLOT_VERSION_HEADER) String slotVersion,
             @PathParam("slotId") UUID slotId,
@@ -0,0 +1,206 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.http.client.AsyncHttpClient;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.StatusResponseHandler.StatusResponse;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER;
+import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+public class CoordinatorHeartbeat
+{
+    private static final Logger log = Logger.get(CoordinatorHeartbeat.class);
+
+    private final Agent agent;
+    private final ServiceInventoryResource serviceInventory;
+    private final URI coordinatorUri;
+    private final Duration heartbeatInterval;
+    private final Duration checkInterval;
+    private final AsyncHttpClient httpClient;
+    private final JsonCodec<AgentStatusRepresentation> agentStatusCodec;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean heartbeatInProgress = new AtomicBoolean();
+    private final AtomicBoolean coordinatorUp = new AtomicBoolean(true);
+    private volatile String lastSentVersion;
+    private volatile long nextHeartbeatNanos;
+    private volatile long retryAfterNanos;
+
+    @Inject
+    public CoordinatorHeartbeat(Agent agent,
+            ServiceInventoryResource serviceInventory,
+            AgentConfig config,
+            @ForHeartbeat AsyncHttpClient httpClient,
+            JsonCodec<AgentStatusRepresentation> agentStatusCodec)
+    {
+        this(agent, serviceInventory, config.getCoordinatorUri(), config.getHeartbeatInterval(), config.getHeartbeatCheckInterval(), httpClient, agentStatusCodec);
+    }
+
+    public CoordinatorHeartbeat(Agent agent,
+            ServiceInventoryResource serviceInventory,
+            URI coordinatorUri,
+            Duration heartbeatInterval,
+            Duration checkInterval,
+            AsyncHttpClient httpClient,
+            JsonCodec<AgentStatusRepresentation> agentStatusCodec)
+    {
+        Preconditions.checkNotNull(agent, "agent is null");
+        Preconditions.checkNotNull(serviceInventory, "serviceInventory is null");
+        Preconditions.checkNotNull(heartbeatInterval, "heartbeatInterval is null");
+        Preconditions.checkNotNull(checkInterval, "checkInterval is null");
+        Preconditions.checkNotNull(httpClient, "httpClient is null");
+        Preconditions.checkNotNull(agentStatusCodec, "agentStatusCodec is null");
+
+        this.agent = agent;
+        this.serviceInventory = serviceInventory;
+        this.coordinatorUri = coordinatorUri;
+        this.heartbeatInterval = heartbeatInterval;
+        this.checkInterval = checkInterval;
+        this.httpClient = httpClient;
+        this.agentStatusCodec = agentStatusCodec;
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("agent-heartbeat").setDaemon(true).build());
+        nextHeartbeatNanos = System.nanoTime();
+        retryAfterNanos = nextHeartbeatNanos;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        // without a coordinator the agent is only polled
+        if (coordinatorUri == null) {
+            return;
+        }
+
+        executor.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    sendHeartbeatIfNecessary();
+                }
+                catch (Throwable e) {
+                    log.error(e, "Unexpected exception sending heartbeat");
+                }
+            }
+        }, 0, (long) checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
+    }
+
+    @VisibleForTesting
+    boolean sendHeartbeatIfNecessary()
+    {
+        if (coordinatorUri == null) {
+            return false;
+        }
+
+        // after a failure the coordinator falls back to polling, so retry at the keepalive rate
+        long now = System.nanoTime();
+        if (now - retryAfterNanos < 0) {
+            return false;
+        }
+
+        AgentStatus agentStatus = agent.getAgentStatus();
+        final String version = agentStatus.getVersion();
+
+        // push on change, otherwise only when the keepalive is due
+        if (version.equals(lastSentVersion) && now - nextHeartbeatNanos < 0) {
+            return false;
+        }
+
+        // only one heartbeat in flight; a newer status is picked up by the next check
+        if (!heartbeatInProgress.compareAndSet(false, true)) {
+            return false;
+        }
+
+        Request.Builder requestBuilder = Request.Builder.preparePost()
+                .setUri(uriBuilderFrom(coordinatorUri).replacePath("/v1/agent/heartbeat").build())
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setBodyGenerator(jsonBodyGenerator(agentStatusCodec, AgentStatusRepresentation.from(agentStatus)));
+
+        // tell the coordinator which inventory we have, so it resends the inventory after a restart
+        String serviceInventoryVersion = serviceInventory.getServiceInventoryVersion();
+        if (serviceInventoryVersion != null) {
+            requestBuilder.setHeader(AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER, serviceInventoryVersion);
+        }
+        Request request = requestBuilder.build();
+
+        Futures.addCallback(httpClient.executeAsync(request, createStatusResponseHandler()), new FutureCallback<StatusResponse>()
+        {
+            @Override
+            public void onSuccess(StatusResponse response)
+            {
+                if (response.getStatusCode() / 100 == 2) {
+                    lastSentVersion = version;
+                    nextHeartbeatNanos = System.nanoTime() + heartbeatInterval.roundTo(TimeUnit.NANOSECONDS);
+                    if (coordinatorUp.compareAndSet(false, true)) {
+                        log.info("Heartbeat to coordinator at %s succeeded", coordinatorUri);
+                    }
+                }
+                else {
+                    heartbeatFailed(response.getStatusCode() + " " + response.getStatusMessage());
+                }
+                heartbeatInProgress.set(false);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                heartbeatFailed(t.getMessage());
+                heartbeatInProgress.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void heartbeatFailed(String message)
+    {
+        retryAfterNanos = System.nanoTime() + heartbeatInterval.roundTo(TimeUnit.NANOSECONDS);
+        if (coordinatorUp.compareAndSet(true, false)) {
+            log.error("Unable to send heartbeat to coordinator at %s: %s", coordinatorUri, message);
+        }
+    }
+}
@@ -49,6 +49,7 @@ public class DeploymentSlot
     private final Duration lockWait;
     private final DeploymentManager deploymentManager;
     private final LifecycleManager lifecycleManager;
+    private final SlotOperationThrottle operationThrottle;
     private final AtomicReference<SlotStatus> lastSlotStatus;
     private boolean terminated;
 
@@ -60,17 +61,20 @@ public class DeploymentSlot
             URI externalUri,
             DeploymentManager deploymentManager,
             LifecycleManager lifecycleManager,
+            SlotOperationThrottle operationThrottle,
             Duration maxLockWait)
     {
         Preconditions.checkNotNull(self, "self is null");
         Preconditions.checkNotNull(externalUri, "externalUri is null");
         Preconditions.checkNotNull(deploymentManager, "deploymentManager is null");
         Preconditions.checkNotNull(lifecycleManager, "lifecycleManager is null");
+        Preconditions.checkNotNull(operationThrottle, "operationThrottle is null");
         Preconditions.checkNotNull(maxLockWait, "maxLockWait is null");
 
         this.location = deploymentManager.getLocation();
         this.deploymentManager = deploymentManager;
         this.lifecycleManager = lifecycleManager;
+        this.operationThrottle = operationThrottle;
 
         lockWait = maxLockWait;
         id = deploymentManager.getSlotId();
@@ -110,16 +114,19 @@ public class DeploymentSlot
             DeploymentManager deploymentManager,
             LifecycleManager lifecycleManager,
             Installation installation,
+            SlotOperationThrottle operationThrottle,
             Duration maxLockWait)
     {
         Preconditions.checkNotNull(deploymentManager, "deploymentManager is null");
         Preconditions.checkNotNull(lifecycleManager, "lifecycleManager is null");
         Preconditions.checkNotNull(installation, "installation is null");
+        Preconditions.checkNotNull(operationThrottle, "operationThrottle is null");
         Preconditions.checkNotNull(maxLockWait, "maxLockWait is null");
 
         this.location = deploymentManager.getLocation();
         this.deploymentManager = deploymentManager;
         this.lifecycleManager = lifecycleManager;
+        this.operationThrottle = operationThrottle;
 
         this.lockWait = maxLockWait;
         this.id = deploymentManager.getSlotId();
@@ -127,6 +134,7 @@ public class DeploymentSlot
         this.externalUri = externalUri;
 
         // install the software
+        operationThrottle.acquire();
         try {
             // deploy new server
             deploymentManager.install(installation);
@@ -150,6 +158,9 @@ public class DeploymentSlot
             deploymentManager.terminate();
             throw Throwables.propagate(e);
         }
+        finally {
+            operationThrottle.release();
+        }
     }
 
     @Override
@@ -175,7 +186,7 @@ public class DeploymentSlot
     {
         Preconditions.checkNotNull(installation, "installation is null");
 
-        lock();
+        lockForOperation();
         try {
             Preconditions.checkState(!terminated, "Slot has been terminated");
 
@@ -228,14 +239,14 @@ public class DeploymentSlot
             return slotStatus;
         }
         finally {
-            unlock();
+            unlockForOperation();
         }
     }
 
     @Override
     public SlotStatus terminate()
     {
-        lock();
+        lockForOperation();
         try {
             if (!terminated) {
 
@@ -255,7 +266,7 @@ public class DeploymentSlot
             return slotStatus;
         }
         finally {
-            unlock();
+            unlockForOperation();
         }
     }
 
@@ -299,7 +310,7 @@ public class DeploymentSlot
     @Override
     public SlotStatus start()
     {
-        lock();
+        lockForOperation();
         try {
             Preconditions.checkState(!terminated, "Slot has been terminated");
 
@@ -315,14 +326,14 @@ public class DeploymentSlot
             return slotStatus;
         }
         finally {
-            unlock();
+            unlockForOperation();
         }
     }
 
     @Override
     public SlotStatus restart()
     {
-        lock();
+        lockForOperation();
         try {
             Preconditions.checkState(!terminated, "Slot has been terminated");
 
@@ -338,7 +349,7 @@ public class DeploymentSlot
             return slotStatus;
         }
         finally {
-            unlock();
+            unlockForOperation();
         }
     }
 
@@ -411,6 +422,30 @@ public class DeploymentSlot
         lock.unlock();
     }
 
+    /**
+     * Locks the slot for an operation that changes it.  Operations wait for
+     * an agent wide permit first, so a slot waiting for its turn can still
+     * report its status.  Stop and kill take only the slot lock, so they are
+     * never queued behind slow operations on other slots.
+     */
+    private void lockForOperation()
+    {
+        operationThrottle.acquire();
+        try {
+            lock();
+        }
+        catch (RuntimeException e) {
+            operationThrottle.release();
+            throw e;
+        }
+    }
+
+    private void unlockForOperation()
+    {
+        unlock();
+        operationThrottle.release();
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -28,6 +28,7 @@ import javax.ws.rs.core.Response;
 
 import java.util.UUID;
 
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.checkSlotVersion;
@@ -46,7 +47,7 @@ public class LifecycleResource
     }
 
     @PUT
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response setState(@HeaderParam(AIRSHIP_SLOT_VERSION_HEADER) String slotVersion,
             @PathParam("slotId") UUID slotId,
             String newState)
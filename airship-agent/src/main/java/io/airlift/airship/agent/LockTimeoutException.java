@@ -15,4 +15,11 @@ public class LockTimeoutException
                 ownerThread,
                 acquisitionLocation == null ? null : Joiner.on("\n  at ").join(acquisitionLocation)));
     }
+
+    public LockTimeoutException(Duration lockWait, int queuedOperations)
+    {
+        super(String.format("Could not obtain slot operation permit within %s with %s other operations waiting",
+                lockWait,
+                queuedOperations));
+    }
 }
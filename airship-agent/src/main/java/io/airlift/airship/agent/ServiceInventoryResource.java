@@ -21,6 +21,7 @@ import io.airlift.node.NodeInfo;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -30,6 +31,9 @@ import javax.ws.rs.core.Response.Status;
 
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.google.common.net.HttpHeaders.ETAG;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.toEntityTag;
 import static java.lang.String.format;
 
 @Path("/v1/serviceInventory")
@@ -37,6 +41,7 @@ public class ServiceInventoryResource
 {
     private final String environment;
     private final AtomicReference<ServiceDescriptorsRepresentation> descriptor = new AtomicReference<ServiceDescriptorsRepresentation>();
+    private final AtomicReference<String> version = new AtomicReference<>();
 
     @Inject
     public ServiceInventoryResource(NodeInfo nodeInfo)
@@ -45,22 +50,39 @@ public class ServiceInventoryResource
         descriptor.set(new ServiceDescriptorsRepresentation(environment, ImmutableList.<ServiceDescriptor>of()));
     }
 
+    /**
+     * Returns the version of the service inventory set by the coordinator, or
+     * null if the coordinator has not set one since the agent started.
+     */
+    public String getServiceInventoryVersion()
+    {
+        return version.get();
+    }
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response getServiceInventory()
     {
         ServiceDescriptorsRepresentation descriptor = this.descriptor.get();
-        return Response.ok(descriptor).build();
+        String version = this.version.get();
+        if (version == null) {
+            return Response.ok(descriptor).build();
+        }
+        return Response.ok(descriptor)
+                .header(ETAG, toEntityTag(version))
+                .header(AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER, version)
+                .build();
     }
 
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response setServiceInventory(ServiceDescriptorsRepresentation descriptor)
+    public Response setServiceInventory(ServiceDescriptorsRepresentation descriptor, @HeaderParam(AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER) String version)
     {
         if (!environment.equals(descriptor.getEnvironment())) {
             return Response.status(Status.BAD_REQUEST).entity(format("Expected environment to be %s, but was %s", environment, descriptor.getEnvironment())).build();
         }
         this.descriptor.set(descriptor);
+        this.version.set(version);
         return Response.ok().build();
     }
 }
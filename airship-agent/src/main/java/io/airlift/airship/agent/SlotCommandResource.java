@@ -0,0 +1,210 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import io.airlift.airship.shared.InstallationRepresentation;
+import io.airlift.airship.shared.SlotCommandRepresentation;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation;
+
+import javax.annotation.PreDestroy;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.checkAgentVersion;
+import static io.airlift.airship.shared.VersionsUtil.checkSlotVersion;
+
+/**
+ * Applies lifecycle and assignment commands to several slots in one request.
+ * Commands for different slots run concurrently, up to the agent's limit on
+ * concurrent slot operations, and the response contains the resulting status
+ * of each slot in the order of the commands.
+ */
+@Path("/v1/agent/slot/command")
+public class SlotCommandResource
+{
+    private final Agent agent;
+    private final ExecutorService executor;
+
+    @Inject
+    public SlotCommandResource(Agent agent)
+    {
+        Preconditions.checkNotNull(agent, "agent is null");
+
+        this.agent = agent;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("slot-command-%s").build());
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
+    public Response execute(@HeaderParam(AIRSHIP_AGENT_VERSION_HEADER) String agentVersion, List<SlotCommandRepresentation> commands)
+    {
+        Preconditions.checkNotNull(commands, "commands must not be null");
+
+        // validate the entire batch before changing any slot
+        List<Callable<SlotStatus>> tasks = newArrayList();
+        List<Slot> slots = newArrayList();
+        Set<UUID> slotIds = newHashSet();
+        for (SlotCommandRepresentation command : commands) {
+            Preconditions.checkNotNull(command, "command must not be null");
+            Preconditions.checkNotNull(command.getSlotId(), "slotId must not be null");
+
+            if (!slotIds.add(command.getSlotId())) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            Slot slot = agent.getSlot(command.getSlotId());
+            if (slot == null) {
+                // not 404, which the coordinator takes to mean this endpoint does not exist
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Agent does not have slot " + command.getSlotId())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+
+            Callable<SlotStatus> task = createTask(slot, command);
+            if (task == null) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            if (command.getInstallation() != null) {
+                checkAgentVersion(agent.getAgentStatus(), agentVersion);
+            }
+            checkSlotVersion(slot.status(), command.getSlotVersion());
+
+            slots.add(slot);
+            tasks.add(task);
+        }
+
+        List<Future<SlotStatus>> futures = newArrayList();
+        for (Callable<SlotStatus> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+
+        ImmutableList.Builder<SlotStatusRepresentation> results = ImmutableList.builder();
+        for (int i = 0; i < futures.size(); i++) {
+            SlotStatus status;
+            try {
+                status = futures.get(i).get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while executing slot commands", e);
+            }
+            catch (ExecutionException e) {
+                // report the failure for this slot without failing the others; as with
+                // the single slot resources, the state of a slot after a failed command is unknown
+                status = slots.get(i).status()
+                        .changeState(UNKNOWN)
+                        .changeStatusMessage(e.getCause().getMessage());
+            }
+            results.add(SlotStatusRepresentation.from(status));
+        }
+
+        return Response.ok(results.build())
+                .header(AIRSHIP_AGENT_VERSION_HEADER, agent.getAgentStatus().getVersion())
+                .build();
+    }
+
+    private static Callable<SlotStatus> createTask(final Slot slot, SlotCommandRepresentation command)
+    {
+        if (command.getInstallation() != null) {
+            if (command.getState() != null) {
+                return null;
+            }
+            final InstallationRepresentation installation = command.getInstallation();
+            return new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.assign(installation.toInstallation());
+                }
+            };
+        }
+
+        String state = command.getState();
+        if ("running".equals(state)) {
+            return new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.start();
+                }
+            };
+        }
+        if ("restarting".equals(state)) {
+            return new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.restart();
+                }
+            };
+        }
+        if ("stopped".equals(state)) {
+            return new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.stop();
+                }
+            };
+        }
+        if ("killing".equals(state)) {
+            return new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.kill();
+                }
+            };
+        }
+        return null;
+    }
+}
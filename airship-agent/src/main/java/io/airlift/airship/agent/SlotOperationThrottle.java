@@ -0,0 +1,64 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.base.Preconditions;
+import io.airlift.units.Duration;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of slot installs, assignments, starts and restarts that
+ * run at the same time on an agent.  Operations queue in arrival order for
+ * up to the maximum wait, which should cover a full batch of operations
+ * since each one may take minutes.
+ */
+public class SlotOperationThrottle
+{
+    private final Semaphore permits;
+    private final Duration maxWait;
+
+    public SlotOperationThrottle(int maxConcurrentOperations, Duration maxWait)
+    {
+        Preconditions.checkArgument(maxConcurrentOperations > 0, "maxConcurrentOperations must be at least 1");
+        Preconditions.checkNotNull(maxWait, "maxWait is null");
+
+        this.permits = new Semaphore(maxConcurrentOperations, true);
+        this.maxWait = maxWait;
+    }
+
+    public void acquire()
+    {
+        try {
+            if (!permits.tryAcquire((long) maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new LockTimeoutException(maxWait, permits.getQueueLength());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void release()
+    {
+        permits.release();
+    }
+
+    public int getAvailablePermits()
+    {
+        return permits.availablePermits();
+    }
+}
@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.checkAgentVersion;
@@ -58,7 +59,7 @@ public class SlotResource
 
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response installSlot(@HeaderParam(AIRSHIP_AGENT_VERSION_HEADER) String agentVersion, InstallationRepresentation installation, @Context UriInfo uriInfo)
     {
         Preconditions.checkNotNull(installation, "installation must not be null");
@@ -104,7 +105,7 @@ public class SlotResource
 
     @Path("{slotId}")
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response getSlotStatus(@PathParam("slotId") UUID slotId, @Context UriInfo uriInfo)
     {
         Preconditions.checkNotNull(slotId, "slotId must not be null");
@@ -122,7 +123,7 @@ public class SlotResource
     }
 
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response getAllSlotsStatus(@Context UriInfo uriInfo)
     {
         List<SlotStatusRepresentation> representations = Lists.newArrayList();
@@ -0,0 +1,125 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
+import io.airlift.airship.shared.SlotStatus;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+/**
+ * Tracks the sequence number at which each slot last changed, so the
+ * coordinator can fetch only the slots that changed since its last poll.
+ */
+public class SlotStatusJournal
+{
+    private static final int MAX_REMOVED_SLOTS = 1000;
+
+    @GuardedBy("this")
+    private final Map<UUID, SlotVersion> slotVersions = newHashMap();
+
+    @GuardedBy("this")
+    private final LinkedHashMap<UUID, Long> removedSlots = new LinkedHashMap<>();
+
+    @GuardedBy("this")
+    private long sequence;
+
+    // deltas from before this sequence may be missing removed slots
+    @GuardedBy("this")
+    private long minimumSequence;
+
+    public SlotStatusJournal()
+    {
+        // start past any sequence handed out before a restart, so stale
+        // coordinators are always sent a full status
+        sequence = System.currentTimeMillis();
+        minimumSequence = sequence;
+    }
+
+    public synchronized AgentStatusDeltaRepresentation getDelta(AgentStatus agentStatus, Long sinceSequence)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+
+        record(agentStatus);
+
+        // unknown sequences, from before a restart or older than the removed slots we remember, get everything
+        boolean full = sinceSequence == null || sinceSequence < minimumSequence || sinceSequence > sequence;
+        if (full) {
+            return AgentStatusDeltaRepresentation.from(agentStatus, sequence, true, agentStatus.getSlotStatuses(), ImmutableList.<UUID>of());
+        }
+
+        ImmutableList.Builder<SlotStatus> changedSlots = ImmutableList.builder();
+        for (SlotStatus slotStatus : agentStatus.getSlotStatuses()) {
+            if (slotVersions.get(slotStatus.getId()).sequence > sinceSequence) {
+                changedSlots.add(slotStatus);
+            }
+        }
+        ImmutableList.Builder<UUID> removed = ImmutableList.builder();
+        for (Entry<UUID, Long> entry : removedSlots.entrySet()) {
+            if (entry.getValue() > sinceSequence) {
+                removed.add(entry.getKey());
+            }
+        }
+        return AgentStatusDeltaRepresentation.from(agentStatus, sequence, false, changedSlots.build(), removed.build());
+    }
+
+    private void record(AgentStatus agentStatus)
+    {
+        for (SlotStatus slotStatus : agentStatus.getSlotStatuses()) {
+            SlotVersion slotVersion = slotVersions.get(slotStatus.getId());
+            if (slotVersion == null || !slotVersion.version.equals(slotStatus.getVersion())) {
+                sequence++;
+                slotVersions.put(slotStatus.getId(), new SlotVersion(slotStatus.getVersion(), sequence));
+                removedSlots.remove(slotStatus.getId());
+            }
+        }
+
+        for (Iterator<UUID> iterator = slotVersions.keySet().iterator(); iterator.hasNext(); ) {
+            UUID slotId = iterator.next();
+            if (agentStatus.getSlotStatus(slotId) == null) {
+                iterator.remove();
+                sequence++;
+                removedSlots.put(slotId, sequence);
+            }
+        }
+
+        for (Iterator<Long> iterator = removedSlots.values().iterator(); removedSlots.size() > MAX_REMOVED_SLOTS; ) {
+            minimumSequence = iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static class SlotVersion
+    {
+        private final String version;
+        private final long sequence;
+
+        private SlotVersion(String version, long sequence)
+        {
+            this.version = version;
+            this.sequence = sequence;
+        }
+    }
+}
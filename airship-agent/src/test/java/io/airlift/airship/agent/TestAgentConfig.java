@@ -18,6 +18,7 @@ import io.airlift.configuration.testing.ConfigAssertions;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -33,6 +34,11 @@ public class TestAgentConfig
                         .setLauncherStopTimeout(new Duration(15, TimeUnit.SECONDS))
                         .setTarTimeout(new Duration(1, TimeUnit.MINUTES))
                         .setMaxLockWait(new Duration(1, TimeUnit.SECONDS))
+                        .setCoordinatorUri(null)
+                        .setHeartbeatInterval(new Duration(30, TimeUnit.SECONDS))
+                        .setHeartbeatCheckInterval(new Duration(5, TimeUnit.SECONDS))
+                        .setMaxConcurrentSlotOperations(4)
+                        .setMaxSlotOperationWait(new Duration(1, TimeUnit.HOURS))
         );
     }
 
@@ -46,6 +52,11 @@ public class TestAgentConfig
                 .put("agent.launcher-stop-timeout", "50m")
                 .put("agent.tar-timeout", "10m")
                 .put("agent.max-lock-wait", "1m")
+                .put("agent.coordinator-uri", "http://coordinator:64000")
+                .put("agent.heartbeat-interval", "1m")
+                .put("agent.heartbeat-check-interval", "10s")
+                .put("agent.max-concurrent-slot-operations", "8")
+                .put("agent.max-slot-operation-wait", "2h")
                 .build();
 
         AgentConfig expected = new AgentConfig()
@@ -54,7 +65,12 @@ public class TestAgentConfig
                 .setLauncherTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setLauncherStopTimeout(new Duration(50, TimeUnit.MINUTES))
                 .setTarTimeout(new Duration(10, TimeUnit.MINUTES))
-                .setMaxLockWait(new Duration(1, TimeUnit.MINUTES));
+                .setMaxLockWait(new Duration(1, TimeUnit.MINUTES))
+                .setCoordinatorUri(URI.create("http://coordinator:64000"))
+                .setHeartbeatInterval(new Duration(1, TimeUnit.MINUTES))
+                .setHeartbeatCheckInterval(new Duration(10, TimeUnit.SECONDS))
+                .setMaxConcurrentSlotOperations(8)
+                .setMaxSlotOperationWait(new Duration(2, TimeUnit.HOURS));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
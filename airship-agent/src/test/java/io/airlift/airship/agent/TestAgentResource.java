@@ -13,7 +13,11 @@ import java.io.File;
 
 import static io.airlift.airship.agent.ResourcesUtil.TEST_RESOURCES;
 import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.toEntityTag;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 public class TestAgentResource
 {
@@ -46,7 +50,8 @@ public class TestAgentResource
     @Test
     public void testGetAllSlotsStatus()
     {
-        Response response = agentResource.getAllSlotsStatus();
+        Response response = agentResource.getAllSlotsStatus(null);
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
         AgentStatusRepresentation actual = (AgentStatusRepresentation) response.getEntity();
         assertEquals(actual.getAgentId(), agent.getAgentId());
         assertEquals(actual.getState(), ONLINE);
@@ -54,4 +59,19 @@ public class TestAgentResource
         assertEquals(actual.getResources(), TEST_RESOURCES);
         assertEquals(actual.getLocation(), agent.getLocation());
     }
+
+    @Test
+    public void testGetAllSlotsStatusNotModified()
+    {
+        String version = agent.getAgentStatus().getVersion();
+
+        Response response = agentResource.getAllSlotsStatus(toEntityTag(version));
+        assertEquals(response.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode());
+        assertNull(response.getEntity());
+        assertEquals(response.getMetadata().getFirst(AIRSHIP_AGENT_VERSION_HEADER), version);
+
+        response = agentResource.getAllSlotsStatus(toEntityTag("stale-version"));
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertNotNull(response.getEntity());
+    }
 }
@@ -13,7 +13,9 @@
  */
 package io.airlift.airship.agent;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Resources;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -21,7 +23,9 @@ import io.airlift.airship.shared.HttpUriBuilder;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.InstallationHelper;
 import io.airlift.airship.shared.InstallationRepresentation;
+import io.airlift.airship.shared.SlotCommandRepresentation;
 import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation;
 import io.airlift.airship.shared.VersionsUtil;
 import io.airlift.configuration.ConfigurationFactory;
 import io.airlift.configuration.ConfigurationModule;
@@ -31,6 +35,8 @@ import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.JsonBodyGenerator;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import io.airlift.http.client.jetty.JettyHttpClient;
 import io.airlift.http.server.testing.TestingHttpServer;
@@ -55,6 +61,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static io.airlift.airship.shared.ExtraAssertions.assertEqualsNoOrder;
 import static io.airlift.airship.shared.FileUtils.createTempDir;
@@ -63,6 +70,8 @@ import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
@@ -88,6 +97,7 @@ public class TestServer
     private final JsonCodec<InstallationRepresentation> installationCodec = jsonCodec(InstallationRepresentation.class);
     private final JsonCodec<Map<String, Object>> mapCodec = mapJsonCodec(String.class, Object.class);
     private final JsonCodec<List<Map<String, Object>>> listCodec = listJsonCodec(mapCodec);
+    private final JsonCodec<List<SlotCommandRepresentation>> slotCommandsCodec = listJsonCodec(SlotCommandRepresentation.class);
 
     private InstallationHelper installationHelper;
     private Installation appleInstallation;
@@ -184,6 +194,42 @@ public class TestServer
         assertEquals(response, expected);
     }
 
+    @Test
+    public void testGetSlotStatusSmile()
+            throws Exception
+    {
+        SlotStatus slotStatus = agent.install(appleInstallation);
+        URI uri = urlFor("/v1/agent/slot", slotStatus.getId().toString());
+
+        Request jsonRequest = Request.Builder.prepareGet().setUri(uri).build();
+        SlotStatusRepresentation expected = client.execute(jsonRequest, createJsonResponseHandler(jsonCodec(SlotStatusRepresentation.class), Status.OK.getStatusCode()));
+
+        Request smileRequest = Request.Builder.prepareGet()
+                .setUri(uri)
+                .setHeader(ACCEPT, APPLICATION_SMILE)
+                .build();
+        byte[] smile = client.execute(smileRequest, new ResponseHandler<byte[], Exception>()
+        {
+            @Override
+            public byte[] handleException(Request request, Exception exception)
+                    throws Exception
+            {
+                throw exception;
+            }
+
+            @Override
+            public byte[] handle(Request request, Response response)
+                    throws Exception
+            {
+                assertEquals(response.getStatusCode(), Status.OK.getStatusCode());
+                assertEquals(response.getHeader(CONTENT_TYPE), APPLICATION_SMILE);
+                return ByteStreams.toByteArray(response.getInputStream());
+            }
+        });
+
+        assertEquals(smileCodec(SlotStatusRepresentation.class).fromSmile(smile), expected);
+    }
+
     @Test
     public void testGetAllSlotStatusEmpty()
             throws Exception
@@ -450,6 +496,32 @@ public class TestServer
         assertEquals(response, expected);
     }
 
+    @Test
+    public void testSlotCommands()
+            throws Exception
+    {
+        SlotStatus appleStatus = agent.install(appleInstallation);
+        SlotStatus bananaStatus = agent.install(bananaInstallation);
+
+        List<SlotCommandRepresentation> commands = ImmutableList.of(
+                SlotCommandRepresentation.setState(appleStatus.getId(), appleStatus.getVersion(), "running"),
+                SlotCommandRepresentation.setState(bananaStatus.getId(), bananaStatus.getVersion(), "running"));
+        Request request = Request.Builder.preparePost()
+                .setUri(uriBuilderFrom(server.getBaseUrl()).appendPath("/v1/agent/slot/command").build())
+                .setHeader(CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                .setBodyGenerator(JsonBodyGenerator.jsonBodyGenerator(slotCommandsCodec, commands))
+                .build();
+        List<Map<String, Object>> response = client.execute(request, createJsonResponseHandler(listCodec, Status.OK.getStatusCode()));
+
+        assertEquals(response.size(), 2);
+        assertEquals(response.get(0).get("id"), appleStatus.getId().toString());
+        assertEquals(response.get(0).get("status"), RUNNING.toString());
+        assertEquals(response.get(1).get("id"), bananaStatus.getId().toString());
+        assertEquals(response.get(1).get("status"), RUNNING.toString());
+        assertEquals(agent.getSlot(appleStatus.getId()).status().getState(), RUNNING);
+        assertEquals(agent.getSlot(bananaStatus.getId()).status().getState(), RUNNING);
+    }
+
     @Test
     public void testLifecycleUnknown()
             throws Exception
@@ -13,12 +13,21 @@
  */
 package io.airlift.airship.agent;
 
+import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
 import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.InstallationHelper.APPLE_INSTALLATION;
@@ -26,10 +35,12 @@ import static io.airlift.airship.shared.InstallationHelper.BANANA_INSTALLATION;
 import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestSlot
 {
@@ -46,6 +57,7 @@ public class TestSlot
                 deploymentManager,
                 lifecycleManager,
                 APPLE_INSTALLATION,
+                new SlotOperationThrottle(1, new Duration(1, SECONDS)),
                 new Duration(1, SECONDS));
         SlotStatus status = slot.status();
         assertNotNull(status);
@@ -79,6 +91,7 @@ public class TestSlot
                 new MockDeploymentManager(),
                 new MockLifecycleManager(),
                 APPLE_INSTALLATION,
+                new SlotOperationThrottle(1, new Duration(1, SECONDS)),
                 new Duration(1, SECONDS));
         SlotStatus status1 = slot.status();
         SlotStatus running = status1.changeAssignment(RUNNING, APPLE_ASSIGNMENT, status1.getResources());
@@ -120,4 +133,162 @@ public class TestSlot
         assertEquals(slot.kill(), stopped);
         assertEquals(slot.status(), stopped);
     }
+
+    @Test
+    public void testOperationsWaitForPermit()
+            throws Exception
+    {
+        SlotOperationThrottle operationThrottle = new SlotOperationThrottle(1, new Duration(1, SECONDS));
+        final Slot slot = new DeploymentSlot(URI.create("fake://localhost"),
+                URI.create("fake://localhost"),
+                new MockDeploymentManager(),
+                new MockLifecycleManager(),
+                APPLE_INSTALLATION,
+                operationThrottle,
+                new Duration(1, SECONDS));
+
+        // simulate an operation on another slot of the same agent
+        operationThrottle.acquire();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SlotStatus> start = executor.submit(new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return slot.start();
+                }
+            });
+
+            // the start waits for the permit, but the slot still reports its status
+            try {
+                start.get(100, TimeUnit.MILLISECONDS);
+                fail("expected start to wait for a permit");
+            }
+            catch (TimeoutException expected) {
+            }
+            assertEquals(slot.status().getState(), STOPPED);
+
+            operationThrottle.release();
+            assertEquals(start.get(10, SECONDS).getState(), RUNNING);
+            assertEquals(operationThrottle.getAvailablePermits(), 1);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOperationPermitTimeout()
+            throws Exception
+    {
+        SlotOperationThrottle operationThrottle = new SlotOperationThrottle(1, new Duration(100, MILLISECONDS));
+        Slot slot = new DeploymentSlot(URI.create("fake://localhost"),
+                URI.create("fake://localhost"),
+                new MockDeploymentManager(),
+                new MockLifecycleManager(),
+                APPLE_INSTALLATION,
+                operationThrottle,
+                new Duration(1, SECONDS));
+
+        // simulate a stuck operation on another slot of the same agent
+        operationThrottle.acquire();
+        try {
+            slot.start();
+            fail("expected LockTimeoutException");
+        }
+        catch (LockTimeoutException expected) {
+        }
+        assertEquals(slot.status().getState(), STOPPED);
+
+        // stop and kill are not throttled
+        assertEquals(slot.kill().getState(), STOPPED);
+        assertEquals(slot.stop().getState(), STOPPED);
+
+        // the failed operation does not leak a permit
+        operationThrottle.release();
+        assertEquals(operationThrottle.getAvailablePermits(), 1);
+        assertEquals(slot.start().getState(), RUNNING);
+    }
+
+    @Test
+    public void testMoreOperationsThanPermits()
+            throws Exception
+    {
+        // each start takes longer than the slot lock wait, and there are more slots than permits
+        Duration lockWait = new Duration(50, MILLISECONDS);
+        SlotOperationThrottle operationThrottle = new SlotOperationThrottle(2, new Duration(1, TimeUnit.MINUTES));
+        List<Slot> slots = newArrayList();
+        for (int i = 0; i < 9; i++) {
+            slots.add(new DeploymentSlot(URI.create("fake://localhost"),
+                    URI.create("fake://localhost"),
+                    new MockDeploymentManager(),
+                    new SlowLifecycleManager(200),
+                    APPLE_INSTALLATION,
+                    operationThrottle,
+                    lockWait));
+        }
+
+        final Slot idleSlot = slots.remove(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(slots.size() + 1);
+        try {
+            List<Future<SlotStatus>> starts = newArrayList();
+            for (final Slot slot : slots) {
+                starts.add(executor.submit(new Callable<SlotStatus>()
+                {
+                    @Override
+                    public SlotStatus call()
+                    {
+                        return slot.start();
+                    }
+                }));
+            }
+
+            // while the starts are queued, a kill is not held up
+            Future<SlotStatus> kill = executor.submit(new Callable<SlotStatus>()
+            {
+                @Override
+                public SlotStatus call()
+                {
+                    return idleSlot.kill();
+                }
+            });
+            assertEquals(kill.get(10, SECONDS).getState(), STOPPED);
+
+            // every start eventually runs
+            for (Future<SlotStatus> start : starts) {
+                assertEquals(start.get(1, TimeUnit.MINUTES).getState(), RUNNING);
+            }
+            assertEquals(operationThrottle.getAvailablePermits(), 2);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class SlowLifecycleManager
+            extends MockLifecycleManager
+    {
+        private final long delayMillis;
+
+        private SlowLifecycleManager(long delayMillis)
+        {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public SlotLifecycleState start(Deployment deployment)
+        {
+            try {
+                Thread.sleep(delayMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            return super.start(deployment);
+        }
+    }
 }
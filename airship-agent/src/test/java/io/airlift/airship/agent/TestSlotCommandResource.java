@@ -0,0 +1,182 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.InstallationRepresentation;
+import io.airlift.airship.shared.SlotCommandRepresentation;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation;
+import io.airlift.airship.shared.VersionConflictException;
+import io.airlift.http.server.HttpServerConfig;
+import io.airlift.http.server.HttpServerInfo;
+import io.airlift.node.NodeInfo;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.Response;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.InstallationHelper.APPLE_INSTALLATION;
+import static io.airlift.airship.shared.InstallationHelper.BANANA_INSTALLATION;
+import static io.airlift.airship.shared.SlotCommandRepresentation.assign;
+import static io.airlift.airship.shared.SlotCommandRepresentation.setState;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOT_VERSION_HEADER;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TestSlotCommandResource
+{
+    private SlotCommandResource resource;
+    private Agent agent;
+    private Slot appleSlot;
+    private Slot otherSlot;
+
+    @BeforeMethod
+    public void setup()
+    {
+        File tempDir = new File(System.getProperty("java.io.tmpdir"));
+
+        agent = new Agent(
+                new AgentConfig().setSlotsDir(new File(tempDir, "slots").getAbsolutePath()),
+                new HttpServerInfo(new HttpServerConfig(), new NodeInfo("test")),
+                new NodeInfo("test"),
+                new MockDeploymentManagerFactory(),
+                new MockLifecycleManager()
+        );
+
+        appleSlot = agent.getSlot(agent.install(APPLE_INSTALLATION).getId());
+        otherSlot = agent.getSlot(agent.install(APPLE_INSTALLATION).getId());
+
+        resource = new SlotCommandResource(agent);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        resource.stop();
+    }
+
+    @Test
+    public void testSetState()
+    {
+        Response response = resource.execute(null, ImmutableList.of(
+                setState(appleSlot.getId(), appleSlot.status().getVersion(), "running"),
+                setState(otherSlot.getId(), null, "running")));
+        assertOkResponse(response, appleSlot, otherSlot);
+        assertEquals(appleSlot.status().getState(), RUNNING);
+        assertEquals(otherSlot.status().getState(), RUNNING);
+
+        response = resource.execute(null, ImmutableList.of(
+                setState(otherSlot.getId(), null, "killing"),
+                setState(appleSlot.getId(), null, "restarting")));
+        assertOkResponse(response, otherSlot, appleSlot);
+        assertEquals(appleSlot.status().getState(), RUNNING);
+        assertEquals(otherSlot.status().getState(), STOPPED);
+    }
+
+    @Test
+    public void testAssign()
+    {
+        Response response = resource.execute(agent.getAgentStatus().getVersion(), ImmutableList.of(
+                assign(appleSlot.getId(), null, InstallationRepresentation.from(BANANA_INSTALLATION)),
+                setState(otherSlot.getId(), null, "running")));
+        assertOkResponse(response, appleSlot, otherSlot);
+        assertEquals(appleSlot.status().getAssignment(), BANANA_ASSIGNMENT);
+        assertEquals(otherSlot.status().getState(), RUNNING);
+    }
+
+    @Test
+    public void testCommandFailure()
+    {
+        appleSlot.terminate();
+
+        Response response = resource.execute(null, ImmutableList.of(
+                setState(appleSlot.getId(), null, "running"),
+                setState(otherSlot.getId(), null, "running")));
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+
+        // the failed command does not prevent the others from running
+        List<?> statuses = (List<?>) response.getEntity();
+        assertEquals(((SlotStatusRepresentation) statuses.get(0)).getStatus(), UNKNOWN.name());
+        assertEquals(((SlotStatusRepresentation) statuses.get(0)).getStatusMessage(), "Slot has been terminated");
+        assertEquals(((SlotStatusRepresentation) statuses.get(1)).getStatus(), RUNNING.name());
+        assertEquals(otherSlot.status().getState(), RUNNING);
+    }
+
+    @Test
+    public void testUnknownSlot()
+    {
+        Response response = resource.execute(null, ImmutableList.of(
+                setState(appleSlot.getId(), null, "running"),
+                setState(UUID.randomUUID(), null, "running")));
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+
+        // nothing is changed when the batch is rejected
+        assertEquals(appleSlot.status().getState(), STOPPED);
+    }
+
+    @Test
+    public void testUnknownState()
+    {
+        Response response = resource.execute(null, ImmutableList.of(setState(appleSlot.getId(), null, "unknown")));
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+    }
+
+    @Test
+    public void testDuplicateSlot()
+    {
+        Response response = resource.execute(null, ImmutableList.of(
+                setState(appleSlot.getId(), null, "running"),
+                setState(appleSlot.getId(), null, "stopped")));
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+    }
+
+    @Test
+    public void testInvalidVersion()
+    {
+        try {
+            resource.execute(null, ImmutableList.of(
+                    setState(appleSlot.getId(), null, "running"),
+                    setState(otherSlot.getId(), "invalid-version", "running")));
+            fail("Expected VersionConflictException");
+        }
+        catch (VersionConflictException e) {
+            assertEquals(e.getName(), AIRSHIP_SLOT_VERSION_HEADER);
+            assertEquals(e.getVersion(), otherSlot.status().getVersion());
+        }
+        assertEquals(appleSlot.status().getState(), STOPPED);
+    }
+
+    private void assertOkResponse(Response response, Slot... slots)
+    {
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        ImmutableList.Builder<SlotStatusRepresentation> expected = ImmutableList.builder();
+        for (Slot slot : slots) {
+            SlotStatus status = slot.status();
+            expected.add(SlotStatusRepresentation.from(status));
+        }
+        assertEquals(response.getEntity(), expected.build());
+        assertEquals(response.getMetadata().get(AIRSHIP_AGENT_VERSION_HEADER).get(0), agent.getAgentStatus().getVersion());
+    }
+}
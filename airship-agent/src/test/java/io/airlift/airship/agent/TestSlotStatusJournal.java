@@ -0,0 +1,145 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.agent;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
+import io.airlift.airship.shared.Assignment;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSlotStatusJournal
+{
+    private final SlotStatus apple = createSlot("apple", APPLE_ASSIGNMENT);
+    private final SlotStatus banana = createSlot("banana", BANANA_ASSIGNMENT);
+
+    @Test
+    public void testFullWithoutSequence()
+    {
+        SlotStatusJournal journal = new SlotStatusJournal();
+
+        AgentStatusDeltaRepresentation delta = journal.getDelta(createAgentStatus(apple, banana), null);
+        assertTrue(delta.isFull());
+        assertEquals(delta.getSlots().size(), 2);
+        assertTrue(delta.getRemovedSlots().isEmpty());
+
+        // a full delta replaces the slots of the status it is applied to
+        AgentStatus applied = delta.applyTo(createAgentStatus(createSlot("cherry", APPLE_ASSIGNMENT)));
+        assertEquals(applied.getVersion(), createAgentStatus(apple, banana).getVersion());
+        assertEquals(applied.getSlotStatuses().size(), 2);
+    }
+
+    @Test
+    public void testUnchanged()
+    {
+        SlotStatusJournal journal = new SlotStatusJournal();
+        AgentStatus agentStatus = createAgentStatus(apple, banana);
+
+        long sequence = journal.getDelta(agentStatus, null).getSequence();
+        AgentStatusDeltaRepresentation delta = journal.getDelta(agentStatus, sequence);
+        assertFalse(delta.isFull());
+        assertEquals(delta.getSequence(), sequence);
+        assertTrue(delta.getSlots().isEmpty());
+        assertTrue(delta.getRemovedSlots().isEmpty());
+        assertEquals(delta.getVersion(), agentStatus.getVersion());
+    }
+
+    @Test
+    public void testChangedAndRemovedSlots()
+    {
+        SlotStatusJournal journal = new SlotStatusJournal();
+        AgentStatus initial = createAgentStatus(apple, banana);
+        long sequence = journal.getDelta(initial, null).getSequence();
+
+        // start apple and remove banana
+        SlotStatus runningApple = apple.changeState(RUNNING);
+        AgentStatus current = createAgentStatus(runningApple);
+        AgentStatusDeltaRepresentation delta = journal.getDelta(current, sequence);
+        assertFalse(delta.isFull());
+        assertTrue(delta.getSequence() > sequence);
+        assertEquals(slotIds(delta), ImmutableList.of(apple.getId()));
+        assertEquals(delta.getRemovedSlots(), ImmutableList.of(banana.getId()));
+
+        // applying the delta to the old status yields the current status
+        AgentStatus applied = delta.applyTo(initial);
+        assertEquals(applied.getVersion(), current.getVersion());
+        assertEquals(applied.getSlotStatus(apple.getId()).getState(), RUNNING);
+    }
+
+    @Test
+    public void testUnknownSequenceIsFull()
+    {
+        SlotStatusJournal journal = new SlotStatusJournal();
+        AgentStatus agentStatus = createAgentStatus(apple, banana);
+
+        long sequence = journal.getDelta(agentStatus, null).getSequence();
+
+        // a coordinator that polled an earlier incarnation of this agent
+        AgentStatusDeltaRepresentation delta = journal.getDelta(agentStatus, sequence + 100);
+        assertTrue(delta.isFull());
+        assertEquals(delta.getSlots().size(), 2);
+    }
+
+    private static List<UUID> slotIds(AgentStatusDeltaRepresentation delta)
+    {
+        ImmutableList.Builder<UUID> ids = ImmutableList.builder();
+        for (SlotStatusRepresentation slot : delta.getSlots()) {
+            ids.add(slot.getId());
+        }
+        return ids.build();
+    }
+
+    private static SlotStatus createSlot(String name, Assignment assignment)
+    {
+        return createSlotStatus(UUID.randomUUID(),
+                URI.create("fake://agent/slot/" + name),
+                URI.create("fake://agent/slot/" + name),
+                null,
+                "/location/" + name,
+                STOPPED,
+                assignment,
+                "/" + name,
+                ImmutableMap.<String, Integer>of());
+    }
+
+    private static AgentStatus createAgentStatus(SlotStatus... slots)
+    {
+        return new AgentStatus("agent-id",
+                ONLINE,
+                null,
+                URI.create("fake://agent/"),
+                URI.create("fake://agent/"),
+                "/location",
+                null,
+                ImmutableList.copyOf(slots),
+                ImmutableMap.<String, Integer>of());
+    }
+}
@@ -4,6 +4,8 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import io.airlift.airline.Option;
 import io.airlift.airship.coordinator.AgentFilterBuilder;
+import io.airlift.airship.coordinator.IdTrie;
+import io.airlift.airship.coordinator.ListingOptions;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.HttpUriBuilder;
@@ -58,6 +60,11 @@ public class AgentFilter
         return createFilterBuilder().build(allAgentUuids, allSlotUuids, allowDuplicateInstallationsOnAnAgent, repository);
     }
 
+    public Predicate<AgentStatus> toAgentPredicate(IdTrie allAgentUuids, IdTrie allSlotUuids, boolean allowDuplicateInstallationsOnAnAgent, Repository repository)
+    {
+        return createFilterBuilder().build(allAgentUuids, allSlotUuids, allowDuplicateInstallationsOnAnAgent, repository);
+    }
+
     public URI toUri(URI baseUri)
     {
         return createFilterBuilder().buildUri(baseUri);
@@ -68,6 +75,11 @@ public class AgentFilter
         return createFilterBuilder().buildUri(uriBuilder);
     }
 
+    public URI toUri(HttpUriBuilder uriBuilder, ListingOptions listingOptions)
+    {
+        return createFilterBuilder().buildUri(listingOptions.addTo(uriBuilder));
+    }
+
     private AgentFilterBuilder createFilterBuilder()
     {
         AgentFilterBuilder agentFilterBuilder = AgentFilterBuilder.builder();
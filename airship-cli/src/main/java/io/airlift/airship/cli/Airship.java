@@ -35,12 +35,14 @@ import io.airlift.airship.coordinator.AwsProvisionerConfig;
 import io.airlift.airship.coordinator.CoordinatorConfig;
 import io.airlift.airship.coordinator.HttpRepository;
 import io.airlift.airship.coordinator.Instance;
+import io.airlift.airship.coordinator.ListingOptions;
 import io.airlift.airship.coordinator.MavenRepository;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
 import io.airlift.airship.shared.Repository;
 import io.airlift.airship.shared.RepositorySet;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotStatusRepresentation;
 import io.airlift.airship.shared.UpgradeVersions;
 import io.airlift.configuration.ConfigurationFactory;
@@ -304,7 +306,7 @@ public class Airship
             }
 
             // show effected slots
-            CommanderResponse<List<SlotStatusRepresentation>> response = commander.show(slotFilter);
+            CommanderResponse<List<SlotStatusRepresentation>> response = commander.show(slotFilter, ListingOptions.ALL);
             displaySlots(response.getValue());
             if (response.getValue().isEmpty()) {
                 return;
@@ -377,11 +379,15 @@ public class Airship
         @Inject
         public final SlotFilter slotFilter = new SlotFilter();
 
+        @Inject
+        public final PageOptions pageOptions = new PageOptions();
+
         @Override
         public void execute(Commander commander)
         {
-            CommanderResponse<List<SlotStatusRepresentation>> response = commander.show(slotFilter);
+            CommanderResponse<List<SlotStatusRepresentation>> response = commander.show(slotFilter, pageOptions.toListingOptions());
             displaySlots(response.getValue());
+            pageOptions.displayNextCursor(response);
         }
 
         @Override
@@ -390,6 +396,7 @@ public class Airship
             final StringBuilder sb = new StringBuilder();
             sb.append("ShowCommand");
             sb.append("{slotFilter=").append(slotFilter);
+            sb.append(", pageOptions=").append(pageOptions);
             sb.append(", globalOptions=").append(globalOptions);
             sb.append('}');
             return sb.toString();
@@ -443,7 +450,7 @@ public class Airship
             }
 
             // select agents
-            CommanderResponse<List<AgentStatusRepresentation>> response = commander.showAgents(agentFilter);
+            CommanderResponse<List<AgentStatusRepresentation>> response = commander.showAgents(agentFilter, ListingOptions.ALL);
             List<AgentStatusRepresentation> agents = response.getValue();
             if (agents.isEmpty()) {
                 System.out.println("No agents match the provided filters, matched the software constrains or had the required resources available for the software");
@@ -501,6 +508,9 @@ public class Airship
         @Option(name = "--force", description = "Force upgrading slots in unknown status")
         public boolean force;
 
+        @Inject
+        public final RollingOptions rollingOptions = new RollingOptions();
+
         @Arguments(usage = "[<binary-version>] [@<config-version>]",
                 description = "Version of the binary and/or @configuration")
         public final List<String> versions = Lists.newArrayList();
@@ -528,12 +538,13 @@ public class Airship
             }
 
             final UpgradeVersions upgradeVersions = new UpgradeVersions(binaryVersion, configVersion);
+            final RollingPolicy rollingPolicy = rollingOptions.toRollingPolicy();
 
             verifySlotExecution(commander, slotFilter, "Are you sure you would like to UPGRADE these servers?", false, new SlotExecution()
             {
                 public void execute(Commander commander, SlotFilter slotFilter, String expectedVersion)
                 {
-                    List<SlotStatusRepresentation> slots = commander.upgrade(slotFilter, upgradeVersions, expectedVersion, force);
+                    List<SlotStatusRepresentation> slots = commander.upgrade(slotFilter, upgradeVersions, expectedVersion, force, rollingPolicy);
                     displaySlots(slots);
                 }
             });
@@ -546,6 +557,7 @@ public class Airship
             sb.append("UpgradeCommand");
             sb.append("{slotFilter=").append(slotFilter);
             sb.append(", versions=").append(versions);
+            sb.append(", rollingOptions=").append(rollingOptions);
             sb.append(", globalOptions=").append(globalOptions);
             sb.append('}');
             return sb.toString();
@@ -598,7 +610,7 @@ public class Airship
             {
                 public void execute(Commander commander, SlotFilter slotFilter, String expectedVersion)
                 {
-                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, RUNNING, expectedVersion);
+                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, RUNNING, expectedVersion, null);
                     displaySlots(slots);
                 }
             });
@@ -619,7 +631,7 @@ public class Airship
             {
                 public void execute(Commander commander, SlotFilter slotFilter, String expectedVersion)
                 {
-                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, STOPPED, expectedVersion);
+                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, STOPPED, expectedVersion, null);
                     displaySlots(slots);
                 }
             });
@@ -640,7 +652,7 @@ public class Airship
             {
                 public void execute(Commander commander, SlotFilter slotFilter, String expectedVersion)
                 {
-                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, KILLING, expectedVersion);
+                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, KILLING, expectedVersion, null);
                     displaySlots(slots);
                 }
             });
@@ -654,14 +666,18 @@ public class Airship
         @Inject
         public final SlotFilter slotFilter = new SlotFilter();
 
+        @Inject
+        public final RollingOptions rollingOptions = new RollingOptions();
+
         @Override
         public void execute(Commander commander)
         {
+            final RollingPolicy rollingPolicy = rollingOptions.toRollingPolicy();
             verifySlotExecution(commander, slotFilter, "Are you sure you would like to RESTART these servers?", true, new SlotExecution()
             {
                 public void execute(Commander commander, SlotFilter slotFilter, String expectedVersion)
                 {
-                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, RESTARTING, expectedVersion);
+                    List<SlotStatusRepresentation> slots = commander.setState(slotFilter, RESTARTING, expectedVersion, rollingPolicy);
                     displaySlots(slots);
                 }
             });
@@ -856,12 +872,16 @@ public class Airship
         @Inject
         public final AgentFilter agentFilter = new AgentFilter();
 
+        @Inject
+        public final PageOptions pageOptions = new PageOptions();
+
         @Override
         public void execute(Commander commander)
                 throws Exception
         {
-            CommanderResponse<List<AgentStatusRepresentation>> response = commander.showAgents(agentFilter);
+            CommanderResponse<List<AgentStatusRepresentation>> response = commander.showAgents(agentFilter, pageOptions.toListingOptions());
             displayAgents(response.getValue());
+            pageOptions.displayNextCursor(response);
         }
 
         @Override
@@ -871,6 +891,7 @@ public class Airship
             sb.append("AgentShowCommand");
             sb.append("{globalOptions=").append(globalOptions);
             sb.append(", agentFilter=").append(agentFilter);
+            sb.append(", pageOptions=").append(pageOptions);
             sb.append('}');
             return sb.toString();
         }
@@ -1,8 +1,10 @@
 package io.airlift.airship.cli;
 
+import io.airlift.airship.coordinator.ListingOptions;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatusRepresentation;
 import io.airlift.airship.shared.UpgradeVersions;
@@ -11,13 +13,13 @@ import java.util.List;
 
 public interface Commander
 {
-    CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter);
+    CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter, ListingOptions listingOptions);
 
     List<SlotStatusRepresentation> install(AgentFilter agentFilter, int count, Assignment assignment, String expectedVersion);
 
-    List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedVersion, boolean force);
+    List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedVersion, boolean force, RollingPolicy rollingPolicy);
 
-    List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedVersion);
+    List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedVersion, RollingPolicy rollingPolicy);
 
     List<SlotStatusRepresentation> terminate(SlotFilter slotFilter, String expectedVersion);
 
@@ -39,7 +41,7 @@ public interface Commander
 
     boolean sshCoordinator(CoordinatorFilter coordinatorFilter, String command);
 
-    CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter);
+    CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter, ListingOptions listingOptions);
 
     List<AgentStatusRepresentation> provisionAgents(String agentConfig,
             int agentCount,
@@ -28,9 +28,11 @@ import io.airlift.airship.coordinator.RemoteCoordinator;
 import io.airlift.airship.coordinator.RemoteCoordinatorFactory;
 import io.airlift.airship.coordinator.RemoteSlot;
 import io.airlift.airship.coordinator.ServiceInventory;
+import io.airlift.airship.coordinator.SlotCommand;
 import io.airlift.airship.coordinator.StateManager;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.ExpectedSlotStatus;
@@ -234,8 +236,9 @@ public class CommanderFactory
                 provisioner,
                 stateManager,
                 serviceInventory,
-                new Duration(100, TimeUnit.DAYS),
-                allowDuplicateInstallations);
+                new CoordinatorConfig()
+                        .setStatusExpiration(new Duration(100, TimeUnit.DAYS))
+                        .setAllowDuplicateInstallationsOnAnAgent(allowDuplicateInstallations));
 
         return new LocalCommander(environment, new File(slotsDir), coordinator, repository, serviceInventory);
     }
@@ -335,9 +338,15 @@ public class CommanderFactory
         }
 
         @Override
-        public SlotStatus install(Installation installation)
+        public ListenableFuture<SlotStatus> install(Installation installation)
         {
-            return agent.install(installation).changeInstanceId(agentId);
+            return Futures.immediateFuture(agent.install(installation).changeInstanceId(agentId));
+        }
+
+        @Override
+        public ListenableFuture<List<SlotStatus>> execute(List<SlotCommand> commands)
+        {
+            return SlotCommand.executeSerially(this, commands);
         }
 
         @Override
@@ -365,6 +374,16 @@ public class CommanderFactory
             return builder.build();
         }
 
+        @Override
+        public RemoteSlot getSlot(UUID slotId)
+        {
+            Slot slot = agent.getSlot(slotId);
+            if (slot == null) {
+                return null;
+            }
+            return new LocalRemoteSlot(slot, agentId);
+        }
+
         @Override
         public ListenableFuture<?> updateStatus()
         {
@@ -372,7 +391,22 @@ public class CommanderFactory
         }
 
         @Override
-        public void setServiceInventory(List<ServiceDescriptor> serviceInventory)
+        public void heartbeat(AgentStatusRepresentation agentStatus, String serviceInventoryVersion)
+        {
+        }
+
+        @Override
+        public void applyStatus(AgentStatusRepresentation agentStatus)
+        {
+        }
+
+        @Override
+        public void markOffline()
+        {
+        }
+
+        @Override
+        public void setServiceInventory(String serviceInventoryVersion, List<ServiceDescriptor> serviceInventory)
         {
         }
     }
@@ -396,15 +430,15 @@ public class CommanderFactory
         }
 
         @Override
-        public SlotStatus terminate()
+        public ListenableFuture<SlotStatus> terminate()
         {
-            return slot.terminate().changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.terminate().changeInstanceId(instanceId));
         }
 
         @Override
-        public SlotStatus assign(Installation installation)
+        public ListenableFuture<SlotStatus> assign(Installation installation)
         {
-            return slot.assign(installation).changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.assign(installation).changeInstanceId(instanceId));
         }
 
         @Override
@@ -414,27 +448,27 @@ public class CommanderFactory
         }
 
         @Override
-        public SlotStatus start()
+        public ListenableFuture<SlotStatus> start()
         {
-            return slot.start().changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.start().changeInstanceId(instanceId));
         }
 
         @Override
-        public SlotStatus restart()
+        public ListenableFuture<SlotStatus> restart()
         {
-            return slot.restart().changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.restart().changeInstanceId(instanceId));
         }
 
         @Override
-        public SlotStatus stop()
+        public ListenableFuture<SlotStatus> stop()
         {
-            return slot.stop().changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.stop().changeInstanceId(instanceId));
         }
 
         @Override
-        public SlotStatus kill()
+        public ListenableFuture<SlotStatus> kill()
         {
-            return slot.kill().changeInstanceId(instanceId);
+            return Futures.immediateFuture(slot.kill().changeInstanceId(instanceId));
         }
     }
 
@@ -1,19 +1,28 @@
 package io.airlift.airship.cli;
 
+import javax.annotation.Nullable;
+
 public class CommanderResponse<T>
 {
     public static <T> CommanderResponse<T> createCommanderResponse(String version, T value)
     {
-        return new CommanderResponse<T>(version, value);
+        return new CommanderResponse<T>(version, value, null);
+    }
+
+    public static <T> CommanderResponse<T> createCommanderResponse(String version, T value, @Nullable String nextCursor)
+    {
+        return new CommanderResponse<T>(version, value, nextCursor);
     }
 
     private final String version;
     private final T value;
+    private final String nextCursor;
 
-    private CommanderResponse(String version, T value)
+    private CommanderResponse(String version, T value, String nextCursor)
     {
         this.version = version;
         this.value = value;
+        this.nextCursor = nextCursor;
     }
 
     public String getVersion()
@@ -26,6 +35,15 @@ public class CommanderResponse<T>
         return value;
     }
 
+    /**
+     * Returns the cursor for the next page of a paged listing, or null if there are no more items.
+     */
+    @Nullable
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
     @Override
     public String toString()
     {
@@ -33,6 +51,7 @@ public class CommanderResponse<T>
         sb.append("CommanderResponse");
         sb.append("{version='").append(version).append('\'');
         sb.append(", value=").append(value);
+        sb.append(", nextCursor=").append(nextCursor);
         sb.append('}');
         return sb.toString();
     }
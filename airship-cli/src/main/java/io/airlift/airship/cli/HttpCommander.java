@@ -5,39 +5,45 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import io.airlift.airship.coordinator.AgentProvisioningRepresentation;
 import io.airlift.airship.coordinator.CoordinatorProvisioningRepresentation;
+import io.airlift.airship.coordinator.ListingOptions;
+import io.airlift.airship.coordinator.Rollout;
+import io.airlift.airship.coordinator.RolloutRepresentation;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.AssignmentRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatusRepresentation;
 import io.airlift.airship.shared.UpgradeVersions;
 import io.airlift.http.client.BodyGenerator;
-import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.jetty.JettyHttpClient;
 import io.airlift.json.JsonCodec;
+import io.airlift.units.Duration;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
-import static io.airlift.airship.cli.CommanderResponse.createCommanderResponse;
 import static io.airlift.airship.cli.HttpCommander.TextBodyGenerator.textBodyGenerator;
+import static io.airlift.airship.cli.JsonStreamingResponseHandler.createJsonStreamingResponseHandler;
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENTS_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_FORCE_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_ROLLING_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOTS_VERSION_HEADER;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 
 public class HttpCommander
         implements Commander
@@ -53,6 +59,9 @@ public class HttpCommander
     private static final JsonCodec<List<AgentStatusRepresentation>> AGENTS_CODEC = JsonCodec.listJsonCodec(AgentStatusRepresentation.class);
     private static final JsonCodec<AgentProvisioningRepresentation> AGENT_PROVISIONING_CODEC = JsonCodec.jsonCodec(AgentProvisioningRepresentation.class);
 
+    private static final JsonCodec<RolloutRepresentation> ROLLOUT_CODEC = JsonCodec.jsonCodec(RolloutRepresentation.class);
+    private static final Duration ROLLOUT_POLL_INTERVAL = new Duration(1, TimeUnit.SECONDS);
+
     private final HttpClient client;
     private final URI coordinatorUri;
     private final boolean useInternalAddress;
@@ -67,15 +76,14 @@ public class HttpCommander
     }
 
     @Override
-    public CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter)
+    public CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter, ListingOptions listingOptions)
     {
-        URI uri = slotFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("/v1/slot"));
+        URI uri = slotFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("/v1/slot"), listingOptions);
         Request request = Request.Builder.prepareGet()
                 .setUri(uri)
                 .build();
 
-        JsonResponse<List<SlotStatusRepresentation>> response = client.execute(request, createFullJsonResponseHandler(SLOTS_CODEC));
-        return createCommanderResponse(response.getHeader(AIRSHIP_SLOTS_VERSION_HEADER), response.getValue());
+        return client.execute(request, createJsonStreamingResponseHandler(SlotStatusRepresentation.class, AIRSHIP_SLOTS_VERSION_HEADER));
     }
 
     @Override
@@ -95,7 +103,7 @@ public class HttpCommander
     }
 
     @Override
-    public List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedVersion, boolean force)
+    public List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedVersion, boolean force, RollingPolicy rollingPolicy)
     {
         URI uri = slotFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("/v1/slot/assignment"));
         Request.Builder requestBuilder = Request.Builder.preparePost()
@@ -109,12 +117,11 @@ public class HttpCommander
             requestBuilder.setHeader(AIRSHIP_FORCE_HEADER, "true");
         }
 
-        List<SlotStatusRepresentation> slots = client.execute(requestBuilder.build(), createJsonResponseHandler(SLOTS_CODEC));
-        return slots;
+        return executeSlotCommand(requestBuilder, rollingPolicy);
     }
 
     @Override
-    public List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedVersion)
+    public List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedVersion, RollingPolicy rollingPolicy)
     {
         URI uri = slotFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("/v1/slot/lifecycle"));
         Request.Builder requestBuilder = Request.Builder.preparePut()
@@ -124,8 +131,65 @@ public class HttpCommander
             requestBuilder.setHeader(AIRSHIP_SLOTS_VERSION_HEADER, expectedVersion);
         }
 
-        List<SlotStatusRepresentation> slots = client.execute(requestBuilder.build(), createJsonResponseHandler(SLOTS_CODEC));
-        return slots;
+        return executeSlotCommand(requestBuilder, rollingPolicy);
+    }
+
+    private List<SlotStatusRepresentation> executeSlotCommand(Request.Builder requestBuilder, RollingPolicy rollingPolicy)
+    {
+        if (rollingPolicy == null) {
+            return client.execute(requestBuilder.build(), createJsonResponseHandler(SLOTS_CODEC));
+        }
+
+        // the coordinator runs the batches in the background, and cancels them if we stop polling
+        requestBuilder.setHeader(AIRSHIP_ROLLING_HEADER, rollingPolicy.toString());
+        RolloutRepresentation rollout = client.execute(requestBuilder.build(), createJsonResponseHandler(ROLLOUT_CODEC));
+        final URI rolloutUri = uriBuilderFrom(coordinatorUri).replacePath("/v1/slot/rollout").appendPath(rollout.getId()).build();
+
+        // cancel the rollout right away if the command is interrupted
+        Thread cancelRollout = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    client.execute(Request.Builder.prepareDelete().setUri(rolloutUri).build(), createStatusResponseHandler());
+                }
+                catch (RuntimeException ignored) {
+                    // the coordinator cancels the rollout once we stop polling
+                }
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(cancelRollout);
+        try {
+            int processedSlots = 0;
+            while (rollout.getState() == Rollout.State.RUNNING) {
+                if (rollout.getProcessedSlots() != processedSlots) {
+                    processedSlots = rollout.getProcessedSlots();
+                    System.err.printf("%s of %s slots processed, %s failed%n", processedSlots, rollout.getTotalSlots(), rollout.getFailedSlots());
+                }
+
+                TimeUnit.MILLISECONDS.sleep((long) ROLLOUT_POLL_INTERVAL.toMillis());
+                rollout = client.execute(Request.Builder.prepareGet().setUri(rolloutUri).build(), createJsonResponseHandler(ROLLOUT_CODEC));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelRollout.run();
+            throw new RuntimeException("Interrupted while waiting for rollout " + rollout.getId(), e);
+        }
+        finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(cancelRollout);
+            }
+            catch (IllegalStateException ignored) {
+                // already shutting down
+            }
+        }
+
+        if (rollout.getState() != Rollout.State.SUCCEEDED) {
+            throw new RuntimeException(rollout.getError());
+        }
+        return rollout.getSlots();
     }
 
     @Override
@@ -276,18 +340,14 @@ public class HttpCommander
     }
 
     @Override
-    public CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter)
+    public CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter, ListingOptions listingOptions)
     {
-        URI uri = agentFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("v1/admin/agent"));
+        URI uri = agentFilter.toUri(uriBuilderFrom(coordinatorUri).replacePath("v1/admin/agent"), listingOptions);
         Request request = Request.Builder.prepareGet()
                 .setUri(uri)
                 .build();
 
-        JsonResponse<List<AgentStatusRepresentation>> response = client.execute(request, createFullJsonResponseHandler(AGENTS_CODEC));
-        if (response.getStatusCode() != 200) {
-            throw new RuntimeException(response.getStatusMessage());
-        }
-        return CommanderResponse.createCommanderResponse(response.getHeader(AIRSHIP_AGENTS_VERSION_HEADER), response.getValue());
+        return client.execute(request, createJsonStreamingResponseHandler(AgentStatusRepresentation.class, AIRSHIP_AGENTS_VERSION_HEADER));
     }
 
     @Override
@@ -0,0 +1,76 @@
+package io.airlift.airship.cli;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.ObjectMapperProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static io.airlift.airship.cli.CommanderResponse.createCommanderResponse;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_NEXT_CURSOR_HEADER;
+
+/**
+ * Parses a JSON array response one element at a time straight from the
+ * response stream, so the raw body is never held in memory next to the
+ * parsed values.
+ */
+public class JsonStreamingResponseHandler<T>
+        implements ResponseHandler<CommanderResponse<List<T>>, RuntimeException>
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+
+    private final Class<T> type;
+    private final String versionHeader;
+
+    public static <T> JsonStreamingResponseHandler<T> createJsonStreamingResponseHandler(Class<T> type, String versionHeader)
+    {
+        return new JsonStreamingResponseHandler<>(type, versionHeader);
+    }
+
+    public JsonStreamingResponseHandler(Class<T> type, String versionHeader)
+    {
+        Preconditions.checkNotNull(type, "type is null");
+        Preconditions.checkNotNull(versionHeader, "versionHeader is null");
+        this.type = type;
+        this.versionHeader = versionHeader;
+    }
+
+    @Override
+    public CommanderResponse<List<T>> handleException(Request request, Exception exception)
+    {
+        throw new RuntimeException("Request to " + request.getUri() + " failed", exception);
+    }
+
+    @Override
+    public CommanderResponse<List<T>> handle(Request request, Response response)
+    {
+        if (response.getStatusCode() != 200) {
+            throw new RuntimeException(response.getStatusMessage());
+        }
+
+        try (InputStream input = response.getInputStream();
+                JsonParser parser = OBJECT_MAPPER.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("Expected a JSON array from " + request.getUri());
+            }
+
+            ImmutableList.Builder<T> builder = ImmutableList.builder();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                builder.add(OBJECT_MAPPER.readValue(parser, type));
+            }
+            List<T> values = builder.build();
+            return createCommanderResponse(response.getHeader(versionHeader), values, response.getHeader(AIRSHIP_NEXT_CURSOR_HEADER));
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Unable to parse response from " + request.getUri(), e);
+        }
+    }
+}
@@ -4,6 +4,9 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Predicate;
 import com.google.common.io.Files;
 import io.airlift.airship.coordinator.Coordinator;
+import io.airlift.airship.coordinator.FleetSnapshot;
+import io.airlift.airship.coordinator.ListingOptions;
+import io.airlift.airship.coordinator.ListingOptions.Page;
 import io.airlift.airship.coordinator.ServiceInventory;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.AgentStatusRepresentation;
@@ -11,6 +14,7 @@ import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
 import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.SlotStatusRepresentation;
@@ -23,15 +27,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.transform;
 import static io.airlift.airship.cli.CommanderResponse.createCommanderResponse;
-import static io.airlift.airship.shared.AgentStatus.idGetter;
 import static io.airlift.airship.shared.AgentStatusRepresentation.fromAgentStatus;
 import static io.airlift.airship.shared.CoordinatorStatusRepresentation.fromCoordinatorStatus;
-import static io.airlift.airship.shared.SlotStatus.uuidGetter;
 import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
 import static io.airlift.airship.shared.VersionsUtil.checkAgentsVersion;
 import static io.airlift.airship.shared.VersionsUtil.createAgentsVersion;
@@ -58,28 +59,28 @@ public class LocalCommander
     }
 
     @Override
-    public CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter)
+    public CommanderResponse<List<SlotStatusRepresentation>> show(SlotFilter slotFilter, ListingOptions listingOptions)
     {
-        List<SlotStatus> allSlotStatus = coordinator.getAllSlotStatus();
-        List<UUID> uuids = transform(allSlotStatus, SlotStatus.uuidGetter());
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
 
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(false, uuids);
-
-        List<SlotStatus> slots = coordinator.getAllSlotsStatus(slotPredicate);
+        Page<SlotStatus> page = listingOptions.pageSlots(slotFilter.selectSlots(false, snapshot));
+        List<SlotStatus> slots = page.getItems();
 
         // update just in case something changed
         updateServiceInventory();
 
-        return createCommanderResponse(createSlotsVersion(slots), transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository)));
+        // field projection only applies to the wire format, so local listings are always complete
+        return createCommanderResponse(createSlotsVersion(slots), transform(slots, fromSlotStatus(snapshot.getSlotStatusRepresentationFactory(repository))), page.getNextCursor());
     }
 
     @Override
     public List<SlotStatusRepresentation> install(AgentFilter agentFilter, int count, Assignment assignment, String expectedAgentsVersion)
     {
         // select the target agents
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
         Predicate<AgentStatus> agentsPredicate = agentFilter.toAgentPredicate(
-                transform(coordinator.getAgents(), idGetter()),
-                transform(coordinator.getAllSlotStatus(), uuidGetter()),
+                snapshot.getAgentIdTrie(),
+                snapshot.getSlotIdTrie(),
                 true,
                 repository);
         List<AgentStatus> agents = coordinator.getAgents(agentsPredicate);
@@ -94,52 +95,49 @@ public class LocalCommander
         updateServiceInventory();
 
         // calculate unique prefix size with the new slots included
-        return transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository));
+        return transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
     }
 
     @Override
-    public List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force)
+    public List<SlotStatusRepresentation> upgrade(SlotFilter slotFilter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force, RollingPolicy rollingPolicy)
     {
         // build predicate
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, uuids);
+        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // upgrade slots
-        List<SlotStatus> slots = coordinator.upgrade(slotPredicate, upgradeVersions, expectedSlotsVersion, force);
+        List<SlotStatus> slots = coordinator.upgrade(slotPredicate, upgradeVersions, expectedSlotsVersion, force, rollingPolicy);
 
         // update to latest state
         updateServiceInventory();
 
         // build results
-        return transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository));
+        return transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
     }
 
     @Override
-    public List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedSlotsVersion)
+    public List<SlotStatusRepresentation> setState(SlotFilter slotFilter, SlotLifecycleState state, String expectedSlotsVersion, RollingPolicy rollingPolicy)
     {
         // build predicate
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, uuids);
+        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // before changing state (like starting) update just in case something changed
         updateServiceInventory();
 
         // set slots state
-        List<SlotStatus> slots = coordinator.setState(state, slotPredicate, expectedSlotsVersion);
+        List<SlotStatus> slots = coordinator.setState(state, slotPredicate, expectedSlotsVersion, rollingPolicy);
 
         // update to latest state
         updateServiceInventory();
 
         // build results
-        return transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository));
+        return transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
     }
 
     @Override
     public List<SlotStatusRepresentation> terminate(SlotFilter slotFilter, String expectedSlotsVersion)
     {
         // build predicate
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, uuids);
+        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // terminate slots
         List<SlotStatus> slots = coordinator.terminate(slotPredicate, expectedSlotsVersion);
@@ -148,15 +146,14 @@ public class LocalCommander
         updateServiceInventory();
 
         // build results
-        return transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository));
+        return transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
     }
 
     @Override
     public List<SlotStatusRepresentation> resetExpectedState(SlotFilter slotFilter, String expectedSlotsVersion)
     {
         // build predicate
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, uuids);
+        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // rest slots expected state
         List<SlotStatus> slots = coordinator.resetExpectedState(slotPredicate, expectedSlotsVersion);
@@ -165,15 +162,14 @@ public class LocalCommander
         updateServiceInventory();
 
         // build results
-        return transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository));
+        return transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
     }
 
     @Override
     public boolean ssh(SlotFilter slotFilter, String command)
     {
         // build predicate
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, uuids);
+        Predicate<SlotStatus> slotPredicate = slotFilter.toSlotPredicate(true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // find the matching slots
         List<SlotStatus> slots = newArrayList(coordinator.getAllSlotsStatus(slotPredicate));
@@ -224,18 +220,20 @@ public class LocalCommander
     }
 
     @Override
-    public CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter)
+    public CommanderResponse<List<AgentStatusRepresentation>> showAgents(AgentFilter agentFilter, ListingOptions listingOptions)
     {
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
         Predicate<AgentStatus> agentPredicate = agentFilter.toAgentPredicate(
-                transform(coordinator.getAgents(), idGetter()),
-                transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter()),
+                snapshot.getAgentIdTrie(),
+                snapshot.getSlotIdTrie(),
                 true,
                 repository);
-        List<AgentStatus> agentStatuses = coordinator.getAgents(agentPredicate);
+        Page<AgentStatus> page = listingOptions.pageAgents(snapshot.getAgents(agentPredicate));
+        List<AgentStatus> agentStatuses = page.getItems();
 
         // update just in case something changed
         updateServiceInventory();
-        return createCommanderResponse(createAgentsVersion(agentStatuses), transform(agentStatuses, fromAgentStatus(coordinator.getAgents(), repository)));
+        return createCommanderResponse(createAgentsVersion(agentStatuses), transform(agentStatuses, fromAgentStatus(snapshot.getAgentStatusRepresentationFactory(repository))), page.getNextCursor());
     }
 
     @Override
@@ -0,0 +1,41 @@
+package io.airlift.airship.cli;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.airline.Option;
+import io.airlift.airline.ParseException;
+import io.airlift.airship.coordinator.ListingOptions;
+
+public class PageOptions
+{
+    @Option(name = "--limit", description = "Show at most this many entries")
+    public int limit;
+
+    @Option(name = "--after", description = "Show the entries after this cursor, as printed at the end of the previous page")
+    public String after;
+
+    public ListingOptions toListingOptions()
+    {
+        if (limit < 0) {
+            throw new ParseException("--limit must be at least 1");
+        }
+        return new ListingOptions(after, limit, ImmutableSet.<String>of());
+    }
+
+    public void displayNextCursor(CommanderResponse<?> response)
+    {
+        if (response.getNextCursor() != null) {
+            System.out.println();
+            System.out.println("More entries are available: use --after " + response.getNextCursor());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("limit", limit)
+                .add("after", after)
+                .toString();
+    }
+}
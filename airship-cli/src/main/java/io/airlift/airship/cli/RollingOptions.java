@@ -0,0 +1,59 @@
+package io.airlift.airship.cli;
+
+import com.google.common.base.Objects;
+import io.airlift.airline.Option;
+import io.airlift.airline.ParseException;
+import io.airlift.airship.shared.RollingPolicy;
+import io.airlift.units.Duration;
+
+import static io.airlift.airship.shared.RollingPolicy.rollingPolicy;
+
+public class RollingOptions
+{
+    @Option(name = "--batch-size", description = "Change at most this many slots at a time, either a count or a percentage such as 25%")
+    public String batchSize;
+
+    @Option(name = "--batch-timeout", description = "Maximum time to wait for a batch to reach its expected state (default 5m)")
+    public String batchTimeout;
+
+    @Option(name = "--spread-locations", description = "Spread each batch across as many locations as possible")
+    public boolean spreadLocations;
+
+    @Option(name = "--max-failures", description = "Abort after more than this many slots fail (default 0)")
+    public int maxFailures;
+
+    /**
+     * Returns the rolling policy, or null if the command should change all slots at once.
+     */
+    public RollingPolicy toRollingPolicy()
+    {
+        if (batchSize == null) {
+            if (batchTimeout != null || spreadLocations || maxFailures != 0) {
+                throw new ParseException("Rolling options require --batch-size");
+            }
+            return null;
+        }
+
+        try {
+            Duration timeout = RollingPolicy.DEFAULT_BATCH_TIMEOUT;
+            if (batchTimeout != null) {
+                timeout = Duration.valueOf(batchTimeout);
+            }
+            return rollingPolicy(batchSize, timeout, spreadLocations, maxFailures);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("batchSize", batchSize)
+                .add("batchTimeout", batchTimeout)
+                .add("spreadLocations", spreadLocations)
+                .add("maxFailures", maxFailures)
+                .toString();
+    }
+}
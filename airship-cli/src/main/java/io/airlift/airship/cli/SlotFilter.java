@@ -4,6 +4,9 @@ import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import io.airlift.airline.Option;
+import io.airlift.airship.coordinator.FleetSnapshot;
+import io.airlift.airship.coordinator.IdTrie;
+import io.airlift.airship.coordinator.ListingOptions;
 import io.airlift.airship.coordinator.SlotFilterBuilder;
 import io.airlift.airship.shared.HttpUriBuilder;
 import io.airlift.airship.shared.SlotStatus;
@@ -69,6 +72,16 @@ public class SlotFilter
         return createFilterBuilder().buildPredicate(filterRequired, allUuids);
     }
 
+    public Predicate<SlotStatus> toSlotPredicate(boolean filterRequired, IdTrie allUuids)
+    {
+        return createFilterBuilder().buildPredicate(filterRequired, allUuids);
+    }
+
+    public List<SlotStatus> selectSlots(boolean filterRequired, FleetSnapshot snapshot)
+    {
+        return createFilterBuilder().selectSlots(snapshot, filterRequired);
+    }
+
     public URI toUri(URI baseUri)
     {
         return createFilterBuilder().buildUri(baseUri);
@@ -79,6 +92,11 @@ public class SlotFilter
         return createFilterBuilder().buildUri(uriBuilder);
     }
 
+    public URI toUri(HttpUriBuilder uriBuilder, ListingOptions listingOptions)
+    {
+        return createFilterBuilder().buildUri(listingOptions.addTo(uriBuilder));
+    }
+
     private SlotFilterBuilder createFilterBuilder()
     {
         SlotFilterBuilder slotFilterBuilder = SlotFilterBuilder.builder();
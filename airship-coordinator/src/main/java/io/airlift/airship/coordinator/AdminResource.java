@@ -2,10 +2,10 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.base.Predicate;
 import com.google.inject.Inject;
+import io.airlift.airship.coordinator.ListingOptions.Page;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.Repository;
-import io.airlift.airship.shared.SlotStatus;
 
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -21,10 +21,11 @@ import javax.ws.rs.core.UriInfo;
 import java.util.List;
 
 import static com.google.common.collect.Lists.transform;
-import static io.airlift.airship.shared.AgentStatus.idGetter;
+import static io.airlift.airship.coordinator.JsonStreamingOutput.jsonStreamingOutput;
 import static io.airlift.airship.shared.AgentStatusRepresentation.fromAgentStatus;
 import static io.airlift.airship.shared.CoordinatorStatusRepresentation.fromCoordinatorStatus;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENTS_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_NEXT_CURSOR_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.createAgentsVersion;
 
 @Path("/v1/admin/")
@@ -76,18 +77,25 @@ public class AdminResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response getAllAgents(@Context UriInfo uriInfo)
     {
-        List<SlotStatus> allSlotStatus = coordinator.getAllSlotStatus();
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
         Predicate<AgentStatus> agentPredicate = AgentFilterBuilder.build(uriInfo,
-                transform(coordinator.getAgents(), idGetter()),
-                transform(allSlotStatus, SlotStatus.uuidGetter()),
+                snapshot.getAgentIdTrie(),
+                snapshot.getSlotIdTrie(),
                 false,
                 repository);
 
-        List<AgentStatus> agents = coordinator.getAgents(agentPredicate);
+        // select a page of agents ordered by instance id
+        ListingOptions listingOptions = ListingOptions.fromUriInfo(uriInfo);
+        Page<AgentStatus> page = listingOptions.pageAgents(snapshot.getAgents(agentPredicate));
+        List<AgentStatus> agents = page.getItems();
 
-        return Response.ok(transform(agents, fromAgentStatus(coordinator.getAgents(), repository)))
-                .header(AIRSHIP_AGENTS_VERSION_HEADER, createAgentsVersion(agents))
-                .build();
+        // stream the response, creating each representation as it is written
+        Response.ResponseBuilder response = Response.ok(jsonStreamingOutput(transform(agents, fromAgentStatus(snapshot.getAgentStatusRepresentationFactory(repository))), listingOptions.getFields()))
+                .header(AIRSHIP_AGENTS_VERSION_HEADER, createAgentsVersion(agents));
+        if (page.getNextCursor() != null) {
+            response.header(AIRSHIP_NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.build();
     }
 
     @POST
@@ -108,7 +116,7 @@ public class AdminResource
                 provisioning.getSecurityGroup(),
                 provisioning.getProvisioningScriptsArtifact());
 
-        return Response.ok(transform(agents, fromAgentStatus(coordinator.getAgents(), repository))).build();
+        return Response.ok(transform(agents, fromAgentStatus(coordinator.getFleetSnapshot().getAgentStatusRepresentationFactory(repository)))).build();
     }
 
     @DELETE
@@ -6,9 +6,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
@@ -23,15 +21,12 @@ import javax.annotation.Nullable;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
 
-import static com.google.common.base.Predicates.notNull;
-import static io.airlift.airship.coordinator.StringFunctions.startsWith;
-import static io.airlift.airship.coordinator.StringFunctions.toLowerCase;
+import static io.airlift.airship.coordinator.SlotFilterBuilder.toIdTrie;
 import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
 import static io.airlift.airship.shared.InstallationUtils.getAvailableResources;
 import static io.airlift.airship.shared.InstallationUtils.resourcesAreAvailable;
@@ -50,11 +45,25 @@ public class AgentFilterBuilder
         return build(uriInfo, allAgentUuids, allSlotUuids, false, null);
     }
 
+    public static Predicate<AgentStatus> build(UriInfo uriInfo, IdTrie allAgentUuids, IdTrie allSlotUuids)
+    {
+        return build(uriInfo, allAgentUuids, allSlotUuids, false, null);
+    }
+
     public static Predicate<AgentStatus> build(UriInfo uriInfo,
             List<String> allAgentUuids,
             List<UUID> allSlotUuids,
             boolean allowDuplicateInstallationsOnAnAgent,
             Repository repository)
+    {
+        return build(uriInfo, IdTrie.copyOf(allAgentUuids), toIdTrie(allSlotUuids), allowDuplicateInstallationsOnAnAgent, repository);
+    }
+
+    public static Predicate<AgentStatus> build(UriInfo uriInfo,
+            IdTrie allAgentUuids,
+            IdTrie allSlotUuids,
+            boolean allowDuplicateInstallationsOnAnAgent,
+            Repository repository)
     {
         AgentFilterBuilder builder = new AgentFilterBuilder();
         for (Entry<String, List<String>> entry : uriInfo.getQueryParameters().entrySet()) {
@@ -211,8 +220,16 @@ public class AgentFilterBuilder
         this.selectAll = true;
     }
 
-    public Predicate<AgentStatus> build(final List<String> allAgentUuids,
-            final List<UUID> allSlotUuids,
+    public Predicate<AgentStatus> build(List<String> allAgentUuids,
+            List<UUID> allSlotUuids,
+            boolean allowDuplicateInstallationsOnAnAgent,
+            Repository repository)
+    {
+        return build(IdTrie.copyOf(allAgentUuids), toIdTrie(allSlotUuids), allowDuplicateInstallationsOnAnAgent, repository);
+    }
+
+    public Predicate<AgentStatus> build(final IdTrie allAgentUuids,
+            final IdTrie allSlotUuids,
             final boolean allowDuplicateInstallationsOnAnAgent,
             final Repository repository)
     {
@@ -227,8 +244,8 @@ public class AgentFilterBuilder
         return include;
     }
 
-    private Predicate<AgentStatus> buildIncludesPredicate(final List<String> allAgentUuids,
-            final List<UUID> allSlotUuids,
+    private Predicate<AgentStatus> buildIncludesPredicate(final IdTrie allAgentUuids,
+            final IdTrie allSlotUuids,
             final boolean allowDuplicateInstallationsOnAnAgent,
             final Repository repository)
     {
@@ -308,7 +325,7 @@ public class AgentFilterBuilder
         }
     }
 
-    private Optional<Predicate<AgentStatus>> buildExcludesPredicate(final List<String> allAgentUuids, final List<UUID> allSlotUuids)
+    private Optional<Predicate<AgentStatus>> buildExcludesPredicate(final IdTrie allAgentUuids, final IdTrie allSlotUuids)
     {
         List<Predicate<AgentStatus>> excludes = Lists.newArrayListWithCapacity(6);
         excludes.addAll(Lists.transform(notUuidFilters, new Function<String, UuidPredicate>()
@@ -412,9 +429,12 @@ public class AgentFilterBuilder
 
         public UuidPredicate(String shortId, List<String> allUuids)
         {
-            allUuids = ImmutableList.copyOf(Iterables.filter(allUuids, notNull()));
-            Predicate<String> startsWithPrefix = Predicates.compose(startsWith(shortId.toLowerCase()), toLowerCase());
-            Collection<String> matches = Collections2.filter(allUuids, startsWithPrefix);
+            this(shortId, IdTrie.copyOf(allUuids));
+        }
+
+        public UuidPredicate(String shortId, IdTrie allUuids)
+        {
+            List<String> matches = allUuids.getMatches(shortId);
 
             if (matches.size() > 1) {
                 throw new IllegalArgumentException(format("Ambiguous expansion for id '%s': %s", shortId, matches));
@@ -424,7 +444,7 @@ public class AgentFilterBuilder
                 uuid = null;
             }
             else {
-                uuid = matches.iterator().next();
+                uuid = matches.get(0);
             }
         }
 
@@ -453,6 +473,11 @@ public class AgentFilterBuilder
             predicate = new SlotFilterBuilder.SlotUuidPredicate(slotUuidGlobGlob, allUuids);
         }
 
+        public SlotUuidPredicate(String slotUuidGlobGlob, IdTrie allUuids)
+        {
+            predicate = new SlotFilterBuilder.SlotUuidPredicate(slotUuidGlobGlob, allUuids);
+        }
+
         @Override
         public boolean apply(AgentStatus agentStatus)
         {
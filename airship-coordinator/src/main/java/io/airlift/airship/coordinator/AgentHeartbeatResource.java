@@ -0,0 +1,57 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import io.airlift.airship.coordinator.auth.AuthConfig;
+import io.airlift.airship.shared.AgentStatusRepresentation;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import static io.airlift.airship.coordinator.auth.AuthFilter.AUTHORIZED_KEY_ATTRIBUTE;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER;
+
+@Path("/v1/agent/heartbeat")
+public class AgentHeartbeatResource
+{
+    private final Coordinator coordinator;
+    private final boolean authEnabled;
+
+    @Inject
+    public AgentHeartbeatResource(Coordinator coordinator, AuthConfig authConfig)
+    {
+        Preconditions.checkNotNull(coordinator, "coordinator is null");
+        Preconditions.checkNotNull(authConfig, "authConfig is null");
+        this.coordinator = coordinator;
+        this.authEnabled = authConfig.isEnabled();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response heartbeat(AgentStatusRepresentation agentStatus,
+            @HeaderParam(AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER) String serviceInventoryVersion,
+            @Context HttpServletRequest request)
+    {
+        if (agentStatus == null) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        // the auth filter lets unsigned heartbeats through, so they must come from the agent's own host
+        if (authEnabled && request.getAttribute(AUTHORIZED_KEY_ATTRIBUTE) == null && !coordinator.isAgentAddress(agentStatus, request.getRemoteAddr())) {
+            return Response.status(Status.FORBIDDEN).build();
+        }
+
+        // unknown agents are left to the provisioner to discover
+        if (!coordinator.heartbeat(agentStatus, serviceInventoryVersion)) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+        return Response.noContent().build();
+    }
+}
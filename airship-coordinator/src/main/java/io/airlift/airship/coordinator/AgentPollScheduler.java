@@ -0,0 +1,473 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.AgentLifecycleState;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.log.Logger;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static io.airlift.airship.coordinator.StatsResource.toMap;
+import static io.airlift.airship.shared.SlotLifecycleState.KILLING;
+import static io.airlift.airship.shared.SlotLifecycleState.RESTARTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Polls each agent on its own schedule.  Each agent starts at a random phase
+ * within the poll interval, so polls are spread out instead of arriving in
+ * one burst.  Unreachable agents back off exponentially up to the maximum
+ * interval, and agents with slots in transition, or that were recently sent
+ * a command, are polled at the fast interval.
+ */
+public class AgentPollScheduler
+{
+    private static final Logger log = Logger.get(AgentPollScheduler.class);
+
+    // each poll delay is randomly stretched or shrunk by up to this fraction
+    private static final double JITTER = 0.1;
+
+    // orders agents by their 99th percentile poll latency, slowest first
+    private static final Ordering<Entry<String, AgentPoller>> SLOWEST_FIRST = new Ordering<Entry<String, AgentPoller>>()
+    {
+        @Override
+        public int compare(Entry<String, AgentPoller> left, Entry<String, AgentPoller> right)
+        {
+            return Double.compare(right.getValue().getP99LatencyMillis(), left.getValue().getP99LatencyMillis());
+        }
+    };
+
+    private final ScheduledExecutorService executor;
+    private final long pollIntervalNanos;
+    private final long fastPollIntervalNanos;
+    private final long maxPollIntervalNanos;
+
+    private final ConcurrentMap<String, AgentPoller> pollers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlightPolls = new AtomicInteger();
+    private final AtomicLong completedPolls = new AtomicLong();
+    private final AtomicLong failedPolls = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final TimeStat pollLatency = new TimeStat(MILLISECONDS);
+
+    public AgentPollScheduler(ScheduledExecutorService executor, Duration pollInterval, Duration fastPollInterval, Duration maxPollInterval)
+    {
+        Preconditions.checkNotNull(executor, "executor is null");
+        Preconditions.checkNotNull(pollInterval, "pollInterval is null");
+        Preconditions.checkNotNull(fastPollInterval, "fastPollInterval is null");
+        Preconditions.checkNotNull(maxPollInterval, "maxPollInterval is null");
+        Preconditions.checkArgument(fastPollInterval.compareTo(pollInterval) <= 0, "fastPollInterval is greater than pollInterval");
+        Preconditions.checkArgument(maxPollInterval.compareTo(pollInterval) >= 0, "maxPollInterval is less than pollInterval");
+
+        this.executor = executor;
+        this.pollIntervalNanos = pollInterval.roundTo(NANOSECONDS);
+        this.fastPollIntervalNanos = fastPollInterval.roundTo(NANOSECONDS);
+        this.maxPollIntervalNanos = maxPollInterval.roundTo(NANOSECONDS);
+    }
+
+    /**
+     * Starts polling new agents and stops polling agents that are no longer present.
+     */
+    public synchronized void update(Map<String, RemoteAgent> agents)
+    {
+        Preconditions.checkNotNull(agents, "agents is null");
+
+        for (Entry<String, RemoteAgent> entry : agents.entrySet()) {
+            AgentPoller poller = pollers.get(entry.getKey());
+            if (poller == null || poller.agent != entry.getValue()) {
+                if (poller != null) {
+                    poller.cancel();
+                }
+                poller = new AgentPoller(entry.getValue());
+                pollers.put(entry.getKey(), poller);
+                poller.schedule(ThreadLocalRandom.current().nextLong(pollIntervalNanos));
+            }
+        }
+
+        for (Iterator<Entry<String, AgentPoller>> iterator = pollers.entrySet().iterator(); iterator.hasNext(); ) {
+            Entry<String, AgentPoller> entry = iterator.next();
+            if (!agents.containsKey(entry.getKey())) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Polls the specified agent at the fast interval for the next poll interval,
+     * typically because a command was just sent to it.
+     */
+    public void pollSoon(String agentKey)
+    {
+        Preconditions.checkNotNull(agentKey, "agentKey is null");
+        AgentPoller poller = pollers.get(agentKey);
+        if (poller != null) {
+            poller.expedite();
+        }
+    }
+
+    public synchronized void stop()
+    {
+        for (AgentPoller poller : pollers.values()) {
+            poller.cancel();
+        }
+        pollers.clear();
+    }
+
+    @Managed
+    public int getScheduledAgents()
+    {
+        return pollers.size();
+    }
+
+    @Managed(description = "Number of polls that are due but have not started")
+    public int getQueueDepth()
+    {
+        long now = System.nanoTime();
+        int queued = 0;
+        for (AgentPoller poller : pollers.values()) {
+            if (poller.isDue(now)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    @Managed
+    public int getInFlightPolls()
+    {
+        return inFlightPolls.get();
+    }
+
+    @Managed
+    public int getBackedOffAgents()
+    {
+        int backedOff = 0;
+        for (AgentPoller poller : pollers.values()) {
+            if (poller.getFailures() > 0) {
+                backedOff++;
+            }
+        }
+        return backedOff;
+    }
+
+    @Managed
+    public long getCompletedPolls()
+    {
+        return completedPolls.get();
+    }
+
+    @Managed
+    public long getFailedPolls()
+    {
+        return failedPolls.get();
+    }
+
+    @Managed(description = "Average delay between when a poll was due and when it started")
+    public Duration getAveragePollLag()
+    {
+        long polls = completedPolls.get() + failedPolls.get();
+        if (polls == 0) {
+            return new Duration(0, NANOSECONDS).convertToMostSuccinctTimeUnit();
+        }
+        return new Duration(totalLagNanos.get() / polls, NANOSECONDS).convertToMostSuccinctTimeUnit();
+    }
+
+    @Managed(description = "Maximum delay between when a poll was due and when it started")
+    public Duration getMaxPollLag()
+    {
+        return new Duration(maxLagNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit();
+    }
+
+    @Managed(description = "Latency of agent status polls")
+    @Nested
+    public TimeStat getPollLatency()
+    {
+        return pollLatency;
+    }
+
+    @Managed(description = "Longest time since an agent last returned its status")
+    public Duration getMaxTimeSinceLastSuccess()
+    {
+        long now = System.nanoTime();
+        long max = 0;
+        for (AgentPoller poller : pollers.values()) {
+            max = Math.max(max, poller.getTimeSinceLastSuccess(now));
+        }
+        return new Duration(max, NANOSECONDS).convertToMostSuccinctTimeUnit();
+    }
+
+    @Managed(description = "Agents with the highest 99th percentile poll latency")
+    public String getSlowestAgents()
+    {
+        List<Entry<String, AgentPoller>> slowest = SLOWEST_FIRST.leastOf(pollers.entrySet(), 5);
+        List<String> agents = newArrayList();
+        for (Entry<String, AgentPoller> entry : slowest) {
+            agents.add(String.format("%s=%.1fms", entry.getKey(), entry.getValue().getP99LatencyMillis()));
+        }
+        return Joiner.on(", ").join(agents);
+    }
+
+    @Managed(description = "Poll statistics of an agent")
+    public String getAgentPollStats(String agentKey)
+    {
+        AgentPoller poller = pollers.get(agentKey);
+        if (poller == null) {
+            return null;
+        }
+        return String.format("%s, consecutiveFailures=%s, sinceLastSuccess=%s",
+                toMap(poller.latency),
+                poller.getFailures(),
+                new Duration(poller.getTimeSinceLastSuccess(System.nanoTime()), NANOSECONDS).convertToMostSuccinctTimeUnit());
+    }
+
+    /**
+     * Returns the aggregate and per agent poll statistics, for the stats resource.
+     */
+    public Map<String, Object> getStats()
+    {
+        long now = System.nanoTime();
+        ImmutableMap.Builder<String, Object> agents = ImmutableMap.builder();
+        for (Entry<String, AgentPoller> entry : pollers.entrySet()) {
+            AgentPoller poller = entry.getValue();
+            agents.put(entry.getKey(), ImmutableMap.<String, Object>builder()
+                    .putAll(toMap(poller.latency))
+                    .put("consecutiveFailures", poller.getFailures())
+                    .put("millisSinceLastSuccess", new Duration(poller.getTimeSinceLastSuccess(now), NANOSECONDS).getValue(MILLISECONDS))
+                    .build());
+        }
+
+        return ImmutableMap.<String, Object>builder()
+                .putAll(toMap(pollLatency))
+                .put("failures", getFailedPolls())
+                .put("inFlight", getInFlightPolls())
+                .put("queueDepth", getQueueDepth())
+                .put("backedOffAgents", getBackedOffAgents())
+                .put("maxMillisSinceLastSuccess", getMaxTimeSinceLastSuccess().getValue(MILLISECONDS))
+                .put("agents", agents.build())
+                .build();
+    }
+
+    private void recordLag(long lagNanos)
+    {
+        totalLagNanos.addAndGet(lagNanos);
+        while (true) {
+            long max = maxLagNanos.get();
+            if (lagNanos <= max || maxLagNanos.compareAndSet(max, lagNanos)) {
+                return;
+            }
+        }
+    }
+
+    private long nextPollDelay(AgentPoller poller, int failures, boolean expedited)
+    {
+        long delay;
+        if (failures > 0) {
+            // double the interval for each consecutive failure
+            delay = pollIntervalNanos;
+            for (int i = 0; i < failures && delay < maxPollIntervalNanos; i++) {
+                delay *= 2;
+            }
+            delay = Math.min(delay, maxPollIntervalNanos);
+        }
+        else if (expedited || isInTransition(poller.agent.status())) {
+            delay = fastPollIntervalNanos;
+        }
+        else {
+            delay = pollIntervalNanos;
+        }
+        return (long) (delay * (1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+    }
+
+    private static boolean isInTransition(AgentStatus agentStatus)
+    {
+        if (agentStatus.getState() == AgentLifecycleState.PROVISIONING) {
+            return true;
+        }
+        for (SlotStatus slotStatus : agentStatus.getSlotStatuses()) {
+            if (slotStatus.getState() == RESTARTING || slotStatus.getState() == KILLING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class AgentPoller
+            implements Runnable
+    {
+        private final RemoteAgent agent;
+
+        @GuardedBy("this")
+        private ScheduledFuture<?> nextPoll;
+
+        @GuardedBy("this")
+        private long dueNanos;
+
+        @GuardedBy("this")
+        private boolean running;
+
+        @GuardedBy("this")
+        private boolean cancelled;
+
+        @GuardedBy("this")
+        private int failures;
+
+        @GuardedBy("this")
+        private long expeditedUntilNanos;
+
+        @GuardedBy("this")
+        private long pollStartNanos;
+
+        // agents that have never answered count from when polling started
+        @GuardedBy("this")
+        private long lastSuccessNanos;
+
+        private final TimeStat latency = new TimeStat(MILLISECONDS);
+
+        private AgentPoller(RemoteAgent agent)
+        {
+            this.agent = agent;
+            this.expeditedUntilNanos = System.nanoTime();
+            this.lastSuccessNanos = expeditedUntilNanos;
+        }
+
+        // agents that have not been polled yet report zero rather than NaN
+        public double getP99LatencyMillis()
+        {
+            double p99 = latency.getAllTime().getP99();
+            return Double.isNaN(p99) ? 0 : p99;
+        }
+
+        public synchronized void schedule(long delayNanos)
+        {
+            if (cancelled) {
+                return;
+            }
+            if (nextPoll != null) {
+                nextPoll.cancel(false);
+            }
+            dueNanos = System.nanoTime() + delayNanos;
+            nextPoll = executor.schedule(this, delayNanos, NANOSECONDS);
+        }
+
+        public synchronized void cancel()
+        {
+            cancelled = true;
+            if (nextPoll != null) {
+                nextPoll.cancel(false);
+            }
+        }
+
+        public synchronized void expedite()
+        {
+            long now = System.nanoTime();
+            expeditedUntilNanos = now + pollIntervalNanos;
+            if (!running && dueNanos - now > fastPollIntervalNanos) {
+                schedule(fastPollIntervalNanos);
+            }
+        }
+
+        public synchronized boolean isDue(long now)
+        {
+            return !running && !cancelled && now - dueNanos >= 0;
+        }
+
+        public synchronized int getFailures()
+        {
+            return failures;
+        }
+
+        public synchronized long getTimeSinceLastSuccess(long now)
+        {
+            return Math.max(0, now - lastSuccessNanos);
+        }
+
+        @Override
+        public void run()
+        {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                running = true;
+                pollStartNanos = System.nanoTime();
+                recordLag(Math.max(0, pollStartNanos - dueNanos));
+            }
+
+            inFlightPolls.incrementAndGet();
+            ListenableFuture<?> future;
+            try {
+                future = agent.updateStatus();
+            }
+            catch (Throwable e) {
+                log.error(e, "Unexpected exception polling agent");
+                future = Futures.immediateFailedFuture(e);
+            }
+
+            Futures.addCallback(future, new FutureCallback<Object>()
+            {
+                @Override
+                public void onSuccess(Object result)
+                {
+                    // agents without an address can not be reached at all
+                    pollComplete(agent.status().getState() != AgentLifecycleState.OFFLINE);
+                }
+
+                @Override
+                public void onFailure(Throwable t)
+                {
+                    pollComplete(false);
+                }
+            });
+        }
+
+        private void pollComplete(boolean success)
+        {
+            inFlightPolls.decrementAndGet();
+            if (success) {
+                completedPolls.incrementAndGet();
+            }
+            else {
+                failedPolls.incrementAndGet();
+            }
+
+            synchronized (this) {
+                long now = System.nanoTime();
+                latency.add(now - pollStartNanos, NANOSECONDS);
+                pollLatency.add(now - pollStartNanos, NANOSECONDS);
+                if (success) {
+                    lastSuccessNanos = now;
+                }
+
+                running = false;
+                failures = success ? 0 : failures + 1;
+                schedule(nextPollDelay(this, failures, System.nanoTime() - expeditedUntilNanos < 0));
+            }
+        }
+    }
+}
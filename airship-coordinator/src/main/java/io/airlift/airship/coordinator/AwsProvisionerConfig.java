@@ -4,6 +4,7 @@ import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.Duration;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
@@ -32,6 +33,7 @@ public class AwsProvisionerConfig
     private String s3KeystoreBucket;
     private String s3KeystorePath;
     private Duration s3KeystoreRefreshInterval = new Duration(10, TimeUnit.SECONDS);
+    private int simpleDbMaxInFlightRequests = 8;
 
     @Config("coordinator.aws.credentials-file")
     @ConfigDescription("File containing aws credentials")
@@ -211,6 +213,20 @@ public class AwsProvisionerConfig
         return s3KeystoreRefreshInterval;
     }
 
+    @Config("coordinator.aws.simpledb.max-in-flight-requests")
+    @ConfigDescription("Maximum number of concurrent requests to the SimpleDB expected state store")
+    public AwsProvisionerConfig setSimpleDbMaxInFlightRequests(int simpleDbMaxInFlightRequests)
+    {
+        this.simpleDbMaxInFlightRequests = simpleDbMaxInFlightRequests;
+        return this;
+    }
+
+    @Min(1)
+    public int getSimpleDbMaxInFlightRequests()
+    {
+        return simpleDbMaxInFlightRequests;
+    }
+
     @Config("coordinator.aws.provisioning.artifact")
     @ConfigDescription("An alternate package of provisioning scripts")
     public AwsProvisionerConfig setProvisioningScriptsArtifact(String provisioningScriptsArtifact)
@@ -46,7 +46,7 @@ public class AwsProvisionerModule
         binder.requireExplicitBindings();
 
         binder.bind(Provisioner.class).to(AwsProvisioner.class).in(Scopes.SINGLETON);
-        binder.bind(StateManager.class).to(SimpleDbStateManager.class).in(Scopes.SINGLETON);
+        binder.bind(SimpleDbStateManager.class).in(Scopes.SINGLETON);
         binder.bind(AuthorizedKeyStore.class).to(S3AuthorizedKeyStore.class).in(Scopes.SINGLETON);
         ConfigurationModule.bindConfig(binder).to(AwsProvisionerConfig.class);
     }
@@ -101,4 +101,11 @@ public class AwsProvisionerModule
 
         return new BasicAWSCredentials(accessKey, secretKey);
     }
+
+    @Provides
+    @Singleton
+    public StateManager provideStateManager(SimpleDbStateManager stateManager, CoordinatorConfig coordinatorConfig)
+    {
+        return new CachingStateManager(stateManager, coordinatorConfig);
+    }
 }
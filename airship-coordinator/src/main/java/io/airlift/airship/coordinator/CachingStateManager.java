@@ -0,0 +1,227 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Keeps the expected states of a backing state manager in memory.  The
+ * states are loaded on first use, writes go through to the backing state
+ * manager, and unless refresh is disabled, the cache is reloaded once the
+ * refresh interval has elapsed to pick up changes made by other coordinators
+ * sharing the same store.  A load that fails is never cached; the last
+ * complete load is served until the store is back.
+ * <p/>
+ * The backing state manager is only called outside the cache lock, so a
+ * slow store delays the caller but not other readers and writers.  While a
+ * refresh is running, readers are served the previous load, and writes made
+ * during the refresh are applied to its result.
+ */
+public class CachingStateManager
+        implements StateManager
+{
+    private static final Logger log = Logger.get(CachingStateManager.class);
+
+    private final StateManager delegate;
+    private final boolean refreshEnabled;
+    private final long refreshIntervalNanos;
+    private final Ticker ticker;
+
+    @GuardedBy("this")
+    private Map<UUID, ExpectedSlotStatus> expectedStates;
+
+    @GuardedBy("this")
+    private ImmutableList<ExpectedSlotStatus> allExpectedStates;
+
+    @GuardedBy("this")
+    private long loadTime;
+
+    @GuardedBy("this")
+    private boolean loading;
+
+    // writes made while loading, with null for a delete
+    @GuardedBy("this")
+    private Map<UUID, ExpectedSlotStatus> changesDuringLoad;
+
+    public CachingStateManager(StateManager delegate, CoordinatorConfig config)
+    {
+        this(delegate, config.isExpectedStateRefreshEnabled(), config.getExpectedStateRefreshInterval(), Ticker.systemTicker());
+    }
+
+    public CachingStateManager(StateManager delegate, boolean refreshEnabled, Duration refreshInterval, Ticker ticker)
+    {
+        Preconditions.checkNotNull(delegate, "delegate is null");
+        Preconditions.checkNotNull(refreshInterval, "refreshInterval is null");
+        Preconditions.checkNotNull(ticker, "ticker is null");
+
+        this.delegate = delegate;
+        this.refreshEnabled = refreshEnabled;
+        this.refreshIntervalNanos = (long) refreshInterval.getValue(NANOSECONDS);
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Collection<ExpectedSlotStatus> getAllExpectedStates()
+    {
+        long now;
+        synchronized (this) {
+            // there is nothing to serve until the first load completes
+            while (loading && expectedStates == null) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Throwables.propagate(e);
+                }
+            }
+
+            now = ticker.read();
+            if (loading || (expectedStates != null && (!refreshEnabled || now - loadTime < refreshIntervalNanos))) {
+                return getCachedStates();
+            }
+            loading = true;
+            changesDuringLoad = newLinkedHashMap();
+        }
+
+        Collection<ExpectedSlotStatus> loadedStates = null;
+        try {
+            loadedStates = delegate.getAllExpectedStates();
+        }
+        catch (RuntimeException e) {
+            synchronized (this) {
+                if (expectedStates == null) {
+                    // nothing to fall back to, so try again on the next read
+                    log.debug(e, "Unable to load expected states");
+                }
+                else {
+                    // keep the last complete load and try again after the refresh interval
+                    log.warn("Unable to refresh expected states, using the previously loaded states: %s", e.getMessage());
+                    loadTime = now;
+                }
+            }
+        }
+        finally {
+            synchronized (this) {
+                if (loadedStates != null) {
+                    Map<UUID, ExpectedSlotStatus> states = newLinkedHashMap();
+                    for (ExpectedSlotStatus expectedState : loadedStates) {
+                        states.put(expectedState.getId(), expectedState);
+                    }
+                    applyChanges(states, changesDuringLoad);
+                    expectedStates = states;
+                    allExpectedStates = null;
+                    loadTime = now;
+                }
+                loading = false;
+                changesDuringLoad = null;
+                notifyAll();
+            }
+        }
+
+        synchronized (this) {
+            return getCachedStates();
+        }
+    }
+
+    @Override
+    public void deleteExpectedState(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+        delegate.deleteExpectedState(slotId);
+        synchronized (this) {
+            updateCache(slotId, null);
+        }
+    }
+
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        Preconditions.checkNotNull(slotIds, "slotIds is null");
+        delegate.deleteExpectedStates(slotIds);
+        synchronized (this) {
+            for (UUID slotId : slotIds) {
+                updateCache(slotId, null);
+            }
+        }
+    }
+
+    @Override
+    public void setExpectedState(ExpectedSlotStatus slotStatus)
+    {
+        Preconditions.checkNotNull(slotStatus, "slotStatus is null");
+        delegate.setExpectedState(slotStatus);
+        synchronized (this) {
+            updateCache(slotStatus.getId(), slotStatus);
+        }
+    }
+
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        Preconditions.checkNotNull(slotStatuses, "slotStatuses is null");
+        delegate.setExpectedStates(slotStatuses);
+        synchronized (this) {
+            for (ExpectedSlotStatus slotStatus : slotStatuses) {
+                updateCache(slotStatus.getId(), slotStatus);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private Collection<ExpectedSlotStatus> getCachedStates()
+    {
+        if (expectedStates == null) {
+            // the store has been down since startup
+            return ImmutableList.of();
+        }
+        if (allExpectedStates == null) {
+            allExpectedStates = ImmutableList.copyOf(expectedStates.values());
+        }
+        return allExpectedStates;
+    }
+
+    @GuardedBy("this")
+    private void updateCache(UUID slotId, ExpectedSlotStatus expectedState)
+    {
+        if (expectedStates != null) {
+            if (expectedState == null) {
+                expectedStates.remove(slotId);
+            }
+            else {
+                expectedStates.put(slotId, expectedState);
+            }
+            allExpectedStates = null;
+        }
+        if (changesDuringLoad != null) {
+            // the load may have read the store before this write
+            changesDuringLoad.put(slotId, expectedState);
+        }
+    }
+
+    private static void applyChanges(Map<UUID, ExpectedSlotStatus> expectedStates, Map<UUID, ExpectedSlotStatus> changes)
+    {
+        for (Entry<UUID, ExpectedSlotStatus> entry : changes.entrySet()) {
+            if (entry.getValue() == null) {
+                expectedStates.remove(entry.getKey());
+            }
+            else {
+                expectedStates.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
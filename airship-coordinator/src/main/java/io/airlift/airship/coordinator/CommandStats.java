@@ -0,0 +1,133 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.Map;
+
+import static io.airlift.airship.coordinator.StatsResource.toMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Duration of the slot commands run by the coordinator, by command type.  A
+ * command is timed from selecting its slots until every agent has answered,
+ * including the time spent queued behind other commands, and for rolling
+ * commands the time spent waiting for each batch to settle.
+ */
+public class CommandStats
+{
+    private final TimeStat install = new TimeStat(MILLISECONDS);
+    private final TimeStat upgrade = new TimeStat(MILLISECONDS);
+    private final TimeStat terminate = new TimeStat(MILLISECONDS);
+    private final TimeStat start = new TimeStat(MILLISECONDS);
+    private final TimeStat restart = new TimeStat(MILLISECONDS);
+    private final TimeStat stop = new TimeStat(MILLISECONDS);
+    private final TimeStat kill = new TimeStat(MILLISECONDS);
+    private final CounterStat failures = new CounterStat();
+
+    @Managed
+    @Nested
+    public TimeStat getInstall()
+    {
+        return install;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getUpgrade()
+    {
+        return upgrade;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getTerminate()
+    {
+        return terminate;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getStart()
+    {
+        return start;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getRestart()
+    {
+        return restart;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getStop()
+    {
+        return stop;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getKill()
+    {
+        return kill;
+    }
+
+    @Managed(description = "Commands that failed, of any type")
+    @Nested
+    public CounterStat getFailures()
+    {
+        return failures;
+    }
+
+    /**
+     * Records a command, timed by one of the stats of this object, that
+     * started at the specified {@link System#nanoTime()}.
+     */
+    public void recordSince(TimeStat command, long startNanos, boolean success)
+    {
+        command.add(System.nanoTime() - startNanos, NANOSECONDS);
+        if (!success) {
+            failures.update(1);
+        }
+    }
+
+    /**
+     * Returns the stat for the command that moves slots to the specified state.
+     */
+    public TimeStat getSetState(SlotLifecycleState state)
+    {
+        switch (state) {
+            case RUNNING:
+                return start;
+            case RESTARTING:
+                return restart;
+            case STOPPED:
+                return stop;
+            case KILLING:
+                return kill;
+            default:
+                throw new IllegalArgumentException("Unsupported lifecycle state: " + state);
+        }
+    }
+
+    public Map<String, Object> getStats()
+    {
+        return ImmutableMap.<String, Object>builder()
+                .put("install", toMap(install))
+                .put("upgrade", toMap(upgrade))
+                .put("terminate", toMap(terminate))
+                .put("start", toMap(start))
+                .put("restart", toMap(restart))
+                .put("stop", toMap(stop))
+                .put("kill", toMap(kill))
+                .put("failures", failures.getTotalCount())
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Limits the number of asynchronous commands in flight.  Commands beyond the
+ * limit are queued and started, in submission order, as earlier commands
+ * complete.  No thread is held while a command is queued or in flight.
+ */
+public class CommandThrottle
+{
+    private final int maxInFlight;
+
+    @GuardedBy("this")
+    private final Queue<PendingCommand<?>> queue = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private int inFlight;
+
+    @GuardedBy("this")
+    private boolean draining;
+
+    @GuardedBy("this")
+    private int maxQueued;
+
+    private final AtomicLong completedCommands = new AtomicLong();
+    private final AtomicLong failedCommands = new AtomicLong();
+    private final TimeStat queueTime = new TimeStat(MILLISECONDS);
+    private final TimeStat commandTime = new TimeStat(MILLISECONDS);
+
+    public CommandThrottle(int maxInFlight)
+    {
+        Preconditions.checkArgument(maxInFlight > 0, "maxInFlight must be at least 1");
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Starts the command when an in flight slot is available.  The returned
+     * future completes with the result of the future returned by the command.
+     */
+    public <T> ListenableFuture<T> submit(Callable<ListenableFuture<T>> command)
+    {
+        Preconditions.checkNotNull(command, "command is null");
+
+        PendingCommand<T> pendingCommand = new PendingCommand<>(command);
+        synchronized (this) {
+            queue.add(pendingCommand);
+            maxQueued = Math.max(maxQueued, queue.size());
+        }
+        drain();
+        return pendingCommand.getResult();
+    }
+
+    @Managed
+    public int getMaxInFlight()
+    {
+        return maxInFlight;
+    }
+
+    @Managed
+    public synchronized int getInFlight()
+    {
+        return inFlight;
+    }
+
+    @Managed
+    public synchronized int getQueued()
+    {
+        return queue.size();
+    }
+
+    @Managed(description = "Largest number of commands waiting at once")
+    public synchronized int getMaxQueued()
+    {
+        return maxQueued;
+    }
+
+    @Managed(description = "Time commands waited for an in flight slot")
+    @Nested
+    public TimeStat getQueueTime()
+    {
+        return queueTime;
+    }
+
+    @Managed(description = "Time from starting a command until it completed")
+    @Nested
+    public TimeStat getCommandTime()
+    {
+        return commandTime;
+    }
+
+    @Managed
+    public long getCompletedCommands()
+    {
+        return completedCommands.get();
+    }
+
+    @Managed
+    public long getFailedCommands()
+    {
+        return failedCommands.get();
+    }
+
+    private void drain()
+    {
+        // commands that complete immediately release their slot from inside
+        // start(), so only one thread drains at a time to avoid deep recursion
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        while (true) {
+            PendingCommand<?> next;
+            synchronized (this) {
+                if (inFlight >= maxInFlight || queue.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                next = queue.remove();
+                inFlight++;
+            }
+            next.start();
+        }
+    }
+
+    private void release()
+    {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    private class PendingCommand<T>
+    {
+        private final Callable<ListenableFuture<T>> command;
+        private final SettableFuture<T> result = SettableFuture.create();
+        private final long submittedNanos = System.nanoTime();
+
+        private PendingCommand(Callable<ListenableFuture<T>> command)
+        {
+            this.command = command;
+        }
+
+        public ListenableFuture<T> getResult()
+        {
+            return result;
+        }
+
+        public void start()
+        {
+            final long startNanos = System.nanoTime();
+            queueTime.add(startNanos - submittedNanos, NANOSECONDS);
+
+            ListenableFuture<T> future;
+            try {
+                future = command.call();
+                Preconditions.checkState(future != null, "command returned a null future");
+            }
+            catch (Throwable e) {
+                future = Futures.immediateFailedFuture(e);
+            }
+
+            Futures.addCallback(future, new FutureCallback<T>()
+            {
+                @Override
+                public void onSuccess(T value)
+                {
+                    completedCommands.incrementAndGet();
+                    commandTime.add(System.nanoTime() - startNanos, NANOSECONDS);
+                    release();
+                    result.set(value);
+                }
+
+                @Override
+                public void onFailure(Throwable t)
+                {
+                    failedCommands.incrementAndGet();
+                    commandTime.add(System.nanoTime() - startNanos, NANOSECONDS);
+                    release();
+                    result.setException(t);
+                }
+            });
+        }
+    }
+}
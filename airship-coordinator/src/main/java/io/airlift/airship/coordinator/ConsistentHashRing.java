@@ -0,0 +1,70 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+/**
+ * Assigns keys to members with consistent hashing.  Each member is placed on
+ * the ring at many points, so keys are spread evenly and adding or removing a
+ * member only moves the keys owned by that member.
+ */
+public class ConsistentHashRing
+{
+    private static final int POINTS_PER_MEMBER = 128;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final SortedSet<String> members;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Iterable<String> members)
+    {
+        Preconditions.checkNotNull(members, "members is null");
+        this.members = ImmutableSortedSet.copyOf(members);
+        Preconditions.checkArgument(!this.members.isEmpty(), "members is empty");
+
+        for (String member : this.members) {
+            for (int i = 0; i < POINTS_PER_MEMBER; i++) {
+                long point = hash(member + "#" + i);
+                // on a collision the smallest member wins, so every coordinator builds the same ring
+                if (!ring.containsKey(point)) {
+                    ring.put(point, member);
+                }
+            }
+        }
+    }
+
+    public SortedSet<String> getMembers()
+    {
+        return members;
+    }
+
+    public String getOwner(String key)
+    {
+        Preconditions.checkNotNull(key, "key is null");
+        Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    private static long hash(String value)
+    {
+        return HASH_FUNCTION.hashString(value, UTF_8).asLong();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConsistentHashRing" + members;
+    }
+}
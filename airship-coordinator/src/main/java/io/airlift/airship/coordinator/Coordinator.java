@@ -11,23 +11,31 @@ import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.FutureFallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import io.airlift.airship.coordinator.AgentFilterBuilder.StatePredicate;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Assignment;
+import io.airlift.airship.shared.CombinedVersion;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.ExpectedSlotStatus;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.InstallationUtils;
 import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.UpgradeVersions;
@@ -35,21 +43,30 @@ import io.airlift.discovery.client.ServiceDescriptor;
 import io.airlift.http.server.HttpServerInfo;
 import io.airlift.log.Logger;
 import io.airlift.node.NodeInfo;
+import io.airlift.stats.TimeStat;
 import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
 
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
+import javax.annotation.concurrent.GuardedBy;
 
+import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
@@ -60,16 +77,15 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
+import static io.airlift.airship.coordinator.ServiceInventoryUtils.createServiceInventoryVersion;
 import static io.airlift.airship.shared.SlotLifecycleState.KILLING;
 import static io.airlift.airship.shared.SlotLifecycleState.RESTARTING;
 import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
@@ -77,6 +93,7 @@ import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
 import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
 import static io.airlift.airship.shared.VersionsUtil.checkSlotsVersion;
+import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
 
 public class Coordinator
 {
@@ -84,18 +101,71 @@ public class Coordinator
 
     private final ConcurrentMap<String, RemoteCoordinator> coordinators = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, RemoteAgent> agents = new ConcurrentHashMap<>();
+    private final SlotIndex slotIndex = new SlotIndex();
+
+    // rebuilt with the agent list, so heartbeats find their agent without a scan
+    private volatile HeartbeatIndex heartbeatIndex = new HeartbeatIndex(ImmutableMap.<String, URI>of(), ImmutableMap.<String, RemoteAgent>of());
+
+    // bumped whenever the expected states change
+    private final AtomicLong expectedStateGeneration = new AtomicLong();
+    // the expected state history generation last seen by updateAgents
+    private final AtomicLong checkedExpectedStateHistoryGeneration = new AtomicLong(-1);
+
+    @GuardedBy("fleetSnapshotLock")
+    private FleetSnapshot fleetSnapshot;
+    @GuardedBy("fleetSnapshotLock")
+    private long fleetSnapshotIndexGeneration = -1;
+    @GuardedBy("fleetSnapshotLock")
+    private long fleetSnapshotStateGeneration = -1;
+    private final Object fleetSnapshotLock = new Object();
 
     private final CoordinatorStatus coordinatorStatus;
-    private final Repository repository;
+    private final TimedRepository repository;
     private final ScheduledExecutorService timerService;
+    private final AgentPollScheduler agentPollScheduler;
     private final Duration statusExpiration;
     private final Provisioner provisioner;
     private final RemoteCoordinatorFactory remoteCoordinatorFactory;
     private final RemoteAgentFactory remoteAgentFactory;
     private final ServiceInventory serviceInventory;
-    private final StateManager stateManager;
+    private final TimedStateManager stateManager;
     private final boolean allowDuplicateInstallationsOnAnAgent;
-    private final ExecutorService executor;
+    private final CommandThrottle commandThrottle;
+    private final CommandStats commandStats = new CommandStats();
+    private final Duration rollingCheckInterval;
+
+    // rolling commands run in the background while the client polls them
+    private final ExecutorService rolloutExecutor;
+    private final ConcurrentMap<String, Rollout> rollouts = new ConcurrentHashMap<>();
+    private final Duration rolloutClientTimeout;
+
+    private final boolean agentShardingEnabled;
+    // peers that answered the last request for their agent shard
+    private final Set<String> shardingCoordinators = Sets.newConcurrentHashSet();
+    private volatile ConsistentHashRing agentShards;
+
+    // bumped whenever an agent is added to or removed from the agent list
+    private final AtomicLong agentListGeneration = new AtomicLong();
+
+    // the agents owned by this coordinator, rebuilt when the agent list or the ring changes
+    @GuardedBy("localAgentsLock")
+    private Map<String, RemoteAgent> localAgents;
+    @GuardedBy("localAgentsLock")
+    private ConsistentHashRing localAgentsShards;
+    @GuardedBy("localAgentsLock")
+    private long localAgentsGeneration = -1;
+    private final Object localAgentsLock = new Object();
+
+    // a read replica copies its state from the primary instead of contacting agents
+    private final String replicaOf;
+    private final Map<String, String> replicatedAgentVersions = new ConcurrentHashMap<>();
+    private volatile String replicatedExpectedStateEpoch;
+    private volatile long replicatedExpectedStateGeneration;
+    @GuardedBy("this")
+    private Long replicationFailingSinceNanos;
+
+    // numbers the expected state changes, which are sent to read replicas
+    private final ExpectedStateHistory expectedStateHistory = new ExpectedStateHistory();
 
     @Inject
     public Coordinator(NodeInfo nodeInfo,
@@ -121,8 +191,7 @@ public class Coordinator
                 provisioner,
                 stateManager,
                 serviceInventory,
-                checkNotNull(config, "config is null").getStatusExpiration(),
-                config.isAllowDuplicateInstallationsOnAnAgent());
+                config);
     }
 
     public Coordinator(CoordinatorStatus coordinatorStatus,
@@ -132,8 +201,7 @@ public class Coordinator
             Provisioner provisioner,
             StateManager stateManager,
             ServiceInventory serviceInventory,
-            Duration statusExpiration,
-            boolean allowDuplicateInstallationsOnAnAgent)
+            CoordinatorConfig config)
     {
         Preconditions.checkNotNull(coordinatorStatus, "coordinatorStatus is null");
         Preconditions.checkNotNull(remoteCoordinatorFactory, "remoteCoordinatorFactory is null");
@@ -142,24 +210,47 @@ public class Coordinator
         Preconditions.checkNotNull(provisioner, "provisioner is null");
         Preconditions.checkNotNull(stateManager, "stateManager is null");
         Preconditions.checkNotNull(serviceInventory, "serviceInventory is null");
-        Preconditions.checkNotNull(statusExpiration, "statusExpiration is null");
+        Preconditions.checkNotNull(config, "config is null");
+
+        Duration statusExpiration = config.getStatusExpiration();
+        Duration agentFastPollInterval = config.getAgentFastPollInterval();
+        Duration agentMaxPollInterval = config.getAgentMaxPollInterval();
+        String replicaOf = config.getReplicaOf();
 
         this.coordinatorStatus = coordinatorStatus;
         this.remoteCoordinatorFactory = remoteCoordinatorFactory;
         this.remoteAgentFactory = remoteAgentFactory;
-        this.repository = repository;
+        this.repository = new TimedRepository(repository);
         this.provisioner = provisioner;
-        this.stateManager = stateManager;
+        // expected states of a replica are copied from the primary, so the configured store is not touched
+        this.stateManager = new TimedStateManager(replicaOf == null ? stateManager : new InMemoryStateManager());
         this.serviceInventory = serviceInventory;
         this.statusExpiration = statusExpiration;
-        this.allowDuplicateInstallationsOnAnAgent = allowDuplicateInstallationsOnAnAgent;
+        this.allowDuplicateInstallationsOnAnAgent = config.isAllowDuplicateInstallationsOnAnAgent();
 
-        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("coordinator-task").build());
+        this.commandThrottle = new CommandThrottle(config.getMaxCommandsInFlight());
+
+        // until peers answer, this coordinator polls every agent
+        this.agentShardingEnabled = config.isAgentShardingEnabled() && replicaOf == null;
+        this.replicaOf = replicaOf;
+        this.agentShards = new ConsistentHashRing(ImmutableList.of(coordinatorStatus.getInstanceId()));
 
         timerService = Executors.newScheduledThreadPool(10, new ThreadFactoryBuilder().setNameFormat("coordinator-agent-monitor").setDaemon(true).build());
 
-        updateAllCoordinatorsAndWait();
+        // agents are polled at the status expiration interval, sooner when busy and later when unreachable
+        agentPollScheduler = new AgentPollScheduler(timerService,
+                statusExpiration,
+                Ordering.<Duration>natural().min(agentFastPollInterval, statusExpiration),
+                Ordering.<Duration>natural().max(agentMaxPollInterval, statusExpiration));
+
+        // rolling commands check slot states as often as busy agents are polled
+        rollingCheckInterval = Ordering.<Duration>natural().min(agentFastPollInterval, statusExpiration);
+        rolloutExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("coordinator-rollout-%s").setDaemon(true).build());
+        rolloutClientTimeout = config.getRolloutClientTimeout();
+
+        // agents must be known before the status replicated from the primary can be applied
         updateAllAgentsAndWait();
+        updateAllCoordinatorsAndWait();
     }
 
     @PostConstruct
@@ -185,7 +276,9 @@ public class Coordinator
             public void run()
             {
                 try {
-                    updateAllAgents();
+                    // agent status is polled by the scheduler, so only the agent list is updated here
+                    updateAgents();
+                    agentPollScheduler.update(getLocalAgents());
                 }
                 catch (Throwable e) {
                     log.error(e, "Unexpected exception updating agents");
@@ -194,6 +287,41 @@ public class Coordinator
         }, 0, (long) statusExpiration.toMillis(), TimeUnit.MILLISECONDS);
     }
 
+    @Managed
+    @Nested
+    public AgentPollScheduler getAgentPollScheduler()
+    {
+        return agentPollScheduler;
+    }
+
+    @Managed
+    @Nested
+    public CommandThrottle getCommandThrottle()
+    {
+        return commandThrottle;
+    }
+
+    @Managed
+    @Nested
+    public CommandStats getCommandStats()
+    {
+        return commandStats;
+    }
+
+    @Managed
+    @Nested
+    public TimedStateManager getStateManagerStats()
+    {
+        return stateManager;
+    }
+
+    @Managed
+    @Nested
+    public TimedRepository getRepositoryStats()
+    {
+        return repository;
+    }
+
     public CoordinatorStatus status()
     {
         return coordinatorStatus;
@@ -241,6 +369,8 @@ public class Coordinator
             String securityGroup,
             String provisioningScriptsArtifact)
     {
+        checkNotReplica();
+
         List<Instance> instances = provisioner.provisionCoordinators(coordinatorConfigSpec,
                 coordinatorCount,
                 instanceType,
@@ -304,6 +434,54 @@ public class Coordinator
         return null;
     }
 
+    public boolean heartbeat(AgentStatusRepresentation agentStatus, String serviceInventoryVersion)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+
+        String instanceId = heartbeatIndex.getInstanceId(agentStatus);
+        RemoteAgent remoteAgent = instanceId != null ? agents.get(instanceId) : null;
+        if (remoteAgent == null) {
+            return false;
+        }
+        remoteAgent.heartbeat(agentStatus, serviceInventoryVersion);
+        return true;
+    }
+
+    /**
+     * Returns true if the address is one of the addresses of the internal
+     * uri the provisioner lists for the agent sending the heartbeat.  Agents
+     * have no key to sign requests with, so this is how their heartbeats
+     * are authenticated when auth is enabled.
+     */
+    public boolean isAgentAddress(AgentStatusRepresentation agentStatus, String remoteAddress)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+        Preconditions.checkNotNull(remoteAddress, "remoteAddress is null");
+
+        HeartbeatIndex heartbeatIndex = this.heartbeatIndex;
+        String instanceId = heartbeatIndex.getInstanceId(agentStatus);
+        if (instanceId == null) {
+            return false;
+        }
+        URI internalUri = heartbeatIndex.getInternalUri(instanceId);
+        if (internalUri == null || internalUri.getHost() == null) {
+            return false;
+        }
+
+        try {
+            InetAddress address = InetAddress.getByName(remoteAddress);
+            for (InetAddress agentAddress : InetAddress.getAllByName(internalUri.getHost())) {
+                if (agentAddress.equals(address)) {
+                    return true;
+                }
+            }
+        }
+        catch (UnknownHostException e) {
+            log.debug("Unable to resolve address of agent %s: %s", instanceId, e.getMessage());
+        }
+        return false;
+    }
+
     @VisibleForTesting
     public void updateAllCoordinatorsAndWait()
     {
@@ -323,7 +501,8 @@ public class Coordinator
 
             RemoteCoordinator remoteCoordinator = remoteCoordinatorFactory.createRemoteCoordinator(instance, instance.getInternalUri() != null ? CoordinatorLifecycleState.ONLINE : CoordinatorLifecycleState.OFFLINE);
             RemoteCoordinator existing = coordinators.putIfAbsent(instance.getInstanceId(), remoteCoordinator);
-            if (existing != null) {
+            // a new status would make the slot index and fleet snapshot rebuild every cycle
+            if (existing != null && !Objects.equal(existing.status().getInternalUri(), instance.getInternalUri())) {
                 existing.setInternalUri(instance.getInternalUri());
             }
         }
@@ -342,9 +521,268 @@ public class Coordinator
         for (RemoteCoordinator remoteCoordinator : coordinators.values()) {
             futures.add(remoteCoordinator.updateStatus());
         }
+
+        if (replicaOf != null) {
+            RemoteCoordinator primary = coordinators.get(replicaOf);
+            if (primary == null) {
+                log.warn("Primary coordinator %s is not known to the provisioner", replicaOf);
+                replicationFailed();
+            }
+            else {
+                futures.add(updateReplica(primary));
+            }
+        }
+
+        // fetch the agents polled by each peer, which also tells us which peers share the polling
+        shardingCoordinators.retainAll(coordinators.keySet());
+        if (agentShardingEnabled) {
+            for (Entry<String, RemoteCoordinator> entry : coordinators.entrySet()) {
+                futures.add(updateAgentShard(entry.getKey(), entry.getValue()));
+            }
+        }
+        updateAgentShards();
         return futures;
     }
 
+    private ListenableFuture<?> updateAgentShard(final String instanceId, RemoteCoordinator remoteCoordinator)
+    {
+        if (remoteCoordinator.status().getState() != CoordinatorLifecycleState.ONLINE) {
+            shardingCoordinators.remove(instanceId);
+            return Futures.immediateFuture(null);
+        }
+
+        // a peer that can not be reached, or does not shard, answers null
+        ListenableFuture<List<AgentStatusRepresentation>> future = Futures.withFallback(remoteCoordinator.getAgentShard(), new FutureFallback<List<AgentStatusRepresentation>>()
+        {
+            @Override
+            public ListenableFuture<List<AgentStatusRepresentation>> create(Throwable t)
+            {
+                log.debug(t, "Unable to fetch agent shard from coordinator %s", instanceId);
+                return Futures.immediateFuture(null);
+            }
+        });
+        return Futures.transform(future, new Function<List<AgentStatusRepresentation>, Void>()
+        {
+            @Override
+            public Void apply(List<AgentStatusRepresentation> agentShard)
+            {
+                if (agentShard == null) {
+                    shardingCoordinators.remove(instanceId);
+                    updateAgentShards();
+                    return null;
+                }
+
+                shardingCoordinators.add(instanceId);
+                updateAgentShards();
+
+                // agents this coordinator polls itself are more current than the copy from the peer
+                for (AgentStatusRepresentation agentStatus : agentShard) {
+                    RemoteAgent remoteAgent = agents.get(agentStatus.getInstanceId());
+                    if (remoteAgent != null && !isLocalAgent(agentStatus.getInstanceId())) {
+                        remoteAgent.applyStatus(agentStatus);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private ListenableFuture<?> updateReplica(RemoteCoordinator primary)
+    {
+        ListenableFuture<ReplicationRepresentation> future = primary.replicate(ImmutableMap.copyOf(replicatedAgentVersions), replicatedExpectedStateEpoch, replicatedExpectedStateGeneration);
+        Futures.addCallback(future, new FutureCallback<ReplicationRepresentation>()
+        {
+            @Override
+            public void onSuccess(ReplicationRepresentation replication)
+            {
+                applyReplication(replication);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                log.warn(t, "Unable to replicate state from coordinator %s", replicaOf);
+                replicationFailed();
+            }
+        });
+        return future;
+    }
+
+    private synchronized void replicationFailed()
+    {
+        long now = System.nanoTime();
+        if (replicationFailingSinceNanos == null) {
+            replicationFailingSinceNanos = now;
+            return;
+        }
+        if (now - replicationFailingSinceNanos < statusExpiration.roundTo(TimeUnit.NANOSECONDS)) {
+            return;
+        }
+
+        // the replicated status is no longer current, so report the agents the same way an unreachable agent is reported
+        for (RemoteAgent remoteAgent : agents.values()) {
+            remoteAgent.markOffline();
+        }
+        // have the primary send every agent once replication recovers
+        replicatedAgentVersions.clear();
+    }
+
+    private synchronized void applyReplication(ReplicationRepresentation replication)
+    {
+        for (AgentStatusRepresentation agentStatus : replication.getAgents()) {
+            RemoteAgent remoteAgent = agents.get(agentStatus.getInstanceId());
+            if (remoteAgent != null) {
+                remoteAgent.applyStatus(agentStatus);
+                replicatedAgentVersions.put(agentStatus.getInstanceId(), agentStatus.getVersion());
+            }
+        }
+        replicatedAgentVersions.keySet().retainAll(agents.keySet());
+        replicationFailingSinceNanos = null;
+
+        // responses to overlapping requests may arrive out of order
+        if (replication.getExpectedStateEpoch().equals(replicatedExpectedStateEpoch) && replication.getExpectedStateGeneration() < replicatedExpectedStateGeneration) {
+            return;
+        }
+
+        Collection<UUID> deleted;
+        if (replication.isExpectedStatesFull()) {
+            // replace the expected states with the ones from the primary
+            Set<UUID> missing = newHashSet(transform(stateManager.getAllExpectedStates(), ExpectedSlotStatus.uuidGetter()));
+            missing.removeAll(Lists.transform(replication.getExpectedStates(), ExpectedSlotStatus.uuidGetter()));
+            deleted = missing;
+        }
+        else {
+            deleted = replication.getDeletedExpectedStates();
+        }
+        if (!deleted.isEmpty()) {
+            stateManager.deleteExpectedStates(deleted);
+        }
+        if (!replication.getExpectedStates().isEmpty()) {
+            stateManager.setExpectedStates(replication.getExpectedStates());
+        }
+        if (!deleted.isEmpty() || !replication.getExpectedStates().isEmpty()) {
+            expectedStateGeneration.incrementAndGet();
+        }
+
+        replicatedExpectedStateEpoch = replication.getExpectedStateEpoch();
+        replicatedExpectedStateGeneration = replication.getExpectedStateGeneration();
+    }
+
+    private void checkNotReplica()
+    {
+        if (replicaOf != null) {
+            throw new IllegalStateException("Coordinator is a read-only replica of " + replicaOf);
+        }
+    }
+
+    /**
+     * Returns the agents whose version differs from the specified versions,
+     * keyed by instance id.
+     */
+    public List<AgentStatus> getChangedAgents(Map<String, String> agentVersions)
+    {
+        Preconditions.checkNotNull(agentVersions, "agentVersions is null");
+
+        ImmutableList.Builder<AgentStatus> changedAgents = ImmutableList.builder();
+        for (RemoteAgent remoteAgent : agents.values()) {
+            AgentStatus status = remoteAgent.status();
+            if (!status.getVersion().equals(agentVersions.get(status.getInstanceId()))) {
+                changedAgents.add(status);
+            }
+        }
+        return changedAgents.build();
+    }
+
+    public Collection<ExpectedSlotStatus> getExpectedStates()
+    {
+        return stateManager.getAllExpectedStates();
+    }
+
+    /**
+     * Returns the expected states changed since the specified generation of
+     * the specified epoch, or all expected states if the changes are unknown.
+     */
+    public ExpectedStateHistory.Changes getExpectedStateChanges(@Nullable String epoch, long generation)
+    {
+        return expectedStateHistory.getChanges(stateManager.getAllExpectedStates(), epoch, generation);
+    }
+
+    @Managed
+    public String getReplicaOf()
+    {
+        return replicaOf;
+    }
+
+    private synchronized void updateAgentShards()
+    {
+        ConsistentHashRing agentShards = new ConsistentHashRing(ImmutableList.<String>builder()
+                .add(coordinatorStatus.getInstanceId())
+                .addAll(shardingCoordinators)
+                .build());
+        if (!agentShards.getMembers().equals(this.agentShards.getMembers())) {
+            log.info("Agent polling is sharded across coordinators %s", agentShards.getMembers());
+            this.agentShards = agentShards;
+        }
+    }
+
+    private boolean isLocalAgent(String instanceId)
+    {
+        return agentShards.getOwner(instanceId).equals(coordinatorStatus.getInstanceId());
+    }
+
+    /**
+     * Returns the agents polled by this coordinator.  The status of the other
+     * agents is fetched from the coordinators polling them.
+     */
+    private Map<String, RemoteAgent> getLocalAgents()
+    {
+        if (replicaOf != null) {
+            return ImmutableMap.of();
+        }
+
+        synchronized (localAgentsLock) {
+            // read the generation before the agent list, so a concurrent change forces another rebuild
+            long generation = agentListGeneration.get();
+            ConsistentHashRing agentShards = this.agentShards;
+            if (localAgents == null || generation != localAgentsGeneration || agentShards != localAgentsShards) {
+                ImmutableMap.Builder<String, RemoteAgent> localAgents = ImmutableMap.builder();
+                for (Entry<String, RemoteAgent> entry : agents.entrySet()) {
+                    if (agentShards.getOwner(entry.getKey()).equals(coordinatorStatus.getInstanceId())) {
+                        localAgents.put(entry);
+                    }
+                }
+                this.localAgents = localAgents.build();
+                localAgentsGeneration = generation;
+                localAgentsShards = agentShards;
+            }
+            return localAgents;
+        }
+    }
+
+    /**
+     * Returns the status of the agents polled by this coordinator, or null if
+     * agent polling is not sharded.
+     */
+    public List<AgentStatus> getAgentShard()
+    {
+        if (!agentShardingEnabled) {
+            return null;
+        }
+        return ImmutableList.copyOf(transform(getLocalAgents().values(), getAgentStatus()));
+    }
+
+    @Managed
+    public int getLocalAgentCount()
+    {
+        return getLocalAgents().size();
+    }
+
+    @Managed
+    public String getAgentShardCoordinators()
+    {
+        return Joiner.on(", ").join(agentShards.getMembers());
+    }
+
     @VisibleForTesting
     public void updateAllAgentsAndWait()
     {
@@ -352,13 +790,32 @@ public class Coordinator
     }
 
     private List<ListenableFuture<?>> updateAllAgents()
+    {
+        updateAgents();
+
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (RemoteAgent remoteAgent : getLocalAgents().values()) {
+            futures.add(remoteAgent.updateStatus());
+        }
+        return futures;
+    }
+
+    private void updateAgents()
     {
         Set<String> instanceIds = newHashSet();
+        Map<String, URI> provisionedInternalUris = new HashMap<>();
         for (Instance instance : this.provisioner.listAgents()) {
             instanceIds.add(instance.getInstanceId());
+            if (instance.getInternalUri() != null) {
+                provisionedInternalUris.put(instance.getInstanceId(), instance.getInternalUri());
+            }
             RemoteAgent remoteAgent = remoteAgentFactory.createRemoteAgent(instance, instance.getInternalUri() != null ? AgentLifecycleState.ONLINE : AgentLifecycleState.OFFLINE);
             RemoteAgent existing = agents.putIfAbsent(instance.getInstanceId(), remoteAgent);
-            if (existing != null) {
+            if (existing == null) {
+                agentListGeneration.incrementAndGet();
+            }
+            // a new status would make the slot index and fleet snapshot rebuild every cycle
+            if (existing != null && !Objects.equal(existing.status().getInternalUri(), instance.getInternalUri())) {
                 existing.setInternalUri(instance.getInternalUri());
             }
         }
@@ -371,15 +828,27 @@ public class Coordinator
         }
 
         // remove any agents not in the provisioner list
-        agents.keySet().retainAll(instanceIds);
+        if (agents.keySet().retainAll(instanceIds)) {
+            agentListGeneration.incrementAndGet();
+        }
 
-        List<ListenableFuture<?>> futures = new ArrayList<>();
-        List<ServiceDescriptor> serviceDescriptors = serviceInventory.getServiceInventory(transform(getAllSlots(), getSlotStatus()));
-        for (RemoteAgent remoteAgent : agents.values()) {
-            futures.add(remoteAgent.updateStatus());
-            remoteAgent.setServiceInventory(serviceDescriptors);
+        heartbeatIndex = new HeartbeatIndex(provisionedInternalUris, agents);
+
+        // the state manager may be shared with other coordinators, so check it for their changes every cycle
+        long historyGeneration = expectedStateHistory.update(stateManager.getAllExpectedStates());
+        if (checkedExpectedStateHistoryGeneration.getAndSet(historyGeneration) != historyGeneration) {
+            expectedStateGeneration.incrementAndGet();
+        }
+
+        if (replicaOf != null) {
+            return;
+        }
+
+        List<ServiceDescriptor> serviceDescriptors = serviceInventory.getServiceInventory(getAllSlots());
+        String serviceInventoryVersion = createServiceInventoryVersion(serviceDescriptors);
+        for (RemoteAgent remoteAgent : getLocalAgents().values()) {
+            remoteAgent.setServiceInventory(serviceInventoryVersion, serviceDescriptors);
         }
-        return futures;
     }
 
     public List<AgentStatus> provisionAgents(String agentConfigSpec,
@@ -391,6 +860,8 @@ public class Coordinator
             String securityGroup,
             String provisioningScriptsArtifact)
     {
+        checkNotReplica();
+
         List<Instance> instances = provisioner.provisionAgents(agentConfigSpec,
                 agentCount,
                 instanceType,
@@ -406,6 +877,7 @@ public class Coordinator
 
             RemoteAgent remoteAgent = remoteAgentFactory.createRemoteAgent(instance, AgentLifecycleState.PROVISIONING);
             this.agents.put(instanceId, remoteAgent);
+            agentListGeneration.incrementAndGet();
 
             agents.add(remoteAgent.status());
         }
@@ -414,11 +886,14 @@ public class Coordinator
 
     public AgentStatus terminateAgent(String agentId)
     {
+        checkNotReplica();
+
         RemoteAgent agent = null;
         for (Iterator<Entry<String, RemoteAgent>> iterator = agents.entrySet().iterator(); iterator.hasNext(); ) {
             Entry<String, RemoteAgent> entry = iterator.next();
             if (entry.getValue().status().getAgentId().equals(agentId)) {
                 iterator.remove();
+                agentListGeneration.incrementAndGet();
                 agent = entry.getValue();
                 break;
             }
@@ -426,8 +901,10 @@ public class Coordinator
         if (agent == null) {
             return null;
         }
-        if (!agent.getSlots().isEmpty()) {
-            agents.putIfAbsent(agent.status().getInstanceId(), agent);
+        if (!agent.status().getSlotStatuses().isEmpty()) {
+            if (agents.putIfAbsent(agent.status().getInstanceId(), agent) == null) {
+                agentListGeneration.incrementAndGet();
+            }
             throw new IllegalStateException("Cannot terminate agent that has slots: " + agentId);
         }
         provisioner.terminateAgents(ImmutableList.of(agentId));
@@ -436,21 +913,55 @@ public class Coordinator
 
     public List<SlotStatus> install(Predicate<AgentStatus> filter, int limit, Assignment assignment)
     {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<SlotStatus> slotStatuses = installSlots(filter, limit, assignment);
+            success = true;
+            return slotStatuses;
+        }
+        finally {
+            commandStats.recordSince(commandStats.getInstall(), start, success);
+        }
+    }
+
+    private List<SlotStatus> installSlots(Predicate<AgentStatus> filter, int limit, Assignment assignment)
+    {
+        checkNotReplica();
+
         final Installation installation = InstallationUtils.toInstallation(repository, assignment);
 
         List<RemoteAgent> targetAgents = new ArrayList<>(selectAgents(filter, installation));
         targetAgents = targetAgents.subList(0, Math.min(targetAgents.size(), limit));
 
-        return parallel(targetAgents, new Function<RemoteAgent, SlotStatus>()
-        {
-            @Override
-            public SlotStatus apply(RemoteAgent agent)
+        List<ListenableFuture<SlotStatus>> futures = newArrayList();
+        for (final RemoteAgent agent : targetAgents) {
+            futures.add(commandThrottle.submit(new Callable<ListenableFuture<SlotStatus>>()
             {
-                SlotStatus slotStatus = agent.install(installation);
-                stateManager.setExpectedState(new ExpectedSlotStatus(slotStatus.getId(), STOPPED, installation.getAssignment()));
-                return slotStatus;
-            }
-        });
+                @Override
+                public ListenableFuture<SlotStatus> call()
+                {
+                    return agent.install(installation);
+                }
+            }));
+        }
+
+        List<Throwable> failures = newArrayList();
+        List<SlotStatus> slotStatuses = waitForCommands(futures, failures);
+
+        // record the expected state of the installed slots even if other installs failed
+        List<ExpectedSlotStatus> expectedStates = newArrayList();
+        for (SlotStatus slotStatus : slotStatuses) {
+            expectedStates.add(new ExpectedSlotStatus(slotStatus.getId(), STOPPED, installation.getAssignment()));
+        }
+        setExpectedStates(expectedStates);
+
+        for (SlotStatus slotStatus : slotStatuses) {
+            agentPollScheduler.pollSoon(slotStatus.getInstanceId());
+        }
+
+        checkCommandFailures(failures);
+        return slotStatuses;
     }
 
     private List<RemoteAgent> selectAgents(Predicate<AgentStatus> filter, Installation installation)
@@ -494,6 +1005,58 @@ public class Coordinator
 
     public List<SlotStatus> upgrade(Predicate<SlotStatus> filter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force)
     {
+        return upgrade(filter, upgradeVersions, expectedSlotsVersion, force, null);
+    }
+
+    /**
+     * Upgrades the selected slots.  When a rolling policy is specified the
+     * slots are upgraded in batches and this waits for the last batch,
+     * otherwise all slots are upgraded at once.
+     */
+    public List<SlotStatus> upgrade(Predicate<SlotStatus> filter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force, @Nullable RollingPolicy rollingPolicy)
+    {
+        if (rollingPolicy != null) {
+            return startUpgrade(filter, upgradeVersions, expectedSlotsVersion, force, rollingPolicy).waitForSlots();
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<SlotStatus> slotStatuses = planUpgrade(filter, upgradeVersions, expectedSlotsVersion, force).execute();
+            success = true;
+            return slotStatuses;
+        }
+        finally {
+            commandStats.recordSince(commandStats.getUpgrade(), start, success);
+        }
+    }
+
+    /**
+     * Starts upgrading the selected slots in batches.  The slots and their
+     * new assignments are resolved before this returns, so a stale slots
+     * version or a bad upgrade fails here, and the batches run in the
+     * background.
+     */
+    public Rollout startUpgrade(Predicate<SlotStatus> filter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force, RollingPolicy rollingPolicy)
+    {
+        Preconditions.checkNotNull(rollingPolicy, "rollingPolicy is null");
+
+        long start = System.nanoTime();
+        PlannedCommand command;
+        try {
+            command = planUpgrade(filter, upgradeVersions, expectedSlotsVersion, force);
+        }
+        catch (RuntimeException e) {
+            commandStats.recordSince(commandStats.getUpgrade(), start, false);
+            throw e;
+        }
+        return startRollout(command, rollingPolicy, commandStats.getUpgrade(), start);
+    }
+
+    private PlannedCommand planUpgrade(Predicate<SlotStatus> filter, UpgradeVersions upgradeVersions, String expectedSlotsVersion, boolean force)
+    {
+        checkNotReplica();
+
         List<RemoteSlot> filteredSlots = selectRemoteSlots(filter, expectedSlotsVersion);
 
         final Map<UUID, Assignment> newAssignments = new HashMap<>();
@@ -523,7 +1086,7 @@ public class Coordinator
 
         // no slots to upgrade
         if (newAssignments.isEmpty()) {
-            return ImmutableList.of();
+            return new PlannedCommand(ImmutableList.<RemoteSlot>of(), ImmutableList.<ExpectedSlotStatus>of(), null);
         }
 
         // assure that new assignments all have the same binary (ignoring version)
@@ -535,13 +1098,17 @@ public class Coordinator
             throw new IllegalArgumentException("Expected a target slots for upgrade command to have a single binary, but found: " + Joiner.on(", ").join(binaries));
         }
 
-        return parallelCommand(slotsToUpgrade, new Function<RemoteSlot, SlotStatus>()
+        List<ExpectedSlotStatus> expectedStates = newArrayList();
+        for (RemoteSlot slot : slotsToUpgrade) {
+            boolean expectRestart = slot.status().getState() == RUNNING;
+            expectedStates.add(new ExpectedSlotStatus(slot.getId(), expectRestart ? RUNNING : STOPPED, newAssignments.get(slot.getId())));
+        }
+
+        Function<RemoteSlot, SlotCommand> command = new Function<RemoteSlot, SlotCommand>()
         {
             @Override
-            public SlotStatus apply(RemoteSlot slot)
+            public SlotCommand apply(RemoteSlot slot)
             {
-                boolean expectRestart = slot.status().getState() == RUNNING;
-
                 Assignment assignment = newAssignments.get(slot.getId());
                 Preconditions.checkState(assignment != null, "Error no assignment for slot " + slot.getId());
 
@@ -553,11 +1120,11 @@ public class Coordinator
                         repository.binaryToHttpUri(assignment.getBinary()),
                         configFile, ImmutableMap.<String, Integer>of());
 
-                stateManager.setExpectedState(new ExpectedSlotStatus(slot.getId(), expectRestart ? RUNNING : STOPPED, installation.getAssignment()));
-                SlotStatus slotStatus = slot.assign(installation);
-                return slotStatus;
+                return SlotCommand.assign(slot.getId(), installation);
             }
-        });
+        };
+
+        return new PlannedCommand(slotsToUpgrade, expectedStates, command);
     }
 
     private boolean sameBinary(Collection<Assignment> values)
@@ -578,106 +1145,251 @@ public class Coordinator
 
     public List<SlotStatus> terminate(Predicate<SlotStatus> filter, String expectedSlotsVersion)
     {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<SlotStatus> slotStatuses = terminateSlots(filter, expectedSlotsVersion);
+            success = true;
+            return slotStatuses;
+        }
+        finally {
+            commandStats.recordSince(commandStats.getTerminate(), start, success);
+        }
+    }
+
+    private List<SlotStatus> terminateSlots(Predicate<SlotStatus> filter, String expectedSlotsVersion)
+    {
+        checkNotReplica();
+
         Preconditions.checkNotNull(filter, "filter is null");
 
         // filter the slots
         List<RemoteSlot> filteredSlots = selectRemoteSlots(filter, expectedSlotsVersion);
 
-        return parallelCommand(filteredSlots, new Function<RemoteSlot, SlotStatus>()
+        List<SlotStatus> slotStatuses = parallelCommand(filteredSlots, new Function<RemoteSlot, ListenableFuture<SlotStatus>>()
         {
             @Override
-            public SlotStatus apply(RemoteSlot slot)
+            public ListenableFuture<SlotStatus> apply(RemoteSlot slot)
             {
-                SlotStatus slotStatus = slot.terminate();
-                if (slotStatus.getState() == TERMINATED) {
-                    stateManager.deleteExpectedState(slotStatus.getId());
-                }
-                return slotStatus;
+                return slot.terminate();
             }
         });
+
+        List<UUID> terminatedSlots = newArrayList();
+        for (SlotStatus slotStatus : slotStatuses) {
+            if (slotStatus.getState() == TERMINATED) {
+                terminatedSlots.add(slotStatus.getId());
+            }
+        }
+        deleteExpectedStates(terminatedSlots);
+
+        return slotStatuses;
+    }
+
+    public List<SlotStatus> setState(SlotLifecycleState state, Predicate<SlotStatus> filter, String expectedSlotsVersion)
+    {
+        return setState(state, filter, expectedSlotsVersion, null);
+    }
+
+    /**
+     * Changes the lifecycle state of the selected slots.  When a rolling
+     * policy is specified the slots are changed in batches and this waits
+     * for the last batch, otherwise all slots are changed at once.
+     */
+    public List<SlotStatus> setState(SlotLifecycleState state, Predicate<SlotStatus> filter, String expectedSlotsVersion, @Nullable RollingPolicy rollingPolicy)
+    {
+        if (rollingPolicy != null) {
+            return startSetState(state, filter, expectedSlotsVersion, rollingPolicy).waitForSlots();
+        }
+
+        Preconditions.checkArgument(EnumSet.of(RUNNING, RESTARTING, STOPPED, KILLING).contains(state), "Unsupported lifecycle state: " + state);
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<SlotStatus> slotStatuses = planSetState(state, filter, expectedSlotsVersion).execute();
+            success = true;
+            return slotStatuses;
+        }
+        finally {
+            commandStats.recordSince(commandStats.getSetState(state), start, success);
+        }
     }
 
-    public List<SlotStatus> setState(final SlotLifecycleState state, Predicate<SlotStatus> filter, String expectedSlotsVersion)
+    /**
+     * Starts changing the lifecycle state of the selected slots in batches.
+     * The slots are selected before this returns, so a stale slots version
+     * fails here, and the batches run in the background.
+     */
+    public Rollout startSetState(SlotLifecycleState state, Predicate<SlotStatus> filter, String expectedSlotsVersion, RollingPolicy rollingPolicy)
     {
         Preconditions.checkArgument(EnumSet.of(RUNNING, RESTARTING, STOPPED, KILLING).contains(state), "Unsupported lifecycle state: " + state);
+        Preconditions.checkNotNull(rollingPolicy, "rollingPolicy is null");
+
+        long start = System.nanoTime();
+        PlannedCommand command;
+        try {
+            command = planSetState(state, filter, expectedSlotsVersion);
+        }
+        catch (RuntimeException e) {
+            commandStats.recordSince(commandStats.getSetState(state), start, false);
+            throw e;
+        }
+        return startRollout(command, rollingPolicy, commandStats.getSetState(state), start);
+    }
+
+    private PlannedCommand planSetState(final SlotLifecycleState state, Predicate<SlotStatus> filter, String expectedSlotsVersion)
+    {
+        checkNotReplica();
 
         // filter the slots
         List<RemoteSlot> filteredSlots = selectRemoteSlots(filter, expectedSlotsVersion);
 
-        return parallelCommand(filteredSlots, new Function<RemoteSlot, SlotStatus>()
+        // restarting slots are expected to be running
+        SlotLifecycleState expectedState = state == RESTARTING ? RUNNING : state;
+        List<ExpectedSlotStatus> expectedStates = newArrayList();
+        for (RemoteSlot slot : filteredSlots) {
+            expectedStates.add(new ExpectedSlotStatus(slot.getId(), expectedState, slot.status().getAssignment()));
+        }
+
+        Function<RemoteSlot, SlotCommand> command = new Function<RemoteSlot, SlotCommand>()
         {
             @Override
-            public SlotStatus apply(RemoteSlot slot)
+            public SlotCommand apply(RemoteSlot slot)
             {
-                switch (state) {
-                    case RUNNING:
-                        stateManager.setExpectedState(new ExpectedSlotStatus(slot.getId(), RUNNING, slot.status().getAssignment()));
-                        return slot.start();
-                    case RESTARTING:
-                        stateManager.setExpectedState(new ExpectedSlotStatus(slot.getId(), RUNNING, slot.status().getAssignment()));
-                        return slot.restart();
-                    case STOPPED:
-                        stateManager.setExpectedState(new ExpectedSlotStatus(slot.getId(), STOPPED, slot.status().getAssignment()));
-                        return slot.stop();
-                    case KILLING:
-                        stateManager.setExpectedState(new ExpectedSlotStatus(slot.getId(), KILLING, slot.status().getAssignment()));
-                        return slot.kill();
-                    default:
-                        throw new IllegalArgumentException("Unexpected state transition " + state);
-                }
+                return SlotCommand.setState(slot.getId(), state);
             }
-        });
+        };
+
+        return new PlannedCommand(filteredSlots, expectedStates, command);
     }
 
     public List<SlotStatus> resetExpectedState(Predicate<SlotStatus> filter, String expectedSlotsVersion)
     {
+        checkNotReplica();
+
         // filter the slots
         List<SlotStatus> filteredSlots = getAllSlotsStatus(filter);
 
         // verify the state of the system hasn't changed
         checkSlotsVersion(expectedSlotsVersion, filteredSlots);
 
-        return ImmutableList.copyOf(transform(filteredSlots, new Function<SlotStatus, SlotStatus>()
-        {
-            @Override
-            public SlotStatus apply(SlotStatus slotStatus)
-            {
-                if (slotStatus.getState() != SlotLifecycleState.UNKNOWN) {
-                    stateManager.setExpectedState(new ExpectedSlotStatus(slotStatus.getId(), slotStatus.getState(), slotStatus.getAssignment()));
-                }
-                else {
-                    stateManager.deleteExpectedState(slotStatus.getId());
-                }
-                return slotStatus;
+        List<ExpectedSlotStatus> expectedStates = newArrayList();
+        List<UUID> unknownSlots = newArrayList();
+        for (SlotStatus slotStatus : filteredSlots) {
+            if (slotStatus.getState() != SlotLifecycleState.UNKNOWN) {
+                expectedStates.add(new ExpectedSlotStatus(slotStatus.getId(), slotStatus.getState(), slotStatus.getAssignment()));
             }
-        }));
+            else {
+                unknownSlots.add(slotStatus.getId());
+            }
+        }
+        setExpectedStates(expectedStates);
+        deleteExpectedStates(unknownSlots);
+
+        return ImmutableList.copyOf(filteredSlots);
     }
 
     private List<RemoteSlot> selectRemoteSlots(Predicate<SlotStatus> filter, String expectedSlotsVersion)
     {
         // filter the slots
-        List<RemoteSlot> filteredSlots = ImmutableList.copyOf(filter(getAllSlots(), filterSlotsBy(filter)));
+        List<SlotStatus> filteredSlots = ImmutableList.copyOf(filter(getAllSlots(), filter));
 
         // verify the state of the system hasn't changed
         checkSlotsVersion(expectedSlotsVersion, getAllSlotsStatus(filter, filteredSlots));
 
-        return filteredSlots;
+        // only create remote slots for the slots that will be acted on
+        ImmutableList.Builder<RemoteSlot> remoteSlots = ImmutableList.builder();
+        for (SlotStatus slotStatus : filteredSlots) {
+            String agentKey = slotIndex.getAgentKey(slotStatus.getId());
+            RemoteAgent remoteAgent = agentKey != null ? agents.get(agentKey) : null;
+            RemoteSlot remoteSlot = remoteAgent != null ? remoteAgent.getSlot(slotStatus.getId()) : null;
+            if (remoteSlot != null) {
+                remoteSlots.add(remoteSlot);
+            }
+        }
+        return remoteSlots.build();
     }
 
     public List<SlotStatus> getAllSlotStatus()
     {
-        return getAllSlotsStatus(Predicates.<SlotStatus>alwaysTrue());
+        return getFleetSnapshot().getSlots();
     }
 
     public List<SlotStatus> getAllSlotsStatus(Predicate<SlotStatus> slotFilter)
     {
-        return getAllSlotsStatus(slotFilter, getAllSlots());
+        return getFleetSnapshot().getSlots(slotFilter);
+    }
+
+    /**
+     * Returns the current fleet snapshot.  The snapshot is rebuilt only when
+     * an agent status or an expected state has changed since it was built.
+     */
+    public FleetSnapshot getFleetSnapshot()
+    {
+        synchronized (fleetSnapshotLock) {
+            long indexGeneration;
+            List<AgentStatus> indexedAgents;
+            List<SlotStatus> indexedSlots;
+            CombinedVersion agentsVersion;
+            CombinedVersion slotsVersion;
+            synchronized (slotIndex) {
+                slotIndex.update(agents);
+                indexGeneration = slotIndex.getGeneration();
+                indexedAgents = slotIndex.getAllAgents();
+                indexedSlots = slotIndex.getAllSlots();
+                agentsVersion = slotIndex.getAgentsVersion();
+                slotsVersion = slotIndex.getSlotsVersion();
+            }
+
+            long stateGeneration = expectedStateGeneration.get();
+            if (fleetSnapshot == null || indexGeneration != fleetSnapshotIndexGeneration || stateGeneration != fleetSnapshotStateGeneration) {
+                long generation = fleetSnapshot == null ? 0 : fleetSnapshot.getGeneration() + 1;
+                List<SlotStatus> slots = getAllSlotsStatus(Predicates.<SlotStatus>alwaysTrue(), indexedSlots);
+
+                // merging the expected state does not change slot versions, so unless
+                // expected slots are missing the index already has the combined version
+                String slotsVersionString;
+                if (slots.size() == indexedSlots.size()) {
+                    slotsVersionString = slotsVersion.toString();
+                }
+                else {
+                    slotsVersionString = createSlotsVersion(slots);
+                }
+                fleetSnapshot = new FleetSnapshot(generation, indexedAgents, agentsVersion.toString(), slots, slotsVersionString, fleetSnapshot);
+                fleetSnapshotIndexGeneration = indexGeneration;
+                fleetSnapshotStateGeneration = stateGeneration;
+            }
+            return fleetSnapshot;
+        }
+    }
+
+    private void setExpectedState(ExpectedSlotStatus expectedSlotStatus)
+    {
+        stateManager.setExpectedState(expectedSlotStatus);
+        expectedStateGeneration.incrementAndGet();
+    }
+
+    private void setExpectedStates(List<ExpectedSlotStatus> expectedSlotStatuses)
+    {
+        if (!expectedSlotStatuses.isEmpty()) {
+            stateManager.setExpectedStates(expectedSlotStatuses);
+            expectedStateGeneration.incrementAndGet();
+        }
+    }
+
+    private void deleteExpectedStates(List<UUID> slotIds)
+    {
+        if (!slotIds.isEmpty()) {
+            stateManager.deleteExpectedStates(slotIds);
+            expectedStateGeneration.incrementAndGet();
+        }
     }
 
-    private List<SlotStatus> getAllSlotsStatus(Predicate<SlotStatus> slotFilter, List<RemoteSlot> allSlots)
+    private List<SlotStatus> getAllSlotsStatus(Predicate<SlotStatus> slotFilter, List<SlotStatus> allSlots)
     {
         ImmutableMap<UUID, ExpectedSlotStatus> expectedStates = Maps.uniqueIndex(stateManager.getAllExpectedStates(), ExpectedSlotStatus.uuidGetter());
-        ImmutableMap<UUID, SlotStatus> actualStates = Maps.uniqueIndex(transform(allSlots, getSlotStatus()), SlotStatus.uuidGetter());
+        ImmutableMap<UUID, SlotStatus> actualStates = Maps.uniqueIndex(allSlots, SlotStatus.uuidGetter());
 
         ArrayList<SlotStatus> stats = newArrayList();
         for (UUID uuid : Sets.union(actualStates.keySet(), expectedStates.keySet())) {
@@ -736,27 +1448,10 @@ public class Coordinator
         return stats;
     }
 
-    private Predicate<RemoteSlot> filterSlotsBy(final Predicate<SlotStatus> filter)
+    private List<SlotStatus> getAllSlots()
     {
-        return new Predicate<RemoteSlot>()
-        {
-            @Override
-            public boolean apply(RemoteSlot input)
-            {
-                return filter.apply(input.status());
-            }
-        };
-    }
-
-    private List<RemoteSlot> getAllSlots()
-    {
-        return ImmutableList.copyOf(concat(Iterables.transform(agents.values(), new Function<RemoteAgent, List<? extends RemoteSlot>>()
-        {
-            public List<? extends RemoteSlot> apply(RemoteAgent agent)
-            {
-                return agent.getSlots();
-            }
-        })));
+        slotIndex.update(agents);
+        return slotIndex.getAllSlots();
     }
 
     private Predicate<RemoteAgent> filterAgentsBy(final Predicate<AgentStatus> filter)
@@ -771,18 +1466,6 @@ public class Coordinator
         };
     }
 
-    private Function<RemoteSlot, SlotStatus> getSlotStatus()
-    {
-        return new Function<RemoteSlot, SlotStatus>()
-        {
-            @Override
-            public SlotStatus apply(RemoteSlot slot)
-            {
-                return slot.status();
-            }
-        };
-    }
-
     private Function<RemoteAgent, AgentStatus> getAgentStatus()
     {
         return new Function<RemoteAgent, AgentStatus>()
@@ -805,9 +1488,9 @@ public class Coordinator
             @Override
             public boolean apply(RemoteAgent agent)
             {
-                for (RemoteSlot slot : agent.getSlots()) {
-                    if ((slot.status().getAssignment() != null) &&
-                            assignmentEqualsIgnoreVersion(assignment, slot.status().getAssignment())) {
+                for (SlotStatus slot : agent.status().getSlotStatuses()) {
+                    if ((slot.getAssignment() != null) &&
+                            assignmentEqualsIgnoreVersion(assignment, slot.getAssignment())) {
                         return false;
                     }
                 }
@@ -822,7 +1505,15 @@ public class Coordinator
                 repository.configEqualsIgnoreVersion(a.getConfig(), b.getConfig());
     }
 
-    private <T> ImmutableList<T> parallelCommand(Iterable<RemoteSlot> items, final Function<RemoteSlot, T> function)
+    private <T> ImmutableList<T> parallelCommand(Iterable<RemoteSlot> items, final Function<RemoteSlot, ListenableFuture<T>> command)
+    {
+        List<Throwable> failures = newArrayList();
+        ImmutableList<T> results = waitForCommands(startCommands(items, command), failures);
+        checkCommandFailures(failures);
+        return results;
+    }
+
+    private <T> List<ListenableFuture<T>> startCommands(Iterable<RemoteSlot> items, final Function<RemoteSlot, ListenableFuture<T>> command)
     {
         ImmutableCollection<Collection<RemoteSlot>> slotsByInstance = Multimaps.index(items, new Function<RemoteSlot, Object>()
         {
@@ -833,57 +1524,382 @@ public class Coordinator
             }
         }).asMap().values();
 
-        // run commands for different instances in parallel
-        return ImmutableList.copyOf(concat(parallel(slotsByInstance, new Function<Collection<RemoteSlot>, List<T>>()
+        // run all commands in parallel; the agent limits concurrent operations on its own slots
+        List<ListenableFuture<T>> futures = newArrayList();
+        for (Collection<RemoteSlot> slots : slotsByInstance) {
+            List<ListenableFuture<T>> instanceFutures = newArrayList();
+            for (RemoteSlot slot : slots) {
+                instanceFutures.add(submitCommand(slot, command));
+            }
+            futures.addAll(instanceFutures);
+
+            // watch the agent closely while the commands take effect
+            final String instanceId = slots.iterator().next().status().getInstanceId();
+            Futures.successfulAsList(instanceFutures).addListener(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    agentPollScheduler.pollSoon(instanceId);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        return futures;
+    }
+
+    private ImmutableList<SlotStatus> slotCommand(Iterable<RemoteSlot> slots, Function<RemoteSlot, SlotCommand> command)
+    {
+        List<Throwable> failures = newArrayList();
+        ImmutableList<SlotStatus> results = ImmutableList.copyOf(Iterables.concat(waitForCommands(startSlotCommands(slots, command), failures)));
+        checkCommandFailures(failures);
+        return results;
+    }
+
+    /**
+     * Sends the commands for all slots of an agent in a single request, so
+     * the agent can run them concurrently.  Requests to different agents are
+     * sent in parallel.
+     */
+    private List<ListenableFuture<List<SlotStatus>>> startSlotCommands(Iterable<RemoteSlot> slots, Function<RemoteSlot, SlotCommand> command)
+    {
+        Map<String, Collection<RemoteSlot>> slotsByInstance = Multimaps.index(slots, new Function<RemoteSlot, String>()
         {
-            public List<T> apply(Collection<RemoteSlot> input)
+            @Override
+            public String apply(RemoteSlot input)
             {
-                // but run commands for a single instance serially
-                return ImmutableList.copyOf(transform(input, function));
+                return input.status().getInstanceId();
             }
-        })));
+        }).asMap();
+
+        List<ListenableFuture<List<SlotStatus>>> futures = newArrayList();
+        for (Entry<String, Collection<RemoteSlot>> entry : slotsByInstance.entrySet()) {
+            final String instanceId = entry.getKey();
+            final List<SlotCommand> commands = ImmutableList.copyOf(transform(entry.getValue(), command));
+            ListenableFuture<List<SlotStatus>> future = commandThrottle.submit(new Callable<ListenableFuture<List<SlotStatus>>>()
+            {
+                @Override
+                public ListenableFuture<List<SlotStatus>> call()
+                {
+                    RemoteAgent agent = agents.get(instanceId);
+                    Preconditions.checkState(agent != null, "Agent %s is no longer available", instanceId);
+                    return agent.execute(commands);
+                }
+            });
+            futures.add(future);
+
+            // watch the agent closely while the commands take effect
+            future.addListener(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    agentPollScheduler.pollSoon(instanceId);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        return futures;
     }
 
-    private <F, T> ImmutableList<T> parallel(Iterable<F> items, final Function<F, T> function)
+    /**
+     * Returns the rollout with the specified id, and records that its client
+     * checked on it, or null if the rollout is unknown or expired.
+     */
+    public Rollout getRollout(String rolloutId)
     {
-        List<Callable<T>> callables = ImmutableList.copyOf(transform(items, new Function<F, Callable<T>>()
+        removeExpiredRollouts();
+        Rollout rollout = rollouts.get(rolloutId);
+        if (rollout != null) {
+            rollout.poll();
+        }
+        return rollout;
+    }
+
+    private Rollout startRollout(final PlannedCommand command, final RollingPolicy rollingPolicy, final TimeStat stat, final long start)
+    {
+        removeExpiredRollouts();
+
+        final Rollout rollout = new Rollout(command.slots.size(), rolloutClientTimeout);
+        rollouts.put(rollout.getId(), rollout);
+        rolloutExecutor.execute(new Runnable()
         {
-            public Callable<T> apply(@Nullable final F item)
+            @Override
+            public void run()
             {
-                return new CallableFunction<>(item, function);
+                Throwable failure = null;
+                try {
+                    rollingCommand(command.slots, command.expectedStates, command.command, rollingPolicy, rollout);
+                }
+                catch (Throwable e) {
+                    failure = e;
+                }
+                finally {
+                    commandStats.recordSince(stat, start, failure == null);
+                    rollout.finish(failure);
+                }
             }
-        }));
+        });
+        return rollout;
+    }
 
-        List<Future<T>> futures;
-        try {
-            futures = executor.invokeAll(callables);
+    private void removeExpiredRollouts()
+    {
+        for (Iterator<Rollout> iterator = rollouts.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isExpired()) {
+                iterator.remove();
+            }
         }
-        catch (InterruptedException e) {
-            throw new RuntimeException("Interrupted while waiting for command to finish", e);
+    }
+
+    /**
+     * Runs the command in batches.  Expected states are recorded one batch at
+     * a time, so slots in batches that never start keep their old expected
+     * state if the rollout is aborted or canceled.
+     */
+    private void rollingCommand(List<RemoteSlot> slots,
+            List<ExpectedSlotStatus> expectedStates,
+            Function<RemoteSlot, SlotCommand> command,
+            RollingPolicy rollingPolicy,
+            Rollout rollout)
+    {
+        Map<UUID, ExpectedSlotStatus> expectedStatesById = Maps.uniqueIndex(expectedStates, new Function<ExpectedSlotStatus, UUID>()
+        {
+            @Override
+            public UUID apply(ExpectedSlotStatus expectedSlotStatus)
+            {
+                return expectedSlotStatus.getId();
+            }
+        });
+
+        if (rollingPolicy.isSpreadLocations()) {
+            slots = spreadByLocation(slots);
+        }
+
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        List<Throwable> failures = newArrayList();
+        int failedSlots = 0;
+        int processedSlots = 0;
+        for (List<RemoteSlot> batch : Lists.partition(slots, rollingPolicy.getBatchSize(slots.size()))) {
+            rollout.checkCanceled();
+
+            List<ExpectedSlotStatus> batchExpectedStates = newArrayList();
+            for (RemoteSlot slot : batch) {
+                batchExpectedStates.add(expectedStatesById.get(slot.getId()));
+            }
+            setExpectedStates(batchExpectedStates);
+
+            List<Throwable> batchFailures = newArrayList();
+            List<SlotStatus> slotStatuses = ImmutableList.copyOf(Iterables.concat(waitForCommands(startSlotCommands(batch, command), batchFailures)));
+            int batchFailedSlots = batch.size() - slotStatuses.size();
+            failures.addAll(batchFailures);
+
+            // wait for the batch to settle before starting the next one
+            List<SlotStatus> settledStatuses = awaitExpectedStates(slotStatuses, expectedStatesById, rollingPolicy.getBatchTimeout(), rollout);
+            for (SlotStatus slotStatus : settledStatuses) {
+                ExpectedSlotStatus expectedState = expectedStatesById.get(slotStatus.getId());
+                if (slotStatus.getState() != getSettledState(expectedState.getStatus())) {
+                    batchFailedSlots++;
+                    failures.add(new IllegalStateException(String.format("Slot %s is %s instead of %s", slotStatus.getId(), slotStatus.getState(), expectedState.getStatus())));
+                }
+            }
+            failedSlots += batchFailedSlots;
+            processedSlots += batch.size();
+            rollout.batchCompleted(batch.size(), batchFailedSlots, settledStatuses);
+
+            if (failedSlots > rollingPolicy.getMaxFailures()) {
+                RuntimeException exception = new RuntimeException(String.format("Rolling command aborted after %s failed slots: %s of %s slots were processed",
+                        failedSlots,
+                        processedSlots,
+                        slots.size()));
+                for (Throwable failure : failures) {
+                    exception.addSuppressed(failure);
+                }
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Waits until each slot reaches its expected state or the timeout
+     * elapses, and returns the latest status of each slot.  Stops early if
+     * the rollout is canceled.
+     */
+    private List<SlotStatus> awaitExpectedStates(List<SlotStatus> slotStatuses, Map<UUID, ExpectedSlotStatus> expectedStates, Duration timeout, Rollout rollout)
+    {
+        Map<UUID, SlotStatus> latest = new LinkedHashMap<>();
+        for (SlotStatus slotStatus : slotStatuses) {
+            latest.put(slotStatus.getId(), slotStatus);
+        }
+
+        long start = System.nanoTime();
+        while (true) {
+            boolean settled = true;
+            for (Entry<UUID, SlotStatus> entry : latest.entrySet()) {
+                SlotStatus slotStatus = entry.getValue();
+                SlotLifecycleState settledState = getSettledState(expectedStates.get(entry.getKey()).getStatus());
+                if (slotStatus.getState() == settledState) {
+                    continue;
+                }
+
+                // slots whose command failed on the agent will not settle
+                if (slotStatus.getState() == UNKNOWN || slotStatus.getState() == TERMINATED) {
+                    continue;
+                }
+
+                SlotStatus current = getCurrentSlotStatus(slotStatus);
+                if (current != null) {
+                    entry.setValue(current);
+                    if (current.getState() == settledState) {
+                        continue;
+                    }
+                }
+                settled = false;
+                agentPollScheduler.pollSoon(slotStatus.getInstanceId());
+            }
+
+            if (settled || System.nanoTime() - start >= timeout.roundTo(TimeUnit.NANOSECONDS)) {
+                return ImmutableList.copyOf(latest.values());
+            }
+            rollout.checkCanceled();
+
+            try {
+                TimeUnit.MILLISECONDS.sleep((long) rollingCheckInterval.toMillis());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for slots to reach their expected state", e);
+            }
+        }
+    }
+
+    private SlotStatus getCurrentSlotStatus(SlotStatus slotStatus)
+    {
+        RemoteAgent agent = agents.get(slotStatus.getInstanceId());
+        if (agent == null) {
+            return null;
+        }
+        RemoteSlot slot = agent.getSlot(slotStatus.getId());
+        if (slot == null) {
+            return null;
+        }
+        return slot.status();
+    }
+
+    private static SlotLifecycleState getSettledState(SlotLifecycleState expectedState)
+    {
+        // killed slots are expected to end up stopped
+        if (expectedState == KILLING) {
+            return STOPPED;
+        }
+        return expectedState;
+    }
+
+    /**
+     * Orders the slots so consecutive slots are in different locations.  The
+     * location of a slot is the parent of its agent's location, for example
+     * the availability zone of the agent.
+     */
+    private List<RemoteSlot> spreadByLocation(List<RemoteSlot> slots)
+    {
+        Map<String, Queue<RemoteSlot>> slotsByLocation = new LinkedHashMap<>();
+        for (RemoteSlot slot : slots) {
+            String location = getParentLocation(slot.status());
+            Queue<RemoteSlot> locationSlots = slotsByLocation.get(location);
+            if (locationSlots == null) {
+                locationSlots = new ArrayDeque<>();
+                slotsByLocation.put(location, locationSlots);
+            }
+            locationSlots.add(slot);
+        }
+
+        List<RemoteSlot> spread = newArrayList();
+        while (spread.size() < slots.size()) {
+            for (Queue<RemoteSlot> locationSlots : slotsByLocation.values()) {
+                RemoteSlot slot = locationSlots.poll();
+                if (slot != null) {
+                    spread.add(slot);
+                }
+            }
+        }
+        return spread;
+    }
+
+    private String getParentLocation(SlotStatus slotStatus)
+    {
+        RemoteAgent agent = agents.get(slotStatus.getInstanceId());
+        String location = null;
+        if (agent != null) {
+            location = agent.status().getLocation();
+        }
+        if (location == null) {
+            return slotStatus.getInstanceId();
         }
+        int index = location.lastIndexOf('/');
+        if (index > 0) {
+            return location.substring(0, index);
+        }
+        return location;
+    }
 
-        List<Throwable> failures = new ArrayList<>();
+    private <T> ListenableFuture<T> submitCommand(final RemoteSlot slot, final Function<RemoteSlot, ListenableFuture<T>> command)
+    {
+        return commandThrottle.submit(new Callable<ListenableFuture<T>>()
+        {
+            @Override
+            public ListenableFuture<T> call()
+            {
+                return command.apply(slot);
+            }
+        });
+    }
+
+    private static <T> ImmutableList<T> waitForCommands(List<ListenableFuture<T>> futures, List<Throwable> failures)
+    {
         ImmutableList.Builder<T> results = ImmutableList.builder();
-        for (Future<T> future : futures) {
+        for (ListenableFuture<T> future : futures) {
+            Throwable failure;
             try {
                 results.add(future.get());
+                continue;
             }
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                failures.add(e);
+                failure = e;
             }
             catch (CancellationException e) {
-                failures.add(e);
+                failure = e;
             }
             catch (ExecutionException e) {
                 if (e.getCause() != null) {
-                    failures.add(e.getCause());
+                    failure = e.getCause();
                 }
                 else {
-                    failures.add(e);
+                    failure = e;
                 }
             }
+
+            // a failure shared by several commands is only reported once
+            if (!containsInstance(failures, failure)) {
+                failures.add(failure);
+            }
         }
+        return results.build();
+    }
+
+    private static boolean containsInstance(List<Throwable> failures, Throwable failure)
+    {
+        for (Throwable existing : failures) {
+            if (existing == failure) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkCommandFailures(List<Throwable> failures)
+    {
         if (!failures.isEmpty()) {
             Throwable first = failures.get(0);
             RuntimeException runtimeException = new RuntimeException(first.getMessage());
@@ -892,7 +1908,6 @@ public class Coordinator
             }
             throw runtimeException;
         }
-        return results.build();
     }
 
     private static void waitForFutures(Iterable<ListenableFuture<?>> futures)
@@ -907,22 +1922,77 @@ public class Coordinator
         }
     }
 
-    private static class CallableFunction<F, T>
-            implements Callable<T>
+    /**
+     * The slots selected for a command, their new expected states and the
+     * command sent to each slot.
+     */
+    private class PlannedCommand
     {
-        private final F item;
-        private final Function<F, T> function;
+        private final List<RemoteSlot> slots;
+        private final List<ExpectedSlotStatus> expectedStates;
+        private final Function<RemoteSlot, SlotCommand> command;
 
-        private CallableFunction(F item, Function<F, T> function)
+        private PlannedCommand(List<RemoteSlot> slots, List<ExpectedSlotStatus> expectedStates, Function<RemoteSlot, SlotCommand> command)
         {
-            this.item = item;
-            this.function = function;
+            this.slots = slots;
+            this.expectedStates = expectedStates;
+            this.command = command;
+        }
+
+        /**
+         * Sends the command to all slots at once.
+         */
+        public List<SlotStatus> execute()
+        {
+            if (slots.isEmpty()) {
+                return ImmutableList.of();
+            }
+            setExpectedStates(expectedStates);
+            return slotCommand(slots, command);
+        }
+    }
+
+    private static class HeartbeatIndex
+    {
+        private final Map<String, String> instanceIdsByAgentId;
+        private final Map<URI, String> instanceIdsByInternalUri;
+        private final Map<String, URI> internalUris;
+
+        private HeartbeatIndex(Map<String, URI> internalUris, Map<String, RemoteAgent> agents)
+        {
+            Map<String, String> instanceIdsByAgentId = new HashMap<>();
+            for (Entry<String, RemoteAgent> entry : agents.entrySet()) {
+                String agentId = entry.getValue().status().getAgentId();
+                if (agentId != null) {
+                    instanceIdsByAgentId.put(agentId, entry.getKey());
+                }
+            }
+            Map<URI, String> instanceIdsByInternalUri = new HashMap<>();
+            for (Entry<String, URI> entry : internalUris.entrySet()) {
+                instanceIdsByInternalUri.put(entry.getValue(), entry.getKey());
+            }
+
+            this.instanceIdsByAgentId = instanceIdsByAgentId;
+            this.instanceIdsByInternalUri = instanceIdsByInternalUri;
+            this.internalUris = ImmutableMap.copyOf(internalUris);
+        }
+
+        public String getInstanceId(AgentStatusRepresentation agentStatus)
+        {
+            String instanceId = null;
+            if (agentStatus.getAgentId() != null) {
+                instanceId = instanceIdsByAgentId.get(agentStatus.getAgentId());
+            }
+            // agents that have never been polled are only known by their uri
+            if (instanceId == null && agentStatus.getSelf() != null) {
+                instanceId = instanceIdsByInternalUri.get(agentStatus.getSelf());
+            }
+            return instanceId;
         }
 
-        @Override
-        public T call()
+        public URI getInternalUri(String instanceId)
         {
-            return function.apply(item);
+            return internalUris.get(instanceId);
         }
     }
 }
@@ -15,9 +15,9 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.UpgradeVersions;
 
@@ -32,11 +32,11 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.collect.Collections2.transform;
 import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_FORCE_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_ROLLING_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOTS_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
 
@@ -62,19 +62,25 @@ public class CoordinatorAssignmentResource
     public Response upgrade(UpgradeVersions upgradeVersions,
             @Context UriInfo uriInfo,
             @HeaderParam(AIRSHIP_SLOTS_VERSION_HEADER) String expectedSlotsVersion,
-            @HeaderParam(AIRSHIP_FORCE_HEADER) boolean force)
+            @HeaderParam(AIRSHIP_FORCE_HEADER) boolean force,
+            @HeaderParam(AIRSHIP_ROLLING_HEADER) RollingPolicy rollingPolicy)
     {
         Preconditions.checkNotNull(upgradeVersions, "upgradeRepresentation must not be null");
 
         // build filter
-        List<UUID> uuids = Lists.transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, uuids);
+        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, coordinator.getFleetSnapshot().getSlotIdTrie());
+
+        // a rolling upgrade runs in the background and the client polls it
+        if (rollingPolicy != null) {
+            Rollout rollout = coordinator.startUpgrade(slotFilter, upgradeVersions, expectedSlotsVersion, force, rollingPolicy);
+            return CoordinatorRolloutResource.rolloutStarted(coordinator, repository, rollout, uriInfo);
+        }
 
         // upgrade slots
         List<SlotStatus> results = coordinator.upgrade(slotFilter, upgradeVersions, expectedSlotsVersion, force);
 
         // build response
-        return Response.ok(transform(results, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
+        return Response.ok(transform(results, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository))))
                 .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(results))
                 .build();
     }
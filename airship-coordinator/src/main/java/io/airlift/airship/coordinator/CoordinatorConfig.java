@@ -20,6 +20,7 @@ import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.Duration;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import java.util.List;
@@ -30,6 +31,15 @@ public class CoordinatorConfig
     public static final String DEFAULT_HTTP_SHORT_NAME_PATTERN = "([^\\/]+?)(?:-[0-9][0-9.]*(?:-SNAPSHOT)?)?(?:\\.config)?$";
 
     private Duration statusExpiration = new Duration(5, TimeUnit.SECONDS);
+    private Duration agentHeartbeatTimeout = new Duration(1, TimeUnit.MINUTES);
+    private Duration agentFastPollInterval = new Duration(1, TimeUnit.SECONDS);
+    private Duration agentMaxPollInterval = new Duration(5, TimeUnit.MINUTES);
+    private boolean expectedStateRefreshEnabled = true;
+    private Duration expectedStateRefreshInterval = new Duration(1, TimeUnit.MINUTES);
+    private int maxCommandsInFlight = 100;
+    private Duration rolloutClientTimeout = new Duration(1, TimeUnit.MINUTES);
+    private boolean agentShardingEnabled = true;
+    private String replicaOf;
 
     private String serviceInventoryCacheDir = "service-inventory-cache";
 
@@ -55,6 +65,129 @@ public class CoordinatorConfig
         return this;
     }
 
+    @NotNull
+    public Duration getAgentHeartbeatTimeout()
+    {
+        return agentHeartbeatTimeout;
+    }
+
+    @Config("coordinator.agent.heartbeat-timeout")
+    @ConfigDescription("Agents that have not sent a heartbeat within this time are polled")
+    public CoordinatorConfig setAgentHeartbeatTimeout(Duration agentHeartbeatTimeout)
+    {
+        this.agentHeartbeatTimeout = agentHeartbeatTimeout;
+        return this;
+    }
+
+    @NotNull
+    public Duration getAgentFastPollInterval()
+    {
+        return agentFastPollInterval;
+    }
+
+    @Config("coordinator.agent.fast-poll-interval")
+    @ConfigDescription("Poll interval for agents with slots in transition or recently sent commands")
+    public CoordinatorConfig setAgentFastPollInterval(Duration agentFastPollInterval)
+    {
+        this.agentFastPollInterval = agentFastPollInterval;
+        return this;
+    }
+
+    @NotNull
+    public Duration getAgentMaxPollInterval()
+    {
+        return agentMaxPollInterval;
+    }
+
+    @Config("coordinator.agent.max-poll-interval")
+    @ConfigDescription("Maximum poll interval for unreachable agents")
+    public CoordinatorConfig setAgentMaxPollInterval(Duration agentMaxPollInterval)
+    {
+        this.agentMaxPollInterval = agentMaxPollInterval;
+        return this;
+    }
+
+    public boolean isExpectedStateRefreshEnabled()
+    {
+        return expectedStateRefreshEnabled;
+    }
+
+    @Config("coordinator.expected-state.refresh-enabled")
+    @ConfigDescription("Reload cached expected states from the state store; may be disabled when no other coordinator writes to the store")
+    public CoordinatorConfig setExpectedStateRefreshEnabled(boolean expectedStateRefreshEnabled)
+    {
+        this.expectedStateRefreshEnabled = expectedStateRefreshEnabled;
+        return this;
+    }
+
+    @NotNull
+    public Duration getExpectedStateRefreshInterval()
+    {
+        return expectedStateRefreshInterval;
+    }
+
+    @Config("coordinator.expected-state.refresh-interval")
+    @ConfigDescription("Interval at which cached expected states are reloaded from the state store")
+    public CoordinatorConfig setExpectedStateRefreshInterval(Duration expectedStateRefreshInterval)
+    {
+        this.expectedStateRefreshInterval = expectedStateRefreshInterval;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxCommandsInFlight()
+    {
+        return maxCommandsInFlight;
+    }
+
+    @Config("coordinator.command.max-in-flight")
+    @ConfigDescription("Maximum number of slot commands sent to agents at the same time")
+    public CoordinatorConfig setMaxCommandsInFlight(int maxCommandsInFlight)
+    {
+        this.maxCommandsInFlight = maxCommandsInFlight;
+        return this;
+    }
+
+    @NotNull
+    public Duration getRolloutClientTimeout()
+    {
+        return rolloutClientTimeout;
+    }
+
+    @Config("coordinator.rollout.client-timeout")
+    @ConfigDescription("Cancel a rolling command when no client has checked on its progress for this long")
+    public CoordinatorConfig setRolloutClientTimeout(Duration rolloutClientTimeout)
+    {
+        this.rolloutClientTimeout = rolloutClientTimeout;
+        return this;
+    }
+
+    public boolean isAgentShardingEnabled()
+    {
+        return agentShardingEnabled;
+    }
+
+    @Config("coordinator.agent.sharding-enabled")
+    @ConfigDescription("Split agent polling across the coordinators that support it, fetching the status of the other agents from their coordinator")
+    public CoordinatorConfig setAgentShardingEnabled(boolean agentShardingEnabled)
+    {
+        this.agentShardingEnabled = agentShardingEnabled;
+        return this;
+    }
+
+    public String getReplicaOf()
+    {
+        return replicaOf;
+    }
+
+    @Config("coordinator.replica-of")
+    @ConfigDescription("Instance id of the coordinator to replicate; a replica serves reads from the replicated state and never contacts agents")
+    public CoordinatorConfig setReplicaOf(String replicaOf)
+    {
+        this.replicaOf = replicaOf;
+        return this;
+    }
+
     @NotNull
     public String getServiceInventoryCacheDir()
     {
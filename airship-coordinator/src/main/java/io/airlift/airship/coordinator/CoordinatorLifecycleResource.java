@@ -15,9 +15,9 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 
@@ -31,11 +31,11 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.collect.Collections2.transform;
 import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
 import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_ROLLING_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOTS_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
 
@@ -59,7 +59,8 @@ public class CoordinatorLifecycleResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response setState(String newState,
             @Context UriInfo uriInfo,
-            @HeaderParam(AIRSHIP_SLOTS_VERSION_HEADER) String expectedSlotsVersion)
+            @HeaderParam(AIRSHIP_SLOTS_VERSION_HEADER) String expectedSlotsVersion,
+            @HeaderParam(AIRSHIP_ROLLING_HEADER) RollingPolicy rollingPolicy)
     {
         Preconditions.checkNotNull(newState, "newState must not be null");
 
@@ -69,14 +70,19 @@ public class CoordinatorLifecycleResource
         }
 
         // build filter
-        List<UUID> uuids = Lists.transform(coordinator.getAllSlotStatus(), SlotStatus.uuidGetter());
-        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, uuids);
+        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, coordinator.getFleetSnapshot().getSlotIdTrie());
+
+        // a rolling state change runs in the background and the client polls it
+        if (rollingPolicy != null) {
+            Rollout rollout = coordinator.startSetState(state, slotFilter, expectedSlotsVersion, rollingPolicy);
+            return CoordinatorRolloutResource.rolloutStarted(coordinator, repository, rollout, uriInfo);
+        }
 
         // set slot state
         List<SlotStatus> results = coordinator.setState(state, slotFilter, expectedSlotsVersion);
 
         // build response
-        return Response.ok(transform(results, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
+        return Response.ok(transform(results, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository))))
                 .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(results))
                 .build();
     }
@@ -20,6 +20,7 @@ import com.google.inject.multibindings.Multibinder;
 import io.airlift.airship.coordinator.auth.AuthConfig;
 import io.airlift.airship.coordinator.auth.AuthFilter;
 import io.airlift.airship.coordinator.auth.SignatureVerifier;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
 import io.airlift.airship.shared.ExpectedSlotStatus;
@@ -27,6 +28,7 @@ import io.airlift.airship.shared.InstallationRepresentation;
 import io.airlift.airship.shared.Repository;
 import io.airlift.airship.shared.RepositorySet;
 import io.airlift.airship.shared.SlotStatusRepresentation;
+import io.airlift.airship.shared.SmileMapper;
 import io.airlift.airship.shared.VersionConflictExceptionMapper;
 import io.airlift.discovery.client.ServiceDescriptor;
 import io.airlift.discovery.client.ServiceDescriptorsRepresentation;
@@ -37,6 +39,7 @@ import javax.servlet.Filter;
 
 import static io.airlift.configuration.ConfigurationModule.bindConfig;
 import static io.airlift.http.client.HttpClientBinder.httpClientBinder;
+import static org.weakref.jmx.guice.ExportBinder.newExporter;
 
 public class CoordinatorMainModule
         implements Module
@@ -47,14 +50,19 @@ public class CoordinatorMainModule
         binder.requireExplicitBindings();
 
         binder.bind(Coordinator.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(Coordinator.class).withGeneratedName();
         binder.bind(CoordinatorResource.class).in(Scopes.SINGLETON);
         binder.bind(CoordinatorSlotResource.class).in(Scopes.SINGLETON);
         binder.bind(CoordinatorAssignmentResource.class).in(Scopes.SINGLETON);
         binder.bind(CoordinatorLifecycleResource.class).in(Scopes.SINGLETON);
+        binder.bind(CoordinatorRolloutResource.class).in(Scopes.SINGLETON);
         binder.bind(ExpectedStateResource.class).in(Scopes.SINGLETON);
         binder.bind(InvalidSlotFilterExceptionMapper.class).in(Scopes.SINGLETON);
         binder.bind(AdminResource.class).in(Scopes.SINGLETON);
+        binder.bind(AgentHeartbeatResource.class).in(Scopes.SINGLETON);
+        binder.bind(StatsResource.class).in(Scopes.SINGLETON);
         binder.bind(VersionConflictExceptionMapper.class).in(Scopes.SINGLETON);
+        binder.bind(SmileMapper.class).in(Scopes.SINGLETON);
         binder.bind(RemoteCoordinatorFactory.class).to(HttpRemoteCoordinatorFactory.class).in(Scopes.SINGLETON);
         binder.bind(RemoteAgentFactory.class).to(HttpRemoteAgentFactory.class).in(Scopes.SINGLETON);
 
@@ -74,6 +82,7 @@ public class CoordinatorMainModule
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(InstallationRepresentation.class);
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(CoordinatorStatusRepresentation.class);
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(AgentStatusRepresentation.class);
+        JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(AgentStatusDeltaRepresentation.class);
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(SlotStatusRepresentation.class);
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(ServiceDescriptorsRepresentation.class);
         JsonCodecBinder.jsonCodecBinder(binder).bindJsonCodec(ExpectedSlotStatus.class);
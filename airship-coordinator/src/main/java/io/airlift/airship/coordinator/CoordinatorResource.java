@@ -14,16 +14,28 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
 
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 
+import java.util.List;
+import java.util.Map;
+
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_COORDINATOR_VERSION_HEADER;
 
 @Path("/v1/coordinator/")
@@ -40,7 +52,7 @@ public class CoordinatorResource
     }
 
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
     public Response getAllSlotsStatus()
     {
         CoordinatorStatus coordinatorStatus = coordinator.status();
@@ -49,4 +61,33 @@ public class CoordinatorResource
                 .header(AIRSHIP_COORDINATOR_VERSION_HEADER, coordinatorStatus.getVersion())
                 .build();
     }
+
+    @GET
+    @Path("agent")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
+    public Response getAgentShard()
+    {
+        List<AgentStatus> agentShard = coordinator.getAgentShard();
+        if (agentShard == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+
+        ImmutableList.Builder<AgentStatusRepresentation> representations = ImmutableList.builder();
+        for (AgentStatus agentStatus : agentShard) {
+            representations.add(AgentStatusRepresentation.from(agentStatus));
+        }
+        return Response.ok(representations.build()).build();
+    }
+
+    @POST
+    @Path("replication")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_SMILE})
+    public Response replicate(Map<String, String> agentVersions, @QueryParam("epoch") String expectedStateEpoch, @QueryParam("since") @DefaultValue("0") long expectedStateGeneration)
+    {
+        if (agentVersions == null) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+        return Response.ok(ReplicationRepresentation.from(coordinator.getChangedAgents(agentVersions), coordinator.getExpectedStateChanges(expectedStateEpoch, expectedStateGeneration))).build();
+    }
 }
@@ -0,0 +1,98 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import io.airlift.airship.shared.Repository;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import java.net.URI;
+
+import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
+
+/**
+ * Rolling commands started by the assignment and lifecycle resources.  The
+ * client polls the rollout until it finishes, and deletes it to cancel.
+ */
+@Path("/v1/slot/rollout/{rolloutId}")
+public class CoordinatorRolloutResource
+{
+    private final Coordinator coordinator;
+    private final Repository repository;
+
+    @Inject
+    public CoordinatorRolloutResource(Coordinator coordinator, Repository repository)
+    {
+        Preconditions.checkNotNull(coordinator, "coordinator must not be null");
+        Preconditions.checkNotNull(repository, "repository is null");
+
+        this.coordinator = coordinator;
+        this.repository = repository;
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRollout(@PathParam("rolloutId") String rolloutId)
+    {
+        Preconditions.checkNotNull(rolloutId, "rolloutId must not be null");
+
+        Rollout rollout = coordinator.getRollout(rolloutId);
+        if (rollout == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return Response.ok(toRepresentation(coordinator, repository, rollout)).build();
+    }
+
+    @DELETE
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response cancelRollout(@PathParam("rolloutId") String rolloutId)
+    {
+        Preconditions.checkNotNull(rolloutId, "rolloutId must not be null");
+
+        Rollout rollout = coordinator.getRollout(rolloutId);
+        if (rollout == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        rollout.cancel();
+        return Response.ok(toRepresentation(coordinator, repository, rollout)).build();
+    }
+
+    /**
+     * Response to a request that started a rollout: 202 Accepted, with the
+     * location of the rollout to poll.
+     */
+    static Response rolloutStarted(Coordinator coordinator, Repository repository, Rollout rollout, UriInfo uriInfo)
+    {
+        URI location = uriBuilderFrom(uriInfo.getBaseUri()).replacePath("/v1/slot/rollout").appendPath(rollout.getId()).build();
+        return Response.status(Response.Status.ACCEPTED)
+                .location(location)
+                .entity(toRepresentation(coordinator, repository, rollout))
+                .build();
+    }
+
+    private static RolloutRepresentation toRepresentation(Coordinator coordinator, Repository repository, Rollout rollout)
+    {
+        return RolloutRepresentation.from(rollout, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository)));
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
+import io.airlift.airship.coordinator.ListingOptions.Page;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.AssignmentRepresentation;
@@ -38,13 +39,12 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.collect.Lists.transform;
-import static io.airlift.airship.shared.AgentStatus.idGetter;
-import static io.airlift.airship.shared.SlotStatus.uuidGetter;
+import static io.airlift.airship.coordinator.JsonStreamingOutput.jsonStreamingOutput;
 import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENTS_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_NEXT_CURSOR_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOTS_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.checkAgentsVersion;
 import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
@@ -71,17 +71,24 @@ public class CoordinatorSlotResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response getAllSlots(@Context UriInfo uriInfo)
     {
-        // build filter
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), uuidGetter());
-        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, false, uuids);
-
-        // select slots
-        List<SlotStatus> slots = coordinator.getAllSlotsStatus(slotFilter);
-
-        // build response
-        return Response.ok(Iterables.transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
-                .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(slots))
-                .build();
+        // read everything from a single snapshot so the filter, slots and short ids agree
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
+
+        // select the matching slots using the snapshot's filter index
+        List<SlotStatus> matchingSlots = SlotFilterBuilder.fromUriInfo(uriInfo).selectSlots(snapshot, false);
+
+        // select a page of slots ordered by uuid
+        ListingOptions listingOptions = ListingOptions.fromUriInfo(uriInfo);
+        Page<SlotStatus> page = listingOptions.pageSlots(matchingSlots);
+        List<SlotStatus> slots = page.getItems();
+
+        // stream the response, creating each representation as it is written
+        Response.ResponseBuilder response = Response.ok(jsonStreamingOutput(Iterables.transform(slots, fromSlotStatus(snapshot.getSlotStatusRepresentationFactory(repository))), listingOptions.getFields()))
+                .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(slots));
+        if (page.getNextCursor() != null) {
+            response.header(AIRSHIP_NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.build();
     }
 
     @POST
@@ -99,9 +106,10 @@ public class CoordinatorSlotResource
         Assignment assignment = assignmentRepresentation.toAssignment();
 
         // select the target agents
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
         Predicate<AgentStatus> agentFilter = AgentFilterBuilder.build(uriInfo,
-                transform(coordinator.getAgents(), idGetter()),
-                transform(coordinator.getAllSlotStatus(), uuidGetter()),
+                snapshot.getAgentIdTrie(),
+                snapshot.getSlotIdTrie(),
                 false,
                 repository);
         List<AgentStatus> agents = coordinator.getAgents(agentFilter);
@@ -113,7 +121,7 @@ public class CoordinatorSlotResource
         List<SlotStatus> slots = coordinator.install(agentFilter, limit, assignment);
 
         // calculate unique prefix size with the new slots included
-        return Response.ok(transform(slots, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
+        return Response.ok(transform(slots, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository))))
                 .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(slots))
                 .build();
     }
@@ -124,14 +132,13 @@ public class CoordinatorSlotResource
             @HeaderParam(AIRSHIP_SLOTS_VERSION_HEADER) String expectedSlotsVersion)
     {
         // build filter
-        List<UUID> uuids = transform(coordinator.getAllSlotStatus(), uuidGetter());
-        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, uuids);
+        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // terminate slots
         List<SlotStatus> result = coordinator.terminate(slotFilter, expectedSlotsVersion);
 
         // build response
-        return Response.ok(transform(result, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
+        return Response.ok(transform(result, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository))))
                 .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(result))
                 .build();
     }
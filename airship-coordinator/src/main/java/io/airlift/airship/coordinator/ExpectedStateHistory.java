@@ -0,0 +1,200 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+
+/**
+ * Numbers the changes to the expected states so read replicas can fetch only
+ * the states that changed since the generation they last applied.  Changes
+ * are found by comparing each set of expected states with the previous one,
+ * so changes written by other coordinators sharing the store are included.
+ * Deleted slots are remembered up to a limit; a replica that is further
+ * behind, or that last replicated from another process, gets all states.
+ */
+public class ExpectedStateHistory
+{
+    private static final int MAX_DELETIONS = 10000;
+
+    // generations are only comparable within one process
+    private final String epoch = UUID.randomUUID().toString();
+
+    @GuardedBy("this")
+    private Collection<ExpectedSlotStatus> lastExpectedStates;
+
+    @GuardedBy("this")
+    private final Map<UUID, ExpectedSlotStatus> states = newHashMap();
+
+    @GuardedBy("this")
+    private final Map<UUID, Long> changeGenerations = newHashMap();
+
+    // in generation order, so the oldest deletions are dropped first
+    @GuardedBy("this")
+    private final LinkedHashMap<UUID, Long> deletions = new LinkedHashMap<>();
+
+    @GuardedBy("this")
+    private long generation;
+
+    // deletions before this generation may have been dropped
+    @GuardedBy("this")
+    private long oldestGeneration;
+
+    /**
+     * Records the current expected states and returns the changes since the
+     * specified generation of the specified epoch.
+     */
+    public synchronized Changes getChanges(Collection<ExpectedSlotStatus> expectedStates, @Nullable String sinceEpoch, long sinceGeneration)
+    {
+        Preconditions.checkNotNull(expectedStates, "expectedStates is null");
+
+        updateStates(expectedStates);
+
+        if (!epoch.equals(sinceEpoch) || sinceGeneration < oldestGeneration || sinceGeneration > generation) {
+            return new Changes(epoch, generation, true, ImmutableList.copyOf(states.values()), ImmutableList.<UUID>of());
+        }
+
+        ImmutableList.Builder<ExpectedSlotStatus> changed = ImmutableList.builder();
+        for (Entry<UUID, Long> entry : changeGenerations.entrySet()) {
+            if (entry.getValue() > sinceGeneration) {
+                changed.add(states.get(entry.getKey()));
+            }
+        }
+        ImmutableList.Builder<UUID> deleted = ImmutableList.builder();
+        for (Entry<UUID, Long> entry : deletions.entrySet()) {
+            if (entry.getValue() > sinceGeneration) {
+                deleted.add(entry.getKey());
+            }
+        }
+        return new Changes(epoch, generation, false, changed.build(), deleted.build());
+    }
+
+    /**
+     * Records the current expected states and returns the generation, which
+     * only changes when the states do.
+     */
+    public synchronized long update(Collection<ExpectedSlotStatus> expectedStates)
+    {
+        Preconditions.checkNotNull(expectedStates, "expectedStates is null");
+
+        updateStates(expectedStates);
+        return generation;
+    }
+
+    @GuardedBy("this")
+    private void updateStates(Collection<ExpectedSlotStatus> expectedStates)
+    {
+        // the caching state manager returns the same collection until the states change
+        if (expectedStates == lastExpectedStates) {
+            return;
+        }
+        lastExpectedStates = expectedStates;
+
+        long nextGeneration = generation + 1;
+        boolean changed = false;
+
+        Set<UUID> current = newHashSet();
+        for (ExpectedSlotStatus expectedState : expectedStates) {
+            UUID slotId = expectedState.getId();
+            current.add(slotId);
+            ExpectedSlotStatus previous = states.put(slotId, expectedState);
+            if (previous == null || !isSameState(previous, expectedState)) {
+                changeGenerations.put(slotId, nextGeneration);
+                deletions.remove(slotId);
+                changed = true;
+            }
+        }
+
+        for (Iterator<UUID> iterator = states.keySet().iterator(); iterator.hasNext(); ) {
+            UUID slotId = iterator.next();
+            if (!current.contains(slotId)) {
+                iterator.remove();
+                changeGenerations.remove(slotId);
+                deletions.put(slotId, nextGeneration);
+                changed = true;
+            }
+        }
+
+        for (Iterator<Long> iterator = deletions.values().iterator(); deletions.size() > MAX_DELETIONS; ) {
+            oldestGeneration = Math.max(oldestGeneration, iterator.next());
+            iterator.remove();
+        }
+
+        if (changed) {
+            generation = nextGeneration;
+        }
+    }
+
+    // expected slot status equality only considers the slot id
+    private static boolean isSameState(ExpectedSlotStatus a, ExpectedSlotStatus b)
+    {
+        return a.getStatus() == b.getStatus() && Objects.equal(a.getAssignment(), b.getAssignment());
+    }
+
+    @Immutable
+    public static class Changes
+    {
+        private final String epoch;
+        private final long generation;
+        private final boolean full;
+        private final List<ExpectedSlotStatus> changed;
+        private final List<UUID> deleted;
+
+        public Changes(String epoch, long generation, boolean full, List<ExpectedSlotStatus> changed, List<UUID> deleted)
+        {
+            Preconditions.checkNotNull(epoch, "epoch is null");
+            Preconditions.checkNotNull(changed, "changed is null");
+            Preconditions.checkNotNull(deleted, "deleted is null");
+
+            this.epoch = epoch;
+            this.generation = generation;
+            this.full = full;
+            this.changed = ImmutableList.copyOf(changed);
+            this.deleted = ImmutableList.copyOf(deleted);
+        }
+
+        public String getEpoch()
+        {
+            return epoch;
+        }
+
+        public long getGeneration()
+        {
+            return generation;
+        }
+
+        /**
+         * Returns true if the changed states are all of the expected states.
+         */
+        public boolean isFull()
+        {
+            return full;
+        }
+
+        public List<ExpectedSlotStatus> getChanged()
+        {
+            return changed;
+        }
+
+        public List<UUID> getDeleted()
+        {
+            return deleted;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.Repository;
 import io.airlift.airship.shared.SlotStatus;
@@ -17,10 +16,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
-import java.util.UUID;
 
 import static com.google.common.collect.Collections2.transform;
-import static io.airlift.airship.shared.SlotStatus.uuidGetter;
 import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOTS_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
@@ -47,14 +44,13 @@ public class ExpectedStateResource
             @HeaderParam(AIRSHIP_SLOTS_VERSION_HEADER) String expectedSlotsVersion)
     {
         // build filter
-        List<UUID> uuids = Lists.transform(coordinator.getAllSlotStatus(), uuidGetter());
-        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, uuids);
+        Predicate<SlotStatus> slotFilter = SlotFilterBuilder.build(uriInfo, true, coordinator.getFleetSnapshot().getSlotIdTrie());
 
         // reset slots expected state
         List<SlotStatus> result = coordinator.resetExpectedState(slotFilter, expectedSlotsVersion);
 
         // build response
-        return Response.ok(transform(result, fromSlotStatus(coordinator.getAllSlotStatus(), repository)))
+        return Response.ok(transform(result, fromSlotStatus(coordinator.getFleetSnapshot().getSlotStatusRepresentationFactory(repository))))
                 .header(AIRSHIP_SLOTS_VERSION_HEADER, createSlotsVersion(result))
                 .build();
     }
@@ -67,6 +67,15 @@ public class FileStateManager
         new File(dataDir, slotId.toString() + ".json").delete();
     }
 
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        Preconditions.checkNotNull(slotIds, "slotIds is null");
+        for (UUID slotId : slotIds) {
+            deleteExpectedState(slotId);
+        }
+    }
+
     @Override
     public void setExpectedState(ExpectedSlotStatus slotStatus)
     {
@@ -78,4 +87,13 @@ public class FileStateManager
             log.error(e, "Error writing expected slot status");
         }
     }
+
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        Preconditions.checkNotNull(slotStatuses, "slotStatuses is null");
+        for (ExpectedSlotStatus slotStatus : slotStatuses) {
+            setExpectedState(slotStatus);
+        }
+    }
 }
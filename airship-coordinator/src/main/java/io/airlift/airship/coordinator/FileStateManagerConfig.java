@@ -1,12 +1,16 @@
 package io.airlift.airship.coordinator;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 public class FileStateManagerConfig
 {
     private String expectedStateDir = "expected-state";
+    private boolean journalEnabled;
+    private int journalCompactionThreshold = 1000;
 
     @NotNull
     public String getExpectedStateDir()
@@ -20,4 +24,31 @@ public class FileStateManagerConfig
         this.expectedStateDir = expectedStateDir;
         return this;
     }
+
+    public boolean isJournalEnabled()
+    {
+        return journalEnabled;
+    }
+
+    @Config("coordinator.expected-state.journal.enabled")
+    @ConfigDescription("Store expected states in an append-only journal instead of one file per slot")
+    public FileStateManagerConfig setJournalEnabled(boolean journalEnabled)
+    {
+        this.journalEnabled = journalEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getJournalCompactionThreshold()
+    {
+        return journalCompactionThreshold;
+    }
+
+    @Config("coordinator.expected-state.journal.compaction-threshold")
+    @ConfigDescription("Number of journal records after which the journal is compacted into a snapshot")
+    public FileStateManagerConfig setJournalCompactionThreshold(int journalCompactionThreshold)
+    {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+        return this;
+    }
 }
@@ -0,0 +1,225 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation.AgentStatusRepresentationFactory;
+import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation.SlotStatusRepresentationFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.google.common.base.Functions.toStringFunction;
+import static com.google.common.base.Predicates.notNull;
+import static com.google.common.collect.Iterables.filter;
+import static com.google.common.collect.Iterables.transform;
+import static io.airlift.airship.shared.Strings.commonPrefixSegments;
+import static io.airlift.airship.shared.VersionsUtil.createAgentsVersion;
+import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
+
+/**
+ * Point in time view of all agents and slots known to the coordinator, with
+ * the expected slot state already merged in.  A snapshot is shared by all
+ * readers until the fleet or the expected state changes.
+ * <p/>
+ * The slot and agent ids are also kept in tries, which are updated from the
+ * previous snapshot rather than rebuilt, so short id lookups and the short id
+ * length used by the representations do not scan the fleet per request.
+ */
+@Immutable
+public class FleetSnapshot
+{
+    private final long generation;
+    private final List<AgentStatus> agents;
+    private final List<SlotStatus> slots;
+    private final List<UUID> slotIds;
+    private final List<String> agentIds;
+    private final String agentsVersion;
+    private final String slotsVersion;
+    private final IdTrie slotIdTrie;
+    private final IdTrie agentIdTrie;
+    private final Supplier<Integer> slotCommonLocationParts;
+    private final Supplier<Integer> agentCommonLocationParts;
+    private final Supplier<SlotFilterIndex> slotFilterIndex;
+
+    public FleetSnapshot(long generation, Iterable<AgentStatus> agents, Iterable<SlotStatus> slots)
+    {
+        this(generation, agents, createAgentsVersion(agents), slots, createSlotsVersion(slots), null);
+    }
+
+    /**
+     * Creates a snapshot with versions the caller maintains incrementally and
+     * id tries derived from the tries of the specified previous snapshot, if any.
+     */
+    public FleetSnapshot(long generation,
+            Iterable<AgentStatus> agents,
+            String agentsVersion,
+            Iterable<SlotStatus> slots,
+            String slotsVersion,
+            @Nullable FleetSnapshot previous)
+    {
+        Preconditions.checkNotNull(agents, "agents is null");
+        Preconditions.checkNotNull(agentsVersion, "agentsVersion is null");
+        Preconditions.checkNotNull(slots, "slots is null");
+        Preconditions.checkNotNull(slotsVersion, "slotsVersion is null");
+
+        this.generation = generation;
+        this.agents = ImmutableList.copyOf(agents);
+        this.slots = ImmutableList.copyOf(slots);
+        this.slotIds = ImmutableList.copyOf(transform(this.slots, SlotStatus.uuidGetter()));
+        this.agentIds = ImmutableList.copyOf(transform(this.agents, AgentStatus.idGetter()));
+        this.agentsVersion = agentsVersion;
+        this.slotsVersion = slotsVersion;
+
+        List<String> slotIdStrings = ImmutableList.copyOf(transform(slotIds, toStringFunction()));
+        if (previous == null) {
+            this.slotIdTrie = IdTrie.copyOf(slotIdStrings);
+            this.agentIdTrie = IdTrie.copyOf(agentIds);
+        }
+        else {
+            List<String> previousSlotIds = ImmutableList.copyOf(transform(previous.slotIds, toStringFunction()));
+            this.slotIdTrie = updateIdTrie(previous.slotIdTrie, previousSlotIds, slotIdStrings);
+            this.agentIdTrie = updateIdTrie(previous.agentIdTrie, previous.agentIds, agentIds);
+        }
+
+        // the filter index is built by the first listing and shared until the next snapshot; it
+        // indexes the slots sorted by uuid, so selected slots can be paged without sorting them again
+        this.slotFilterIndex = Suppliers.memoize(new Supplier<SlotFilterIndex>()
+        {
+            @Override
+            public SlotFilterIndex get()
+            {
+                return new SlotFilterIndex(Ordering.natural().onResultOf(ListingOptions.SLOT_KEY).sortedCopy(FleetSnapshot.this.slots));
+            }
+        });
+
+        // locations are only needed for display, so compute them on first use
+        this.slotCommonLocationParts = Suppliers.memoize(new Supplier<Integer>()
+        {
+            @Override
+            public Integer get()
+            {
+                return commonPrefixSegments('/', ImmutableList.copyOf(transform(FleetSnapshot.this.slots, SlotStatus.locationGetter())), SlotStatusRepresentationFactory.MIN_LOCATION_SEGMENTS);
+            }
+        });
+        this.agentCommonLocationParts = Suppliers.memoize(new Supplier<Integer>()
+        {
+            @Override
+            public Integer get()
+            {
+                return commonPrefixSegments('/', ImmutableList.copyOf(transform(FleetSnapshot.this.agents, AgentStatus.locationGetter("/"))), AgentStatusRepresentationFactory.MIN_LOCATION_SEGMENTS);
+            }
+        });
+    }
+
+    private static IdTrie updateIdTrie(IdTrie trie, List<String> previousIds, List<String> ids)
+    {
+        Set<String> current = ImmutableSet.copyOf(filter(ids, notNull()));
+        for (String id : previousIds) {
+            if (id != null && !current.contains(id)) {
+                trie = trie.remove(id);
+            }
+        }
+        for (String id : current) {
+            if (!trie.contains(id)) {
+                trie = trie.add(id);
+            }
+        }
+        return trie;
+    }
+
+    public long getGeneration()
+    {
+        return generation;
+    }
+
+    public List<AgentStatus> getAgents()
+    {
+        return agents;
+    }
+
+    public List<AgentStatus> getAgents(Predicate<AgentStatus> agentFilter)
+    {
+        return ImmutableList.copyOf(filter(agents, agentFilter));
+    }
+
+    public List<String> getAgentIds()
+    {
+        return agentIds;
+    }
+
+    public List<SlotStatus> getSlots()
+    {
+        return slots;
+    }
+
+    public List<SlotStatus> getSlots(Predicate<SlotStatus> slotFilter)
+    {
+        return ImmutableList.copyOf(filter(slots, slotFilter));
+    }
+
+    /**
+     * Returns the index used to select slots with a {@link SlotFilterBuilder}.
+     * The index holds the slots ordered by uuid, the order of listing pages.
+     */
+    public SlotFilterIndex getSlotFilterIndex()
+    {
+        return slotFilterIndex.get();
+    }
+
+    public List<UUID> getSlotIds()
+    {
+        return slotIds;
+    }
+
+    /**
+     * Returns the agent ids in a trie for short id lookups.
+     */
+    public IdTrie getAgentIdTrie()
+    {
+        return agentIdTrie;
+    }
+
+    /**
+     * Returns the slot ids in a trie for short id lookups.
+     */
+    public IdTrie getSlotIdTrie()
+    {
+        return slotIdTrie;
+    }
+
+    public SlotStatusRepresentationFactory getSlotStatusRepresentationFactory(Repository repository)
+    {
+        return new SlotStatusRepresentationFactory(slotIdTrie.shortestUniquePrefix(SlotStatusRepresentationFactory.MIN_PREFIX_SIZE),
+                slotCommonLocationParts.get(),
+                repository);
+    }
+
+    public AgentStatusRepresentationFactory getAgentStatusRepresentationFactory(Repository repository)
+    {
+        return new AgentStatusRepresentationFactory(agentIdTrie.shortestUniquePrefix(AgentStatusRepresentationFactory.MIN_PREFIX_SIZE),
+                agentCommonLocationParts.get(),
+                repository);
+    }
+
+    public String getAgentsVersion()
+    {
+        return agentsVersion;
+    }
+
+    public String getSlotsVersion()
+    {
+        return slotsVersion;
+    }
+}
@@ -1,10 +1,28 @@
 package io.airlift.airship.coordinator;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import java.util.regex.Pattern;
 
 public class GlobPredicate
         extends RegexPredicate
 {
+    // filters are rebuilt for every request, but the same few globs are used over and over
+    private static final LoadingCache<String, Pattern> PATTERN_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build(new CacheLoader<String, Pattern>()
+            {
+                @Override
+                public Pattern load(String glob)
+                {
+                    return compileGlob(glob);
+                }
+            });
+
     private final String glob;
 
     public GlobPredicate(String glob)
@@ -19,7 +37,22 @@ public class GlobPredicate
         return glob;
     }
 
+    /**
+     * Returns the pattern for the specified glob.  Patterns are immutable, so
+     * recently used patterns are shared from a bounded cache.
+     */
     public static Pattern globToPattern(String glob)
+    {
+        try {
+            return PATTERN_CACHE.getUnchecked(glob);
+        }
+        catch (UncheckedExecutionException e) {
+            // an invalid glob fails the same way it did before the cache
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static Pattern compileGlob(String glob)
     {
         glob = glob.trim();
         StringBuilder regex = new StringBuilder(glob.length() * 2);
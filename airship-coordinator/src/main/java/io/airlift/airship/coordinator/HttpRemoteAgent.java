@@ -2,101 +2,148 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.FutureFallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.coordinator.VersionedStatusHolder.VersionedStatus;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.HttpUriBuilder;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.InstallationRepresentation;
+import io.airlift.airship.shared.SlotCommandRepresentation;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.SlotStatusRepresentation;
+import io.airlift.airship.shared.SmileCodec;
 import io.airlift.discovery.client.ServiceDescriptor;
 import io.airlift.discovery.client.ServiceDescriptorsRepresentation;
 import io.airlift.http.client.AsyncHttpClient;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.StatusResponseHandler;
+import io.airlift.http.client.UnexpectedResponseException;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
+import io.airlift.units.Duration;
 
 import javax.ws.rs.core.Response.Status;
 
 import java.net.URI;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static io.airlift.airship.coordinator.NotModifiedResponseHandler.allowNotModified;
+import static io.airlift.airship.coordinator.SmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.airlift.airship.coordinator.SmileResponseHandler.createSmileResponseHandler;
 import static io.airlift.airship.shared.AgentLifecycleState.OFFLINE;
 import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
 import static io.airlift.airship.shared.AgentLifecycleState.PROVISIONING;
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.airship.shared.SmileCodec.listSmileCodec;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER;
+import static io.airlift.airship.shared.VersionsUtil.toEntityTag;
 import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
-import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.json.JsonCodec.listJsonCodec;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 public class HttpRemoteAgent
         implements RemoteAgent
 {
     private static final Logger log = Logger.get(HttpRemoteAgent.class);
+    private static final JsonCodec<List<SlotCommandRepresentation>> slotCommandsCodec = listJsonCodec(SlotCommandRepresentation.class);
+    private static final JsonCodec<List<SlotStatusRepresentation>> slotStatusesCodec = listJsonCodec(SlotStatusRepresentation.class);
+    private static final JsonCodec<AgentStatusRepresentation> agentStatusCodec = jsonCodec(AgentStatusRepresentation.class);
+    private static final SmileCodec<AgentStatusRepresentation> agentStatusSmileCodec = smileCodec(AgentStatusRepresentation.class);
+    private static final SmileCodec<AgentStatusDeltaRepresentation> agentStatusDeltaSmileCodec = smileCodec(AgentStatusDeltaRepresentation.class);
+    private static final SmileCodec<SlotStatusRepresentation> slotStatusSmileCodec = smileCodec(SlotStatusRepresentation.class);
+    private static final SmileCodec<List<SlotStatusRepresentation>> slotStatusesSmileCodec = listSmileCodec(SlotStatusRepresentation.class);
 
     private final JsonCodec<InstallationRepresentation> installationCodec;
-    private final JsonCodec<AgentStatusRepresentation> agentStatusCodec;
+    private final JsonCodec<AgentStatusDeltaRepresentation> agentStatusDeltaCodec;
     private final JsonCodec<SlotStatusRepresentation> slotStatusCodec;
     private final JsonCodec<ServiceDescriptorsRepresentation> serviceDescriptorsCodec;
 
-    private AgentStatus agentStatus;
+    private final VersionedStatusHolder<AgentStatus> agentStatus;
     private final String environment;
     private final AsyncHttpClient httpClient;
+    private final Duration heartbeatTimeout;
 
     private final AtomicLong failureCount = new AtomicLong();
+    private volatile Long lastHeartbeatNanos;
+
+    // sequence of the last slot delta applied; null forces a full status
+    private volatile Long statusSequence;
+
+    // cleared for agents that predate the delta endpoint
+    private volatile boolean deltaSupported = true;
 
     private final AtomicBoolean serviceInventoryUp = new AtomicBoolean(true);
 
+    // version of the service inventory last accepted by the agent
+    private volatile String serviceInventoryVersion;
+
     public HttpRemoteAgent(AgentStatus agentStatus,
             String environment,
             AsyncHttpClient httpClient,
+            Duration heartbeatTimeout,
             JsonCodec<InstallationRepresentation> installationCodec,
-            JsonCodec<AgentStatusRepresentation> agentStatusCodec,
+            JsonCodec<AgentStatusDeltaRepresentation> agentStatusDeltaCodec,
             JsonCodec<SlotStatusRepresentation> slotStatusCodec,
             JsonCodec<ServiceDescriptorsRepresentation> serviceDescriptorsCodec)
     {
         Preconditions.checkNotNull(agentStatus, "agentStatus is null");
         Preconditions.checkNotNull(environment, "environment is null");
         Preconditions.checkNotNull(httpClient, "httpClient is null");
+        Preconditions.checkNotNull(heartbeatTimeout, "heartbeatTimeout is null");
 
-        this.agentStatus = agentStatus;
+        this.agentStatus = new VersionedStatusHolder<>(agentStatus);
         this.environment = environment;
         this.httpClient = httpClient;
+        this.heartbeatTimeout = heartbeatTimeout;
         this.installationCodec = installationCodec;
-        this.agentStatusCodec = agentStatusCodec;
+        this.agentStatusDeltaCodec = agentStatusDeltaCodec;
         this.slotStatusCodec = slotStatusCodec;
         this.serviceDescriptorsCodec = serviceDescriptorsCodec;
     }
 
     @Override
-    public synchronized AgentStatus status()
+    public AgentStatus status()
     {
-        return agentStatus;
+        return agentStatus.get();
     }
 
     @Override
-    public synchronized void setInternalUri(URI internalUri)
+    public void setInternalUri(final URI internalUri)
     {
-        agentStatus = agentStatus.changeInternalUri(internalUri);
+        agentStatus.update(new Function<AgentStatus, AgentStatus>()
+        {
+            @Override
+            public AgentStatus apply(AgentStatus agentStatus)
+            {
+                return agentStatus.changeInternalUri(internalUri);
+            }
+        });
     }
 
     @Override
-    public synchronized List<? extends RemoteSlot> getSlots()
+    public List<? extends RemoteSlot> getSlots()
     {
-        return ImmutableList.copyOf(Iterables.transform(agentStatus.getSlotStatuses(), new Function<SlotStatus, HttpRemoteSlot>()
+        return ImmutableList.copyOf(Iterables.transform(status().getSlotStatuses(), new Function<SlotStatus, HttpRemoteSlot>()
         {
             @Override
             public HttpRemoteSlot apply(SlotStatus slotStatus)
@@ -107,15 +154,33 @@ public class HttpRemoteAgent
     }
 
     @Override
-    public void setServiceInventory(List<ServiceDescriptor> serviceInventory)
+    public RemoteSlot getSlot(UUID slotId)
+    {
+        SlotStatus slotStatus = status().getSlotStatus(slotId);
+        if (slotStatus == null) {
+            return null;
+        }
+        return new HttpRemoteSlot(slotStatus, httpClient, this);
+    }
+
+    @Override
+    public void setServiceInventory(final String serviceInventoryVersion, List<ServiceDescriptor> serviceInventory)
     {
         AgentStatus agentStatus = status();
         if (agentStatus.getState() == ONLINE) {
+            Preconditions.checkNotNull(serviceInventoryVersion, "serviceInventoryVersion is null");
             Preconditions.checkNotNull(serviceInventory, "serviceInventory is null");
+
+            // skip the put if the agent already has this inventory
+            if (serviceInventoryVersion.equals(this.serviceInventoryVersion)) {
+                return;
+            }
+
             final URI internalUri = agentStatus.getInternalUri();
             Request request = Request.Builder.preparePut()
                     .setUri(uriBuilderFrom(internalUri).replacePath("/v1/serviceInventory").build())
                     .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                    .setHeader(AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER, serviceInventoryVersion)
                     .setBodyGenerator(jsonBodyGenerator(serviceDescriptorsCodec, new ServiceDescriptorsRepresentation(environment, serviceInventory)))
                     .build();
 
@@ -124,6 +189,11 @@ public class HttpRemoteAgent
                 @Override
                 public void onSuccess(StatusResponse result)
                 {
+                    if (result.getStatusCode() / 100 != 2) {
+                        onFailure(new RuntimeException("Unexpected response status " + result.getStatusCode()));
+                        return;
+                    }
+                    HttpRemoteAgent.this.serviceInventoryVersion = serviceInventoryVersion;
                     if (serviceInventoryUp.compareAndSet(false, true)) {
                         log.info("Service inventory put succeeded for agent at %s", internalUri);
                     }
@@ -132,6 +202,7 @@ public class HttpRemoteAgent
                 @Override
                 public void onFailure(Throwable t)
                 {
+                    HttpRemoteAgent.this.serviceInventoryVersion = null;
                     if (serviceInventoryUp.compareAndSet(true, false) && !log.isDebugEnabled()) {
                         log.error("Unable to post service inventory to agent at %s: %s", internalUri, t.getMessage());
                     }
@@ -144,73 +215,317 @@ public class HttpRemoteAgent
     @Override
     public ListenableFuture<?> updateStatus()
     {
+        // agents pushing heartbeats are only polled once they go silent
+        if (isHeartbeatCurrent()) {
+            return Futures.immediateFuture(null);
+        }
+
+        // responses to polls issued before the latest status change are dropped
+        final long pollSequence = this.agentStatus.nextSequence();
         final AgentStatus agentStatus = status();
-        URI internalUri = agentStatus.getInternalUri();
-        if (internalUri != null) {
-            Request request = Request.Builder.prepareGet()
-                    .setUri(uriBuilderFrom(internalUri).replacePath("/v1/agent/").build())
-                    .build();
+        if (agentStatus.getInternalUri() == null) {
+            return Futures.immediateFuture(null);
+        }
 
-            ListenableFuture<AgentStatusRepresentation> future = httpClient.executeAsync(request, createJsonResponseHandler(agentStatusCodec));
-            Futures.addCallback(future, new FutureCallback<AgentStatusRepresentation>()
+        ListenableFuture<?> future = deltaSupported ? pollStatusDelta(pollSequence, agentStatus) : pollStatus(pollSequence, agentStatus);
+        Futures.addCallback(future, new FutureCallback<Object>()
+        {
+            @Override
+            public void onSuccess(Object result)
             {
-                @Override
-                public void onSuccess(AgentStatusRepresentation result)
-                {
-                    // todo deal with out of order responses
-                    setStatus(result.toAgentStatus(agentStatus.getInstanceId(), agentStatus.getInstanceType()));
-                    failureCount.set(0);
+                failureCount.set(0);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                // error talking to agent -- mark agent offline
+                if (agentStatus.getState() != PROVISIONING && failureCount.incrementAndGet() > 5) {
+                    statusSequence = null;
+                    serviceInventoryVersion = null;
+                    // the agent may come back with a newer release
+                    deltaSupported = true;
+                    HttpRemoteAgent.this.agentStatus.update(pollSequence, new Function<AgentStatus, AgentStatus>()
+                    {
+                        @Override
+                        public AgentStatus apply(AgentStatus agentStatus)
+                        {
+                            return agentStatus.changeState(OFFLINE).changeAllSlotsState(SlotLifecycleState.UNKNOWN);
+                        }
+                    });
                 }
+            }
+        });
+        return future;
+    }
 
-                @Override
-                public void onFailure(Throwable t)
+    private ListenableFuture<Object> pollStatusDelta(final long pollSequence, final AgentStatus agentStatus)
+    {
+        HttpUriBuilder uriBuilder = uriBuilderFrom(agentStatus.getInternalUri()).replacePath("/v1/agent/delta");
+        Request.Builder requestBuilder = Request.Builder.prepareGet()
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON);
+
+        // only ask for a delta once we have seen a real status from the agent
+        final Long sinceSequence = statusSequence;
+        if (sinceSequence != null && agentStatus.getState() == ONLINE && agentStatus.getAgentId() != null) {
+            uriBuilder.addParameter("since", String.valueOf(sinceSequence));
+            requestBuilder.setHeader(IF_NONE_MATCH, toEntityTag(agentStatus.getVersion()));
+        }
+        Request request = requestBuilder.setUri(uriBuilder.build()).build();
+
+        ListenableFuture<AgentStatusDeltaRepresentation> response = httpClient.executeAsync(request, allowNotModified(createSmileResponseHandler(agentStatusDeltaSmileCodec, agentStatusDeltaCodec)));
+        ListenableFuture<Object> future = Futures.transform(response, new Function<AgentStatusDeltaRepresentation, Object>()
+        {
+            @Override
+            public Object apply(AgentStatusDeltaRepresentation delta)
+            {
+                // a null result means the agent has not changed since the last poll
+                if (delta != null) {
+                    applyStatusDelta(pollSequence, delta);
+                }
+                return delta;
+            }
+        });
+
+        return Futures.withFallback(future, new FutureFallback<Object>()
+        {
+            @Override
+            public ListenableFuture<Object> create(Throwable t)
+            {
+                // agents that predate the delta endpoint are polled for their full status
+                if (t instanceof UnexpectedResponseException && ((UnexpectedResponseException) t).getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
+                    log.info("Agent at %s does not support status deltas, polling full status", agentStatus.getInternalUri());
+                    deltaSupported = false;
+                    return pollStatus(pollSequence, agentStatus);
+                }
+                return Futures.immediateFailedFuture(t);
+            }
+        });
+    }
+
+    private ListenableFuture<Object> pollStatus(final long pollSequence, final AgentStatus agentStatus)
+    {
+        Request request = Request.Builder.prepareGet()
+                .setUri(uriBuilderFrom(agentStatus.getInternalUri()).replacePath("/v1/agent/").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .build();
+
+        ListenableFuture<AgentStatusRepresentation> future = httpClient.executeAsync(request, createSmileResponseHandler(agentStatusSmileCodec, agentStatusCodec));
+        return Futures.transform(future, new Function<AgentStatusRepresentation, Object>()
+        {
+            @Override
+            public Object apply(final AgentStatusRepresentation status)
+            {
+                boolean applied = HttpRemoteAgent.this.agentStatus.update(pollSequence, new Function<AgentStatus, AgentStatus>()
                 {
-                    // error talking to agent -- mark agent offline
-                    if (agentStatus.getState() != PROVISIONING && failureCount.incrementAndGet() > 5) {
-                        setStatus(agentStatus.changeState(OFFLINE).changeAllSlotsState(SlotLifecycleState.UNKNOWN));
+                    @Override
+                    public AgentStatus apply(AgentStatus currentStatus)
+                    {
+                        return status.toAgentStatus(currentStatus.getInstanceId(), currentStatus.getInstanceType());
                     }
+                });
+                if (applied) {
+                    // a full status does not say whether the agent restarted, so resend the service inventory
+                    serviceInventoryVersion = null;
+                    statusSequence = null;
                 }
-            });
-            return future;
+                return status;
+            }
+        });
+    }
+
+    @Override
+    public void heartbeat(final AgentStatusRepresentation agentStatus, String serviceInventoryVersion)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+
+        this.agentStatus.update(new Function<AgentStatus, AgentStatus>()
+        {
+            @Override
+            public AgentStatus apply(AgentStatus currentStatus)
+            {
+                return agentStatus.toAgentStatus(currentStatus.getInstanceId(), currentStatus.getInstanceType());
+            }
+        });
+        this.serviceInventoryVersion = serviceInventoryVersion;
+        failureCount.set(0);
+        lastHeartbeatNanos = System.nanoTime();
+    }
+
+    @Override
+    public void applyStatus(final AgentStatusRepresentation agentStatus)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+
+        this.agentStatus.update(new Function<AgentStatus, AgentStatus>()
+        {
+            @Override
+            public AgentStatus apply(AgentStatus currentStatus)
+            {
+                return agentStatus.toAgentStatus(currentStatus.getInstanceId(), currentStatus.getInstanceType());
+            }
+        });
+
+        // the other coordinator pushes the service inventory to this agent, so resend it if the agent moves back here
+        serviceInventoryVersion = null;
+        statusSequence = null;
+    }
+
+    @Override
+    public void markOffline()
+    {
+        agentStatus.update(new Function<AgentStatus, AgentStatus>()
+        {
+            @Override
+            public AgentStatus apply(AgentStatus agentStatus)
+            {
+                return agentStatus.changeState(OFFLINE).changeAllSlotsState(SlotLifecycleState.UNKNOWN);
+            }
+        });
+        serviceInventoryVersion = null;
+        statusSequence = null;
+    }
+
+    private boolean isHeartbeatCurrent()
+    {
+        Long lastHeartbeatNanos = this.lastHeartbeatNanos;
+        return lastHeartbeatNanos != null && System.nanoTime() - lastHeartbeatNanos < heartbeatTimeout.roundTo(TimeUnit.NANOSECONDS);
+    }
+
+    private void applyStatusDelta(long pollSequence, AgentStatusDeltaRepresentation delta)
+    {
+        while (true) {
+            VersionedStatus<AgentStatus> current = agentStatus.getVersioned();
+            if (current.getSequence() >= pollSequence) {
+                // the status changed after this poll was issued, so the response may be stale
+                log.debug("Dropping out of order status delta from agent %s", delta.getAgentId());
+                return;
+            }
+
+            AgentStatus newStatus = delta.applyTo(current.getStatus());
+            if (!delta.isFull() && !newStatus.getVersion().equals(delta.getVersion())) {
+                // our copy has drifted from the agent, so fetch everything on the next poll
+                log.debug("Status delta from agent %s does not match version %s", delta.getAgentId(), delta.getVersion());
+                statusSequence = null;
+                return;
+            }
+
+            if (agentStatus.compareAndSet(current, newStatus, pollSequence)) {
+                if (delta.isFull()) {
+                    // the agent may have restarted and lost its service inventory
+                    serviceInventoryVersion = null;
+                }
+                statusSequence = delta.getSequence();
+                return;
+            }
         }
-        return Futures.immediateFuture(null);
     }
 
-    public synchronized void setStatus(AgentStatus agentStatus)
+    public void setStatus(AgentStatus agentStatus)
     {
         Preconditions.checkNotNull(agentStatus, "agentStatus is null");
-        this.agentStatus = agentStatus;
+        this.agentStatus.set(agentStatus);
     }
 
-    public synchronized void setSlotStatus(SlotStatus slotStatus)
+    public void setSlotStatus(final SlotStatus slotStatus)
     {
-        agentStatus = agentStatus.changeSlotStatus(slotStatus);
+        agentStatus.update(new Function<AgentStatus, AgentStatus>()
+        {
+            @Override
+            public AgentStatus apply(AgentStatus agentStatus)
+            {
+                return agentStatus.changeSlotStatus(slotStatus);
+            }
+        });
     }
 
     @Override
-    public SlotStatus install(Installation installation)
+    public ListenableFuture<SlotStatus> install(Installation installation)
     {
         Preconditions.checkNotNull(installation, "installation is null");
-        AgentStatus agentStatus = status();
+        final AgentStatus agentStatus = status();
         URI internalUri = agentStatus.getInternalUri();
         Preconditions.checkState(internalUri != null, "agent is down");
-        try {
-            Request request = Request.Builder.preparePost()
-                    .setUri(uriBuilderFrom(internalUri).replacePath("/v1/agent/slot/").build())
-                    .setHeader(CONTENT_TYPE, APPLICATION_JSON)
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, status().getVersion())
-                    .setBodyGenerator(jsonBodyGenerator(installationCodec, InstallationRepresentation.from(installation)))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.CREATED.getStatusCode()));
 
-            SlotStatus slotStatus = slotStatusRepresentation.toSlotStatus(agentStatus.getInstanceId());
-            setStatus(agentStatus.changeSlotStatus(slotStatus));
+        Request request = Request.Builder.preparePost()
+                .setUri(uriBuilderFrom(internalUri).replacePath("/v1/agent/slot/").build())
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion())
+                .setBodyGenerator(jsonBodyGenerator(installationCodec, InstallationRepresentation.from(installation)))
+                .build();
+        ListenableFuture<SlotStatusRepresentation> future = httpClient.executeAsync(request, createSmileResponseHandler(slotStatusSmileCodec, slotStatusCodec, Status.CREATED.getStatusCode()));
+        return Futures.transform(future, new Function<SlotStatusRepresentation, SlotStatus>()
+        {
+            @Override
+            public SlotStatus apply(SlotStatusRepresentation slotStatusRepresentation)
+            {
+                SlotStatus slotStatus = slotStatusRepresentation.toSlotStatus(agentStatus.getInstanceId());
+                setSlotStatus(slotStatus);
+                return slotStatus;
+            }
+        });
+    }
 
-            return slotStatus;
-        }
-        catch (Exception e) {
-            throw Throwables.propagate(e);
+    @Override
+    public ListenableFuture<List<SlotStatus>> execute(final List<SlotCommand> commands)
+    {
+        Preconditions.checkNotNull(commands, "commands is null");
+        final AgentStatus agentStatus = status();
+        URI internalUri = agentStatus.getInternalUri();
+        Preconditions.checkState(internalUri != null, "agent is down");
+
+        ImmutableList.Builder<SlotCommandRepresentation> representations = ImmutableList.builder();
+        for (SlotCommand command : commands) {
+            SlotStatus slotStatus = agentStatus.getSlotStatus(command.getSlotId());
+            Preconditions.checkArgument(slotStatus != null, "Agent %s does not have slot %s", agentStatus.getAgentId(), command.getSlotId());
+            representations.add(command.toSlotCommandRepresentation(slotStatus.getVersion()));
         }
+
+        Request request = Request.Builder.preparePost()
+                .setUri(uriBuilderFrom(internalUri).replacePath("/v1/agent/slot/command").build())
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion())
+                .setBodyGenerator(jsonBodyGenerator(slotCommandsCodec, representations.build()))
+                .build();
+        ListenableFuture<List<SlotStatusRepresentation>> response = httpClient.executeAsync(request, createSmileResponseHandler(slotStatusesSmileCodec, slotStatusesCodec, Status.OK.getStatusCode()));
+        ListenableFuture<List<SlotStatus>> future = Futures.transform(response, new Function<List<SlotStatusRepresentation>, List<SlotStatus>>()
+        {
+            @Override
+            public List<SlotStatus> apply(List<SlotStatusRepresentation> slotStatusRepresentations)
+            {
+                ImmutableList.Builder<SlotStatus> slotStatuses = ImmutableList.builder();
+                for (SlotStatusRepresentation slotStatusRepresentation : slotStatusRepresentations) {
+                    SlotStatus slotStatus = slotStatusRepresentation.toSlotStatus(agentStatus.getInstanceId());
+                    setSlotStatus(slotStatus);
+                    slotStatuses.add(slotStatus);
+                }
+                return slotStatuses.build();
+            }
+        });
+
+        return Futures.withFallback(future, new FutureFallback<List<SlotStatus>>()
+        {
+            @Override
+            public ListenableFuture<List<SlotStatus>> create(Throwable t)
+            {
+                // agents that predate the batch endpoint get one request per slot; the endpoint
+                // itself rejects a batch naming an unknown slot with 400, not 404
+                if (t instanceof UnexpectedResponseException && ((UnexpectedResponseException) t).getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
+                    return SlotCommand.executeSerially(HttpRemoteAgent.this, commands);
+                }
+
+                // as with single slot commands, a failed batch leaves the slots in the unknown state
+                log.error(t);
+                ImmutableList.Builder<SlotStatus> slotStatuses = ImmutableList.builder();
+                for (SlotCommand command : commands) {
+                    slotStatuses.add(agentStatus.getSlotStatus(command.getSlotId())
+                            .changeState(SlotLifecycleState.UNKNOWN)
+                            .changeStatusMessage(t.getMessage()));
+                }
+                return Futures.<List<SlotStatus>>immediateFuture(slotStatuses.build());
+            }
+        });
     }
 }
-
@@ -5,7 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
-import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.InstallationRepresentation;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.SlotStatusRepresentation;
@@ -13,28 +13,32 @@ import io.airlift.discovery.client.ServiceDescriptorsRepresentation;
 import io.airlift.http.client.AsyncHttpClient;
 import io.airlift.json.JsonCodec;
 import io.airlift.node.NodeInfo;
+import io.airlift.units.Duration;
 
 public class HttpRemoteAgentFactory
         implements RemoteAgentFactory
 {
     private final String environment;
     private final AsyncHttpClient httpClient;
+    private final Duration heartbeatTimeout;
     private final JsonCodec<InstallationRepresentation> installationCodec;
-    private final JsonCodec<AgentStatusRepresentation> agentStatusCodec;
+    private final JsonCodec<AgentStatusDeltaRepresentation> agentStatusDeltaCodec;
     private final JsonCodec<SlotStatusRepresentation> slotStatusCodec;
     private final JsonCodec<ServiceDescriptorsRepresentation> serviceDescriptorsCodec;
 
     @Inject
     public HttpRemoteAgentFactory(NodeInfo nodeInfo,
+            CoordinatorConfig config,
             @Global AsyncHttpClient httpClient,
             JsonCodec<InstallationRepresentation> installationCodec,
             JsonCodec<SlotStatusRepresentation> slotStatusCodec,
-            JsonCodec<AgentStatusRepresentation> agentStatusCodec,
+            JsonCodec<AgentStatusDeltaRepresentation> agentStatusDeltaCodec,
             JsonCodec<ServiceDescriptorsRepresentation> serviceDescriptorsCodec)
     {
         environment = nodeInfo.getEnvironment();
         this.httpClient = httpClient;
-        this.agentStatusCodec = agentStatusCodec;
+        this.heartbeatTimeout = config.getAgentHeartbeatTimeout();
+        this.agentStatusDeltaCodec = agentStatusDeltaCodec;
         this.installationCodec = installationCodec;
         this.slotStatusCodec = slotStatusCodec;
         this.serviceDescriptorsCodec = serviceDescriptorsCodec;
@@ -53,6 +57,6 @@ public class HttpRemoteAgentFactory
                 ImmutableList.<SlotStatus>of(),
                 ImmutableMap.<String, Integer>of());
 
-        return new HttpRemoteAgent(agentStatus, environment, httpClient, installationCodec, agentStatusCodec, slotStatusCodec, serviceDescriptorsCodec);
+        return new HttpRemoteAgent(agentStatus, environment, httpClient, heartbeatTimeout, installationCodec, agentStatusDeltaCodec, slotStatusCodec, serviceDescriptorsCodec);
     }
 }
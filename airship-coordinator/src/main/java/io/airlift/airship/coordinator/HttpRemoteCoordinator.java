@@ -1,32 +1,54 @@
 package io.airlift.airship.coordinator;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
+import io.airlift.airship.shared.HttpUriBuilder;
+import io.airlift.airship.shared.SmileCodec;
 import io.airlift.http.client.AsyncHttpClient;
 import io.airlift.http.client.Request;
 import io.airlift.json.JsonCodec;
 
-import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.Nullable;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.airship.coordinator.SmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.airlift.airship.coordinator.SmileResponseHandler.createSmileResponseHandler;
 import static io.airlift.airship.shared.CoordinatorLifecycleState.OFFLINE;
 import static io.airlift.airship.shared.CoordinatorLifecycleState.PROVISIONING;
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
-import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static io.airlift.airship.shared.SmileCodec.listSmileCodec;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
+import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.json.JsonCodec.listJsonCodec;
+import static io.airlift.json.JsonCodec.mapJsonCodec;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 public class HttpRemoteCoordinator
         implements RemoteCoordinator
 {
+    private static final JsonCodec<List<AgentStatusRepresentation>> agentStatusesCodec = listJsonCodec(AgentStatusRepresentation.class);
+    private static final JsonCodec<Map<String, String>> agentVersionsCodec = mapJsonCodec(String.class, String.class);
+    private static final JsonCodec<ReplicationRepresentation> replicationCodec = jsonCodec(ReplicationRepresentation.class);
+    private static final SmileCodec<CoordinatorStatusRepresentation> coordinatorStatusSmileCodec = smileCodec(CoordinatorStatusRepresentation.class);
+    private static final SmileCodec<List<AgentStatusRepresentation>> agentStatusesSmileCodec = listSmileCodec(AgentStatusRepresentation.class);
+    private static final SmileCodec<ReplicationRepresentation> replicationSmileCodec = smileCodec(ReplicationRepresentation.class);
+
     private final JsonCodec<CoordinatorStatusRepresentation> coordinatorStatusCodec;
 
-    @GuardedBy("this")
-    private CoordinatorStatus coordinatorStatus;
+    private final VersionedStatusHolder<CoordinatorStatus> coordinatorStatus;
     private final AsyncHttpClient httpClient;
 
     private final AtomicLong failureCount = new AtomicLong();
@@ -40,26 +62,35 @@ public class HttpRemoteCoordinator
         Preconditions.checkNotNull(environment, "environment is null");
         Preconditions.checkNotNull(httpClient, "httpClient is null");
 
-        this.coordinatorStatus = coordinatorStatus;
+        this.coordinatorStatus = new VersionedStatusHolder<>(coordinatorStatus);
         this.httpClient = httpClient;
         this.coordinatorStatusCodec = coordinatorStatusCodec;
     }
 
     @Override
-    public synchronized CoordinatorStatus status()
+    public CoordinatorStatus status()
     {
-        return coordinatorStatus;
+        return coordinatorStatus.get();
     }
 
     @Override
-    public synchronized void setInternalUri(URI internalUri)
+    public void setInternalUri(final URI internalUri)
     {
-        coordinatorStatus = coordinatorStatus.changeInternalUri(internalUri);
+        coordinatorStatus.update(new Function<CoordinatorStatus, CoordinatorStatus>()
+        {
+            @Override
+            public CoordinatorStatus apply(CoordinatorStatus coordinatorStatus)
+            {
+                return coordinatorStatus.changeInternalUri(internalUri);
+            }
+        });
     }
 
     @Override
     public ListenableFuture<?> updateStatus()
     {
+        // responses to polls issued before the latest status change are dropped
+        final long pollSequence = this.coordinatorStatus.nextSequence();
         final CoordinatorStatus coordinatorStatus = status();
         URI internalUri = coordinatorStatus.getInternalUri();
         if (internalUri == null) {
@@ -68,15 +99,22 @@ public class HttpRemoteCoordinator
 
         Request request = Request.Builder.prepareGet()
                 .setUri(uriBuilderFrom(internalUri).replacePath("/v1/coordinator/").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
                 .build();
-        ListenableFuture<CoordinatorStatusRepresentation> future = httpClient.executeAsync(request, createJsonResponseHandler(coordinatorStatusCodec));
+        ListenableFuture<CoordinatorStatusRepresentation> future = httpClient.executeAsync(request, createSmileResponseHandler(coordinatorStatusSmileCodec, coordinatorStatusCodec));
         Futures.addCallback(future, new FutureCallback<CoordinatorStatusRepresentation>()
         {
             @Override
-            public void onSuccess(CoordinatorStatusRepresentation result)
+            public void onSuccess(final CoordinatorStatusRepresentation result)
             {
-                // todo deal with out of order responses
-                setStatus(result.toCoordinatorStatus(coordinatorStatus.getInstanceId(), coordinatorStatus.getInstanceType()));
+                HttpRemoteCoordinator.this.coordinatorStatus.update(pollSequence, new Function<CoordinatorStatus, CoordinatorStatus>()
+                {
+                    @Override
+                    public CoordinatorStatus apply(CoordinatorStatus coordinatorStatus)
+                    {
+                        return result.toCoordinatorStatus(coordinatorStatus.getInstanceId(), coordinatorStatus.getInstanceType());
+                    }
+                });
                 failureCount.set(0);
             }
 
@@ -85,17 +123,61 @@ public class HttpRemoteCoordinator
             {
                 // error talking to coordinator -- mark coordinator offline
                 if (coordinatorStatus.getState() != PROVISIONING && failureCount.incrementAndGet() > 5) {
-                    setStatus(coordinatorStatus.changeState(OFFLINE));
+                    HttpRemoteCoordinator.this.coordinatorStatus.update(pollSequence, new Function<CoordinatorStatus, CoordinatorStatus>()
+                    {
+                        @Override
+                        public CoordinatorStatus apply(CoordinatorStatus coordinatorStatus)
+                        {
+                            return coordinatorStatus.changeState(OFFLINE);
+                        }
+                    });
                 }
             }
         });
         return future;
     }
 
-    public synchronized void setStatus(CoordinatorStatus coordinatorStatus)
+    @Override
+    public ListenableFuture<List<AgentStatusRepresentation>> getAgentShard()
+    {
+        URI internalUri = status().getInternalUri();
+        if (internalUri == null) {
+            return Futures.immediateFailedFuture(new IllegalStateException("coordinator is down"));
+        }
+
+        Request request = Request.Builder.prepareGet()
+                .setUri(uriBuilderFrom(internalUri).replacePath("/v1/coordinator/agent").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .build();
+        return httpClient.executeAsync(request, createSmileResponseHandler(agentStatusesSmileCodec, agentStatusesCodec));
+    }
+
+    @Override
+    public ListenableFuture<ReplicationRepresentation> replicate(Map<String, String> agentVersions, @Nullable String expectedStateEpoch, long expectedStateGeneration)
+    {
+        URI internalUri = status().getInternalUri();
+        if (internalUri == null) {
+            return Futures.immediateFailedFuture(new IllegalStateException("coordinator is down"));
+        }
+
+        HttpUriBuilder uriBuilder = uriBuilderFrom(internalUri).replacePath("/v1/coordinator/replication");
+        if (expectedStateEpoch != null) {
+            uriBuilder.addParameter("epoch", expectedStateEpoch);
+            uriBuilder.addParameter("since", String.valueOf(expectedStateGeneration));
+        }
+        Request request = Request.Builder.preparePost()
+                .setUri(uriBuilder.build())
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setBodyGenerator(jsonBodyGenerator(agentVersionsCodec, agentVersions))
+                .build();
+        return httpClient.executeAsync(request, createSmileResponseHandler(replicationSmileCodec, replicationCodec));
+    }
+
+    public void setStatus(CoordinatorStatus coordinatorStatus)
     {
         Preconditions.checkNotNull(coordinatorStatus, "coordinatorStatus is null");
-        this.coordinatorStatus = coordinatorStatus;
+        this.coordinatorStatus.set(coordinatorStatus);
     }
 }
 
@@ -1,11 +1,16 @@
 package io.airlift.airship.coordinator;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureFallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.InstallationRepresentation;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.SlotStatusRepresentation;
-import io.airlift.http.client.HttpClient;
+import io.airlift.airship.shared.SmileCodec;
+import io.airlift.http.client.AsyncHttpClient;
 import io.airlift.http.client.Request;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
@@ -15,13 +20,16 @@ import javax.ws.rs.core.Response.Status;
 import java.util.UUID;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.airship.coordinator.SmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.airlift.airship.coordinator.SmileResponseHandler.createSmileResponseHandler;
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_AGENT_VERSION_HEADER;
 import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_SLOT_VERSION_HEADER;
 import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
-import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.json.JsonCodec.jsonCodec;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -32,12 +40,13 @@ public class HttpRemoteSlot
     private static final Logger log = Logger.get(HttpRemoteSlot.class);
     private static final JsonCodec<InstallationRepresentation> installationCodec = jsonCodec(InstallationRepresentation.class);
     private static final JsonCodec<SlotStatusRepresentation> slotStatusCodec = jsonCodec(SlotStatusRepresentation.class);
+    private static final SmileCodec<SlotStatusRepresentation> slotStatusSmileCodec = smileCodec(SlotStatusRepresentation.class);
 
-    private SlotStatus slotStatus;
-    private final HttpClient httpClient;
+    private volatile SlotStatus slotStatus;
+    private final AsyncHttpClient httpClient;
     private final HttpRemoteAgent agent;
 
-    public HttpRemoteSlot(SlotStatus slotStatus, HttpClient httpClient, HttpRemoteAgent agent)
+    public HttpRemoteSlot(SlotStatus slotStatus, AsyncHttpClient httpClient, HttpRemoteAgent agent)
     {
         Preconditions.checkNotNull(slotStatus, "slotStatus is null");
         Preconditions.checkNotNull(httpClient, "httpClient is null");
@@ -60,7 +69,7 @@ public class HttpRemoteSlot
         return slotStatus;
     }
 
-    private void updateStatus(SlotStatus slotStatus)
+    private SlotStatus updateStatus(SlotStatus slotStatus)
     {
         Preconditions.checkArgument(slotStatus.getId().equals(this.slotStatus.getId()),
                 String.format("Agent returned status for slot %s, but the status for slot %s was expected", slotStatus.getId(), this.slotStatus.getId()));
@@ -68,6 +77,7 @@ public class HttpRemoteSlot
         if (agent != null) {
             agent.setSlotStatus(slotStatus);
         }
+        return slotStatus;
     }
 
     private SlotStatus setErrorStatus(String statusMessage)
@@ -77,126 +87,111 @@ public class HttpRemoteSlot
     }
 
     @Override
-    public SlotStatus assign(Installation installation)
+    public ListenableFuture<SlotStatus> assign(Installation installation)
     {
-        try {
-            Request request = Request.Builder.preparePut()
-                    .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("assignment").build())
-                    .setHeader(CONTENT_TYPE, APPLICATION_JSON)
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
-                    .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
-                    .setBodyGenerator(jsonBodyGenerator(installationCodec, InstallationRepresentation.from(installation)))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
-        }
-        catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
-        }
+        Request request = Request.Builder.preparePut()
+                .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("assignment").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
+                .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
+                .setBodyGenerator(jsonBodyGenerator(installationCodec, InstallationRepresentation.from(installation)))
+                .build();
+        return execute(request);
     }
 
     @Override
-    public SlotStatus terminate()
+    public ListenableFuture<SlotStatus> terminate()
     {
-        try {
-            Request request = Request.Builder.prepareDelete()
-                    .setUri(slotStatus.getSelf())
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
-                    .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
-        }
-        catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
-        }
+        Request request = Request.Builder.prepareDelete()
+                .setUri(slotStatus.getSelf())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
+                .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
+                .build();
+        return execute(request);
     }
 
     @Override
-    public SlotStatus start()
+    public ListenableFuture<SlotStatus> start()
     {
-        try {
-            Request request = Request.Builder.preparePut()
-                    .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
-                    .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
-                    .setBodyGenerator(createStaticBodyGenerator("running", UTF_8))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
-        }
-        catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
-        }
+        Request request = Request.Builder.preparePut()
+                .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
+                .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
+                .setBodyGenerator(createStaticBodyGenerator("running", UTF_8))
+                .build();
+        return execute(request);
     }
 
     @Override
-    public SlotStatus restart()
+    public ListenableFuture<SlotStatus> restart()
     {
-        try {
-            Request request = Request.Builder.preparePut()
-                    .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
-                    .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
-                    .setBodyGenerator(createStaticBodyGenerator("restarting", UTF_8))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
-        }
-        catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
-        }
+        Request request = Request.Builder.preparePut()
+                .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
+                .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
+                .setBodyGenerator(createStaticBodyGenerator("restarting", UTF_8))
+                .build();
+        return execute(request);
     }
 
     @Override
-    public SlotStatus stop()
+    public ListenableFuture<SlotStatus> stop()
     {
-        try {
-            Request request = Request.Builder.preparePut()
-                    .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
-                    .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
-                    .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
-                    .setBodyGenerator(createStaticBodyGenerator("stopped", UTF_8))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
-        }
-        catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
-        }
+        Request request = Request.Builder.preparePut()
+                .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setHeader(AIRSHIP_AGENT_VERSION_HEADER, agent.status().getVersion())
+                .setHeader(AIRSHIP_SLOT_VERSION_HEADER, slotStatus.getVersion())
+                .setBodyGenerator(createStaticBodyGenerator("stopped", UTF_8))
+                .build();
+        return execute(request);
     }
 
     @Override
-    public SlotStatus kill()
+    public ListenableFuture<SlotStatus> kill()
+    {
+        Request request = Request.Builder.preparePut()
+                .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setBodyGenerator(createStaticBodyGenerator("killing", UTF_8))
+                .build();
+        return execute(request);
+    }
+
+    /**
+     * Sends the command without blocking.  As before, a failed command
+     * completes normally with the slot in the unknown state.
+     */
+    private ListenableFuture<SlotStatus> execute(Request request)
     {
+        ListenableFuture<SlotStatus> future;
         try {
-            Request request = Request.Builder.preparePut()
-                    .setUri(uriBuilderFrom(slotStatus.getSelf()).appendPath("lifecycle").build())
-                    .setBodyGenerator(createStaticBodyGenerator("killing", UTF_8))
-                    .build();
-            SlotStatusRepresentation slotStatusRepresentation = httpClient.execute(request, createJsonResponseHandler(slotStatusCodec, Status.OK.getStatusCode()));
-
-            updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
-            return slotStatus;
+            ListenableFuture<SlotStatusRepresentation> response = httpClient.executeAsync(request, createSmileResponseHandler(slotStatusSmileCodec, slotStatusCodec, Status.OK.getStatusCode()));
+            future = Futures.transform(response, new Function<SlotStatusRepresentation, SlotStatus>()
+            {
+                @Override
+                public SlotStatus apply(SlotStatusRepresentation slotStatusRepresentation)
+                {
+                    return updateStatus(slotStatusRepresentation.toSlotStatus(slotStatus.getInstanceId()));
+                }
+            });
         }
         catch (Exception e) {
-            log.error(e);
-            return setErrorStatus(e.getMessage());
+            future = Futures.immediateFailedFuture(e);
         }
+
+        return Futures.withFallback(future, new FutureFallback<SlotStatus>()
+        {
+            @Override
+            public ListenableFuture<SlotStatus> create(Throwable t)
+            {
+                log.error(t);
+                return Futures.immediateFuture(setErrorStatus(t.getMessage()));
+            }
+        });
     }
 }
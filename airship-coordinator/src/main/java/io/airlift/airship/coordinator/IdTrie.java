@@ -0,0 +1,319 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+
+import static java.lang.Math.max;
+
+/**
+ * Persistent radix trie over slot or agent ids.  Ids are matched without
+ * regard to case, like the short id filters.  Adding or removing an id copies
+ * only the path to that id, so a trie can be updated from the previous
+ * version as the fleet changes while readers keep using the old one.
+ * <p/>
+ * Each node tracks the number of ids below it and the longest prefix shared
+ * by two of them, so the shortest unique prefix is available in constant
+ * time, and the ids matching a prefix are found by walking only the prefix.
+ */
+@Immutable
+public final class IdTrie
+{
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    public static final IdTrie EMPTY = new IdTrie(new Node("", 0, null, NO_CHILDREN));
+
+    private final Node root;
+
+    public static IdTrie copyOf(Iterable<String> ids)
+    {
+        Preconditions.checkNotNull(ids, "ids is null");
+
+        IdTrie trie = EMPTY;
+        for (String id : ids) {
+            if (id != null) {
+                trie = trie.add(id);
+            }
+        }
+        return trie;
+    }
+
+    private IdTrie(Node root)
+    {
+        this.root = root;
+    }
+
+    public int size()
+    {
+        return root.size;
+    }
+
+    public boolean contains(String id)
+    {
+        Preconditions.checkNotNull(id, "id is null");
+
+        String key = id.toLowerCase();
+        Node node = find(key);
+        return node != null && node.depth == key.length() && node.value != null;
+    }
+
+    /**
+     * Returns a trie that also contains the specified id.  An id that differs
+     * from an existing id only by case replaces it.
+     */
+    public IdTrie add(String id)
+    {
+        Preconditions.checkNotNull(id, "id is null");
+        return new IdTrie(add(root, id.toLowerCase(), id));
+    }
+
+    /**
+     * Returns a trie without the specified id, or this trie if it does not
+     * contain the id.
+     */
+    public IdTrie remove(String id)
+    {
+        Preconditions.checkNotNull(id, "id is null");
+
+        Node newRoot = remove(root, id.toLowerCase());
+        if (newRoot == root) {
+            return this;
+        }
+        return new IdTrie(newRoot);
+    }
+
+    /**
+     * Returns the length of the shortest prefix that identifies every id in
+     * the trie, but not less than minSize.  This is the same value
+     * {@link io.airlift.airship.shared.Strings#shortestUniquePrefix(java.util.Collection, int)}
+     * computes over the ids.
+     */
+    public int shortestUniquePrefix(int minSize)
+    {
+        if (root.size < 2) {
+            return minSize;
+        }
+        return max(root.maxSharedPrefix + 1, minSize);
+    }
+
+    /**
+     * Returns the ids that start with the specified prefix, ignoring case, in
+     * lexical order.
+     */
+    public List<String> getMatches(String prefix)
+    {
+        Preconditions.checkNotNull(prefix, "prefix is null");
+
+        Node node = find(prefix.toLowerCase());
+        if (node == null) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<String> matches = ImmutableList.builder();
+        collect(node, matches);
+        return matches.build();
+    }
+
+    /**
+     * Finds the highest node whose path starts with the specified key, or
+     * null if no id starts with the key.
+     */
+    private Node find(String key)
+    {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.findChild(key.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            int length = Math.min(node.edge.length(), key.length() - position);
+            if (!key.regionMatches(position, node.edge, 0, length)) {
+                return null;
+            }
+            position += length;
+        }
+        return node;
+    }
+
+    private static void collect(Node node, ImmutableList.Builder<String> matches)
+    {
+        if (node.value != null) {
+            matches.add(node.value);
+        }
+        for (Node child : node.children) {
+            collect(child, matches);
+        }
+    }
+
+    private static Node add(Node node, String key, String value)
+    {
+        if (key.length() == node.depth) {
+            return node.withValue(value);
+        }
+
+        int index = node.findChild(key.charAt(node.depth));
+        if (index < 0) {
+            Node leaf = new Node(key.substring(node.depth), key.length(), value, NO_CHILDREN);
+            return node.withChild(-(index + 1), leaf);
+        }
+
+        Node child = node.children[index];
+        int common = commonPrefixLength(child.edge, key, node.depth);
+        if (common == child.edge.length()) {
+            return node.withChild(index, add(child, key, value));
+        }
+
+        // the key leaves the child's edge part way, so split the edge
+        Node lower = new Node(child.edge.substring(common), child.depth, child.value, child.children);
+        Node split = new Node(child.edge.substring(0, common), node.depth + common, null, new Node[] {lower});
+        return node.withChild(index, add(split, key, value));
+    }
+
+    private static Node remove(Node node, String key)
+    {
+        if (key.length() == node.depth) {
+            if (node.value == null) {
+                return node;
+            }
+            return node.withValue(null);
+        }
+
+        int index = node.findChild(key.charAt(node.depth));
+        if (index < 0) {
+            return node;
+        }
+        Node child = node.children[index];
+        if (key.length() < child.depth || !key.regionMatches(node.depth, child.edge, 0, child.edge.length())) {
+            return node;
+        }
+
+        Node newChild = remove(child, key);
+        if (newChild == child) {
+            return node;
+        }
+        newChild = compact(newChild);
+        if (newChild == null) {
+            return node.withoutChild(index);
+        }
+        return node.withChild(index, newChild);
+    }
+
+    /**
+     * Removes a node that no longer holds an id, merging it into its only
+     * child if it has one.  Never applied to the root.
+     */
+    private static Node compact(Node node)
+    {
+        if (node.value != null || node.children.length > 1) {
+            return node;
+        }
+        if (node.children.length == 0) {
+            return null;
+        }
+        Node child = node.children[0];
+        return new Node(node.edge + child.edge, child.depth, child.value, child.children);
+    }
+
+    private static int commonPrefixLength(String edge, String key, int offset)
+    {
+        int length = Math.min(edge.length(), key.length() - offset);
+        int common = 0;
+        while (common < length && edge.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    @Immutable
+    private static final class Node
+    {
+        private final String edge;
+        private final int depth;
+        private final String value;
+        private final Node[] children;
+        private final int size;
+        private final int maxSharedPrefix;
+
+        private Node(String edge, int depth, String value, Node[] children)
+        {
+            this.edge = edge;
+            this.depth = depth;
+            this.value = value;
+            this.children = children;
+
+            int size = value != null ? 1 : 0;
+            int maxSharedPrefix = -1;
+            for (Node child : children) {
+                size += child.size;
+                maxSharedPrefix = max(maxSharedPrefix, child.maxSharedPrefix);
+            }
+            this.size = size;
+
+            // every id below this node shares the path to it, and children
+            // differ in their first character, so nothing longer is shared here
+            this.maxSharedPrefix = size < 2 ? -1 : max(depth, maxSharedPrefix);
+        }
+
+        private int findChild(char c)
+        {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char middleChar = children[middle].edge.charAt(0);
+                if (middleChar < c) {
+                    low = middle + 1;
+                }
+                else if (middleChar > c) {
+                    high = middle - 1;
+                }
+                else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private Node withValue(String value)
+        {
+            return new Node(edge, depth, value, children);
+        }
+
+        /**
+         * Replaces the child at the specified index, or inserts the child at
+         * the insertion point if no child starts with its first character.
+         */
+        private Node withChild(int index, Node child)
+        {
+            Node[] newChildren;
+            if (index < children.length && children[index].edge.charAt(0) == child.edge.charAt(0)) {
+                newChildren = children.clone();
+            }
+            else {
+                newChildren = new Node[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            }
+            newChildren[index] = child;
+            return new Node(edge, depth, value, newChildren);
+        }
+
+        private Node withoutChild(int index)
+        {
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return new Node(edge, depth, value, newChildren);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getMatches("").toString();
+    }
+}
@@ -30,9 +30,25 @@ public class InMemoryStateManager
         expectedState.remove(slotId.toString());
     }
 
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        for (UUID slotId : slotIds) {
+            deleteExpectedState(slotId);
+        }
+    }
+
     @Override
     public void setExpectedState(ExpectedSlotStatus slotStatus)
     {
         expectedState.put(slotStatus.getId().toString(), slotStatus);
     }
+
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        for (ExpectedSlotStatus slotStatus : slotStatuses) {
+            setExpectedState(slotStatus);
+        }
+    }
 }
@@ -0,0 +1,511 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+import com.google.common.io.PatternFilenameFilter;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import io.airlift.airship.shared.FileUtils;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+/**
+ * Stores expected states in an append-only journal.  Concurrent writers are
+ * committed together with a single fsync, and once the journal grows past
+ * the compaction threshold its contents are folded into a snapshot file.
+ * All states are held in memory, so reads never touch the disk.
+ * <p/>
+ * On startup the snapshot and journal are replayed.  If neither exists, the
+ * one file per slot format written by {@link FileStateManager} is imported.
+ * The per slot files are left in place but are not kept up to date, so when
+ * the journal is disabled again, {@link #revertToFiles} must rewrite them
+ * from the journal before the file state manager uses them.
+ */
+public class JournaledFileStateManager
+        implements StateManager
+{
+    public static final String SNAPSHOT_FILE_NAME = "expected-state.snapshot";
+    public static final String JOURNAL_FILE_NAME = "expected-state.journal";
+
+    private static final Logger log = Logger.get(JournaledFileStateManager.class);
+
+    private static final String SET = "set";
+    private static final String DELETE = "delete";
+
+    private final File dataDir;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final JsonCodec<ExpectedSlotStatus> codec;
+    private final int compactionThreshold;
+
+    @GuardedBy("this")
+    private final Map<UUID, ExpectedSlotStatus> expectedStates = newLinkedHashMap();
+
+    @GuardedBy("this")
+    private final List<PendingWrite> pendingWrites = newArrayList();
+
+    private final Object journalLock = new Object();
+
+    @GuardedBy("journalLock")
+    private FileOutputStream journal;
+
+    @GuardedBy("journalLock")
+    private int journalRecords;
+
+    // set when a write fails, so the next commit replaces the journal with a snapshot
+    @GuardedBy("journalLock")
+    private boolean journalFailed;
+
+    @Inject
+    public JournaledFileStateManager(FileStateManagerConfig fileStateManagerConfig, JsonCodec<ExpectedSlotStatus> codec)
+    {
+        this(new File(checkNotNull(fileStateManagerConfig, "fileStateManagerConfig is null").getExpectedStateDir()),
+                codec,
+                fileStateManagerConfig.getJournalCompactionThreshold());
+    }
+
+    public JournaledFileStateManager(File dataDir, JsonCodec<ExpectedSlotStatus> codec, int compactionThreshold)
+    {
+        Preconditions.checkNotNull(dataDir, "dataDir is null");
+        Preconditions.checkNotNull(codec, "codec is null");
+        Preconditions.checkArgument(compactionThreshold > 0, "compactionThreshold must be at least 1");
+        this.dataDir = dataDir;
+        this.snapshotFile = new File(dataDir, SNAPSHOT_FILE_NAME);
+        this.journalFile = new File(dataDir, JOURNAL_FILE_NAME);
+        this.codec = codec;
+        this.compactionThreshold = compactionThreshold;
+
+        dataDir.mkdirs();
+        Preconditions.checkArgument(dataDir.isDirectory(), "dataDir is not a directory");
+
+        synchronized (journalLock) {
+            try {
+                if (snapshotFile.exists() || journalFile.exists()) {
+                    replay(snapshotFile, expectedStates, codec);
+                    replay(journalFile, expectedStates, codec);
+                    if (journalFile.length() > 0) {
+                        // fold the journal into the snapshot, which also drops any torn record at the end
+                        compact(ImmutableList.copyOf(expectedStates.values()));
+                    }
+                }
+                else {
+                    importLegacyFiles();
+                    compact(ImmutableList.copyOf(expectedStates.values()));
+                }
+
+                if (journal == null) {
+                    journal = new FileOutputStream(journalFile, true);
+                }
+            }
+            catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close()
+    {
+        synchronized (journalLock) {
+            try {
+                journal.close();
+            }
+            catch (IOException e) {
+                log.warn(e, "Error closing expected state journal");
+            }
+        }
+    }
+
+    @Override
+    public synchronized Collection<ExpectedSlotStatus> getAllExpectedStates()
+    {
+        return ImmutableList.copyOf(expectedStates.values());
+    }
+
+    @Override
+    public void deleteExpectedState(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+        deleteExpectedStates(ImmutableList.of(slotId));
+    }
+
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        Preconditions.checkNotNull(slotIds, "slotIds is null");
+        if (Iterables.isEmpty(slotIds)) {
+            return;
+        }
+        PendingWrite write = new PendingWrite();
+        for (UUID slotId : slotIds) {
+            write.delete(slotId);
+        }
+        commit(write);
+    }
+
+    @Override
+    public void setExpectedState(ExpectedSlotStatus slotStatus)
+    {
+        Preconditions.checkNotNull(slotStatus, "slotStatus is null");
+        setExpectedStates(ImmutableList.of(slotStatus));
+    }
+
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        Preconditions.checkNotNull(slotStatuses, "slotStatuses is null");
+        if (Iterables.isEmpty(slotStatuses)) {
+            return;
+        }
+        PendingWrite write = new PendingWrite();
+        for (ExpectedSlotStatus slotStatus : slotStatuses) {
+            write.set(slotStatus, toSetRecord(slotStatus, codec));
+        }
+        commit(write);
+    }
+
+    /**
+     * Waits until the write is durable and then makes it visible to readers.
+     * The first waiter to acquire the journal writes all pending writes, so
+     * writers that arrive during an fsync share the next one.
+     * <p/>
+     * If the write fails, none of the pending writes are applied and the
+     * failure is thrown to each writer.  The journal may end with a partial
+     * record, so it is replaced with a snapshot of the states in memory.
+     */
+    private void commit(PendingWrite write)
+    {
+        synchronized (this) {
+            pendingWrites.add(write);
+        }
+
+        synchronized (journalLock) {
+            if (!write.isDone()) {
+                commitPendingWrites();
+            }
+        }
+
+        if (write.getFailure() != null) {
+            throw new RuntimeException("Error writing expected state journal", write.getFailure());
+        }
+    }
+
+    @GuardedBy("journalLock")
+    private void commitPendingWrites()
+    {
+        List<PendingWrite> writes;
+        synchronized (this) {
+            writes = ImmutableList.copyOf(pendingWrites);
+            pendingWrites.clear();
+        }
+
+        List<String> records = newArrayList();
+        for (PendingWrite write : writes) {
+            records.addAll(write.getRecords());
+        }
+
+        try {
+            if (journalFailed || journalRecords + records.size() >= compactionThreshold) {
+                Map<UUID, ExpectedSlotStatus> states;
+                synchronized (this) {
+                    states = newLinkedHashMap(expectedStates);
+                }
+                for (PendingWrite write : writes) {
+                    write.applyTo(states);
+                }
+                compact(states.values());
+                journalFailed = false;
+            }
+            else {
+                writeRecords(journal, records);
+                journalRecords += records.size();
+            }
+        }
+        catch (IOException e) {
+            journalFailed = true;
+            for (PendingWrite write : writes) {
+                write.failed(e);
+            }
+            recoverJournal();
+            return;
+        }
+
+        synchronized (this) {
+            for (PendingWrite write : writes) {
+                write.applyTo(expectedStates);
+            }
+        }
+        for (PendingWrite write : writes) {
+            write.committed();
+        }
+    }
+
+    /**
+     * Replaces a journal that may contain records of failed writes, so they
+     * are not replayed on restart.  If this also fails, the next commit
+     * tries again.
+     */
+    @GuardedBy("journalLock")
+    private void recoverJournal()
+    {
+        List<ExpectedSlotStatus> states;
+        synchronized (this) {
+            states = ImmutableList.copyOf(expectedStates.values());
+        }
+        try {
+            compact(states);
+            journalFailed = false;
+        }
+        catch (IOException e) {
+            log.warn("Unable to replace expected state journal after a failed write: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the states to a new snapshot and starts an empty journal.  A
+     * crash between the two steps is harmless, because replaying the old
+     * journal over the new snapshot produces the same states.
+     */
+    @GuardedBy("journalLock")
+    private void compact(Collection<ExpectedSlotStatus> states)
+            throws IOException
+    {
+        List<String> records = newArrayList();
+        for (ExpectedSlotStatus expectedState : states) {
+            records.add(toSetRecord(expectedState, codec));
+        }
+
+        File tempFile = new File(dataDir, SNAPSHOT_FILE_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            writeRecords(out, records);
+        }
+        java.nio.file.Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(dataDir);
+
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        journal = new FileOutputStream(journalFile, false);
+        journal.getFD().sync();
+        journalRecords = 0;
+    }
+
+    /**
+     * Rewrites the one file per slot format read by {@link FileStateManager}
+     * from the journal in the specified directory, so the journal can be
+     * disabled without losing changes made while it was enabled.  The
+     * snapshot and journal are then renamed with a {@code .reverted} suffix,
+     * so enabling the journal again imports the per slot files.  Does nothing
+     * if the directory has no journal.
+     */
+    public static void revertToFiles(File dataDir, JsonCodec<ExpectedSlotStatus> codec)
+            throws IOException
+    {
+        Preconditions.checkNotNull(dataDir, "dataDir is null");
+        Preconditions.checkNotNull(codec, "codec is null");
+
+        File snapshotFile = new File(dataDir, SNAPSHOT_FILE_NAME);
+        File journalFile = new File(dataDir, JOURNAL_FILE_NAME);
+        if (!snapshotFile.exists() && !journalFile.exists()) {
+            return;
+        }
+
+        Map<UUID, ExpectedSlotStatus> states = newLinkedHashMap();
+        replay(snapshotFile, states, codec);
+        replay(journalFile, states, codec);
+
+        for (ExpectedSlotStatus expectedState : states.values()) {
+            Files.write(codec.toJson(expectedState), new File(dataDir, expectedState.getId() + ".json"), Charsets.UTF_8);
+        }
+        // slots deleted while the journal was enabled
+        for (File file : FileUtils.listFiles(dataDir, new PatternFilenameFilter("[^\\.].*\\.json"))) {
+            UUID slotId = parseSlotId(file.getName().substring(0, file.getName().length() - ".json".length()));
+            if (slotId != null && !states.containsKey(slotId)) {
+                java.nio.file.Files.delete(file.toPath());
+            }
+        }
+        syncDirectory(dataDir);
+
+        java.nio.file.Files.move(snapshotFile.toPath(), new File(dataDir, SNAPSHOT_FILE_NAME + ".reverted").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (journalFile.exists()) {
+            java.nio.file.Files.move(journalFile.toPath(), new File(dataDir, JOURNAL_FILE_NAME + ".reverted").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Rewrote %s expected state files from the journal in %s", states.size(), dataDir);
+    }
+
+    private static UUID parseSlotId(String slotId)
+    {
+        try {
+            return UUID.fromString(slotId);
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void replay(File file, Map<UUID, ExpectedSlotStatus> expectedStates, JsonCodec<ExpectedSlotStatus> codec)
+            throws IOException
+    {
+        if (!file.exists()) {
+            return;
+        }
+
+        List<String> lines = Files.readLines(file, Charsets.UTF_8);
+        for (String line : lines) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                int separator = line.indexOf(' ');
+                String operation = line.substring(0, separator);
+                String value = line.substring(separator + 1);
+                if (operation.equals(SET)) {
+                    ExpectedSlotStatus expectedState = codec.fromJson(value);
+                    expectedStates.put(expectedState.getId(), expectedState);
+                }
+                else if (operation.equals(DELETE)) {
+                    expectedStates.remove(UUID.fromString(value));
+                }
+                else {
+                    throw new IllegalArgumentException("Unknown operation " + operation);
+                }
+            }
+            catch (Exception e) {
+                // skip corrupted records, the last of which may be a torn write
+                log.warn("Skipping corrupted record in %s: %s", file, line);
+            }
+        }
+    }
+
+    @GuardedBy("journalLock")
+    private void importLegacyFiles()
+    {
+        List<File> legacyFiles = FileUtils.listFiles(dataDir, new PatternFilenameFilter("[^\\.].*\\.json"));
+        for (File file : legacyFiles) {
+            try {
+                ExpectedSlotStatus expectedState = codec.fromJson(Files.toString(file, Charsets.UTF_8));
+                synchronized (this) {
+                    expectedStates.put(expectedState.getId(), expectedState);
+                }
+            }
+            catch (Exception e) {
+                log.warn("Skipping corrupted expected state file %s", file);
+            }
+        }
+        if (!legacyFiles.isEmpty()) {
+            log.info("Imported %s expected state files from %s", legacyFiles.size(), dataDir);
+        }
+    }
+
+    private static String toSetRecord(ExpectedSlotStatus expectedState, JsonCodec<ExpectedSlotStatus> codec)
+    {
+        // records are line delimited, and json only contains line breaks as whitespace
+        return SET + " " + codec.toJson(expectedState).replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static void writeRecords(FileOutputStream out, List<String> records)
+            throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        for (String record : records) {
+            builder.append(record).append('\n');
+        }
+        out.write(builder.toString().getBytes(Charsets.UTF_8));
+        out.getFD().sync();
+    }
+
+    private static void syncDirectory(File dataDir)
+    {
+        try (FileChannel channel = FileChannel.open(dataDir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException e) {
+            // not all platforms allow directories to be synced
+        }
+    }
+
+    private static class PendingWrite
+    {
+        // a null state deletes the slot
+        private final Map<UUID, ExpectedSlotStatus> changes = newLinkedHashMap();
+        private final List<String> records = newArrayList();
+
+        // set by the committing thread while holding the journal lock, which the writer acquires before reading them
+        private boolean done;
+        private IOException failure;
+
+        public void set(ExpectedSlotStatus expectedState, String record)
+        {
+            changes.put(expectedState.getId(), expectedState);
+            records.add(record);
+        }
+
+        public void delete(UUID slotId)
+        {
+            changes.put(slotId, null);
+            records.add(DELETE + " " + slotId);
+        }
+
+        public List<String> getRecords()
+        {
+            return records;
+        }
+
+        public void applyTo(Map<UUID, ExpectedSlotStatus> expectedStates)
+        {
+            for (Entry<UUID, ExpectedSlotStatus> entry : changes.entrySet()) {
+                if (entry.getValue() == null) {
+                    expectedStates.remove(entry.getKey());
+                }
+                else {
+                    expectedStates.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        public IOException getFailure()
+        {
+            return failure;
+        }
+
+        public void committed()
+        {
+            done = true;
+        }
+
+        public void failed(IOException failure)
+        {
+            this.done = true;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.airlift.airship.coordinator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.json.ObjectMapperProvider;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes a JSON array one element at a time, so the response is never
+ * buffered in memory.  When the values are a lazy transform, each
+ * representation is created just before it is written and can be collected
+ * right after.  When fields are specified, only those top level fields of
+ * each element are written.
+ */
+public class JsonStreamingOutput<T>
+        implements StreamingOutput
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+
+    private final Iterable<T> values;
+    private final Set<String> fields;
+
+    public static <T> JsonStreamingOutput<T> jsonStreamingOutput(Iterable<T> values)
+    {
+        return new JsonStreamingOutput<>(values, ImmutableSet.<String>of());
+    }
+
+    public static <T> JsonStreamingOutput<T> jsonStreamingOutput(Iterable<T> values, Set<String> fields)
+    {
+        return new JsonStreamingOutput<>(values, fields);
+    }
+
+    public JsonStreamingOutput(Iterable<T> values, Set<String> fields)
+    {
+        Preconditions.checkNotNull(values, "values is null");
+        Preconditions.checkNotNull(fields, "fields is null");
+        this.values = values;
+        this.fields = ImmutableSet.copyOf(fields);
+    }
+
+    public Iterable<T> getValues()
+    {
+        return values;
+    }
+
+    public Set<String> getFields()
+    {
+        return fields;
+    }
+
+    @Override
+    public void write(OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        // the generator buffers at most one chunk; the container owns the stream
+        JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        for (T value : values) {
+            if (fields.isEmpty()) {
+                generator.writeObject(value);
+            }
+            else {
+                ObjectNode node = OBJECT_MAPPER.valueToTree(value);
+                node.retain(fields);
+                generator.writeTree(node);
+            }
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+}
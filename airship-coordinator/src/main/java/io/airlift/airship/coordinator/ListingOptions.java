@@ -0,0 +1,235 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.HttpUriBuilder;
+import io.airlift.airship.shared.SlotStatus;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pagination and field projection for slot and agent listings.  Pages are
+ * ordered by a stable key (the slot UUID or the agent instance id), and the
+ * cursor is the key of the last item of the previous page, so a page is not
+ * affected by items added or removed before it.
+ */
+@Immutable
+public class ListingOptions
+{
+    public static final ListingOptions ALL = new ListingOptions(null, 0, ImmutableSet.<String>of());
+
+    private final String after;
+    private final int limit;
+    private final Set<String> fields;
+
+    public static ListingOptions fromUriInfo(UriInfo uriInfo)
+    {
+        MultivaluedMap<String, String> parameters = uriInfo.getQueryParameters();
+
+        String after = parameters.getFirst("after");
+
+        int limit = 0;
+        String limitValue = parameters.getFirst("limit");
+        if (limitValue != null) {
+            try {
+                limit = Integer.parseInt(limitValue);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid limit: " + limitValue);
+            }
+            Preconditions.checkArgument(limit > 0, "limit must be at least 1");
+        }
+
+        ImmutableSet.Builder<String> fields = ImmutableSet.builder();
+        List<String> fieldValues = parameters.get("fields");
+        if (fieldValues != null) {
+            for (String fieldValue : fieldValues) {
+                fields.addAll(Splitter.on(',').trimResults().omitEmptyStrings().split(fieldValue));
+            }
+        }
+
+        return new ListingOptions(after, limit, fields.build());
+    }
+
+    public ListingOptions(@Nullable String after, int limit, Set<String> fields)
+    {
+        Preconditions.checkArgument(limit >= 0, "limit is negative");
+        Preconditions.checkNotNull(fields, "fields is null");
+
+        this.after = after;
+        this.limit = limit;
+        this.fields = ImmutableSet.copyOf(fields);
+    }
+
+    /**
+     * Returns the key of the last item of the previous page, or null for the first page.
+     */
+    @Nullable
+    public String getAfter()
+    {
+        return after;
+    }
+
+    /**
+     * Returns the maximum number of items in a page, or 0 if the listing is not paged.
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * Returns the top level fields to include in each item, or an empty set for all fields.
+     */
+    public Set<String> getFields()
+    {
+        return fields;
+    }
+
+    public boolean isPaged()
+    {
+        return after != null || limit > 0;
+    }
+
+    /**
+     * Returns a page of the specified slots, which must be ordered by uuid
+     * as they are when selected from a {@link FleetSnapshot}.
+     */
+    public Page<SlotStatus> pageSlots(List<SlotStatus> slots)
+    {
+        return pageSorted(slots, SLOT_KEY);
+    }
+
+    public Page<AgentStatus> pageAgents(List<AgentStatus> agents)
+    {
+        return page(agents, AGENT_KEY);
+    }
+
+    public <T> Page<T> page(List<T> items, Function<T, String> keyFunction)
+    {
+        Preconditions.checkNotNull(items, "items is null");
+        Preconditions.checkNotNull(keyFunction, "keyFunction is null");
+
+        if (!isPaged()) {
+            return new Page<>(items, null);
+        }
+        return pageSorted(Ordering.natural().onResultOf(keyFunction).sortedCopy(items), keyFunction);
+    }
+
+    /**
+     * Returns a page of items that are already ordered by key.  The start of
+     * the page is found with a binary search, so the cost of a page does not
+     * depend on how many items come before it.
+     */
+    public <T> Page<T> pageSorted(List<T> sortedItems, Function<T, String> keyFunction)
+    {
+        Preconditions.checkNotNull(sortedItems, "sortedItems is null");
+        Preconditions.checkNotNull(keyFunction, "keyFunction is null");
+
+        if (!isPaged()) {
+            return new Page<>(sortedItems, null);
+        }
+
+        int start = 0;
+        if (after != null) {
+            // the cursor item may have been removed since the previous page
+            int position = Collections.binarySearch(Lists.transform(sortedItems, keyFunction), after);
+            start = position >= 0 ? position + 1 : -(position + 1);
+        }
+        int end = sortedItems.size();
+        if (limit > 0) {
+            end = Math.min(start + limit, end);
+        }
+
+        List<T> page = sortedItems.subList(start, end);
+        String nextCursor = null;
+        if (end < sortedItems.size()) {
+            nextCursor = keyFunction.apply(sortedItems.get(end - 1));
+        }
+        return new Page<>(page, nextCursor);
+    }
+
+    public HttpUriBuilder addTo(HttpUriBuilder uriBuilder)
+    {
+        if (after != null) {
+            uriBuilder.addParameter("after", after);
+        }
+        if (limit > 0) {
+            uriBuilder.addParameter("limit", String.valueOf(limit));
+        }
+        if (!fields.isEmpty()) {
+            uriBuilder.addParameter("fields", Joiner.on(',').join(fields));
+        }
+        return uriBuilder;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("after", after)
+                .add("limit", limit)
+                .add("fields", fields)
+                .toString();
+    }
+
+    // the order of slot pages, which fleet snapshots index slots in
+    static final Function<SlotStatus, String> SLOT_KEY = new Function<SlotStatus, String>()
+    {
+        @Override
+        public String apply(SlotStatus slotStatus)
+        {
+            return slotStatus.getId().toString();
+        }
+    };
+
+    private static final Function<AgentStatus, String> AGENT_KEY = new Function<AgentStatus, String>()
+    {
+        @Override
+        public String apply(AgentStatus agentStatus)
+        {
+            return agentStatus.getInstanceId();
+        }
+    };
+
+    public static class Page<T>
+    {
+        private final List<T> items;
+        private final String nextCursor;
+
+        public Page(List<T> items, @Nullable String nextCursor)
+        {
+            this.items = ImmutableList.copyOf(items);
+            this.nextCursor = nextCursor;
+        }
+
+        public List<T> getItems()
+        {
+            return items;
+        }
+
+        /**
+         * Returns the cursor for the next page, or null if this is the last page.
+         */
+        @Nullable
+        public String getNextCursor()
+        {
+            return nextCursor;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.airlift.airship.coordinator;
+
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class NotModifiedResponseHandler<T, E extends Exception>
+        implements ResponseHandler<T, E>
+{
+    private static final int NOT_MODIFIED = 304;
+
+    private final ResponseHandler<T, E> handler;
+
+    public static <T, E extends Exception> NotModifiedResponseHandler<T, E> allowNotModified(ResponseHandler<T, E> handler)
+    {
+        return new NotModifiedResponseHandler<>(handler);
+    }
+
+    private NotModifiedResponseHandler(ResponseHandler<T, E> handler)
+    {
+        this.handler = checkNotNull(handler, "handler is null");
+    }
+
+    @Override
+    public T handleException(Request request, Exception exception)
+            throws E
+    {
+        return handler.handleException(request, exception);
+    }
+
+    @Override
+    public T handle(Request request, Response response)
+            throws E
+    {
+        if (response.getStatusCode() == NOT_MODIFIED) {
+            return null;
+        }
+        return handler.handle(request, response);
+    }
+}
@@ -2,12 +2,14 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.discovery.client.ServiceDescriptor;
 
 import java.net.URI;
 import java.util.List;
+import java.util.UUID;
 
 public interface RemoteAgent
 {
@@ -15,11 +17,38 @@ public interface RemoteAgent
 
     void setInternalUri(URI uri);
 
-    SlotStatus install(Installation installation);
+    ListenableFuture<SlotStatus> install(Installation installation);
+
+    /**
+     * Executes the commands on the agent and returns the resulting status of
+     * each slot in the order of the commands.
+     */
+    ListenableFuture<List<SlotStatus>> execute(List<SlotCommand> commands);
 
     List<? extends RemoteSlot> getSlots();
 
+    RemoteSlot getSlot(UUID slotId);
+
     ListenableFuture<?> updateStatus();
 
-    void setServiceInventory(List<ServiceDescriptor> serviceInventory);
+    /**
+     * Applies a status pushed by the agent.  The service inventory version is
+     * the version the agent currently has, or null if it has none, so a
+     * restarted agent is sent the inventory again.
+     */
+    void heartbeat(AgentStatusRepresentation agentStatus, String serviceInventoryVersion);
+
+    /**
+     * Applies a status of the agent fetched from another coordinator.  Unlike
+     * a heartbeat, this does not defer polling of the agent.
+     */
+    void applyStatus(AgentStatusRepresentation agentStatus);
+
+    /**
+     * Marks the agent and its slots as unreachable because the status of the
+     * agent is no longer being received from anywhere.
+     */
+    void markOffline();
+
+    void setServiceInventory(String serviceInventoryVersion, List<ServiceDescriptor> serviceInventory);
 }
@@ -1,9 +1,14 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorStatus;
 
+import javax.annotation.Nullable;
+
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 public interface RemoteCoordinator
 {
@@ -12,4 +17,18 @@ public interface RemoteCoordinator
     void setInternalUri(URI internalUri);
 
     ListenableFuture<?> updateStatus();
+
+    /**
+     * Fetches the status of the agents polled by this coordinator.  The
+     * future fails if the coordinator does not shard agent polling.
+     */
+    ListenableFuture<List<AgentStatusRepresentation>> getAgentShard();
+
+    /**
+     * Fetches the state replicated to read replicas.  Only agents whose
+     * version differs from the specified agent versions, keyed by instance
+     * id, and expected states changed since the specified expected state
+     * generation are returned.
+     */
+    ListenableFuture<ReplicationRepresentation> replicate(Map<String, String> agentVersions, @Nullable String expectedStateEpoch, long expectedStateGeneration);
 }
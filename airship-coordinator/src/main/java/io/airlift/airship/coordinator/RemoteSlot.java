@@ -1,5 +1,6 @@
 package io.airlift.airship.coordinator;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.SlotStatus;
 
@@ -9,17 +10,17 @@ public interface RemoteSlot
 {
     UUID getId();
 
-    SlotStatus terminate();
+    ListenableFuture<SlotStatus> terminate();
 
-    SlotStatus assign(Installation installation);
+    ListenableFuture<SlotStatus> assign(Installation installation);
 
     SlotStatus status();
 
-    SlotStatus start();
+    ListenableFuture<SlotStatus> start();
 
-    SlotStatus restart();
+    ListenableFuture<SlotStatus> restart();
 
-    SlotStatus stop();
+    ListenableFuture<SlotStatus> stop();
 
-    SlotStatus kill();
+    ListenableFuture<SlotStatus> kill();
 }
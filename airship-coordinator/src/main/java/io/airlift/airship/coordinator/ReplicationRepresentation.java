@@ -0,0 +1,120 @@
+package io.airlift.airship.coordinator;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * State published by a coordinator to its read replicas: the agents whose
+ * status changed since the versions known to the replica, and the expected
+ * slot states that changed since the expected state generation known to the
+ * replica.  A replica that knows no versions receives a full snapshot.
+ */
+@Immutable
+public class ReplicationRepresentation
+{
+    private final List<AgentStatusRepresentation> agents;
+    private final List<ExpectedSlotStatus> expectedStates;
+    private final List<UUID> deletedExpectedStates;
+    private final boolean expectedStatesFull;
+    private final String expectedStateEpoch;
+    private final long expectedStateGeneration;
+
+    public static ReplicationRepresentation from(Iterable<AgentStatus> agents, ExpectedStateHistory.Changes expectedStateChanges)
+    {
+        ImmutableList.Builder<AgentStatusRepresentation> representations = ImmutableList.builder();
+        for (AgentStatus agent : agents) {
+            representations.add(AgentStatusRepresentation.from(agent));
+        }
+        return new ReplicationRepresentation(representations.build(),
+                expectedStateChanges.getChanged(),
+                expectedStateChanges.getDeleted(),
+                expectedStateChanges.isFull(),
+                expectedStateChanges.getEpoch(),
+                expectedStateChanges.getGeneration());
+    }
+
+    @JsonCreator
+    public ReplicationRepresentation(
+            @JsonProperty("agents") List<AgentStatusRepresentation> agents,
+            @JsonProperty("expectedStates") List<ExpectedSlotStatus> expectedStates,
+            @JsonProperty("deletedExpectedStates") List<UUID> deletedExpectedStates,
+            @JsonProperty("expectedStatesFull") boolean expectedStatesFull,
+            @JsonProperty("expectedStateEpoch") String expectedStateEpoch,
+            @JsonProperty("expectedStateGeneration") long expectedStateGeneration)
+    {
+        Preconditions.checkNotNull(agents, "agents is null");
+        Preconditions.checkNotNull(expectedStates, "expectedStates is null");
+        Preconditions.checkNotNull(deletedExpectedStates, "deletedExpectedStates is null");
+        Preconditions.checkNotNull(expectedStateEpoch, "expectedStateEpoch is null");
+
+        this.agents = ImmutableList.copyOf(agents);
+        this.expectedStates = ImmutableList.copyOf(expectedStates);
+        this.deletedExpectedStates = ImmutableList.copyOf(deletedExpectedStates);
+        this.expectedStatesFull = expectedStatesFull;
+        this.expectedStateEpoch = expectedStateEpoch;
+        this.expectedStateGeneration = expectedStateGeneration;
+    }
+
+    @JsonProperty
+    public List<AgentStatusRepresentation> getAgents()
+    {
+        return agents;
+    }
+
+    /**
+     * Returns the expected states that changed, or all expected states if
+     * {@link #isExpectedStatesFull()}.
+     */
+    @JsonProperty
+    public List<ExpectedSlotStatus> getExpectedStates()
+    {
+        return expectedStates;
+    }
+
+    @JsonProperty
+    public List<UUID> getDeletedExpectedStates()
+    {
+        return deletedExpectedStates;
+    }
+
+    @JsonProperty
+    public boolean isExpectedStatesFull()
+    {
+        return expectedStatesFull;
+    }
+
+    @JsonProperty
+    public String getExpectedStateEpoch()
+    {
+        return expectedStateEpoch;
+    }
+
+    @JsonProperty
+    public long getExpectedStateGeneration()
+    {
+        return expectedStateGeneration;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("agents", agents.size())
+                .add("expectedStates", expectedStates.size())
+                .add("deletedExpectedStates", deletedExpectedStates.size())
+                .add("expectedStatesFull", expectedStatesFull)
+                .add("expectedStateGeneration", expectedStateGeneration)
+                .toString();
+    }
+}
@@ -0,0 +1,198 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rolling command running in the background on the coordinator.  Clients
+ * poll the rollout for its progress and may cancel it.  A client that stops
+ * polling, for example because the CLI was killed, cancels the rollout once
+ * the client timeout has passed, so no batch starts after the client is gone.
+ */
+public class Rollout
+{
+    public enum State
+    {
+        RUNNING, SUCCEEDED, FAILED, CANCELED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final int totalSlots;
+    private final long clientTimeoutNanos;
+
+    @GuardedBy("this")
+    private State state = State.RUNNING;
+    @GuardedBy("this")
+    private int processedSlots;
+    @GuardedBy("this")
+    private int failedSlots;
+    @GuardedBy("this")
+    private final List<SlotStatus> slots = new ArrayList<>();
+    @GuardedBy("this")
+    private Throwable failure;
+    @GuardedBy("this")
+    private String cancelReason;
+    @GuardedBy("this")
+    private long lastPolledNanos = System.nanoTime();
+
+    public Rollout(int totalSlots, Duration clientTimeout)
+    {
+        Preconditions.checkArgument(totalSlots >= 0, "totalSlots is negative");
+        Preconditions.checkNotNull(clientTimeout, "clientTimeout is null");
+
+        this.totalSlots = totalSlots;
+        this.clientTimeoutNanos = clientTimeout.roundTo(TimeUnit.NANOSECONDS);
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public int getTotalSlots()
+    {
+        return totalSlots;
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    public synchronized int getProcessedSlots()
+    {
+        return processedSlots;
+    }
+
+    public synchronized int getFailedSlots()
+    {
+        return failedSlots;
+    }
+
+    /**
+     * Returns the status of the slots in the batches that have completed.
+     */
+    public synchronized List<SlotStatus> getSlots()
+    {
+        return ImmutableList.copyOf(slots);
+    }
+
+    public synchronized String getError()
+    {
+        if (failure == null) {
+            return null;
+        }
+        return failure.getMessage();
+    }
+
+    /**
+     * Records that a client checked on the rollout.
+     */
+    public synchronized void poll()
+    {
+        lastPolledNanos = System.nanoTime();
+    }
+
+    /**
+     * Cancels the rollout.  The current batch is not interrupted, but no
+     * further batch is started.
+     *
+     * @return false if the rollout had already finished
+     */
+    public synchronized boolean cancel()
+    {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        if (cancelReason == null) {
+            cancelReason = "canceled by client";
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the rollout to finish, polling it meanwhile, and returns the
+     * status of the slots.
+     *
+     * @throws RuntimeException the failure of the rollout, or a {@link CancellationException}
+     */
+    public List<SlotStatus> waitForSlots()
+    {
+        synchronized (this) {
+            while (state == State.RUNNING) {
+                lastPolledNanos = System.nanoTime();
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.max(clientTimeoutNanos / 2, 1));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new RuntimeException("Interrupted while waiting for rollout " + id, e);
+                }
+            }
+            if (failure != null) {
+                throw Throwables.propagate(failure);
+            }
+            return ImmutableList.copyOf(slots);
+        }
+    }
+
+    /**
+     * Throws a {@link CancellationException} if the rollout was canceled or
+     * its client stopped polling.  Called by the rollout between steps.
+     */
+    synchronized void checkCanceled()
+    {
+        if (cancelReason == null && System.nanoTime() - lastPolledNanos > clientTimeoutNanos) {
+            cancelReason = String.format("canceled because no client checked on it for %s", new Duration(System.nanoTime() - lastPolledNanos, TimeUnit.NANOSECONDS).convertToMostSuccinctTimeUnit());
+        }
+        if (cancelReason != null) {
+            throw new CancellationException(String.format("Rollout %s: %s of %s slots were processed", cancelReason, processedSlots, totalSlots));
+        }
+    }
+
+    synchronized void batchCompleted(int batchSize, int batchFailures, List<SlotStatus> batchSlots)
+    {
+        processedSlots += batchSize;
+        failedSlots += batchFailures;
+        slots.addAll(batchSlots);
+    }
+
+    synchronized void finish(Throwable failure)
+    {
+        Preconditions.checkState(state == State.RUNNING, "rollout %s already finished", id);
+        if (failure == null) {
+            state = State.SUCCEEDED;
+        }
+        else if (failure instanceof CancellationException) {
+            state = State.CANCELED;
+        }
+        else {
+            state = State.FAILED;
+        }
+        this.failure = failure;
+        // the client timeout now measures how long the result is kept for the client
+        lastPolledNanos = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * A finished rollout expires once its client has had the client timeout
+     * to fetch the result.
+     */
+    synchronized boolean isExpired()
+    {
+        return state != State.RUNNING && System.nanoTime() - lastPolledNanos > clientTimeoutNanos;
+    }
+}
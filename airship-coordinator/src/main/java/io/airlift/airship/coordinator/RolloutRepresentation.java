@@ -0,0 +1,123 @@
+package io.airlift.airship.coordinator;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.airship.shared.SlotStatusRepresentation;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+
+/**
+ * Progress of a rolling command: how many of the selected slots have been
+ * processed and have failed, the status of the slots processed so far, and
+ * the error once the rollout has failed or been canceled.
+ */
+@Immutable
+public class RolloutRepresentation
+{
+    private final String id;
+    private final Rollout.State state;
+    private final int totalSlots;
+    private final int processedSlots;
+    private final int failedSlots;
+    private final List<SlotStatusRepresentation> slots;
+    private final String error;
+
+    public static RolloutRepresentation from(Rollout rollout, Function<SlotStatus, SlotStatusRepresentation> slotRepresentation)
+    {
+        // read the state first, so the slots are complete when it is finished
+        Rollout.State state = rollout.getState();
+        return new RolloutRepresentation(rollout.getId(),
+                state,
+                rollout.getTotalSlots(),
+                rollout.getProcessedSlots(),
+                rollout.getFailedSlots(),
+                ImmutableList.copyOf(Lists.transform(rollout.getSlots(), slotRepresentation)),
+                rollout.getError());
+    }
+
+    @JsonCreator
+    public RolloutRepresentation(
+            @JsonProperty("id") String id,
+            @JsonProperty("state") Rollout.State state,
+            @JsonProperty("totalSlots") int totalSlots,
+            @JsonProperty("processedSlots") int processedSlots,
+            @JsonProperty("failedSlots") int failedSlots,
+            @JsonProperty("slots") List<SlotStatusRepresentation> slots,
+            @JsonProperty("error") String error)
+    {
+        Preconditions.checkNotNull(id, "id is null");
+        Preconditions.checkNotNull(state, "state is null");
+        Preconditions.checkNotNull(slots, "slots is null");
+
+        this.id = id;
+        this.state = state;
+        this.totalSlots = totalSlots;
+        this.processedSlots = processedSlots;
+        this.failedSlots = failedSlots;
+        this.slots = ImmutableList.copyOf(slots);
+        this.error = error;
+    }
+
+    @JsonProperty
+    public String getId()
+    {
+        return id;
+    }
+
+    @JsonProperty
+    public Rollout.State getState()
+    {
+        return state;
+    }
+
+    @JsonProperty
+    public int getTotalSlots()
+    {
+        return totalSlots;
+    }
+
+    @JsonProperty
+    public int getProcessedSlots()
+    {
+        return processedSlots;
+    }
+
+    @JsonProperty
+    public int getFailedSlots()
+    {
+        return failedSlots;
+    }
+
+    @JsonProperty
+    public List<SlotStatusRepresentation> getSlots()
+    {
+        return slots;
+    }
+
+    @JsonProperty
+    public String getError()
+    {
+        return error;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("id", id)
+                .add("state", state)
+                .add("totalSlots", totalSlots)
+                .add("processedSlots", processedSlots)
+                .add("failedSlots", failedSlots)
+                .add("error", error)
+                .toString();
+    }
+}
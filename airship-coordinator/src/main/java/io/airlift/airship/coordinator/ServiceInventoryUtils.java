@@ -0,0 +1,38 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Ordering;
+import io.airlift.discovery.client.ServiceDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.airlift.airship.shared.DigestUtils.md5Hex;
+
+public class ServiceInventoryUtils
+{
+    private ServiceInventoryUtils()
+    {
+    }
+
+    public static String createServiceInventoryVersion(Iterable<ServiceDescriptor> serviceInventory)
+    {
+        Preconditions.checkNotNull(serviceInventory, "serviceInventory is null");
+
+        // canonicalize descriptor order, since the inventory is built by walking an unordered set of slots
+        List<String> descriptorVersions = new ArrayList<>();
+        for (ServiceDescriptor descriptor : serviceInventory) {
+            descriptorVersions.add(md5Hex(Joiner.on("||").useForNull("--NULL--").join(
+                    descriptor.getId(),
+                    descriptor.getNodeId(),
+                    descriptor.getType(),
+                    descriptor.getPool(),
+                    descriptor.getLocation(),
+                    descriptor.getState(),
+                    Joiner.on("--").withKeyValueSeparator("=").useForNull("--NULL--").join(ImmutableSortedMap.copyOf(descriptor.getProperties())))));
+        }
+        return md5Hex(Ordering.natural().sortedCopy(descriptorVersions).toString());
+    }
+}
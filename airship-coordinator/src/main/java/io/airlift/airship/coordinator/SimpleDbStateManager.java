@@ -3,25 +3,38 @@ package io.airlift.airship.coordinator;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.simpledb.AmazonSimpleDB;
 import com.amazonaws.services.simpledb.model.Attribute;
+import com.amazonaws.services.simpledb.model.BatchDeleteAttributesRequest;
+import com.amazonaws.services.simpledb.model.BatchPutAttributesRequest;
 import com.amazonaws.services.simpledb.model.CreateDomainRequest;
+import com.amazonaws.services.simpledb.model.DeletableItem;
 import com.amazonaws.services.simpledb.model.DeleteAttributesRequest;
 import com.amazonaws.services.simpledb.model.Item;
 import com.amazonaws.services.simpledb.model.PutAttributesRequest;
 import com.amazonaws.services.simpledb.model.ReplaceableAttribute;
+import com.amazonaws.services.simpledb.model.ReplaceableItem;
 import com.amazonaws.services.simpledb.model.SelectRequest;
 import com.amazonaws.services.simpledb.model.SelectResult;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.ExpectedSlotStatus;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.log.Logger;
 import io.airlift.node.NodeInfo;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -29,37 +42,71 @@ import static com.google.common.collect.Lists.newArrayList;
 public class SimpleDbStateManager
         implements StateManager
 {
+    // SimpleDB accepts at most 25 items per batch request
+    private static final int MAX_BATCH_SIZE = 25;
+
     private static final Logger log = Logger.get(SimpleDbStateManager.class);
     private final AmazonSimpleDB simpleDb;
     private final String domainName;
+    private final ExecutorService executor;
     private boolean domainCreated;
 
     @Inject
-    public SimpleDbStateManager(AmazonSimpleDB simpleDb, NodeInfo nodeInfo)
+    public SimpleDbStateManager(AmazonSimpleDB simpleDb, NodeInfo nodeInfo, AwsProvisionerConfig awsProvisionerConfig)
+    {
+        this(simpleDb, "airship-" + nodeInfo.getEnvironment(), awsProvisionerConfig.getSimpleDbMaxInFlightRequests());
+    }
+
+    public SimpleDbStateManager(AmazonSimpleDB simpleDb, String domainName, int maxInFlightRequests)
     {
+        Preconditions.checkNotNull(simpleDb, "simpleDb is null");
+        Preconditions.checkNotNull(domainName, "domainName is null");
+        Preconditions.checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be at least 1");
+
         this.simpleDb = simpleDb;
-        domainName = "airship-" + nodeInfo.getEnvironment();
+        this.domainName = domainName;
+        this.executor = Executors.newFixedThreadPool(maxInFlightRequests, new ThreadFactoryBuilder().setNameFormat("simpledb-state-manager-%s").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
     }
 
     @Override
     public Collection<ExpectedSlotStatus> getAllExpectedStates()
     {
+        // a partial load would make the missing slots look unexpected, so fail instead
+        checkDomainCreated();
+
         List<ExpectedSlotStatus> slots = newArrayList();
-        if (isDomainCreated()) {
-            try {
-                String query = String.format("select itemName, state, binary, config from `%s`", domainName);
-                SelectResult select = simpleDb.select(new SelectRequest(query, true));
+        try {
+            String query = String.format("select itemName, state, binary, config from `%s`", domainName);
+            String nextToken = null;
+            do {
+                final SelectRequest selectRequest = new SelectRequest(query, true).withNextToken(nextToken);
+                SelectResult select = execute(new Callable<SelectResult>()
+                {
+                    @Override
+                    public SelectResult call()
+                    {
+                        return simpleDb.select(selectRequest);
+                    }
+                });
                 for (Item item : select.getItems()) {
                     ExpectedSlotStatus expectedSlotStatus = loadSlotStatus(item);
                     if (expectedSlotStatus != null) {
                         slots.add(expectedSlotStatus);
                     }
                 }
-                expectedStateStoreUp();
-            }
-            catch (Exception e) {
-                expectedStateStoreDown(e);
-            }
+                nextToken = select.getNextToken();
+            } while (nextToken != null);
+            expectedStateStoreUp();
+        }
+        catch (Exception e) {
+            expectedStateStoreDown(e);
+            throw new RuntimeException("Error loading expected states", e);
         }
         return slots;
     }
@@ -69,20 +116,50 @@ public class SimpleDbStateManager
     {
         Preconditions.checkNotNull(slotId, "id is null");
 
-        if (isDomainCreated()) {
-            List<Attribute> attributes = newArrayList();
-            attributes.add(new Attribute("state", null));
-            attributes.add(new Attribute("binary", null));
-            attributes.add(new Attribute("config", null));
+        checkDomainCreated();
+        final DeleteAttributesRequest request = new DeleteAttributesRequest().withDomainName(domainName).withItemName(slotId.toString()).withAttributes(createDeleteAttributes());
+        try {
+            execute(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    simpleDb.deleteAttributes(request);
+                    return null;
+                }
+            });
+            expectedStateStoreUp();
+        }
+        catch (Exception e) {
+            expectedStateStoreDown(e);
+            throw new RuntimeException("Error deleting expected state", e);
+        }
+    }
 
-            try {
-                simpleDb.deleteAttributes(new DeleteAttributesRequest().withDomainName(domainName).withItemName(slotId.toString()).withAttributes(attributes));
-                expectedStateStoreUp();
-            }
-            catch (Exception e) {
-                expectedStateStoreDown(e);
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        Preconditions.checkNotNull(slotIds, "slotIds is null");
+
+        checkDomainCreated();
+        List<Callable<Void>> requests = newArrayList();
+        for (List<UUID> batch : Iterables.partition(slotIds, MAX_BATCH_SIZE)) {
+            List<DeletableItem> items = newArrayList();
+            for (UUID slotId : batch) {
+                items.add(new DeletableItem().withName(slotId.toString()).withAttributes(createDeleteAttributes()));
             }
+            final BatchDeleteAttributesRequest request = new BatchDeleteAttributesRequest(domainName, items);
+            requests.add(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    simpleDb.batchDeleteAttributes(request);
+                    return null;
+                }
+            });
         }
+        executeAll(requests);
     }
 
     @Override
@@ -90,21 +167,110 @@ public class SimpleDbStateManager
     {
         Preconditions.checkNotNull(slotStatus, "slotStatus is null");
 
-        if (isDomainCreated()) {
-            List<ReplaceableAttribute> attributes = newArrayList();
-            attributes.add(new ReplaceableAttribute("state", slotStatus.getStatus().toString(), true));
-            if (slotStatus.getAssignment() != null) {
-                attributes.add(new ReplaceableAttribute("binary", slotStatus.getAssignment().getBinary(), true));
-                attributes.add(new ReplaceableAttribute("config", slotStatus.getAssignment().getConfig(), true));
-            }
+        checkDomainCreated();
+        final PutAttributesRequest request = new PutAttributesRequest().withDomainName(domainName).withItemName(slotStatus.getId().toString()).withAttributes(createPutAttributes(slotStatus));
+        try {
+            execute(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    simpleDb.putAttributes(request);
+                    return null;
+                }
+            });
+            expectedStateStoreUp();
+        }
+        catch (Exception e) {
+            expectedStateStoreDown(e);
+            throw new RuntimeException("Error writing expected state", e);
+        }
+    }
 
-            try {
-                simpleDb.putAttributes(new PutAttributesRequest().withDomainName(domainName).withItemName(slotStatus.getId().toString()).withAttributes(attributes));
-                expectedStateStoreUp();
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        Preconditions.checkNotNull(slotStatuses, "slotStatuses is null");
+
+        checkDomainCreated();
+        List<Callable<Void>> requests = newArrayList();
+        for (List<ExpectedSlotStatus> batch : Iterables.partition(slotStatuses, MAX_BATCH_SIZE)) {
+            List<ReplaceableItem> items = newArrayList();
+            for (ExpectedSlotStatus slotStatus : batch) {
+                items.add(new ReplaceableItem(slotStatus.getId().toString(), createPutAttributes(slotStatus)));
             }
-            catch (Exception e) {
-                expectedStateStoreDown(e);
+            final BatchPutAttributesRequest request = new BatchPutAttributesRequest(domainName, items);
+            requests.add(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    simpleDb.batchPutAttributes(request);
+                    return null;
+                }
+            });
+        }
+        executeAll(requests);
+    }
+
+    private static List<ReplaceableAttribute> createPutAttributes(ExpectedSlotStatus slotStatus)
+    {
+        List<ReplaceableAttribute> attributes = newArrayList();
+        attributes.add(new ReplaceableAttribute("state", slotStatus.getStatus().toString(), true));
+        if (slotStatus.getAssignment() != null) {
+            attributes.add(new ReplaceableAttribute("binary", slotStatus.getAssignment().getBinary(), true));
+            attributes.add(new ReplaceableAttribute("config", slotStatus.getAssignment().getConfig(), true));
+        }
+        return attributes;
+    }
+
+    private static List<Attribute> createDeleteAttributes()
+    {
+        List<Attribute> attributes = newArrayList();
+        attributes.add(new Attribute("state", null));
+        attributes.add(new Attribute("binary", null));
+        attributes.add(new Attribute("config", null));
+        return attributes;
+    }
+
+    /**
+     * Runs a request on the request executor, which bounds the number of requests in flight.
+     */
+    private <T> T execute(Callable<T> request)
+            throws Exception
+    {
+        try {
+            return executor.submit(request).get();
+        }
+        catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private void executeAll(List<Callable<Void>> requests)
+    {
+        try {
+            for (Future<Void> future : executor.invokeAll(requests)) {
+                future.get();
             }
+            expectedStateStoreUp();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            expectedStateStoreDown(e);
+            throw new RuntimeException("Interrupted writing expected states", e);
+        }
+        catch (ExecutionException e) {
+            expectedStateStoreDown(e);
+            throw new RuntimeException("Error writing expected states", e.getCause());
+        }
+    }
+
+    private void checkDomainCreated()
+    {
+        if (!isDomainCreated()) {
+            throw new RuntimeException("Expected state store is down");
         }
     }
 
@@ -0,0 +1,140 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.Installation;
+import io.airlift.airship.shared.InstallationRepresentation;
+import io.airlift.airship.shared.SlotCommandRepresentation;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.airship.shared.SlotStatus;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static io.airlift.airship.shared.SlotLifecycleState.KILLING;
+import static io.airlift.airship.shared.SlotLifecycleState.RESTARTING;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+
+/**
+ * A lifecycle or assignment command for a single slot.  Commands for the
+ * slots of one agent are sent to the agent together.
+ */
+public class SlotCommand
+{
+    private final UUID slotId;
+    private final SlotLifecycleState state;
+    private final Installation installation;
+
+    public static SlotCommand setState(UUID slotId, SlotLifecycleState state)
+    {
+        Preconditions.checkArgument(EnumSet.of(RUNNING, RESTARTING, STOPPED, KILLING).contains(state), "Unsupported lifecycle state: " + state);
+        return new SlotCommand(slotId, state, null);
+    }
+
+    public static SlotCommand assign(UUID slotId, Installation installation)
+    {
+        Preconditions.checkNotNull(installation, "installation is null");
+        return new SlotCommand(slotId, null, installation);
+    }
+
+    private SlotCommand(UUID slotId, SlotLifecycleState state, Installation installation)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+
+        this.slotId = slotId;
+        this.state = state;
+        this.installation = installation;
+    }
+
+    public UUID getSlotId()
+    {
+        return slotId;
+    }
+
+    public SlotLifecycleState getState()
+    {
+        return state;
+    }
+
+    public Installation getInstallation()
+    {
+        return installation;
+    }
+
+    public SlotCommandRepresentation toSlotCommandRepresentation(String slotVersion)
+    {
+        if (installation != null) {
+            return SlotCommandRepresentation.assign(slotId, slotVersion, InstallationRepresentation.from(installation));
+        }
+        return SlotCommandRepresentation.setState(slotId, slotVersion, state.name().toLowerCase());
+    }
+
+    /**
+     * Sends this command to the slot on its own.
+     */
+    public ListenableFuture<SlotStatus> execute(RemoteSlot slot)
+    {
+        Preconditions.checkArgument(slot.getId().equals(slotId), "Command for slot %s can not be sent to slot %s", slotId, slot.getId());
+
+        if (installation != null) {
+            return slot.assign(installation);
+        }
+        switch (state) {
+            case RUNNING:
+                return slot.start();
+            case RESTARTING:
+                return slot.restart();
+            case STOPPED:
+                return slot.stop();
+            case KILLING:
+                return slot.kill();
+            default:
+                throw new IllegalArgumentException("Unexpected state transition " + state);
+        }
+    }
+
+    /**
+     * Sends the commands to the agent's slots one at a time, for agents that
+     * can not execute a batch of commands.
+     */
+    public static ListenableFuture<List<SlotStatus>> executeSerially(final RemoteAgent agent, List<SlotCommand> commands)
+    {
+        List<ListenableFuture<SlotStatus>> futures = newArrayList();
+        ListenableFuture<SlotStatus> previous = Futures.immediateFuture(null);
+        for (final SlotCommand command : commands) {
+            ListenableFuture<SlotStatus> future = Futures.transform(previous, new AsyncFunction<SlotStatus, SlotStatus>()
+            {
+                @Override
+                public ListenableFuture<SlotStatus> apply(SlotStatus ignored)
+                {
+                    RemoteSlot slot = agent.getSlot(command.getSlotId());
+                    if (slot == null) {
+                        return Futures.immediateFailedFuture(new IllegalStateException("Unknown slot " + command.getSlotId()));
+                    }
+                    return command.execute(slot);
+                }
+            });
+            futures.add(future);
+            previous = future;
+        }
+        return Futures.allAsList(futures);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SlotCommand");
+        sb.append("{slotId=").append(slotId);
+        sb.append(", state=").append(state);
+        sb.append(", installation=").append(installation);
+        sb.append('}');
+        return sb.toString();
+    }
+}
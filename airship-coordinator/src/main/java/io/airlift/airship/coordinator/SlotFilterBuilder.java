@@ -1,11 +1,11 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
 import io.airlift.airship.shared.HttpUriBuilder;
 import io.airlift.airship.shared.SlotLifecycleState;
@@ -15,14 +15,11 @@ import javax.annotation.Nullable;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.UUID;
 
-import static com.google.common.base.Functions.compose;
-import static io.airlift.airship.coordinator.StringFunctions.startsWith;
-import static io.airlift.airship.coordinator.StringFunctions.toLowerCase;
 import static java.lang.String.format;
 
 public class SlotFilterBuilder
@@ -33,6 +30,16 @@ public class SlotFilterBuilder
     }
 
     public static Predicate<SlotStatus> build(UriInfo uriInfo, boolean filterRequired, List<UUID> allUuids)
+    {
+        return build(uriInfo, filterRequired, toIdTrie(allUuids));
+    }
+
+    public static Predicate<SlotStatus> build(UriInfo uriInfo, boolean filterRequired, IdTrie allUuids)
+    {
+        return fromUriInfo(uriInfo).buildPredicate(filterRequired, allUuids);
+    }
+
+    public static SlotFilterBuilder fromUriInfo(UriInfo uriInfo)
     {
         SlotFilterBuilder builder = new SlotFilterBuilder();
         for (Entry<String, List<String>> entry : uriInfo.getQueryParameters().entrySet()) {
@@ -100,7 +107,7 @@ public class SlotFilterBuilder
                 builder.selectAll();
             }
         }
-        return builder.buildPredicate(filterRequired, allUuids);
+        return builder;
     }
 
     private final List<SlotLifecycleState> stateFilters = Lists.newArrayListWithCapacity(6);
@@ -213,7 +220,12 @@ public class SlotFilterBuilder
         return this;
     }
 
-    public Predicate<SlotStatus> buildPredicate(boolean filterRequired, final List<UUID> allUuids)
+    public Predicate<SlotStatus> buildPredicate(boolean filterRequired, List<UUID> allUuids)
+    {
+        return buildPredicate(filterRequired, toIdTrie(allUuids));
+    }
+
+    public Predicate<SlotStatus> buildPredicate(boolean filterRequired, IdTrie allUuids)
     {
         Optional<Predicate<SlotStatus>> includesPredicate = buildIncludesPredicate(allUuids);
         Optional<Predicate<SlotStatus>> excludesPredicate = buildExcludesPredicate(allUuids);
@@ -233,7 +245,115 @@ public class SlotFilterBuilder
         return include;
     }
 
-    private Optional<Predicate<SlotStatus>> buildIncludesPredicate(final List<UUID> allUuids)
+    /**
+     * Selects the slots of the snapshot that match this filter, in snapshot
+     * order.  This returns the same slots as filtering the snapshot with
+     * {@link #buildPredicate(boolean, IdTrie)}, but each term is answered from
+     * the snapshot's {@link SlotFilterIndex}, so ids and states are looked up
+     * directly and globs are tested once per distinct value.
+     */
+    public List<SlotStatus> selectSlots(FleetSnapshot snapshot, boolean filterRequired)
+    {
+        Preconditions.checkNotNull(snapshot, "snapshot is null");
+
+        // validate the filter exactly as the predicate does
+        IdTrie allUuids = snapshot.getSlotIdTrie();
+        buildPredicate(filterRequired, allUuids);
+
+        SlotFilterIndex index = snapshot.getSlotFilterIndex();
+
+        // includes: (uuid || uuid) && (state || state) && etc.
+        BitSet selected = index.getAll();
+        if (!selectAll) {
+            if (!slotUuidFilters.isEmpty()) {
+                selected.and(index.getByIds(resolveSlotUuids(slotUuidFilters, allUuids)));
+            }
+            if (!stateFilters.isEmpty()) {
+                selected.and(index.getByStates(stateFilters));
+            }
+            if (!hostGlobs.isEmpty()) {
+                selected.and(index.getByHost(hostMatcher(hostGlobs)));
+            }
+            if (!machineGlobs.isEmpty()) {
+                selected.and(index.getByMachine(globMatcher(machineGlobs, "", "")));
+            }
+            if (!binaryGlobs.isEmpty()) {
+                selected.and(index.getByBinary(globMatcher(binaryGlobs, "*", "*")));
+            }
+            if (!configGlobs.isEmpty()) {
+                selected.and(index.getByConfig(globMatcher(configGlobs, "*", "*")));
+            }
+        }
+
+        // excludes: !uuid || !state || etc.
+        if (!notSlotUuidFilters.isEmpty()) {
+            selected.andNot(index.getByIds(resolveSlotUuids(notSlotUuidFilters, allUuids)));
+        }
+        if (!notStateFilters.isEmpty()) {
+            selected.andNot(index.getByStates(notStateFilters));
+        }
+        if (!notHostGlobs.isEmpty()) {
+            selected.andNot(index.getByHost(hostMatcher(notHostGlobs)));
+        }
+        if (!notMachineGlobs.isEmpty()) {
+            selected.andNot(index.getByMachine(globMatcher(notMachineGlobs, "", "")));
+        }
+        if (!notBinaryGlobs.isEmpty()) {
+            selected.andNot(index.getByBinary(globMatcher(notBinaryGlobs, "*", "*")));
+        }
+        if (!notConfigGlobs.isEmpty()) {
+            selected.andNot(index.getByConfig(globMatcher(notConfigGlobs, "*", "*")));
+        }
+
+        return index.getSlots(selected);
+    }
+
+    private static List<UUID> resolveSlotUuids(List<String> shortIds, IdTrie allUuids)
+    {
+        List<UUID> uuids = Lists.newArrayListWithCapacity(shortIds.size());
+        for (String shortId : shortIds) {
+            // ambiguous ids were already rejected by the predicate
+            List<String> matches = allUuids.getMatches(shortId);
+            if (matches.size() == 1) {
+                uuids.add(UUID.fromString(matches.get(0)));
+            }
+        }
+        return uuids;
+    }
+
+    private static Predicate<String> hostMatcher(List<String> hostGlobs)
+    {
+        return Predicates.or(Lists.transform(hostGlobs, new Function<String, Predicate<String>>()
+        {
+            @Override
+            public Predicate<String> apply(String hostGlob)
+            {
+                final UriHostPredicate predicate = new UriHostPredicate(hostGlob.toLowerCase());
+                return new Predicate<String>()
+                {
+                    @Override
+                    public boolean apply(String host)
+                    {
+                        return predicate.matchesHost(host);
+                    }
+                };
+            }
+        }));
+    }
+
+    private static Predicate<CharSequence> globMatcher(List<String> globs, final String prefix, final String suffix)
+    {
+        return Predicates.or(Lists.transform(globs, new Function<String, Predicate<CharSequence>>()
+        {
+            @Override
+            public Predicate<CharSequence> apply(String glob)
+            {
+                return new GlobPredicate(prefix + glob + suffix);
+            }
+        }));
+    }
+
+    private Optional<Predicate<SlotStatus>> buildIncludesPredicate(final IdTrie allUuids)
     {
         // Filters are evaluated as: (uuid || uuid || uuid) && (state || state || state) && etc.
         List<Predicate<SlotStatus>> andPredicates = Lists.newArrayListWithCapacity(6);
@@ -318,7 +438,7 @@ public class SlotFilterBuilder
         return Optional.absent();
     }
 
-    private Optional<Predicate<SlotStatus>> buildExcludesPredicate(final List<UUID> allUuids)
+    private Optional<Predicate<SlotStatus>> buildExcludesPredicate(final IdTrie allUuids)
     {
         // If the slot matches any of the excludes it will not be considered
         // Filters are evaluated as: !uuid || !uuid || !uuid || !state || !state || !state
@@ -428,6 +548,11 @@ public class SlotFilterBuilder
         return uriBuilder.build();
     }
 
+    static IdTrie toIdTrie(List<UUID> uuids)
+    {
+        return IdTrie.copyOf(Lists.transform(uuids, Functions.toStringFunction()));
+    }
+
     public static class SlotUuidPredicate
             implements Predicate<SlotStatus>
     {
@@ -435,8 +560,12 @@ public class SlotFilterBuilder
 
         public SlotUuidPredicate(String shortId, List<UUID> allUuids)
         {
-            Predicate<UUID> startsWithPrefix = Predicates.compose(startsWith(shortId.toLowerCase()), compose(toLowerCase(), StringFunctions.<UUID>toStringFunction()));
-            Collection<UUID> matches = Collections2.filter(allUuids, startsWithPrefix);
+            this(shortId, toIdTrie(allUuids));
+        }
+
+        public SlotUuidPredicate(String shortId, IdTrie allUuids)
+        {
+            List<String> matches = allUuids.getMatches(shortId);
 
             if (matches.size() > 1) {
                 throw new IllegalArgumentException(format("Ambiguous expansion for id '%s': %s", shortId, matches));
@@ -446,7 +575,7 @@ public class SlotFilterBuilder
                 uuid = null;
             }
             else {
-                uuid = matches.iterator().next();
+                uuid = UUID.fromString(matches.get(0));
             }
         }
 
@@ -0,0 +1,188 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.airship.shared.SlotStatus;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+/**
+ * Positions of the slots in a fleet snapshot, keyed by the values the slot
+ * filters match on.  A filter term is answered by looking up an id or state,
+ * or by testing a glob once per distinct host, machine, binary or config
+ * rather than once per slot.  Results are bit sets of slot positions, so the
+ * terms of a filter are combined with set operations and the selected slots
+ * keep the order of the indexed list, which the snapshot sorts by uuid.
+ * <p/>
+ * Every method returns a new bit set that the caller may modify.
+ */
+@Immutable
+public class SlotFilterIndex
+{
+    private final List<SlotStatus> slots;
+    private final Map<UUID, Integer> positions = newHashMap();
+    private final Map<SlotLifecycleState, Positions> byState = new EnumMap<>(SlotLifecycleState.class);
+    private final Map<String, Positions> byHost = newHashMap();
+    private final Map<String, Positions> byMachine = newHashMap();
+    private final Map<String, Positions> byBinary = newHashMap();
+    private final Map<String, Positions> byConfig = newHashMap();
+
+    public SlotFilterIndex(List<SlotStatus> slots)
+    {
+        Preconditions.checkNotNull(slots, "slots is null");
+        this.slots = ImmutableList.copyOf(slots);
+
+        for (int position = 0; position < this.slots.size(); position++) {
+            SlotStatus slot = this.slots.get(position);
+            positions.put(slot.getId(), position);
+            add(byState, slot.getState(), position);
+            String externalHost = getHost(slot.getExternalUri());
+            if (externalHost != null) {
+                add(byHost, externalHost, position);
+            }
+            String internalHost = getHost(slot.getSelf());
+            if (internalHost != null && !internalHost.equals(externalHost)) {
+                add(byHost, internalHost, position);
+            }
+            if (slot.getInstanceId() != null) {
+                add(byMachine, slot.getInstanceId(), position);
+            }
+            if (slot.getAssignment() != null) {
+                add(byBinary, slot.getAssignment().getBinary(), position);
+                add(byConfig, slot.getAssignment().getConfig(), position);
+            }
+        }
+    }
+
+    public int size()
+    {
+        return slots.size();
+    }
+
+    public BitSet getAll()
+    {
+        BitSet all = new BitSet(slots.size());
+        all.set(0, slots.size());
+        return all;
+    }
+
+    public BitSet getByIds(Iterable<UUID> slotIds)
+    {
+        BitSet result = new BitSet(slots.size());
+        for (UUID slotId : slotIds) {
+            Integer position = positions.get(slotId);
+            if (position != null) {
+                result.set(position);
+            }
+        }
+        return result;
+    }
+
+    public BitSet getByStates(Iterable<SlotLifecycleState> states)
+    {
+        BitSet result = new BitSet(slots.size());
+        for (SlotLifecycleState state : states) {
+            Positions positions = byState.get(state);
+            if (positions != null) {
+                positions.addTo(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the slots with an external or internal uri host that matches.
+     */
+    public BitSet getByHost(Predicate<String> hostPredicate)
+    {
+        return getMatching(byHost, hostPredicate);
+    }
+
+    public BitSet getByMachine(Predicate<? super String> machinePredicate)
+    {
+        return getMatching(byMachine, machinePredicate);
+    }
+
+    public BitSet getByBinary(Predicate<? super String> binaryPredicate)
+    {
+        return getMatching(byBinary, binaryPredicate);
+    }
+
+    public BitSet getByConfig(Predicate<? super String> configPredicate)
+    {
+        return getMatching(byConfig, configPredicate);
+    }
+
+    public List<SlotStatus> getSlots(BitSet selected)
+    {
+        ImmutableList.Builder<SlotStatus> builder = ImmutableList.builder();
+        for (int position = selected.nextSetBit(0); position >= 0 && position < slots.size(); position = selected.nextSetBit(position + 1)) {
+            builder.add(slots.get(position));
+        }
+        return builder.build();
+    }
+
+    private BitSet getMatching(Map<String, Positions> index, Predicate<? super String> predicate)
+    {
+        BitSet result = new BitSet(slots.size());
+        for (Entry<String, Positions> entry : index.entrySet()) {
+            if (predicate.apply(entry.getKey())) {
+                entry.getValue().addTo(result);
+            }
+        }
+        return result;
+    }
+
+    private static String getHost(URI uri)
+    {
+        return uri != null ? uri.getHost() : null;
+    }
+
+    private static <K> void add(Map<K, Positions> index, K key, int position)
+    {
+        Positions positions = index.get(key);
+        if (positions == null) {
+            positions = new Positions();
+            index.put(key, positions);
+        }
+        positions.add(position);
+    }
+
+    /**
+     * Growable list of slot positions.  Most values are held by a few slots,
+     * so a list is much smaller than a bit set spanning the whole snapshot.
+     */
+    private static class Positions
+    {
+        private int[] positions = new int[4];
+        private int size;
+
+        private void add(int position)
+        {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        private void addTo(BitSet bitSet)
+        {
+            for (int i = 0; i < size; i++) {
+                bitSet.set(positions[i]);
+            }
+        }
+    }
+}
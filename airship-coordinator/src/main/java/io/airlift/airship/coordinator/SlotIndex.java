@@ -0,0 +1,184 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.CombinedVersion;
+import io.airlift.airship.shared.SlotStatus;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+/**
+ * Index of the slots on all agents known to the coordinator.  The index is
+ * refreshed from the agents before each read, but only agents whose status
+ * has changed since the last refresh are reindexed.  The combined slot and
+ * agent versions are kept up to date the same way.
+ * <p/>
+ * This index only keys slots by id and agent.  Filtered lookups by state,
+ * binary or host are answered from the {@link SlotFilterIndex} of the
+ * {@link FleetSnapshot} built from this index, not here.
+ */
+public class SlotIndex
+{
+    @GuardedBy("this")
+    private final Map<String, AgentStatus> agentStatuses = newHashMap();
+
+    @GuardedBy("this")
+    private final Map<UUID, SlotStatus> slots = newHashMap();
+
+    @GuardedBy("this")
+    private final Map<UUID, String> slotAgents = newHashMap();
+
+    @GuardedBy("this")
+    private ImmutableList<SlotStatus> allSlots = ImmutableList.of();
+
+    @GuardedBy("this")
+    private ImmutableList<AgentStatus> allAgents = ImmutableList.of();
+
+    @GuardedBy("this")
+    private CombinedVersion slotsVersion = CombinedVersion.EMPTY;
+
+    @GuardedBy("this")
+    private CombinedVersion agentsVersion = CombinedVersion.EMPTY;
+
+    @GuardedBy("this")
+    private long generation;
+
+    /**
+     * Brings the index up to date with the specified agents, keyed by the
+     * coordinator's agent key (the instance id).
+     */
+    public synchronized void update(Map<String, RemoteAgent> agents)
+    {
+        Preconditions.checkNotNull(agents, "agents is null");
+
+        boolean changed = false;
+        for (Entry<String, RemoteAgent> entry : agents.entrySet()) {
+            String agentKey = entry.getKey();
+            AgentStatus agentStatus = entry.getValue().status();
+
+            // agent status is immutable, so an unchanged reference means unchanged slots
+            if (agentStatuses.get(agentKey) != agentStatus) {
+                removeAgent(agentKey);
+                addAgent(agentKey, agentStatus);
+                changed = true;
+            }
+        }
+
+        for (Iterator<Entry<String, AgentStatus>> iterator = agentStatuses.entrySet().iterator(); iterator.hasNext(); ) {
+            Entry<String, AgentStatus> entry = iterator.next();
+            if (!agents.containsKey(entry.getKey())) {
+                removeSlots(entry.getKey());
+                agentsVersion = agentsVersion.remove(entry.getValue().getVersion());
+                iterator.remove();
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            allSlots = ImmutableList.copyOf(slots.values());
+            allAgents = ImmutableList.copyOf(agentStatuses.values());
+            generation++;
+        }
+    }
+
+    /**
+     * Returns a counter that is incremented each time an update changes the index.
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns the combined version of all indexed slots, maintained as agents
+     * are reindexed.  The string form equals
+     * {@link io.airlift.airship.shared.VersionsUtil#createSlotsVersion(Iterable)}
+     * of {@link #getAllSlots()}.
+     */
+    public synchronized CombinedVersion getSlotsVersion()
+    {
+        return slotsVersion;
+    }
+
+    /**
+     * Returns the combined version of all indexed agents.  The string form equals
+     * {@link io.airlift.airship.shared.VersionsUtil#createAgentsVersion(Iterable)}
+     * of {@link #getAllAgents()}.
+     */
+    public synchronized CombinedVersion getAgentsVersion()
+    {
+        return agentsVersion;
+    }
+
+    public synchronized ImmutableList<AgentStatus> getAllAgents()
+    {
+        return allAgents;
+    }
+
+    public synchronized ImmutableList<SlotStatus> getAllSlots()
+    {
+        return allSlots;
+    }
+
+    public synchronized SlotStatus getSlot(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+        return slots.get(slotId);
+    }
+
+    /**
+     * Returns the key of the agent that owns the specified slot, or null if the slot is unknown.
+     */
+    public synchronized String getAgentKey(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+        return slotAgents.get(slotId);
+    }
+
+    @GuardedBy("this")
+    private void addAgent(String agentKey, AgentStatus agentStatus)
+    {
+        agentStatuses.put(agentKey, agentStatus);
+        agentsVersion = agentsVersion.add(agentStatus.getVersion());
+        for (SlotStatus slotStatus : agentStatus.getSlotStatuses()) {
+            UUID slotId = slotStatus.getId();
+            slots.put(slotId, slotStatus);
+            slotsVersion = slotsVersion.add(slotStatus.getVersion());
+            slotAgents.put(slotId, agentKey);
+        }
+    }
+
+    @GuardedBy("this")
+    private void removeAgent(String agentKey)
+    {
+        removeSlots(agentKey);
+        AgentStatus agentStatus = agentStatuses.remove(agentKey);
+        if (agentStatus != null) {
+            agentsVersion = agentsVersion.remove(agentStatus.getVersion());
+        }
+    }
+
+    @GuardedBy("this")
+    private void removeSlots(String agentKey)
+    {
+        // the indexed agent status is the one the slots were added from
+        AgentStatus agentStatus = agentStatuses.get(agentKey);
+        if (agentStatus == null) {
+            return;
+        }
+        for (SlotStatus slotStatus : agentStatus.getSlotStatuses()) {
+            UUID slotId = slotStatus.getId();
+            slots.remove(slotId);
+            slotsVersion = slotsVersion.remove(slotStatus.getVersion());
+            slotAgents.remove(slotId);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import com.google.common.primitives.Ints;
+import io.airlift.airship.shared.SmileCodec;
+import io.airlift.http.client.JsonResponseHandler;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.http.client.UnexpectedResponseException;
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
+import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * Decodes a Smile response when the server chose Smile, and otherwise falls
+ * back to the airlift JSON handler, so the same request works against servers
+ * that only produce JSON.  Requests should send {@link #ACCEPT_SMILE_OR_JSON}.
+ */
+public class SmileResponseHandler<T>
+        implements ResponseHandler<T, RuntimeException>
+{
+    public static final String ACCEPT_SMILE_OR_JSON = APPLICATION_SMILE + ", " + APPLICATION_JSON + ";q=0.5";
+
+    private static final MediaType MEDIA_TYPE_SMILE = MediaType.parse(APPLICATION_SMILE);
+
+    private final SmileCodec<T> smileCodec;
+    private final JsonResponseHandler<T> jsonResponseHandler;
+    private final Set<Integer> successfulResponseCodes;
+
+    public static <T> SmileResponseHandler<T> createSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        return new SmileResponseHandler<>(smileCodec, createJsonResponseHandler(jsonCodec), ContiguousSet.create(Range.closedOpen(200, 300), DiscreteDomain.integers()));
+    }
+
+    public static <T> SmileResponseHandler<T> createSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec, int firstSuccessfulResponseCode, int... otherSuccessfulResponseCodes)
+    {
+        return new SmileResponseHandler<>(smileCodec,
+                createJsonResponseHandler(jsonCodec, firstSuccessfulResponseCode, otherSuccessfulResponseCodes),
+                ImmutableSet.<Integer>builder().add(firstSuccessfulResponseCode).addAll(Ints.asList(otherSuccessfulResponseCodes)).build());
+    }
+
+    private SmileResponseHandler(SmileCodec<T> smileCodec, JsonResponseHandler<T> jsonResponseHandler, Set<Integer> successfulResponseCodes)
+    {
+        this.smileCodec = checkNotNull(smileCodec, "smileCodec is null");
+        this.jsonResponseHandler = checkNotNull(jsonResponseHandler, "jsonResponseHandler is null");
+        this.successfulResponseCodes = checkNotNull(successfulResponseCodes, "successfulResponseCodes is null");
+    }
+
+    @Override
+    public T handleException(Request request, Exception exception)
+    {
+        return jsonResponseHandler.handleException(request, exception);
+    }
+
+    @Override
+    public T handle(Request request, Response response)
+    {
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !MediaType.parse(contentType).is(MEDIA_TYPE_SMILE)) {
+            return jsonResponseHandler.handle(request, response);
+        }
+
+        if (!successfulResponseCodes.contains(response.getStatusCode())) {
+            throw new UnexpectedResponseException(
+                    String.format("Expected response code to be %s, but was %d: %s", successfulResponseCodes, response.getStatusCode(), response.getStatusMessage()),
+                    request,
+                    response);
+        }
+
+        byte[] smile;
+        try {
+            smile = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+        return smileCodec.fromSmile(smile);
+    }
+}
@@ -11,5 +11,9 @@ public interface StateManager
 
     void deleteExpectedState(UUID slotId);
 
+    void deleteExpectedStates(Iterable<UUID> slotIds);
+
     void setExpectedState(ExpectedSlotStatus slotStatus);
+
+    void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses);
 }
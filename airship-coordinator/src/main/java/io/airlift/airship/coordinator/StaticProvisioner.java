@@ -14,6 +14,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorStatusRepresentation;
+import io.airlift.airship.shared.SmileCodec;
 import io.airlift.http.client.AsyncHttpClient;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.Request.Builder;
@@ -40,8 +41,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static com.google.common.base.Objects.firstNonNull;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static io.airlift.airship.coordinator.SmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.airlift.airship.coordinator.SmileResponseHandler.createSmileResponseHandler;
 import static io.airlift.airship.coordinator.ValidatingResponseHandler.validate;
 import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.StringResponseHandler.createStringResponseHandler;
@@ -50,6 +55,7 @@ public class StaticProvisioner
         implements Provisioner
 {
     private static final Logger log = Logger.get(StaticProvisioner.class);
+    private static final SmileCodec<AgentStatusRepresentation> agentSmileCodec = smileCodec(AgentStatusRepresentation.class);
 
     private final URI coordinatorsUri;
     private final URI agentsUri;
@@ -174,10 +180,13 @@ public class StaticProvisioner
     private ListenableFuture<Instance> getAgentInstance(URI agentUri)
     {
         URI uri = uriBuilderFrom(agentUri).replacePath("/v1/agent").build();
-        Request request = prepareGet().setUri(uri).build();
+        Request request = prepareGet()
+                .setUri(uri)
+                .setHeader(ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .build();
         SettableFuture<Instance> future = SettableFuture.create();
         Futures.addCallback(
-                httpClient.executeAsync(request, validate(createJsonResponseHandler(agentCodec))),
+                httpClient.executeAsync(request, validate(createSmileResponseHandler(agentSmileCodec, agentCodec))),
                 agentStatusCallback(future, agentUri));
         return future;
     }
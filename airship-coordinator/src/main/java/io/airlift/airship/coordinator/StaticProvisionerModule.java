@@ -13,13 +13,23 @@
  */
 package io.airlift.airship.coordinator;
 
+import com.google.common.base.Throwables;
 import com.google.inject.Binder;
 import com.google.inject.Module;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import io.airlift.airship.coordinator.auth.AuthorizedKeyStore;
 import io.airlift.airship.coordinator.auth.FileAuthorizedKeyStore;
 import io.airlift.airship.coordinator.auth.FileAuthorizedKeyStoreConfig;
+import io.airlift.airship.shared.ExpectedSlotStatus;
 import io.airlift.configuration.ConfigurationModule;
+import io.airlift.json.JsonCodec;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import java.io.File;
+import java.io.IOException;
 
 public class StaticProvisionerModule
         implements Module
@@ -32,10 +42,34 @@ public class StaticProvisionerModule
         binder.bind(Provisioner.class).to(StaticProvisioner.class).in(Scopes.SINGLETON);
         ConfigurationModule.bindConfig(binder).to(StaticProvisionerConfig.class);
 
-        binder.bind(StateManager.class).to(FileStateManager.class).in(Scopes.SINGLETON);
         ConfigurationModule.bindConfig(binder).to(FileStateManagerConfig.class);
+        // not a singleton, so the journal is only opened when it is enabled
+        binder.bind(JournaledFileStateManager.class);
 
         binder.bind(AuthorizedKeyStore.class).to(FileAuthorizedKeyStore.class).in(Scopes.SINGLETON);
         ConfigurationModule.bindConfig(binder).to(FileAuthorizedKeyStoreConfig.class);
     }
+
+    @Provides
+    @Singleton
+    public StateManager provideStateManager(FileStateManagerConfig fileStateManagerConfig,
+            JsonCodec<ExpectedSlotStatus> codec,
+            CoordinatorConfig coordinatorConfig,
+            Provider<JournaledFileStateManager> journaledStateManager)
+    {
+        if (fileStateManagerConfig.isJournalEnabled()) {
+            // journaled state is already held in memory; the injector creates
+            // it, so the lifecycle manager closes the journal on shutdown
+            return journaledStateManager.get();
+        }
+
+        // changes made while the journal was enabled are only in the journal
+        try {
+            JournaledFileStateManager.revertToFiles(new File(fileStateManagerConfig.getExpectedStateDir()), codec);
+        }
+        catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        return new CachingStateManager(new FileStateManager(fileStateManagerConfig, codec), coordinatorConfig);
+    }
 }
@@ -0,0 +1,68 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import io.airlift.stats.TimeDistribution;
+import io.airlift.stats.TimeStat;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import java.util.Map;
+
+/**
+ * Operational statistics of the coordinator, the same values that are
+ * exported over JMX, for tools that can not reach the MBean server.
+ */
+@Path("/v1/stats")
+public class StatsResource
+{
+    private final Coordinator coordinator;
+
+    @Inject
+    public StatsResource(Coordinator coordinator)
+    {
+        this.coordinator = Preconditions.checkNotNull(coordinator, "coordinator is null");
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getStats()
+    {
+        CommandThrottle commandThrottle = coordinator.getCommandThrottle();
+        Map<String, Object> stats = ImmutableMap.<String, Object>builder()
+                .put("agentPolls", coordinator.getAgentPollScheduler().getStats())
+                .put("stateManager", coordinator.getStateManagerStats().getStats())
+                .put("commands", ImmutableMap.<String, Object>builder()
+                        .put("inFlight", commandThrottle.getInFlight())
+                        .put("queued", commandThrottle.getQueued())
+                        .put("maxQueued", commandThrottle.getMaxQueued())
+                        .put("queueTime", toMap(commandThrottle.getQueueTime()))
+                        .put("commandTime", toMap(commandThrottle.getCommandTime()))
+                        .putAll(coordinator.getCommandStats().getStats())
+                        .build())
+                .put("repository", coordinator.getRepositoryStats().getStats())
+                .build();
+        return Response.ok(stats).build();
+    }
+
+    /**
+     * Returns the all time distribution of a stat that records milliseconds.
+     */
+    static Map<String, Object> toMap(TimeStat stat)
+    {
+        TimeDistribution distribution = stat.getAllTime();
+        return ImmutableMap.<String, Object>builder()
+                .put("count", (long) distribution.getCount())
+                .put("averageMillis", distribution.getAvg())
+                .put("p50Millis", distribution.getP50())
+                .put("p90Millis", distribution.getP90())
+                .put("p99Millis", distribution.getP99())
+                .put("maxMillis", distribution.getMax())
+                .build();
+    }
+}
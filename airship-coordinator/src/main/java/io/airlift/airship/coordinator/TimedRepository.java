@@ -0,0 +1,196 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.Repository;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.net.URI;
+import java.util.Map;
+
+import static io.airlift.airship.coordinator.StatsResource.toMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records the latency of the repository operations that may fetch metadata
+ * from a remote repository: resolving a version, upgrading to a version and
+ * locating the artifact.  A lookup that finds nothing is counted as a failure.
+ * The other operations only rewrite names and are passed through.
+ */
+public class TimedRepository
+        implements Repository
+{
+    private final Repository delegate;
+    private final TimeStat resolve = new TimeStat(MILLISECONDS);
+    private final TimeStat upgrade = new TimeStat(MILLISECONDS);
+    private final TimeStat toHttpUri = new TimeStat(MILLISECONDS);
+    private final CounterStat failures = new CounterStat();
+
+    public TimedRepository(Repository delegate)
+    {
+        this.delegate = Preconditions.checkNotNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public String configShortName(String config)
+    {
+        return delegate.configShortName(config);
+    }
+
+    @Override
+    public String configRelativize(String config)
+    {
+        return delegate.configRelativize(config);
+    }
+
+    @Override
+    public String configResolve(String config)
+    {
+        long start = System.nanoTime();
+        String resolved = null;
+        try {
+            resolved = delegate.configResolve(config);
+            return resolved;
+        }
+        finally {
+            recordSince(resolve, start, resolved != null);
+        }
+    }
+
+    @Override
+    public String configUpgrade(String config, String version)
+    {
+        long start = System.nanoTime();
+        String upgraded = null;
+        try {
+            upgraded = delegate.configUpgrade(config, version);
+            return upgraded;
+        }
+        finally {
+            recordSince(upgrade, start, upgraded != null);
+        }
+    }
+
+    @Override
+    public boolean configEqualsIgnoreVersion(String config1, String config2)
+    {
+        return delegate.configEqualsIgnoreVersion(config1, config2);
+    }
+
+    @Override
+    public URI configToHttpUri(String config)
+    {
+        long start = System.nanoTime();
+        URI uri = null;
+        try {
+            uri = delegate.configToHttpUri(config);
+            return uri;
+        }
+        finally {
+            recordSince(toHttpUri, start, uri != null);
+        }
+    }
+
+    @Override
+    public String binaryRelativize(String config)
+    {
+        return delegate.binaryRelativize(config);
+    }
+
+    @Override
+    public String binaryResolve(String binary)
+    {
+        long start = System.nanoTime();
+        String resolved = null;
+        try {
+            resolved = delegate.binaryResolve(binary);
+            return resolved;
+        }
+        finally {
+            recordSince(resolve, start, resolved != null);
+        }
+    }
+
+    @Override
+    public String binaryUpgrade(String binary, String version)
+    {
+        long start = System.nanoTime();
+        String upgraded = null;
+        try {
+            upgraded = delegate.binaryUpgrade(binary, version);
+            return upgraded;
+        }
+        finally {
+            recordSince(upgrade, start, upgraded != null);
+        }
+    }
+
+    @Override
+    public boolean binaryEqualsIgnoreVersion(String binary1, String binary2)
+    {
+        return delegate.binaryEqualsIgnoreVersion(binary1, binary2);
+    }
+
+    @Override
+    public URI binaryToHttpUri(String binary)
+    {
+        long start = System.nanoTime();
+        URI uri = null;
+        try {
+            uri = delegate.binaryToHttpUri(binary);
+            return uri;
+        }
+        finally {
+            recordSince(toHttpUri, start, uri != null);
+        }
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getResolve()
+    {
+        return resolve;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getUpgrade()
+    {
+        return upgrade;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getToHttpUri()
+    {
+        return toHttpUri;
+    }
+
+    @Managed(description = "Lookups that found nothing")
+    @Nested
+    public CounterStat getFailures()
+    {
+        return failures;
+    }
+
+    public Map<String, Object> getStats()
+    {
+        return ImmutableMap.<String, Object>of(
+                "resolve", toMap(resolve),
+                "upgrade", toMap(upgrade),
+                "toHttpUri", toMap(toHttpUri),
+                "failures", failures.getTotalCount());
+    }
+
+    private void recordSince(TimeStat stat, long startNanos, boolean success)
+    {
+        stat.add(System.nanoTime() - startNanos, NANOSECONDS);
+        if (!success) {
+            failures.update(1);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.airlift.airship.coordinator.StatsResource.toMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records the latency of each operation of a backing state manager.  The
+ * store may be remote, as with SimpleDB, so slow or failing reads and writes
+ * show up here before they show up as stale expected states.
+ */
+public class TimedStateManager
+        implements StateManager
+{
+    private final StateManager delegate;
+    private final TimeStat getAll = new TimeStat(MILLISECONDS);
+    private final TimeStat set = new TimeStat(MILLISECONDS);
+    private final TimeStat delete = new TimeStat(MILLISECONDS);
+    private final CounterStat failures = new CounterStat();
+
+    public TimedStateManager(StateManager delegate)
+    {
+        this.delegate = Preconditions.checkNotNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public Collection<ExpectedSlotStatus> getAllExpectedStates()
+    {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Collection<ExpectedSlotStatus> expectedStates = delegate.getAllExpectedStates();
+            success = true;
+            return expectedStates;
+        }
+        finally {
+            recordSince(getAll, start, success);
+        }
+    }
+
+    @Override
+    public void deleteExpectedState(UUID slotId)
+    {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.deleteExpectedState(slotId);
+            success = true;
+        }
+        finally {
+            recordSince(delete, start, success);
+        }
+    }
+
+    @Override
+    public void deleteExpectedStates(Iterable<UUID> slotIds)
+    {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.deleteExpectedStates(slotIds);
+            success = true;
+        }
+        finally {
+            recordSince(delete, start, success);
+        }
+    }
+
+    @Override
+    public void setExpectedState(ExpectedSlotStatus slotStatus)
+    {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.setExpectedState(slotStatus);
+            success = true;
+        }
+        finally {
+            recordSince(set, start, success);
+        }
+    }
+
+    @Override
+    public void setExpectedStates(Iterable<ExpectedSlotStatus> slotStatuses)
+    {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.setExpectedStates(slotStatuses);
+            success = true;
+        }
+        finally {
+            recordSince(set, start, success);
+        }
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getGetAllExpectedStates()
+    {
+        return getAll;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getSetExpectedStates()
+    {
+        return set;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getDeleteExpectedStates()
+    {
+        return delete;
+    }
+
+    @Managed(description = "Operations that failed")
+    @Nested
+    public CounterStat getFailures()
+    {
+        return failures;
+    }
+
+    public Map<String, Object> getStats()
+    {
+        return ImmutableMap.<String, Object>of(
+                "getAllExpectedStates", toMap(getAll),
+                "setExpectedStates", toMap(set),
+                "deleteExpectedStates", toMap(delete),
+                "failures", failures.getTotalCount());
+    }
+
+    private void recordSince(TimeStat stat, long startNanos, boolean success)
+    {
+        stat.add(System.nanoTime() - startNanos, NANOSECONDS);
+        if (!success) {
+            failures.update(1);
+        }
+    }
+}
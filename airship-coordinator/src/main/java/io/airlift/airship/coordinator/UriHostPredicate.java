@@ -29,7 +29,14 @@ public class UriHostPredicate
         if (host == null) {
             return false;
         }
+        return matchesHost(host);
+    }
 
+    /**
+     * Matches the host name, or the address it resolves to, against the glob.
+     */
+    public boolean matchesHost(String host)
+    {
         // match host string directly
         if (predicate.apply(host.toLowerCase())) {
             return true;
@@ -0,0 +1,133 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free holder for an immutable status.  Every write is tagged with a
+ * sequence number.  An asynchronous refresh takes a sequence number with
+ * {@link #nextSequence()} when it is issued, and its result is dropped if
+ * the holder has been written since, so slow or out-of-order responses can
+ * never replace newer information.
+ */
+public class VersionedStatusHolder<T>
+{
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicReference<VersionedStatus<T>> current;
+
+    public VersionedStatusHolder(T status)
+    {
+        Preconditions.checkNotNull(status, "status is null");
+        current = new AtomicReference<>(new VersionedStatus<>(status, 0));
+    }
+
+    public T get()
+    {
+        return current.get().getStatus();
+    }
+
+    public VersionedStatus<T> getVersioned()
+    {
+        return current.get();
+    }
+
+    /**
+     * Returns the sequence number to use for a refresh issued now.
+     */
+    public long nextSequence()
+    {
+        return sequence.incrementAndGet();
+    }
+
+    public void set(final T status)
+    {
+        Preconditions.checkNotNull(status, "status is null");
+        update(new Function<T, T>()
+        {
+            @Override
+            public T apply(T input)
+            {
+                return status;
+            }
+        });
+    }
+
+    /**
+     * Applies the function to the current status.  The function may be
+     * called more than once if another thread writes concurrently, so it
+     * must not have side effects.
+     */
+    public T update(Function<? super T, ? extends T> function)
+    {
+        Preconditions.checkNotNull(function, "function is null");
+        long writeSequence = nextSequence();
+        while (true) {
+            VersionedStatus<T> expected = current.get();
+            T status = function.apply(expected.getStatus());
+            Preconditions.checkState(status != null, "function returned null");
+            if (current.compareAndSet(expected, new VersionedStatus<>(status, Math.max(writeSequence, expected.getSequence())))) {
+                return status;
+            }
+        }
+    }
+
+    /**
+     * Applies the function to the current status on behalf of a refresh
+     * issued with the specified sequence number.  Returns false without
+     * calling the function if the holder was written after the refresh was
+     * issued.
+     */
+    public boolean update(long refreshSequence, Function<? super T, ? extends T> function)
+    {
+        Preconditions.checkNotNull(function, "function is null");
+        while (true) {
+            VersionedStatus<T> expected = current.get();
+            if (expected.getSequence() >= refreshSequence) {
+                return false;
+            }
+            T status = function.apply(expected.getStatus());
+            Preconditions.checkState(status != null, "function returned null");
+            if (compareAndSet(expected, status, refreshSequence)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replaces the expected status, unless it has been written since it was read.
+     */
+    public boolean compareAndSet(VersionedStatus<T> expected, T status, long writeSequence)
+    {
+        Preconditions.checkNotNull(expected, "expected is null");
+        Preconditions.checkNotNull(status, "status is null");
+        return current.compareAndSet(expected, new VersionedStatus<>(status, writeSequence));
+    }
+
+    @Immutable
+    public static class VersionedStatus<T>
+    {
+        private final T status;
+        private final long sequence;
+
+        private VersionedStatus(T status, long sequence)
+        {
+            this.status = status;
+            this.sequence = sequence;
+        }
+
+        public T getStatus()
+        {
+            return status;
+        }
+
+        public long getSequence()
+        {
+            return sequence;
+        }
+    }
+}
@@ -37,6 +37,7 @@ public class AuthFilter
         implements Filter
 {
     public static final String AUTHORIZED_KEY_ATTRIBUTE = "AuthorizedKey";
+    private static final String AGENT_HEARTBEAT_PATH = "/v1/agent/heartbeat";
     private static final Duration MAX_REQUEST_TIME_SKEW = new Duration(5, TimeUnit.MINUTES);
 
     private final SignatureVerifier verifier;
@@ -77,6 +78,13 @@ public class AuthFilter
 
         // get authorization headers
         ArrayList<String> authorizations = Collections.list(request.getHeaders("Authorization"));
+
+        // agents have no key to sign with, so AgentHeartbeatResource checks their heartbeats against the provisioned agent hosts
+        if (authorizations.isEmpty() && isAgentHeartbeat(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         if (authorizations.isEmpty()) {
             sendError(response, BAD_REQUEST, "Missing Authorization header");
             return;
@@ -185,6 +193,11 @@ public class AuthFilter
         writer.close();
     }
 
+    private static boolean isAgentHeartbeat(HttpServletRequest request)
+    {
+        return request.getMethod().equals("POST") && request.getRequestURI().equals(AGENT_HEARTBEAT_PATH);
+    }
+
     private static String getRequestUri(HttpServletRequest request)
     {
         String uri = request.getRequestURI();
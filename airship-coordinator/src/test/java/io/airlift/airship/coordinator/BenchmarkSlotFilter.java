@@ -0,0 +1,109 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.Assignment;
+import io.airlift.airship.shared.MockUriInfo;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.airship.shared.SlotStatus;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+
+/**
+ * Compares filtering every slot of a fleet snapshot with the slot predicate
+ * against selecting the slots from the snapshot's filter index, for common
+ * CLI filters such as {@code -s running -b foo*}.
+ * <p/>
+ * Usage: BenchmarkSlotFilter [slots] [iterations]
+ */
+public class BenchmarkSlotFilter
+{
+    private static final int SLOTS_PER_AGENT = 100;
+    private static final int BINARIES = 200;
+
+    public static void main(String[] args)
+    {
+        int slotCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        List<SlotStatus> slots = createSlots(slotCount);
+        FleetSnapshot snapshot = new FleetSnapshot(1, ImmutableList.<AgentStatus>of(), slots);
+
+        long start = System.nanoTime();
+        snapshot.getSlotFilterIndex();
+        System.out.printf("%,d slots, filter index built in %,d us%n", slotCount, (System.nanoTime() - start) / 1000);
+
+        String shortId = slots.get(slotCount / 2).getId().toString().substring(0, snapshot.getSlotIdTrie().shortestUniquePrefix(4));
+        List<String> queries = ImmutableList.of(
+                "state=running&binary=foo*",
+                "binary=com.example:apple-7:*",
+                "state=stopped",
+                "host=10.0.1.*",
+                "machine=i-00042",
+                "uuid=" + shortId,
+                "state=running&!config=@prod:apple-1*");
+
+        // warm up
+        for (String query : queries) {
+            run(snapshot, query, iterations, false);
+        }
+        for (String query : queries) {
+            run(snapshot, query, iterations, true);
+        }
+    }
+
+    private static void run(FleetSnapshot snapshot, String query, int iterations, boolean report)
+    {
+        MockUriInfo uriInfo = MockUriInfo.from("fake://localhost?" + query);
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Predicate<SlotStatus> predicate = SlotFilterBuilder.build(uriInfo, false, snapshot.getSlotIdTrie());
+            sink += Iterables.size(Iterables.filter(snapshot.getSlots(), predicate));
+        }
+        long scan = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += SlotFilterBuilder.fromUriInfo(uriInfo).selectSlots(snapshot, false).size();
+        }
+        long indexed = System.nanoTime() - start;
+
+        if (report) {
+            System.out.printf("%-40s scan: %,10d ns/op   indexed: %,10d ns/op   matches: %,d%n",
+                    query,
+                    scan / iterations,
+                    indexed / iterations,
+                    sink / (2 * iterations));
+        }
+    }
+
+    private static List<SlotStatus> createSlots(int count)
+    {
+        ImmutableList.Builder<SlotStatus> slots = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            int agent = i / SLOTS_PER_AGENT;
+            String host = String.format("10.0.%d.%d", agent / 250, agent % 250);
+            String name = (i % 3 == 0 ? "foo" : "apple") + "-" + (i % BINARIES);
+
+            slots.add(createSlotStatus(UUID.randomUUID(),
+                    URI.create("http://" + host + ":7777/v1/agent/slot/" + i),
+                    URI.create("http://" + host + ":7777/v1/agent/slot/" + i),
+                    String.format("i-%05d", agent),
+                    "/us-east-1/us-east-1a/" + host + "/slot" + i,
+                    i % 10 == 0 ? SlotLifecycleState.STOPPED : SlotLifecycleState.RUNNING,
+                    new Assignment("com.example:" + name + ":1.0", "@prod:" + name + ":1.0"),
+                    "/var/lib/airship/slots/" + i,
+                    ImmutableMap.of("cpu", 1, "memory", 1024)));
+        }
+        return slots.build();
+    }
+}
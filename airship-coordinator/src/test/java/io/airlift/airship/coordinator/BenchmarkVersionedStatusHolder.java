@@ -0,0 +1,197 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.AgentLifecycleState;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.airship.shared.SlotStatus;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+
+/**
+ * Compares reads of an agent status guarded by a monitor, as HttpRemoteAgent
+ * used to do, against the lock-free {@link VersionedStatusHolder} while
+ * poller threads continuously replace slot statuses.
+ * <p/>
+ * Usage: BenchmarkVersionedStatusHolder [readers] [pollers] [seconds]
+ */
+public class BenchmarkVersionedStatusHolder
+{
+    private static final int SLOTS = 20;
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int pollers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        AgentStatus agentStatus = createAgentStatus();
+
+        // warm up both implementations before measuring
+        run(new SynchronizedStatus(agentStatus), readers, pollers, 1);
+        run(new LockFreeStatus(agentStatus), readers, pollers, 1);
+
+        report("synchronized", run(new SynchronizedStatus(agentStatus), readers, pollers, seconds), seconds);
+        report("lock-free", run(new LockFreeStatus(agentStatus), readers, pollers, seconds), seconds);
+    }
+
+    private static void report(String name, long[] counts, int seconds)
+    {
+        System.out.printf("%-14s reads/s: %,14d   writes/s: %,12d%n", name, counts[0] / seconds, counts[1] / seconds);
+    }
+
+    private static long[] run(final StatusHolder holder, int readers, int pollers, int seconds)
+            throws InterruptedException
+    {
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+        final CountDownLatch finished = new CountDownLatch(readers + pollers);
+
+        for (int i = 0; i < readers; i++) {
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    long count = 0;
+                    long slots = 0;
+                    while (!done.get()) {
+                        slots += holder.get().getSlotStatuses().size();
+                        count++;
+                    }
+                    reads.addAndGet(count);
+
+                    // consume the result so the reads can not be optimized away
+                    if (slots < 0) {
+                        System.out.println(slots);
+                    }
+                    finished.countDown();
+                }
+            }).start();
+        }
+
+        final List<SlotStatus> slots = holder.get().getSlotStatuses();
+        for (int i = 0; i < pollers; i++) {
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    long count = 0;
+                    while (!done.get()) {
+                        SlotStatus slotStatus = slots.get((int) (count % slots.size()));
+                        SlotLifecycleState state = count % 2 == 0 ? SlotLifecycleState.RUNNING : SlotLifecycleState.STOPPED;
+                        holder.setSlotStatus(slotStatus.changeState(state));
+                        count++;
+                    }
+                    writes.addAndGet(count);
+                    finished.countDown();
+                }
+            }).start();
+        }
+
+        TimeUnit.SECONDS.sleep(seconds);
+        done.set(true);
+        finished.await();
+        return new long[] {reads.get(), writes.get()};
+    }
+
+    private static AgentStatus createAgentStatus()
+    {
+        ImmutableList.Builder<SlotStatus> slots = ImmutableList.builder();
+        for (int i = 0; i < SLOTS; i++) {
+            UUID slotId = UUID.randomUUID();
+            slots.add(createSlotStatus(slotId,
+                    URI.create("fake://agent/slot/" + slotId),
+                    URI.create("fake://agent/slot/" + slotId),
+                    "instance-id",
+                    "/location",
+                    SlotLifecycleState.RUNNING,
+                    APPLE_ASSIGNMENT,
+                    "/" + slotId,
+                    ImmutableMap.<String, Integer>of()));
+        }
+        return new AgentStatus("agent-id",
+                AgentLifecycleState.ONLINE,
+                "instance-id",
+                URI.create("fake://agent/internal"),
+                URI.create("fake://agent/external"),
+                "/location",
+                "instance.type",
+                slots.build(),
+                ImmutableMap.<String, Integer>of());
+    }
+
+    private interface StatusHolder
+    {
+        AgentStatus get();
+
+        void setSlotStatus(SlotStatus slotStatus);
+    }
+
+    private static class SynchronizedStatus
+            implements StatusHolder
+    {
+        private AgentStatus agentStatus;
+
+        private SynchronizedStatus(AgentStatus agentStatus)
+        {
+            this.agentStatus = agentStatus;
+        }
+
+        @Override
+        public synchronized AgentStatus get()
+        {
+            return agentStatus;
+        }
+
+        @Override
+        public synchronized void setSlotStatus(SlotStatus slotStatus)
+        {
+            agentStatus = agentStatus.changeSlotStatus(slotStatus);
+        }
+    }
+
+    private static class LockFreeStatus
+            implements StatusHolder
+    {
+        private final VersionedStatusHolder<AgentStatus> agentStatus;
+
+        private LockFreeStatus(AgentStatus agentStatus)
+        {
+            this.agentStatus = new VersionedStatusHolder<>(agentStatus);
+        }
+
+        @Override
+        public AgentStatus get()
+        {
+            return agentStatus.get();
+        }
+
+        @Override
+        public void setSlotStatus(final SlotStatus slotStatus)
+        {
+            agentStatus.update(new Function<AgentStatus, AgentStatus>()
+            {
+                @Override
+                public AgentStatus apply(AgentStatus agentStatus)
+                {
+                    return agentStatus.changeSlotStatus(slotStatus);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.airlift.airship.coordinator;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.simpledb.AmazonSimpleDBClient;
+import com.amazonaws.services.simpledb.model.Attribute;
+import com.amazonaws.services.simpledb.model.BatchDeleteAttributesRequest;
+import com.amazonaws.services.simpledb.model.BatchPutAttributesRequest;
+import com.amazonaws.services.simpledb.model.CreateDomainRequest;
+import com.amazonaws.services.simpledb.model.DeletableItem;
+import com.amazonaws.services.simpledb.model.DeleteAttributesRequest;
+import com.amazonaws.services.simpledb.model.Item;
+import com.amazonaws.services.simpledb.model.PutAttributesRequest;
+import com.amazonaws.services.simpledb.model.ReplaceableAttribute;
+import com.amazonaws.services.simpledb.model.ReplaceableItem;
+import com.amazonaws.services.simpledb.model.SelectRequest;
+import com.amazonaws.services.simpledb.model.SelectResult;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newTreeMap;
+
+/**
+ * In-process SimpleDB that supports a single domain and the subset of the
+ * API used by {@link SimpleDbStateManager}.  Select ignores the query and
+ * returns every item, a page at a time.
+ */
+public class FakeSimpleDb
+        extends AmazonSimpleDBClient
+{
+    private final int pageSize;
+    private final Map<String, Map<String, String>> items = newTreeMap();
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicInteger maxInFlightRequests = new AtomicInteger();
+    private final AtomicInteger selectRequests = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private volatile int maxSelectRequests = Integer.MAX_VALUE;
+    private volatile int maxBatchRequests = Integer.MAX_VALUE;
+
+    public FakeSimpleDb(int pageSize)
+    {
+        super(new BasicAWSCredentials("fake-access-key", "fake-secret-key"));
+        Preconditions.checkArgument(pageSize > 0, "pageSize must be at least 1");
+        this.pageSize = pageSize;
+    }
+
+    public int getMaxInFlightRequests()
+    {
+        return maxInFlightRequests.get();
+    }
+
+    /**
+     * Fails select requests once the specified number of selects have been made.
+     */
+    public void failSelectsAfter(int selectRequests)
+    {
+        maxSelectRequests = this.selectRequests.get() + selectRequests;
+    }
+
+    /**
+     * Fails batch put and delete requests once the specified number of batches have been made.
+     */
+    public void failBatchesAfter(int batchRequests)
+    {
+        maxBatchRequests = this.batchRequests.get() + batchRequests;
+    }
+
+    public int getSelectRequests()
+    {
+        return selectRequests.get();
+    }
+
+    public int getBatchRequests()
+    {
+        return batchRequests.get();
+    }
+
+    public synchronized int getItemCount()
+    {
+        return items.size();
+    }
+
+    @Override
+    public void createDomain(CreateDomainRequest createDomainRequest)
+    {
+    }
+
+    @Override
+    public SelectResult select(SelectRequest selectRequest)
+    {
+        if (selectRequests.incrementAndGet() > maxSelectRequests) {
+            throw new AmazonServiceException("select failed");
+        }
+        int start = selectRequest.getNextToken() == null ? 0 : Integer.parseInt(selectRequest.getNextToken());
+
+        List<Item> page = newArrayList();
+        synchronized (this) {
+            List<Entry<String, Map<String, String>>> entries = ImmutableList.copyOf(items.entrySet());
+            for (Entry<String, Map<String, String>> entry : entries.subList(start, Math.min(start + pageSize, entries.size()))) {
+                List<Attribute> attributes = newArrayList();
+                for (Entry<String, String> attribute : entry.getValue().entrySet()) {
+                    attributes.add(new Attribute(attribute.getKey(), attribute.getValue()));
+                }
+                page.add(new Item(entry.getKey(), attributes));
+            }
+            String nextToken = start + pageSize < entries.size() ? String.valueOf(start + pageSize) : null;
+            return new SelectResult().withItems(page).withNextToken(nextToken);
+        }
+    }
+
+    @Override
+    public void putAttributes(PutAttributesRequest putAttributesRequest)
+    {
+        put(putAttributesRequest.getItemName(), putAttributesRequest.getAttributes());
+    }
+
+    @Override
+    public void batchPutAttributes(BatchPutAttributesRequest batchPutAttributesRequest)
+    {
+        Preconditions.checkArgument(batchPutAttributesRequest.getItems().size() <= 25, "too many items in batch");
+        if (batchRequests.incrementAndGet() > maxBatchRequests) {
+            throw new AmazonServiceException("batch failed");
+        }
+        startRequest();
+        try {
+            for (ReplaceableItem item : batchPutAttributesRequest.getItems()) {
+                put(item.getName(), item.getAttributes());
+            }
+        }
+        finally {
+            inFlightRequests.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteAttributes(DeleteAttributesRequest deleteAttributesRequest)
+    {
+        delete(deleteAttributesRequest.getItemName(), deleteAttributesRequest.getAttributes());
+    }
+
+    @Override
+    public void batchDeleteAttributes(BatchDeleteAttributesRequest batchDeleteAttributesRequest)
+    {
+        Preconditions.checkArgument(batchDeleteAttributesRequest.getItems().size() <= 25, "too many items in batch");
+        if (batchRequests.incrementAndGet() > maxBatchRequests) {
+            throw new AmazonServiceException("batch failed");
+        }
+        startRequest();
+        try {
+            for (DeletableItem item : batchDeleteAttributesRequest.getItems()) {
+                delete(item.getName(), item.getAttributes());
+            }
+        }
+        finally {
+            inFlightRequests.decrementAndGet();
+        }
+    }
+
+    private void startRequest()
+    {
+        int inFlight = inFlightRequests.incrementAndGet();
+        while (true) {
+            int max = maxInFlightRequests.get();
+            if (inFlight <= max || maxInFlightRequests.compareAndSet(max, inFlight)) {
+                break;
+            }
+        }
+
+        // give other requests a chance to overlap with this one
+        try {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void put(String itemName, List<ReplaceableAttribute> attributes)
+    {
+        Map<String, String> item = items.get(itemName);
+        if (item == null) {
+            item = newTreeMap();
+            items.put(itemName, item);
+        }
+        for (ReplaceableAttribute attribute : attributes) {
+            item.put(attribute.getName(), attribute.getValue());
+        }
+    }
+
+    private synchronized void delete(String itemName, List<Attribute> attributes)
+    {
+        Map<String, String> item = items.get(itemName);
+        if (item == null) {
+            return;
+        }
+        if (attributes.isEmpty()) {
+            items.remove(itemName);
+            return;
+        }
+        for (Attribute attribute : attributes) {
+            item.remove(attribute.getName());
+        }
+        if (item.isEmpty()) {
+            items.remove(itemName);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
 import io.airlift.airship.shared.SlotStatus;
@@ -23,7 +24,9 @@ public class MockProvisioner
 {
     private final Map<String, CoordinatorStatus> coordinators = new ConcurrentHashMap<>();
     private final Map<String, AgentStatus> agents = new ConcurrentHashMap<>();
-    private final RemoteCoordinatorFactory coordinatorFactory = new MockRemoteCoordinatorFactory(coordinators);
+    private final Map<String, List<AgentStatusRepresentation>> agentShards = new ConcurrentHashMap<>();
+    private final Map<String, Coordinator> primaries = new ConcurrentHashMap<>();
+    private final RemoteCoordinatorFactory coordinatorFactory = new MockRemoteCoordinatorFactory(coordinators, agentShards, primaries);
     private final RemoteAgentFactory agentFactory = new MockRemoteAgentFactory(agents);
     private final AtomicInteger nextInstanceId = new AtomicInteger();
 
@@ -66,6 +69,29 @@ public class MockProvisioner
         coordinators.clear();
     }
 
+    /**
+     * Sets the agent statuses returned by a coordinator that shards agent
+     * polling, or removes them if the coordinator does not shard.
+     */
+    public void setAgentShard(String coordinatorInstanceId, List<AgentStatusRepresentation> agentShard)
+    {
+        if (agentShard == null) {
+            agentShards.remove(coordinatorInstanceId);
+        }
+        else {
+            agentShards.put(coordinatorInstanceId, ImmutableList.copyOf(agentShard));
+        }
+    }
+
+    /**
+     * Serves replication requests sent to the coordinator instance from the
+     * specified coordinator.
+     */
+    public void setPrimary(String coordinatorInstanceId, Coordinator primary)
+    {
+        primaries.put(coordinatorInstanceId, primary);
+    }
+
     @Override
     public List<Instance> listCoordinators()
     {
@@ -9,6 +9,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
@@ -61,12 +62,40 @@ public class MockRemoteAgent
         }));
     }
 
+    @Override
+    public synchronized RemoteSlot getSlot(UUID slotId)
+    {
+        SlotStatus slotStatus = getAgentStatus().getSlotStatus(slotId);
+        if (slotStatus == null) {
+            return null;
+        }
+        return new MockRemoteSlot(slotStatus, this);
+    }
+
     @Override
     public synchronized ListenableFuture<?> updateStatus()
     {
         return Futures.immediateFuture(null);
     }
 
+    @Override
+    public synchronized void heartbeat(AgentStatusRepresentation agentStatus, String serviceInventoryVersion)
+    {
+        setAgentStatus(agentStatus.toAgentStatus(instanceId, getAgentStatus().getInstanceType()));
+    }
+
+    @Override
+    public synchronized void applyStatus(AgentStatusRepresentation agentStatus)
+    {
+        setAgentStatus(agentStatus.toAgentStatus(instanceId, getAgentStatus().getInstanceType()));
+    }
+
+    @Override
+    public synchronized void markOffline()
+    {
+        setAgentStatus(getAgentStatus().changeState(OFFLINE).changeAllSlotsState(SlotLifecycleState.UNKNOWN));
+    }
+
     synchronized void setSlotStatus(SlotStatus slotStatus)
     {
         AgentStatus agentStatus = getAgentStatus().changeSlotStatus(slotStatus);
@@ -74,12 +103,12 @@ public class MockRemoteAgent
     }
 
     @Override
-    public synchronized void setServiceInventory(List<ServiceDescriptor> serviceInventory)
+    public synchronized void setServiceInventory(String serviceInventoryVersion, List<ServiceDescriptor> serviceInventory)
     {
     }
 
     @Override
-    public synchronized SlotStatus install(Installation installation)
+    public synchronized ListenableFuture<SlotStatus> install(Installation installation)
     {
         checkNotNull(installation, "installation is null");
 
@@ -96,9 +125,15 @@ public class MockRemoteAgent
                 installation.getAssignment(),
                 "/" + slotId,
                 installation.getResources());
-        agentStatus.changeSlotStatus(slotStatus);
+        setAgentStatus(agentStatus.changeSlotStatus(slotStatus));
+
+        return Futures.immediateFuture(slotStatus);
+    }
 
-        return slotStatus;
+    @Override
+    public ListenableFuture<List<SlotStatus>> execute(List<SlotCommand> commands)
+    {
+        return SlotCommand.executeSerially(this, commands);
     }
 
     public synchronized AgentStatus getAgentStatus()
@@ -1,12 +1,15 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
 public class MockRemoteCoordinator
@@ -14,11 +17,18 @@ public class MockRemoteCoordinator
 {
     private final String instanceId;
     private final Map<String, CoordinatorStatus> coordinators;
+    private final Map<String, List<AgentStatusRepresentation>> agentShards;
+    private final Map<String, Coordinator> primaries;
 
-    public MockRemoteCoordinator(String instanceId, Map<String, CoordinatorStatus> coordinators)
+    public MockRemoteCoordinator(String instanceId,
+            Map<String, CoordinatorStatus> coordinators,
+            Map<String, List<AgentStatusRepresentation>> agentShards,
+            Map<String, Coordinator> primaries)
     {
         this.instanceId = instanceId;
         this.coordinators = coordinators;
+        this.agentShards = agentShards;
+        this.primaries = primaries;
     }
 
     @Override
@@ -39,6 +49,26 @@ public class MockRemoteCoordinator
         return Futures.immediateFuture(null);
     }
 
+    @Override
+    public ListenableFuture<List<AgentStatusRepresentation>> getAgentShard()
+    {
+        List<AgentStatusRepresentation> agentShard = agentShards.get(instanceId);
+        if (agentShard == null) {
+            return Futures.immediateFailedFuture(new UnsupportedOperationException("agent sharding is not enabled"));
+        }
+        return Futures.<List<AgentStatusRepresentation>>immediateFuture(ImmutableList.copyOf(agentShard));
+    }
+
+    @Override
+    public ListenableFuture<ReplicationRepresentation> replicate(Map<String, String> agentVersions, String expectedStateEpoch, long expectedStateGeneration)
+    {
+        Coordinator primary = primaries.get(instanceId);
+        if (primary == null) {
+            return Futures.immediateFailedFuture(new UnsupportedOperationException("coordinator is not a primary"));
+        }
+        return Futures.immediateFuture(ReplicationRepresentation.from(primary.getChangedAgents(agentVersions), primary.getExpectedStateChanges(expectedStateEpoch, expectedStateGeneration)));
+    }
+
     public CoordinatorStatus getCoordinatorStatus()
     {
         CoordinatorStatus coordinatorStatus = coordinators.get(instanceId);
@@ -1,20 +1,30 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
 
+import java.util.List;
 import java.util.Map;
 
 public class MockRemoteCoordinatorFactory
         implements RemoteCoordinatorFactory
 {
     private final Map<String, CoordinatorStatus> coordinators;
+    private final Map<String, List<AgentStatusRepresentation>> agentShards;
+    private final Map<String, Coordinator> primaries;
 
-    public MockRemoteCoordinatorFactory(Map<String, CoordinatorStatus> coordinators)
+    public MockRemoteCoordinatorFactory(Map<String, CoordinatorStatus> coordinators,
+            Map<String, List<AgentStatusRepresentation>> agentShards,
+            Map<String, Coordinator> primaries)
     {
         Preconditions.checkNotNull(coordinators, "coordinators is null");
+        Preconditions.checkNotNull(agentShards, "agentShards is null");
+        Preconditions.checkNotNull(primaries, "primaries is null");
         this.coordinators = coordinators;
+        this.agentShards = agentShards;
+        this.primaries = primaries;
     }
 
     @Override
@@ -22,6 +32,6 @@ public class MockRemoteCoordinatorFactory
     {
         CoordinatorStatus coordinatorStatus = coordinators.get(instance.getInstanceId());
         Preconditions.checkArgument(coordinatorStatus != null, "Unknown instance %s", instance.getInstanceId());
-        return new MockRemoteCoordinator(instance.getInstanceId(), coordinators);
+        return new MockRemoteCoordinator(instance.getInstanceId(), coordinators, agentShards, primaries);
     }
 }
@@ -1,6 +1,8 @@
 package io.airlift.airship.coordinator;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.SlotStatus;
 
@@ -35,59 +37,59 @@ public class MockRemoteSlot
     }
 
     @Override
-    public SlotStatus assign(Installation installation)
+    public ListenableFuture<SlotStatus> assign(Installation installation)
     {
         Preconditions.checkNotNull(installation, "installation is null");
         slotStatus = slotStatus.changeAssignment(STOPPED, installation.getAssignment(), slotStatus.getResources());
         mockRemoteAgent.setSlotStatus(slotStatus);
-        return slotStatus;
+        return Futures.immediateFuture(slotStatus);
     }
 
     @Override
-    public SlotStatus terminate()
+    public ListenableFuture<SlotStatus> terminate()
     {
         if (slotStatus.getState() == STOPPED) {
             slotStatus = slotStatus.changeState(TERMINATED);
         }
         mockRemoteAgent.setSlotStatus(slotStatus);
-        return slotStatus;
+        return Futures.immediateFuture(slotStatus);
     }
 
     @Override
-    public SlotStatus start()
+    public ListenableFuture<SlotStatus> start()
     {
         if (slotStatus.getAssignment() == null) {
             throw new IllegalStateException("Slot can not be started because the slot is not assigned");
         }
         slotStatus = slotStatus.changeState(RUNNING);
         mockRemoteAgent.setSlotStatus(slotStatus);
-        return slotStatus;
+        return Futures.immediateFuture(slotStatus);
     }
 
     @Override
-    public SlotStatus restart()
+    public ListenableFuture<SlotStatus> restart()
     {
         if (slotStatus.getAssignment() == null) {
             throw new IllegalStateException("Slot can not be restarted because the slot is not assigned");
         }
         slotStatus = slotStatus.changeState(RUNNING);
         mockRemoteAgent.setSlotStatus(slotStatus);
-        return slotStatus;
+        return Futures.immediateFuture(slotStatus);
     }
 
     @Override
-    public SlotStatus stop()
+    public ListenableFuture<SlotStatus> stop()
     {
         if (slotStatus.getAssignment() == null) {
             throw new IllegalStateException("Slot can not be stopped because the slot is not assigned");
         }
         slotStatus = slotStatus.changeState(STOPPED);
         mockRemoteAgent.setSlotStatus(slotStatus);
-        return slotStatus;
+        return Futures.immediateFuture(slotStatus);
     }
 
     @Override
-    public SlotStatus kill()
+    public ListenableFuture<SlotStatus> kill()
     {
         return stop();
     }
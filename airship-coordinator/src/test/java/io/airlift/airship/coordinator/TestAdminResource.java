@@ -59,8 +59,7 @@ public class TestAdminResource
                 provisioner,
                 new InMemoryStateManager(),
                 new MockServiceInventory(),
-                new Duration(1, TimeUnit.DAYS),
-                false);
+                new CoordinatorConfig().setStatusExpiration(new Duration(1, TimeUnit.DAYS)));
         resource = new AdminResource(coordinator, repository);
     }
 
@@ -207,7 +206,7 @@ public class TestAdminResource
         URI requestUri = URI.create("http://localhost/v1/admin/agent");
         Response response = resource.getAllAgents(MockUriInfo.from(requestUri));
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
-        assertEqualsNoOrder((Iterable<?>) response.getEntity(), ImmutableList.of());
+        assertEqualsNoOrder(((JsonStreamingOutput<?>) response.getEntity()).getValues(), ImmutableList.of());
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
     }
 
@@ -242,7 +241,7 @@ public class TestAdminResource
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
 
-        Iterable<AgentStatusRepresentation> agents = (Iterable<AgentStatusRepresentation>) response.getEntity();
+        Iterable<AgentStatusRepresentation> agents = ((JsonStreamingOutput<AgentStatusRepresentation>) response.getEntity()).getValues();
         assertEquals(Iterables.size(agents), 1);
         AgentStatusRepresentation actual = agents.iterator().next();
 
@@ -299,7 +298,7 @@ public class TestAdminResource
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
 
-        agents = ImmutableList.copyOf((Iterable<AgentStatusRepresentation>) response.getEntity());
+        agents = ImmutableList.copyOf(((JsonStreamingOutput<AgentStatusRepresentation>) response.getEntity()).getValues());
         assertEquals(agents.size(), 1);
         AgentStatusRepresentation actual = agents.iterator().next();
 
@@ -0,0 +1,232 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.Scopes;
+import com.google.inject.util.Modules;
+import io.airlift.airship.shared.AgentLifecycleState;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.Repository;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.configuration.ConfigurationFactory;
+import io.airlift.configuration.ConfigurationModule;
+import io.airlift.event.client.EventModule;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.StatusResponseHandler.StatusResponse;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.http.server.testing.TestingHttpServer;
+import io.airlift.http.server.testing.TestingHttpServerModule;
+import io.airlift.jaxrs.JaxrsModule;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonModule;
+import io.airlift.node.testing.TestingNodeModule;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.inject.Singleton;
+import javax.ws.rs.core.Response.Status;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.inject.Scopes.SINGLETON;
+import static io.airlift.airship.coordinator.TestingMavenRepository.MOCK_REPO;
+import static io.airlift.airship.shared.FileUtils.createTempDir;
+import static io.airlift.airship.shared.FileUtils.deleteRecursively;
+import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
+import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.testing.Closeables.closeQuietly;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAgentHeartbeatAuth
+{
+    private HttpClient httpClient;
+    private TestingHttpServer server;
+    private File authorizedKeysDir;
+
+    private Coordinator coordinator;
+    private MockProvisioner provisioner;
+
+    private final JsonCodec<AgentStatusRepresentation> agentStatusCodec = jsonCodec(AgentStatusRepresentation.class);
+
+    @BeforeClass
+    public void startServer()
+            throws Exception
+    {
+        authorizedKeysDir = createTempDir("authorized-keys");
+
+        Map<String, String> properties = ImmutableMap.<String, String>builder()
+                .put("airship.version", "123")
+                .put("node.id", "this-coordinator-instance-id")
+                .put("node.location", "/test/location")
+                .put("coordinator.binary-repo", "http://localhost:9999/")
+                .put("coordinator.default-group-id", "prod")
+                .put("coordinator.agent.default-config", "@agent.config")
+                .put("coordinator.auth.enabled", "true")
+                .put("coordinator.auth.authorized-keys-dir", authorizedKeysDir.getAbsolutePath())
+                .build();
+
+        Injector injector = Guice.createInjector(new TestingHttpServerModule(),
+                new TestingNodeModule(),
+                new JsonModule(),
+                new JaxrsModule(),
+                new EventModule(),
+                Modules.override(new StaticProvisionerModule()).with(new Module()
+                {
+                    @Override
+                    public void configure(Binder binder)
+                    {
+                        binder.bind(StateManager.class).to(InMemoryStateManager.class).in(SINGLETON);
+                        binder.bind(MockProvisioner.class).in(SINGLETON);
+                        binder.bind(Provisioner.class).to(Key.get(MockProvisioner.class)).in(SINGLETON);
+                    }
+                }),
+                Modules.override(new CoordinatorMainModule()).with(new Module()
+                {
+                    public void configure(Binder binder)
+                    {
+                        binder.bind(Repository.class).toInstance(MOCK_REPO);
+                        binder.bind(ServiceInventory.class).to(MockServiceInventory.class).in(Scopes.SINGLETON);
+                    }
+
+                    @Provides
+                    @Singleton
+                    public RemoteCoordinatorFactory getRemoteCoordinatorFactory(MockProvisioner provisioner)
+                    {
+                        return provisioner.getCoordinatorFactory();
+                    }
+
+                    @Provides
+                    @Singleton
+                    public RemoteAgentFactory getRemoteAgentFactory(MockProvisioner provisioner)
+                    {
+                        return provisioner.getAgentFactory();
+                    }
+                }),
+                new ConfigurationModule(new ConfigurationFactory(properties)));
+
+        server = injector.getInstance(TestingHttpServer.class);
+        coordinator = injector.getInstance(Coordinator.class);
+        provisioner = (MockProvisioner) injector.getInstance(Provisioner.class);
+
+        server.start();
+        httpClient = new JettyHttpClient();
+    }
+
+    @BeforeMethod
+    public void resetState()
+    {
+        provisioner.clearAgents();
+        coordinator.updateAllAgentsAndWait();
+        assertTrue(coordinator.getAgents().isEmpty());
+    }
+
+    @AfterClass
+    public void stopServer()
+            throws Exception
+    {
+        closeQuietly(httpClient);
+
+        if (server != null) {
+            server.stop();
+        }
+
+        if (authorizedKeysDir != null) {
+            deleteRecursively(authorizedKeysDir);
+        }
+    }
+
+    @Test
+    public void testHeartbeatFromAgentHost()
+    {
+        // the agent runs on the same host as the test client
+        AgentStatus agentStatus = createAgentStatus(uriBuilderFrom(server.getBaseUrl()).replacePath("/agent").build());
+        provisioner.addAgents(agentStatus);
+        coordinator.updateAllAgentsAndWait();
+
+        assertEquals(sendHeartbeat(agentStatus).getStatusCode(), Status.NO_CONTENT.getStatusCode());
+    }
+
+    @Test
+    public void testHeartbeatFromOtherHost()
+    {
+        // the provisioner lists the agent on a host the test client is not running on
+        AgentStatus agentStatus = createAgentStatus(URI.create("http://192.0.2.1:8080/"));
+        provisioner.addAgents(agentStatus);
+        coordinator.updateAllAgentsAndWait();
+
+        assertEquals(sendHeartbeat(agentStatus).getStatusCode(), Status.FORBIDDEN.getStatusCode());
+    }
+
+    @Test
+    public void testHeartbeatFromUnknownAgent()
+    {
+        AgentStatus agentStatus = createAgentStatus(uriBuilderFrom(server.getBaseUrl()).replacePath("/agent").build());
+
+        assertEquals(sendHeartbeat(agentStatus).getStatusCode(), Status.FORBIDDEN.getStatusCode());
+    }
+
+    @Test
+    public void testOtherResourcesRequireSignature()
+    {
+        Request request = Request.Builder.prepareGet()
+                .setUri(uriBuilderFrom(server.getBaseUrl()).replacePath("/v1/admin/agent").build())
+                .build();
+        StatusResponse response = httpClient.execute(request, createStatusResponseHandler());
+
+        assertEquals(response.getStatusCode(), Status.BAD_REQUEST.getStatusCode());
+    }
+
+    private StatusResponse sendHeartbeat(AgentStatus agentStatus)
+    {
+        Request request = Request.Builder.preparePost()
+                .setUri(uriBuilderFrom(server.getBaseUrl()).replacePath("/v1/agent/heartbeat").build())
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .setBodyGenerator(jsonBodyGenerator(agentStatusCodec, AgentStatusRepresentation.from(agentStatus)))
+                .build();
+        return httpClient.execute(request, createStatusResponseHandler());
+    }
+
+    private static AgentStatus createAgentStatus(URI internalUri)
+    {
+        return new AgentStatus(UUID.randomUUID().toString(),
+                AgentLifecycleState.ONLINE,
+                "instance-id",
+                internalUri,
+                internalUri,
+                "/unknown/location",
+                "instance.type",
+                ImmutableList.<SlotStatus>of(),
+                ImmutableMap.<String, Integer>of());
+    }
+}
@@ -0,0 +1,167 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.airship.shared.AgentLifecycleState;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.SlotStatus;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAgentPollScheduler
+{
+    private final Map<String, AgentStatus> agentStatuses = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+    private AgentPollScheduler scheduler;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        agentStatuses.clear();
+        executor = Executors.newScheduledThreadPool(2);
+        scheduler = new AgentPollScheduler(executor,
+                new Duration(50, TimeUnit.MILLISECONDS),
+                new Duration(10, TimeUnit.MILLISECONDS),
+                new Duration(400, TimeUnit.MILLISECONDS));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        scheduler.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPollsAllAgents()
+            throws Exception
+    {
+        CountingRemoteAgent apple = createAgent("apple");
+        CountingRemoteAgent banana = createAgent("banana");
+        scheduler.update(ImmutableMap.<String, RemoteAgent>of("apple", apple, "banana", banana));
+        assertEquals(scheduler.getScheduledAgents(), 2);
+
+        waitForPolls(apple, 3);
+        waitForPolls(banana, 3);
+        assertEquals(scheduler.getBackedOffAgents(), 0);
+    }
+
+    @Test
+    public void testRemovedAgentIsNotPolled()
+            throws Exception
+    {
+        CountingRemoteAgent apple = createAgent("apple");
+        scheduler.update(ImmutableMap.<String, RemoteAgent>of("apple", apple));
+        waitForPolls(apple, 1);
+
+        scheduler.update(ImmutableMap.<String, RemoteAgent>of());
+        assertEquals(scheduler.getScheduledAgents(), 0);
+
+        int polls = apple.getPolls();
+        Thread.sleep(200);
+        assertTrue(apple.getPolls() <= polls + 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnreachableAgentBacksOff()
+            throws Exception
+    {
+        CountingRemoteAgent apple = createAgent("apple");
+
+        // agents missing from the status map are offline
+        CountingRemoteAgent offline = new CountingRemoteAgent("offline", agentStatuses);
+
+        scheduler.update(ImmutableMap.<String, RemoteAgent>of("apple", apple, "offline", offline));
+        waitForPolls(offline, 2);
+        assertEquals(scheduler.getBackedOffAgents(), 1);
+
+        Thread.sleep(1000);
+        assertTrue(offline.getPolls() < apple.getPolls() / 2, String.format("offline agent polled %s times, online agent polled %s times", offline.getPolls(), apple.getPolls()));
+
+        // the unreachable agent has not answered since polling started
+        assertTrue(scheduler.getFailedPolls() >= 2);
+        assertTrue(scheduler.getMaxTimeSinceLastSuccess().toMillis() >= 1000);
+        Map<String, Object> agentStats = (Map<String, Object>) scheduler.getStats().get("agents");
+        assertTrue((Integer) ((Map<String, Object>) agentStats.get("offline")).get("consecutiveFailures") > 0);
+        assertEquals(((Map<String, Object>) agentStats.get("apple")).get("consecutiveFailures"), 0);
+    }
+
+    @Test
+    public void testPollSoon()
+            throws Exception
+    {
+        scheduler = new AgentPollScheduler(executor,
+                new Duration(1, TimeUnit.DAYS),
+                new Duration(10, TimeUnit.MILLISECONDS),
+                new Duration(1, TimeUnit.DAYS));
+
+        CountingRemoteAgent apple = createAgent("apple");
+        scheduler.update(ImmutableMap.<String, RemoteAgent>of("apple", apple));
+        assertEquals(apple.getPolls(), 0);
+
+        scheduler.pollSoon("apple");
+        waitForPolls(apple, 3);
+    }
+
+    private CountingRemoteAgent createAgent(String instanceId)
+    {
+        agentStatuses.put(instanceId, new AgentStatus(instanceId,
+                AgentLifecycleState.ONLINE,
+                instanceId,
+                URI.create("fake://" + instanceId + "/internal"),
+                URI.create("fake://" + instanceId + "/external"),
+                "/location/" + instanceId,
+                "instance.type",
+                ImmutableList.<SlotStatus>of(),
+                ImmutableMap.<String, Integer>of()));
+        return new CountingRemoteAgent(instanceId, agentStatuses);
+    }
+
+    private static void waitForPolls(CountingRemoteAgent agent, int polls)
+            throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (agent.getPolls() < polls) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for polls");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class CountingRemoteAgent
+            extends MockRemoteAgent
+    {
+        private final AtomicInteger polls = new AtomicInteger();
+
+        private CountingRemoteAgent(String instanceId, Map<String, AgentStatus> agents)
+        {
+            super(instanceId, agents);
+        }
+
+        @Override
+        public synchronized ListenableFuture<?> updateStatus()
+        {
+            polls.incrementAndGet();
+            return super.updateStatus();
+        }
+
+        public int getPolls()
+        {
+            return polls.get();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import io.airlift.units.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingStateManager
+{
+    private CountingStateManager backingStateManager;
+    private TestingTicker ticker;
+    private CachingStateManager stateManager;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        backingStateManager = new CountingStateManager();
+        ticker = new TestingTicker();
+        stateManager = new CachingStateManager(backingStateManager, true, new Duration(1, TimeUnit.MINUTES), ticker);
+    }
+
+    @Test
+    public void testReadsServedFromCache()
+    {
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        backingStateManager.setExpectedState(apple);
+
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+        assertEquals(backingStateManager.getLoads(), 1);
+    }
+
+    @Test
+    public void testWriteThrough()
+    {
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), STOPPED, BANANA_ASSIGNMENT);
+
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+
+        stateManager.setExpectedState(apple);
+        stateManager.setExpectedState(banana);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+
+        stateManager.deleteExpectedState(apple.getId());
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+
+        // only the initial load hit the backing state manager
+        assertEquals(backingStateManager.getLoads(), 1);
+        assertEquals(ImmutableSet.copyOf(backingStateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+    }
+
+    @Test
+    public void testRefresh()
+    {
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+
+        // change made by another coordinator is not visible until the refresh interval elapses
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        backingStateManager.setExpectedState(apple);
+        ticker.advance(59, TimeUnit.SECONDS);
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+    }
+
+    @Test
+    public void testRefreshDisabled()
+    {
+        stateManager = new CachingStateManager(backingStateManager, false, new Duration(1, TimeUnit.MINUTES), ticker);
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        backingStateManager.setExpectedState(apple);
+        ticker.advance(1, TimeUnit.HOURS);
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+        assertEquals(backingStateManager.getLoads(), 1);
+    }
+
+    @Test
+    public void testFailedLoadNotCached()
+    {
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        backingStateManager.setExpectedState(apple);
+
+        // a store that is down at startup is retried on the next read
+        backingStateManager.setFailing(true);
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+        backingStateManager.setFailing(false);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+
+        // a failed refresh keeps the last complete load
+        ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), STOPPED, BANANA_ASSIGNMENT);
+        backingStateManager.setExpectedState(banana);
+        backingStateManager.setFailing(true);
+        ticker.advance(1, TimeUnit.MINUTES);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+
+        // and the refresh is retried after the refresh interval
+        backingStateManager.setFailing(false);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+        ticker.advance(1, TimeUnit.MINUTES);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+    }
+
+    @Test
+    public void testWriteDuringRefresh()
+            throws Exception
+    {
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        backingStateManager.setExpectedState(apple);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        backingStateManager.blockLoads(loadStarted, releaseLoad);
+        ticker.advance(1, TimeUnit.MINUTES);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Collection<ExpectedSlotStatus>> refresh = executor.submit(new Callable<Collection<ExpectedSlotStatus>>()
+            {
+                @Override
+                public Collection<ExpectedSlotStatus> call()
+                {
+                    return stateManager.getAllExpectedStates();
+                }
+            });
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+            // the slow load does not block readers or writers
+            assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+            ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), STOPPED, BANANA_ASSIGNMENT);
+            stateManager.setExpectedState(banana);
+            stateManager.deleteExpectedState(apple.getId());
+            assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+
+            // the load read the store before the writes, which are applied to its result
+            releaseLoad.countDown();
+            assertEquals(ImmutableSet.copyOf(refresh.get(10, TimeUnit.SECONDS)), ImmutableSet.of(banana));
+            assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+            assertEquals(backingStateManager.getLoads(), 2);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CountingStateManager
+            extends InMemoryStateManager
+    {
+        private int loads;
+        private boolean failing;
+        private CountDownLatch loadStarted;
+        private CountDownLatch releaseLoad;
+
+        @Override
+        public Collection<ExpectedSlotStatus> getAllExpectedStates()
+        {
+            CountDownLatch loadStarted;
+            CountDownLatch releaseLoad;
+            synchronized (this) {
+                loads++;
+                if (failing) {
+                    throw new RuntimeException("store is down");
+                }
+                loadStarted = this.loadStarted;
+                releaseLoad = this.releaseLoad;
+            }
+
+            Collection<ExpectedSlotStatus> expectedStates = super.getAllExpectedStates();
+            if (releaseLoad != null) {
+                loadStarted.countDown();
+                Uninterruptibles.awaitUninterruptibly(releaseLoad);
+            }
+            return expectedStates;
+        }
+
+        public synchronized void blockLoads(CountDownLatch loadStarted, CountDownLatch releaseLoad)
+        {
+            this.loadStarted = loadStarted;
+            this.releaseLoad = releaseLoad;
+        }
+
+        public synchronized void setFailing(boolean failing)
+        {
+            this.failing = failing;
+        }
+
+        public synchronized int getLoads()
+        {
+            return loads;
+        }
+    }
+
+    private static class TestingTicker
+            extends Ticker
+    {
+        private long time;
+
+        @Override
+        public long read()
+        {
+            return time;
+        }
+
+        public void advance(long duration, TimeUnit unit)
+        {
+            time += unit.toNanos(duration);
+        }
+    }
+}
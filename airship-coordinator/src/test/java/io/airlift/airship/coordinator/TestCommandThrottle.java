@@ -0,0 +1,119 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestCommandThrottle
+{
+    @Test
+    public void testLimitsCommandsInFlight()
+            throws Exception
+    {
+        CommandThrottle throttle = new CommandThrottle(2);
+
+        List<SettableFuture<String>> commandFutures = newArrayList();
+        List<ListenableFuture<String>> results = newArrayList();
+        for (int i = 0; i < 5; i++) {
+            SettableFuture<String> commandFuture = SettableFuture.create();
+            commandFutures.add(commandFuture);
+            results.add(throttle.submit(returning(commandFuture)));
+        }
+        assertEquals(throttle.getInFlight(), 2);
+        assertEquals(throttle.getQueued(), 3);
+
+        // completing a command starts the next queued command
+        commandFutures.get(0).set("0");
+        assertEquals(results.get(0).get(), "0");
+        assertEquals(throttle.getInFlight(), 2);
+        assertEquals(throttle.getQueued(), 2);
+
+        for (int i = 1; i < 5; i++) {
+            commandFutures.get(i).set(String.valueOf(i));
+        }
+        for (int i = 1; i < 5; i++) {
+            assertEquals(results.get(i).get(), String.valueOf(i));
+        }
+        assertEquals(throttle.getInFlight(), 0);
+        assertEquals(throttle.getQueued(), 0);
+        assertEquals(throttle.getCompletedCommands(), 5);
+        assertEquals(throttle.getMaxQueued(), 5);
+        assertEquals(throttle.getQueueTime().getCount(), 5);
+        assertEquals(throttle.getCommandTime().getCount(), 5);
+    }
+
+    @Test
+    public void testImmediateCommands()
+            throws Exception
+    {
+        CommandThrottle throttle = new CommandThrottle(1);
+
+        // commands that complete immediately must not recurse once per queued command
+        List<ListenableFuture<Integer>> results = newArrayList();
+        for (int i = 0; i < 10_000; i++) {
+            results.add(throttle.submit(returning(Futures.immediateFuture(i))));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).get(), (Integer) i);
+        }
+        assertEquals(throttle.getInFlight(), 0);
+    }
+
+    @Test
+    public void testFailedCommandReleasesSlot()
+            throws Exception
+    {
+        CommandThrottle throttle = new CommandThrottle(1);
+
+        final IllegalStateException exception = new IllegalStateException("boom");
+        ListenableFuture<String> failed = throttle.submit(new Callable<ListenableFuture<String>>()
+        {
+            @Override
+            public ListenableFuture<String> call()
+            {
+                throw exception;
+            }
+        });
+        SettableFuture<String> commandFuture = SettableFuture.create();
+        ListenableFuture<String> next = throttle.submit(returning(commandFuture));
+
+        try {
+            failed.get();
+            fail("expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertSame(e.getCause(), exception);
+        }
+        assertEquals(throttle.getFailedCommands(), 1);
+
+        assertFalse(next.isDone());
+        assertEquals(throttle.getInFlight(), 1);
+        commandFuture.set("done");
+        assertTrue(next.isDone());
+        assertEquals(next.get(), "done");
+    }
+
+    private static <T> Callable<ListenableFuture<T>> returning(final ListenableFuture<T> future)
+    {
+        return new Callable<ListenableFuture<T>>()
+        {
+            @Override
+            public ListenableFuture<T> call()
+            {
+                return future;
+            }
+        };
+    }
+}
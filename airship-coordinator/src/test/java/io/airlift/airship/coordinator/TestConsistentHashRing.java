@@ -0,0 +1,86 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestConsistentHashRing
+{
+    @Test
+    public void testSingleMember()
+    {
+        ConsistentHashRing ring = new ConsistentHashRing(ImmutableList.of("a"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.getOwner(UUID.randomUUID().toString()), "a");
+        }
+    }
+
+    @Test
+    public void testOrderIndependent()
+    {
+        ConsistentHashRing ring = new ConsistentHashRing(ImmutableList.of("a", "b", "c"));
+        ConsistentHashRing reversed = new ConsistentHashRing(ImmutableList.of("c", "b", "a"));
+        for (String key : createKeys(1000)) {
+            assertEquals(reversed.getOwner(key), ring.getOwner(key));
+        }
+    }
+
+    @Test
+    public void testBalance()
+    {
+        ConsistentHashRing ring = new ConsistentHashRing(ImmutableList.of("a", "b", "c", "d"));
+        Map<String, Integer> counts = newHashMap();
+        for (String key : createKeys(10_000)) {
+            String owner = ring.getOwner(key);
+            Integer count = counts.get(owner);
+            counts.put(owner, count == null ? 1 : count + 1);
+        }
+        assertEquals(counts.keySet(), ImmutableSet.of("a", "b", "c", "d"));
+        for (int count : counts.values()) {
+            assertTrue(count > 1500 && count < 3500, "unbalanced ring: " + counts);
+        }
+    }
+
+    @Test
+    public void testAddMemberOnlyMovesKeysToNewMember()
+    {
+        ConsistentHashRing before = new ConsistentHashRing(ImmutableList.of("a", "b", "c"));
+        ConsistentHashRing after = new ConsistentHashRing(ImmutableList.of("a", "b", "c", "d"));
+
+        int moved = 0;
+        List<String> keys = createKeys(10_000);
+        for (String key : keys) {
+            String oldOwner = before.getOwner(key);
+            String newOwner = after.getOwner(key);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals(newOwner, "d");
+                moved++;
+            }
+        }
+        assertTrue(moved > 1500 && moved < 3500, "moved " + moved + " keys");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmpty()
+    {
+        new ConsistentHashRing(ImmutableList.<String>of());
+    }
+
+    private static List<String> createKeys(int count)
+    {
+        List<String> keys = newArrayList();
+        for (int i = 0; i < count; i++) {
+            keys.add("i-" + Integer.toHexString(i * 7919));
+        }
+        return keys;
+    }
+}
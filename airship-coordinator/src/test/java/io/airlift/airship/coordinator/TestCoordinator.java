@@ -3,11 +3,14 @@ package io.airlift.airship.coordinator;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import io.airlift.airship.shared.AgentLifecycleState;
 import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.AgentStatusRepresentation;
 import io.airlift.airship.shared.CoordinatorLifecycleState;
 import io.airlift.airship.shared.CoordinatorStatus;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.units.Duration;
 import org.testng.annotations.AfterMethod;
@@ -20,15 +23,22 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
 import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
 import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.AssignmentHelper.RESOLVED_APPLE_ASSIGNMENT;
 import static io.airlift.airship.shared.AssignmentHelper.SHORT_APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.RollingPolicy.rollingPolicy;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestCoordinator
 {
@@ -59,8 +69,7 @@ public class TestCoordinator
                 provisioner,
                 new InMemoryStateManager(),
                 new MockServiceInventory(),
-                new Duration(1, TimeUnit.DAYS),
-                false);
+                new CoordinatorConfig().setStatusExpiration(new Duration(1, TimeUnit.DAYS)));
     }
 
     @AfterMethod
@@ -262,6 +271,214 @@ public class TestCoordinator
         assertEquals(actual.getResources(), resources);
     }
 
+    @Test
+    public void testAgentHeartbeat()
+            throws Exception
+    {
+        String agentId = UUID.randomUUID().toString();
+        URI internalUri = URI.create("fake://agent/" + agentId + "/internal");
+        URI externalUri = URI.create("fake://agent/" + agentId + "/external");
+        String instanceId = "instance-id";
+        String location = "/unknown/location";
+        String instanceType = "instance.type";
+
+        AgentStatus status = new AgentStatus(agentId,
+                AgentLifecycleState.ONLINE,
+                instanceId,
+                internalUri,
+                externalUri,
+                location,
+                instanceType,
+                ImmutableList.<SlotStatus>of(),
+                ImmutableMap.<String, Integer>of());
+
+        // heartbeats from unknown agents are rejected
+        assertFalse(coordinator.heartbeat(AgentStatusRepresentation.from(status), null));
+
+        provisioner.addAgents(status);
+        coordinator.updateAllAgentsAndWait();
+
+        // heartbeat with new resources and verify
+        Map<String, Integer> resources = ImmutableMap.of("cpu", 8, "memory", 1024);
+        AgentStatus updated = new AgentStatus(agentId,
+                AgentLifecycleState.ONLINE,
+                null,
+                internalUri,
+                externalUri,
+                location,
+                null,
+                ImmutableList.<SlotStatus>of(),
+                resources);
+        assertTrue(coordinator.heartbeat(AgentStatusRepresentation.from(updated), null));
+
+        AgentStatus actual = coordinator.getAgent(instanceId);
+        assertEquals(actual.getAgentId(), agentId);
+        assertEquals(actual.getInstanceId(), instanceId);
+        assertEquals(actual.getInstanceType(), instanceType);
+        assertEquals(actual.getResources(), resources);
+    }
+
+    @Test
+    public void testAgentSharding()
+            throws Exception
+    {
+        List<AgentStatus> agents = newArrayList();
+        for (int i = 0; i < 20; i++) {
+            String agentId = UUID.randomUUID().toString();
+            agents.add(new AgentStatus(agentId,
+                    AgentLifecycleState.ONLINE,
+                    "agent-instance-" + i,
+                    URI.create("fake://agent/" + agentId + "/internal"),
+                    URI.create("fake://agent/" + agentId + "/external"),
+                    "/unknown/location",
+                    "instance.type",
+                    ImmutableList.<SlotStatus>of(),
+                    ImmutableMap.<String, Integer>of()));
+        }
+        provisioner.addAgents(agents);
+        coordinator.updateAllAgentsAndWait();
+        assertEquals(coordinator.getAgentShard().size(), agents.size());
+
+        // a peer that shares the polling takes over part of the agents
+        String peerInstanceId = "peer-instance-id";
+        provisioner.addCoordinators(new CoordinatorStatus(UUID.randomUUID().toString(),
+                CoordinatorLifecycleState.ONLINE,
+                peerInstanceId,
+                URI.create("fake://coordinator/" + peerInstanceId + "/internal"),
+                URI.create("fake://coordinator/" + peerInstanceId + "/external"),
+                "/unknown/location",
+                "instance.type"));
+        provisioner.setAgentShard(peerInstanceId, ImmutableList.<AgentStatusRepresentation>of());
+        coordinator.updateAllCoordinatorsAndWait();
+
+        List<AgentStatus> localAgents = coordinator.getAgentShard();
+        assertTrue(localAgents.size() > 0 && localAgents.size() < agents.size(), "agents polled locally: " + localAgents.size());
+
+        // status reported by the peer replaces the status of the agents it polls
+        Map<String, Integer> peerResources = ImmutableMap.of("cpu", 4);
+        List<AgentStatusRepresentation> peerShard = newArrayList();
+        for (AgentStatus agent : agents) {
+            peerShard.add(AgentStatusRepresentation.from(new AgentStatus(agent.getAgentId(),
+                    AgentLifecycleState.ONLINE,
+                    agent.getInstanceId(),
+                    agent.getInternalUri(),
+                    agent.getExternalUri(),
+                    agent.getLocation(),
+                    agent.getInstanceType(),
+                    ImmutableList.<SlotStatus>of(),
+                    peerResources)));
+        }
+        provisioner.setAgentShard(peerInstanceId, peerShard);
+        coordinator.updateAllCoordinatorsAndWait();
+        for (AgentStatus agent : agents) {
+            Map<String, Integer> expectedResources = localAgents.contains(agent) ? agent.getResources() : peerResources;
+            assertEquals(coordinator.getAgent(agent.getInstanceId()).getResources(), expectedResources);
+        }
+
+        // a peer that stops answering returns its agents to this coordinator
+        provisioner.setAgentShard(peerInstanceId, null);
+        coordinator.updateAllCoordinatorsAndWait();
+        assertEquals(coordinator.getAgentShard().size(), agents.size());
+    }
+
+    @Test
+    public void testReplica()
+            throws Exception
+    {
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer1/"), ImmutableMap.of("cpu", 1, "memory", 512));
+        coordinator.updateAllAgentsAndWait();
+        coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 1, APPLE_ASSIGNMENT);
+
+        // the replica copies the state of the primary
+        provisioner.addCoordinators(coordinatorStatus);
+        provisioner.setPrimary(coordinatorStatus.getInstanceId(), coordinator);
+        Coordinator replica = new Coordinator(new CoordinatorStatus(UUID.randomUUID().toString(),
+                CoordinatorLifecycleState.ONLINE,
+                "replica-instance-id",
+                URI.create("fake://replica/internal"),
+                URI.create("fake://replica/external"),
+                "/local/location",
+                "replica-instance-type"),
+                provisioner.getCoordinatorFactory(),
+                provisioner.getAgentFactory(),
+                repository,
+                provisioner,
+                new InMemoryStateManager(),
+                new MockServiceInventory(),
+                new CoordinatorConfig()
+                        .setStatusExpiration(new Duration(1, TimeUnit.DAYS))
+                        .setReplicaOf(coordinatorStatus.getInstanceId()));
+        assertEquals(replica.getReplicaOf(), coordinatorStatus.getInstanceId());
+        assertEquals(replica.getAgents(), coordinator.getAgents());
+        assertEquals(replica.getAllSlotStatus(), coordinator.getAllSlotStatus());
+        assertEquals(replica.getLocalAgentCount(), 0);
+        assertNull(replica.getAgentShard());
+
+        // only changed agents are sent once the replica is current
+        Map<String, String> agentVersions = newHashMap();
+        for (AgentStatus agent : replica.getAgents()) {
+            agentVersions.put(agent.getInstanceId(), agent.getVersion());
+        }
+        assertTrue(coordinator.getChangedAgents(agentVersions).isEmpty());
+
+        // changes on the primary reach the replica on its next update
+        coordinator.setState(STOPPED, Predicates.<SlotStatus>alwaysTrue(), null);
+        replica.updateAllCoordinatorsAndWait();
+        assertEquals(replica.getAllSlotStatus(), coordinator.getAllSlotStatus());
+        assertEquals(ImmutableSet.copyOf(replica.getExpectedStates()), ImmutableSet.copyOf(coordinator.getExpectedStates()));
+
+        // deleted expected states are removed from the replica
+        coordinator.terminate(Predicates.<SlotStatus>alwaysTrue(), null);
+        replica.updateAllCoordinatorsAndWait();
+        assertTrue(coordinator.getExpectedStates().isEmpty());
+        assertTrue(replica.getExpectedStates().isEmpty());
+
+        // replicas are read-only
+        try {
+            replica.setState(RUNNING, Predicates.<SlotStatus>alwaysTrue(), null);
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testReplicaExpiration()
+            throws Exception
+    {
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer1/"));
+        coordinator.updateAllAgentsAndWait();
+
+        provisioner.addCoordinators(coordinatorStatus);
+        provisioner.setPrimary(coordinatorStatus.getInstanceId(), coordinator);
+        Coordinator replica = new Coordinator(new CoordinatorStatus(UUID.randomUUID().toString(),
+                CoordinatorLifecycleState.ONLINE,
+                "replica-instance-id",
+                URI.create("fake://replica/internal"),
+                URI.create("fake://replica/external"),
+                "/local/location",
+                "replica-instance-type"),
+                provisioner.getCoordinatorFactory(),
+                provisioner.getAgentFactory(),
+                repository,
+                provisioner,
+                new InMemoryStateManager(),
+                new MockServiceInventory(),
+                new CoordinatorConfig()
+                        .setStatusExpiration(new Duration(10, TimeUnit.MILLISECONDS))
+                        .setReplicaOf(coordinatorStatus.getInstanceId()));
+        assertEquals(Iterables.getOnlyElement(replica.getAgents()).getState(), AgentLifecycleState.ONLINE);
+
+        // the replicated status is kept until replication has failed for longer than the status expiration
+        provisioner.removeCoordinators(coordinatorStatus.getInstanceId());
+        replica.updateAllCoordinatorsAndWait();
+        assertEquals(Iterables.getOnlyElement(replica.getAgents()).getState(), AgentLifecycleState.ONLINE);
+
+        Thread.sleep(50);
+        replica.updateAllCoordinatorsAndWait();
+        assertEquals(Iterables.getOnlyElement(replica.getAgents()).getState(), AgentLifecycleState.OFFLINE);
+    }
+
     @Test
     public void testAgentProvision()
             throws Exception
@@ -326,6 +543,38 @@ public class TestCoordinator
         assertEquals(coordinator.getAgent(instanceId).getState(), AgentLifecycleState.ONLINE);
     }
 
+    @Test
+    public void testFleetSnapshot()
+    {
+        URI agentUri = URI.create("fake://appleServer1/");
+        provisioner.addAgent(UUID.randomUUID().toString(), agentUri, ImmutableMap.of("cpu", 1, "memory", 512));
+        coordinator.updateAllAgentsAndWait();
+
+        // snapshot is reused while nothing changes
+        FleetSnapshot snapshot = coordinator.getFleetSnapshot();
+        assertEquals(snapshot.getAgents().size(), 1);
+        assertTrue(snapshot.getSlots().isEmpty());
+        assertTrue(coordinator.getFleetSnapshot() == snapshot);
+
+        // including across poll cycles
+        coordinator.updateAllAgentsAndWait();
+        assertTrue(coordinator.getFleetSnapshot() == snapshot);
+
+        // installing a slot produces a new snapshot
+        coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 1, APPLE_ASSIGNMENT);
+        FleetSnapshot updated = coordinator.getFleetSnapshot();
+        assertFalse(updated == snapshot);
+        assertTrue(updated.getGeneration() > snapshot.getGeneration());
+        assertEquals(updated.getSlots().size(), 1);
+        assertEquals(updated.getSlotIds(), ImmutableList.of(updated.getSlots().get(0).getId()));
+        assertFalse(updated.getSlotsVersion().equals(snapshot.getSlotsVersion()));
+
+        // id tries are carried forward from the previous snapshot
+        assertEquals(snapshot.getSlotIdTrie().size(), 0);
+        assertEquals(updated.getSlotIdTrie().getMatches(""), ImmutableList.of(updated.getSlots().get(0).getId().toString()));
+        assertEquals(updated.getAgentIdTrie().getMatches(""), updated.getAgentIds());
+    }
+
     @Test
     public void testInstallWithinShortBinarySpec()
     {
@@ -400,6 +649,103 @@ public class TestCoordinator
         coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 1, BANANA_ASSIGNMENT);
     }
 
+    @Test
+    public void testRollingStateChange()
+    {
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer1/"));
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer2/"));
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer3/"));
+        coordinator.updateAllAgentsAndWait();
+        assertEquals(coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 3, APPLE_ASSIGNMENT).size(), 3);
+
+        List<SlotStatus> slots = coordinator.setState(RUNNING,
+                Predicates.<SlotStatus>alwaysTrue(),
+                null,
+                rollingPolicy("50%", RollingPolicy.DEFAULT_BATCH_TIMEOUT, true, 0));
+
+        assertEquals(slots.size(), 3);
+        for (SlotStatus slot : slots) {
+            assertEquals(slot.getState(), RUNNING);
+        }
+        for (SlotStatus slot : coordinator.getAllSlotStatus()) {
+            assertEquals(slot.getState(), RUNNING);
+            assertEquals(slot.getExpectedState(), RUNNING);
+        }
+    }
+
+    @Test
+    public void testRollingStateChangeFailures()
+    {
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer1/"));
+        coordinator.updateAllAgentsAndWait();
+        coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 1, APPLE_ASSIGNMENT);
+
+        // unassigned slots can not be started
+        String instanceId = "unassigned-instance";
+        provisioner.addAgents(new AgentStatus(UUID.randomUUID().toString(),
+                AgentLifecycleState.ONLINE,
+                instanceId,
+                URI.create("fake://unassigned/"),
+                URI.create("fake://unassigned/"),
+                "/mock/unassigned/agent",
+                "instance.type",
+                ImmutableList.of(createSlotStatus(UUID.randomUUID(),
+                        URI.create("fake://unassigned/v1/agent/slot/empty"),
+                        URI.create("fake://unassigned/v1/agent/slot/empty"),
+                        instanceId,
+                        "/mock/unassigned/agent/empty",
+                        STOPPED,
+                        null,
+                        "/empty",
+                        ImmutableMap.<String, Integer>of())),
+                ImmutableMap.<String, Integer>of()));
+        coordinator.updateAllAgentsAndWait();
+
+        try {
+            coordinator.setState(RUNNING, Predicates.<SlotStatus>alwaysTrue(), null, rollingPolicy("1", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0));
+            fail("expected rolling command to abort");
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Rolling command aborted after 1 failed slots"), e.getMessage());
+        }
+
+        // tolerating the failure lets the other slot start
+        List<SlotStatus> slots = coordinator.setState(RUNNING, Predicates.<SlotStatus>alwaysTrue(), null, rollingPolicy("1", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 1));
+        assertEquals(slots.size(), 1);
+        assertEquals(slots.get(0).getAssignment(), RESOLVED_APPLE_ASSIGNMENT);
+        assertEquals(slots.get(0).getState(), RUNNING);
+    }
+
+    @Test
+    public void testRolloutCanceledWithoutClient()
+            throws Exception
+    {
+        coordinator = new Coordinator(coordinatorStatus,
+                provisioner.getCoordinatorFactory(),
+                provisioner.getAgentFactory(),
+                repository,
+                provisioner,
+                new InMemoryStateManager(),
+                new MockServiceInventory(),
+                new CoordinatorConfig().setStatusExpiration(new Duration(1, TimeUnit.DAYS)).setRolloutClientTimeout(new Duration(0, TimeUnit.MILLISECONDS)));
+
+        provisioner.addAgent(UUID.randomUUID().toString(), URI.create("fake://appleServer1/"));
+        coordinator.updateAllAgentsAndWait();
+        assertEquals(coordinator.install(Predicates.<AgentStatus>alwaysTrue(), 1, APPLE_ASSIGNMENT).size(), 1);
+
+        // no client polls the rollout, so it is canceled before the first batch
+        Rollout rollout = coordinator.startSetState(RUNNING, Predicates.<SlotStatus>alwaysTrue(), null, rollingPolicy("1", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0));
+        while (rollout.getState() == Rollout.State.RUNNING) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(rollout.getState(), Rollout.State.CANCELED);
+        assertEquals(rollout.getProcessedSlots(), 0);
+        assertTrue(rollout.getSlots().isEmpty());
+        for (SlotStatus slot : coordinator.getAllSlotStatus()) {
+            assertEquals(slot.getState(), STOPPED);
+        }
+    }
+
     private void assertAppleSlot(SlotStatus slot)
     {
         assertEquals(slot.getAssignment(), RESOLVED_APPLE_ASSIGNMENT);
@@ -152,7 +152,7 @@ public class TestCoordinatorAssignmentResource
     private void testUpgrade(UpgradeVersions upgradeVersions)
     {
         UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/assignment?host=apple*");
-        Response response = resource.upgrade(upgradeVersions, uriInfo, null, false);
+        Response response = resource.upgrade(upgradeVersions, uriInfo, null, false, null);
 
         AgentStatus agentStatus = coordinator.getAgentByAgentId(agentId);
         SlotStatus apple1Status = agentStatus.getSlotStatus(apple1SlotId);
@@ -177,14 +177,14 @@ public class TestCoordinatorAssignmentResource
         UpgradeVersions upgradeVersions = new UpgradeVersions("2.0", "2.0");
 
         UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/assignment?state=stopped");
-        resource.upgrade(upgradeVersions, uriInfo, null, false);
+        resource.upgrade(upgradeVersions, uriInfo, null, false, null);
     }
 
     @Test
     public void testUpgradeDifferentBinaryVersion()
     {
         // upgrade apple slot 1 to binary version 2.0, but leave everything else unchanged
-        resource.upgrade(new UpgradeVersions("2.0", null), MockUriInfo.from("http://localhost/v1/slot/assignment?uuid=" + apple1SlotId), null, false);
+        resource.upgrade(new UpgradeVersions("2.0", null), MockUriInfo.from("http://localhost/v1/slot/assignment?uuid=" + apple1SlotId), null, false, null);
         AgentStatus agentStatus = coordinator.getAgentByAgentId(agentId);
         SlotStatus apple1Status = agentStatus.getSlotStatus(apple1SlotId);
         SlotStatus apple2Status = agentStatus.getSlotStatus(apple2SlotId);
@@ -196,7 +196,7 @@ public class TestCoordinatorAssignmentResource
         // upgrade all apple slots to binary and config version2.0
         UpgradeVersions upgradeVersions = new UpgradeVersions("2.0", "2.0");
         UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/assignment?host=apple*");
-        Response response = resource.upgrade(upgradeVersions, uriInfo, null, false);
+        Response response = resource.upgrade(upgradeVersions, uriInfo, null, false, null);
 
         coordinator.getAgentByAgentId(agentId);
         agentStatus = coordinator.getAgentByAgentId(agentId);
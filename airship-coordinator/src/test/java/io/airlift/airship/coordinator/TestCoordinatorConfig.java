@@ -18,6 +18,15 @@ public class TestCoordinatorConfig
     {
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(CoordinatorConfig.class)
                         .setStatusExpiration(new Duration(5, TimeUnit.SECONDS))
+                        .setAgentHeartbeatTimeout(new Duration(1, TimeUnit.MINUTES))
+                        .setAgentFastPollInterval(new Duration(1, TimeUnit.SECONDS))
+                        .setAgentMaxPollInterval(new Duration(5, TimeUnit.MINUTES))
+                        .setExpectedStateRefreshEnabled(true)
+                        .setExpectedStateRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                        .setMaxCommandsInFlight(100)
+                        .setRolloutClientTimeout(new Duration(1, TimeUnit.MINUTES))
+                        .setAgentShardingEnabled(true)
+                        .setReplicaOf(null)
                         .setServiceInventoryCacheDir("service-inventory-cache")
                         .setAllowDuplicateInstallationsOnAnAgent(false)
                         .setRepositories("")
@@ -33,6 +42,15 @@ public class TestCoordinatorConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("coordinator.status.expiration", "1m")
+                .put("coordinator.agent.heartbeat-timeout", "5m")
+                .put("coordinator.agent.fast-poll-interval", "2s")
+                .put("coordinator.agent.max-poll-interval", "10m")
+                .put("coordinator.expected-state.refresh-enabled", "false")
+                .put("coordinator.expected-state.refresh-interval", "30s")
+                .put("coordinator.command.max-in-flight", "10")
+                .put("coordinator.rollout.client-timeout", "2m")
+                .put("coordinator.agent.sharding-enabled", "false")
+                .put("coordinator.replica-of", "primary-instance-id")
                 .put("coordinator.service-inventory.cache-dir", "si-cache")
                 .put("coordinator.allow-duplicate-installations-on-an-agent", "true")
                 .put("coordinator.repository", "repo1,repo2,repo3")
@@ -44,6 +62,15 @@ public class TestCoordinatorConfig
 
         CoordinatorConfig expected = new CoordinatorConfig()
                 .setStatusExpiration(new Duration(1, TimeUnit.MINUTES))
+                .setAgentHeartbeatTimeout(new Duration(5, TimeUnit.MINUTES))
+                .setAgentFastPollInterval(new Duration(2, TimeUnit.SECONDS))
+                .setAgentMaxPollInterval(new Duration(10, TimeUnit.MINUTES))
+                .setExpectedStateRefreshEnabled(false)
+                .setExpectedStateRefreshInterval(new Duration(30, TimeUnit.SECONDS))
+                .setMaxCommandsInFlight(10)
+                .setRolloutClientTimeout(new Duration(2, TimeUnit.MINUTES))
+                .setAgentShardingEnabled(false)
+                .setReplicaOf("primary-instance-id")
                 .setServiceInventoryCacheDir("si-cache")
                 .setAllowDuplicateInstallationsOnAnAgent(true)
                 .setRepositories(ImmutableList.of("repo1", "repo2", "repo3"))
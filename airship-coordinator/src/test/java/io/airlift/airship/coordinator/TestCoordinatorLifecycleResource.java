@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.MockUriInfo;
+import io.airlift.airship.shared.RollingPolicy;
 import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import io.airlift.airship.shared.SlotStatusRepresentation;
@@ -44,6 +45,7 @@ import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
 import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
 import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.ExtraAssertions.assertEqualsNoOrder;
+import static io.airlift.airship.shared.RollingPolicy.rollingPolicy;
 import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
@@ -147,49 +149,49 @@ public class TestCoordinatorLifecycleResource
         assertSlotState(bananaSlotId, STOPPED);
 
         // stopped.start => running
-        assertOkResponse(resource.setState("running", uriInfo, null), RUNNING, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("running", uriInfo, null, null), RUNNING, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, RUNNING);
         assertSlotState(apple2SlotId, RUNNING);
         assertSlotState(bananaSlotId, STOPPED);
 
         // running.start => running
-        assertOkResponse(resource.setState("running", uriInfo, null), RUNNING, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("running", uriInfo, null, null), RUNNING, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, RUNNING);
         assertSlotState(apple2SlotId, RUNNING);
         assertSlotState(bananaSlotId, STOPPED);
 
         // running.stop => stopped
-        assertOkResponse(resource.setState("stopped", uriInfo, null), STOPPED, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("stopped", uriInfo, null, null), STOPPED, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, STOPPED);
         assertSlotState(apple2SlotId, STOPPED);
         assertSlotState(bananaSlotId, STOPPED);
 
         // stopped.stop => stopped
-        assertOkResponse(resource.setState("stopped", uriInfo, null), STOPPED, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("stopped", uriInfo, null, null), STOPPED, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, STOPPED);
         assertSlotState(apple2SlotId, STOPPED);
         assertSlotState(bananaSlotId, STOPPED);
 
         // stopped.restart => running
-        assertOkResponse(resource.setState("restarting", uriInfo, null), RUNNING, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("restarting", uriInfo, null, null), RUNNING, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, RUNNING);
         assertSlotState(apple2SlotId, RUNNING);
         assertSlotState(bananaSlotId, STOPPED);
 
         // running.restart => running
-        assertOkResponse(resource.setState("restarting", uriInfo, null), RUNNING, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("restarting", uriInfo, null, null), RUNNING, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, RUNNING);
         assertSlotState(apple2SlotId, RUNNING);
         assertSlotState(bananaSlotId, STOPPED);
 
         // running.kill => stopped
-        assertOkResponse(resource.setState("killing", uriInfo, null), STOPPED, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("killing", uriInfo, null, null), STOPPED, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, STOPPED);
         assertSlotState(apple2SlotId, STOPPED);
         assertSlotState(bananaSlotId, STOPPED);
 
         // stopped.kill => stopped
-        assertOkResponse(resource.setState("killing", uriInfo, null), STOPPED, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("killing", uriInfo, null, null), STOPPED, apple1SlotId, apple2SlotId);
         assertSlotState(apple1SlotId, STOPPED);
         assertSlotState(apple2SlotId, STOPPED);
         assertSlotState(bananaSlotId, STOPPED);
@@ -198,7 +200,7 @@ public class TestCoordinatorLifecycleResource
     @Test
     public void testSetStateUnknownState()
     {
-        Response response = resource.setState("unknown", uriInfo, null);
+        Response response = resource.setState("unknown", uriInfo, null, null);
         assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
         assertNull(response.getEntity());
     }
@@ -206,13 +208,13 @@ public class TestCoordinatorLifecycleResource
     @Test(expectedExceptions = NullPointerException.class)
     public void testSetStateNullState()
     {
-        resource.setState(null, uriInfo, null);
+        resource.setState(null, uriInfo, null, null);
     }
 
     @Test(expectedExceptions = InvalidSlotFilterException.class)
     public void testSetStateNoFilter()
     {
-        resource.setState("running", MockUriInfo.from("http://localhost/v1/slot/lifecycle"), null);
+        resource.setState("running", MockUriInfo.from("http://localhost/v1/slot/lifecycle"), null, null);
     }
 
     @Test
@@ -220,7 +222,7 @@ public class TestCoordinatorLifecycleResource
     {
         UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/lifecycle?binary=*:apple:*");
         try {
-            resource.setState("running", uriInfo, "invalid-version");
+            resource.setState("running", uriInfo, "invalid-version", null);
             fail("Expected VersionConflictException");
         }
         catch (VersionConflictException e) {
@@ -234,7 +236,47 @@ public class TestCoordinatorLifecycleResource
     {
         UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/lifecycle?binary=*:apple:*");
         String slotsVersion = VersionsUtil.createSlotsVersion(coordinator.getAllSlotsStatus(SlotFilterBuilder.build(uriInfo, false, ImmutableList.<UUID>of())));
-        assertOkResponse(resource.setState("running", uriInfo, slotsVersion), RUNNING, apple1SlotId, apple2SlotId);
+        assertOkResponse(resource.setState("running", uriInfo, slotsVersion, null), RUNNING, apple1SlotId, apple2SlotId);
+    }
+
+    @Test
+    public void testRollingSetState()
+            throws Exception
+    {
+        UriInfo uriInfo = MockUriInfo.from("http://localhost/v1/slot/lifecycle?binary=*:apple:*");
+        Response response = resource.setState("running", uriInfo, null, rollingPolicy("1", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0));
+        assertEquals(response.getStatus(), Response.Status.ACCEPTED.getStatusCode());
+
+        RolloutRepresentation rollout = (RolloutRepresentation) response.getEntity();
+        assertEquals(response.getMetadata().getFirst("Location"), URI.create("http://localhost/v1/slot/rollout/" + rollout.getId()));
+        assertEquals(rollout.getTotalSlots(), 2);
+
+        // poll the rollout until the last batch has settled
+        CoordinatorRolloutResource rolloutResource = new CoordinatorRolloutResource(coordinator, MOCK_REPO);
+        while (rollout.getState() == Rollout.State.RUNNING) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            rollout = (RolloutRepresentation) rolloutResource.getRollout(rollout.getId()).getEntity();
+        }
+        assertEquals(rollout.getState(), Rollout.State.SUCCEEDED);
+        assertEquals(rollout.getProcessedSlots(), 2);
+        assertEquals(rollout.getFailedSlots(), 0);
+        assertEquals(rollout.getSlots().size(), 2);
+        assertNull(rollout.getError());
+
+        assertSlotState(apple1SlotId, RUNNING);
+        assertSlotState(apple2SlotId, RUNNING);
+        assertSlotState(bananaSlotId, STOPPED);
+
+        // a finished rollout can no longer be canceled
+        assertEquals(((RolloutRepresentation) rolloutResource.cancelRollout(rollout.getId()).getEntity()).getState(), Rollout.State.SUCCEEDED);
+    }
+
+    @Test
+    public void testUnknownRollout()
+    {
+        CoordinatorRolloutResource rolloutResource = new CoordinatorRolloutResource(coordinator, MOCK_REPO);
+        assertEquals(rolloutResource.getRollout("unknown").getStatus(), Response.Status.NOT_FOUND.getStatusCode());
+        assertEquals(rolloutResource.cancelRollout("unknown").getStatus(), Response.Status.NOT_FOUND.getStatusCode());
     }
 
     private void assertOkResponse(Response response, SlotLifecycleState state, UUID... slotIds)
@@ -2,6 +2,7 @@ package io.airlift.airship.coordinator;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.Assignment;
@@ -32,6 +33,7 @@ import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.ExtraAssertions.assertEqualsNoOrder;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+import static io.airlift.airship.shared.VersionsUtil.AIRSHIP_NEXT_CURSOR_HEADER;
 import static io.airlift.airship.shared.Strings.shortestUniquePrefix;
 import static java.lang.Math.min;
 import static java.util.Arrays.asList;
@@ -111,7 +113,7 @@ public class TestCoordinatorSlotResource
         URI requestUri = URI.create("http://localhost/v1/slot");
         Response response = resource.getAllSlots(MockUriInfo.from(requestUri));
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
-        assertEqualsNoOrder((Iterable<?>) response.getEntity(),
+        assertEqualsNoOrder(((JsonStreamingOutput<?>) response.getEntity()).getValues(),
                 ImmutableList.of(SlotStatusRepresentation.from(slot1, prefixSize, repository), SlotStatusRepresentation.from(slot2, prefixSize, repository)));
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
     }
@@ -154,17 +156,68 @@ public class TestCoordinatorSlotResource
         URI requestUri = URI.create("http://localhost/v1/slot?host=foo");
         Response response = resource.getAllSlots(MockUriInfo.from(requestUri));
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
-        assertEqualsNoOrder((Iterable<?>) response.getEntity(), ImmutableList.of(SlotStatusRepresentation.from(slot1, prefixSize, repository)));
+        assertEqualsNoOrder(((JsonStreamingOutput<?>) response.getEntity()).getValues(), ImmutableList.of(SlotStatusRepresentation.from(slot1, prefixSize, repository)));
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
     }
 
+    @Test
+    public void testGetAllSlotsPaged()
+    {
+        SlotStatus slot1 = createSlotStatus(UUID.fromString("00000000-0000-0000-0000-000000000001"),
+                URI.create("fake://localhost/v1/agent/slot/slot1"),
+                URI.create("fake://localhost/v1/agent/slot/slot1"),
+                "instance-id",
+                "/location",
+                STOPPED,
+                APPLE_ASSIGNMENT,
+                "/slot1",
+                ImmutableMap.<String, Integer>of());
+        SlotStatus slot2 = createSlotStatus(UUID.fromString("00000000-0000-0000-0000-000000000002"),
+                URI.create("fake://localhost/v1/agent/slot/slot2"),
+                URI.create("fake://localhost/v1/agent/slot/slot2"),
+                "instance-id",
+                "/location",
+                STOPPED,
+                APPLE_ASSIGNMENT,
+                "/slot2",
+                ImmutableMap.<String, Integer>of());
+        AgentStatus agentStatus = new AgentStatus(UUID.randomUUID().toString(),
+                ONLINE,
+                "instance-id",
+                URI.create("fake://foo/"),
+                URI.create("fake://foo/"),
+                "/unknown/location",
+                "instance.type",
+                ImmutableList.of(slot2, slot1),
+                ImmutableMap.<String, Integer>of());
+        provisioner.addAgents(agentStatus);
+        coordinator.updateAllAgentsAndWait();
+
+        int prefixSize = shortestUniquePrefix(asList(slot1.getId().toString(), slot2.getId().toString()), MIN_PREFIX_SIZE);
+
+        // first page
+        Response response = resource.getAllSlots(MockUriInfo.from(URI.create("http://localhost/v1/slot?limit=1&fields=id,status")));
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        JsonStreamingOutput<?> output = (JsonStreamingOutput<?>) response.getEntity();
+        assertEquals(ImmutableList.copyOf(output.getValues()), ImmutableList.of(SlotStatusRepresentation.from(slot1, prefixSize, repository)));
+        assertEquals(output.getFields(), ImmutableSet.of("id", "status"));
+        String cursor = (String) response.getMetadata().getFirst(AIRSHIP_NEXT_CURSOR_HEADER);
+        assertEquals(cursor, slot1.getId().toString());
+
+        // last page
+        response = resource.getAllSlots(MockUriInfo.from(URI.create("http://localhost/v1/slot?limit=1&after=" + cursor)));
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(ImmutableList.copyOf(((JsonStreamingOutput<?>) response.getEntity()).getValues()), ImmutableList.of(SlotStatusRepresentation.from(slot2, prefixSize, repository)));
+        assertNull(response.getMetadata().get(AIRSHIP_NEXT_CURSOR_HEADER));
+    }
+
     @Test
     public void testGetAllSlotEmpty()
     {
         URI requestUri = URI.create("http://localhost/v1/slot?state=unknown");
         Response response = resource.getAllSlots(MockUriInfo.from(requestUri));
         assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
-        assertEqualsNoOrder((Iterable<?>) response.getEntity(), ImmutableList.of());
+        assertEqualsNoOrder(((JsonStreamingOutput<?>) response.getEntity()).getValues(), ImmutableList.of());
         assertNull(response.getMetadata().get("Content-Type")); // content type is set by jersey based on @Produces
     }
 
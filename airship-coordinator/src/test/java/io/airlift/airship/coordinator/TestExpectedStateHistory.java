@@ -0,0 +1,93 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.airship.coordinator.ExpectedStateHistory.Changes;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestExpectedStateHistory
+{
+    private final ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+    private final ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, BANANA_ASSIGNMENT);
+
+    @Test
+    public void testInitialChangesAreFull()
+    {
+        ExpectedStateHistory history = new ExpectedStateHistory();
+        Changes changes = history.getChanges(ImmutableList.of(apple, banana), null, 0);
+        assertTrue(changes.isFull());
+        assertEquals(ImmutableSet.copyOf(changes.getChanged()), ImmutableSet.of(apple, banana));
+        assertTrue(changes.getDeleted().isEmpty());
+    }
+
+    @Test
+    public void testGenerationOnlyChangesWithStates()
+    {
+        ExpectedStateHistory history = new ExpectedStateHistory();
+        long generation = history.update(ImmutableList.of(apple, banana));
+
+        // an equal copy of the states
+        assertEquals(history.update(ImmutableList.of(apple, banana)), generation);
+
+        ExpectedSlotStatus stoppedApple = new ExpectedSlotStatus(apple.getId(), STOPPED, APPLE_ASSIGNMENT);
+        long changed = history.update(ImmutableList.of(stoppedApple, banana));
+        assertTrue(changed > generation);
+        assertEquals(history.update(ImmutableList.of(stoppedApple, banana)), changed);
+        assertTrue(history.update(ImmutableList.of(stoppedApple)) > changed);
+    }
+
+    @Test
+    public void testChangesSinceGeneration()
+    {
+        ExpectedStateHistory history = new ExpectedStateHistory();
+        Changes initial = history.getChanges(ImmutableList.of(apple, banana), null, 0);
+
+        // nothing changed
+        Changes changes = history.getChanges(ImmutableList.of(apple, banana), initial.getEpoch(), initial.getGeneration());
+        assertFalse(changes.isFull());
+        assertEquals(changes.getGeneration(), initial.getGeneration());
+        assertTrue(changes.getChanged().isEmpty());
+        assertTrue(changes.getDeleted().isEmpty());
+
+        // only the changed state is sent
+        ExpectedSlotStatus stoppedApple = new ExpectedSlotStatus(apple.getId(), STOPPED, APPLE_ASSIGNMENT);
+        changes = history.getChanges(ImmutableList.of(stoppedApple, banana), initial.getEpoch(), initial.getGeneration());
+        assertFalse(changes.isFull());
+        assertEquals(changes.getChanged(), ImmutableList.of(stoppedApple));
+        assertTrue(changes.getDeleted().isEmpty());
+
+        // deleted states are sent by id
+        Changes deleted = history.getChanges(ImmutableList.of(stoppedApple), changes.getEpoch(), changes.getGeneration());
+        assertFalse(deleted.isFull());
+        assertTrue(deleted.getChanged().isEmpty());
+        assertEquals(deleted.getDeleted(), ImmutableList.of(banana.getId()));
+
+        // a replica further behind gets both changes
+        Changes both = history.getChanges(ImmutableList.of(stoppedApple), initial.getEpoch(), initial.getGeneration());
+        assertFalse(both.isFull());
+        assertEquals(both.getChanged(), ImmutableList.of(stoppedApple));
+        assertEquals(both.getDeleted(), ImmutableList.of(banana.getId()));
+    }
+
+    @Test
+    public void testUnknownEpochIsFull()
+    {
+        ExpectedStateHistory history = new ExpectedStateHistory();
+        Changes initial = history.getChanges(ImmutableList.of(apple), null, 0);
+
+        // generations from another process or from the future are not comparable
+        assertTrue(history.getChanges(ImmutableList.of(apple), UUID.randomUUID().toString(), initial.getGeneration()).isFull());
+        assertTrue(history.getChanges(ImmutableList.of(apple), initial.getEpoch(), initial.getGeneration() + 1).isFull());
+    }
+}
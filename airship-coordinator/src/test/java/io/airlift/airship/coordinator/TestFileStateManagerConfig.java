@@ -13,6 +13,8 @@ public class TestFileStateManagerConfig
     {
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(FileStateManagerConfig.class)
                         .setExpectedStateDir("expected-state")
+                        .setJournalEnabled(false)
+                        .setJournalCompactionThreshold(1000)
         );
     }
 
@@ -21,10 +23,14 @@ public class TestFileStateManagerConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("coordinator.expected-state.dir", "state")
+                .put("coordinator.expected-state.journal.enabled", "true")
+                .put("coordinator.expected-state.journal.compaction-threshold", "50")
                 .build();
 
         FileStateManagerConfig expected = new FileStateManagerConfig()
-                .setExpectedStateDir("state");
+                .setExpectedStateDir("state")
+                .setJournalEnabled(true)
+                .setJournalCompactionThreshold(50);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -2,7 +2,10 @@ package io.airlift.airship.coordinator;
 
 import org.testng.annotations.Test;
 
+import java.util.regex.PatternSyntaxException;
+
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class TestGlobPredicate
@@ -52,4 +55,16 @@ public class TestGlobPredicate
         assertFalse(globPredicate.apply("*.{txt,html}"));
         assertFalse(globPredicate.apply("readme.txthtml"));
     }
+
+    @Test
+    public void testPatternsAreShared()
+    {
+        assertSame(GlobPredicate.globToPattern("*.{txt,html}"), GlobPredicate.globToPattern("*.{txt,html}"));
+    }
+
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void testInvalidGlob()
+    {
+        new GlobPredicate("[abc");
+    }
 }
@@ -0,0 +1,122 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import io.airlift.airship.shared.Strings;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestIdTrie
+{
+    @Test
+    public void testEmpty()
+    {
+        assertEquals(IdTrie.EMPTY.size(), 0);
+        assertEquals(IdTrie.EMPTY.shortestUniquePrefix(4), 4);
+        assertEquals(IdTrie.EMPTY.getMatches("a"), ImmutableList.of());
+        assertFalse(IdTrie.EMPTY.contains("a"));
+    }
+
+    @Test
+    public void testMatches()
+    {
+        IdTrie trie = IdTrie.copyOf(ImmutableList.of("abcd", "abce", "abx", "b", "ABCDEF"));
+        assertEquals(trie.size(), 5);
+        assertEquals(trie.getMatches(""), ImmutableList.of("abcd", "ABCDEF", "abce", "abx", "b"));
+        assertEquals(trie.getMatches("ab"), ImmutableList.of("abcd", "ABCDEF", "abce", "abx"));
+        assertEquals(trie.getMatches("ABC"), ImmutableList.of("abcd", "ABCDEF", "abce"));
+        assertEquals(trie.getMatches("abcd"), ImmutableList.of("abcd", "ABCDEF"));
+        assertEquals(trie.getMatches("abcde"), ImmutableList.of("ABCDEF"));
+        assertEquals(trie.getMatches("abcdx"), ImmutableList.of());
+        assertEquals(trie.getMatches("c"), ImmutableList.of());
+        assertTrue(trie.contains("abcdef"));
+        assertFalse(trie.contains("abc"));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        IdTrie trie = IdTrie.copyOf(ImmutableList.of("abcd", "abce", "abx"));
+        assertSame(trie.remove("abc"), trie);
+        assertSame(trie.remove("zzz"), trie);
+
+        IdTrie removed = trie.remove("abce");
+        assertEquals(removed.size(), 2);
+        assertEquals(removed.getMatches("ab"), ImmutableList.of("abcd", "abx"));
+        assertEquals(removed.shortestUniquePrefix(1), 3);
+
+        // the original trie is unchanged
+        assertEquals(trie.size(), 3);
+        assertEquals(trie.shortestUniquePrefix(1), 4);
+
+        removed = removed.remove("abx").remove("abcd");
+        assertEquals(removed.size(), 0);
+        assertEquals(removed.getMatches(""), ImmutableList.of());
+    }
+
+    @Test
+    public void testShortestUniquePrefix()
+    {
+        assertEquals(IdTrie.copyOf(ImmutableList.of("abc")).shortestUniquePrefix(1), 1);
+        assertEquals(IdTrie.copyOf(ImmutableList.of("abc", "abd")).shortestUniquePrefix(1), 3);
+        assertEquals(IdTrie.copyOf(ImmutableList.of("abc", "abcd")).shortestUniquePrefix(1), 4);
+        assertEquals(IdTrie.copyOf(ImmutableList.of("abc", "xyz")).shortestUniquePrefix(1), 1);
+        assertEquals(IdTrie.copyOf(ImmutableList.of("abc", "xyz")).shortestUniquePrefix(4), 4);
+    }
+
+    @Test
+    public void testMatchesStrings()
+    {
+        Random random = new Random(42);
+        List<String> ids = Lists.newArrayList();
+        IdTrie trie = IdTrie.EMPTY;
+        for (int i = 0; i < 500; i++) {
+            // short random hex ids share long prefixes more often than uuids
+            String id = Integer.toHexString(random.nextInt(1 << 20));
+            if (!ids.contains(id)) {
+                ids.add(id);
+                trie = trie.add(id);
+            }
+            if (i % 3 == 0) {
+                String removed = ids.remove(random.nextInt(ids.size()));
+                trie = trie.remove(removed);
+            }
+            assertEquals(trie.size(), ids.size());
+            assertEquals(trie.shortestUniquePrefix(1), Strings.shortestUniquePrefix(ids, 1));
+        }
+
+        for (String id : ids) {
+            String prefix = id.substring(0, Math.min(2, id.length()));
+            List<String> expected = Lists.newArrayList();
+            for (String other : ids) {
+                if (other.startsWith(prefix)) {
+                    expected.add(other);
+                }
+            }
+            assertEquals(ImmutableList.copyOf(trie.getMatches(prefix)), Ordering.natural().sortedCopy(expected));
+        }
+    }
+
+    @Test
+    public void testUuids()
+    {
+        List<String> ids = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        IdTrie trie = IdTrie.copyOf(ids);
+        assertEquals(trie.shortestUniquePrefix(4), Strings.shortestUniquePrefix(ids, 4));
+        for (String id : ids) {
+            assertEquals(trie.getMatches(id.substring(0, trie.shortestUniquePrefix(4))), ImmutableList.of(id));
+        }
+    }
+}
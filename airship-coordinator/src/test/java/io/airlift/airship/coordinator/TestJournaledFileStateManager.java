@@ -0,0 +1,180 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import io.airlift.json.JsonCodec;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.FileUtils.createTempDir;
+import static io.airlift.airship.shared.FileUtils.deleteRecursively;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestJournaledFileStateManager
+{
+    private final JsonCodec<ExpectedSlotStatus> codec = JsonCodec.jsonCodec(ExpectedSlotStatus.class);
+    private final ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+    private final ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), STOPPED, BANANA_ASSIGNMENT);
+    private File dataDir;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        dataDir = createTempDir("expected-state");
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(dataDir);
+    }
+
+    @Test
+    public void testReplay()
+    {
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        stateManager.setExpectedState(apple);
+        stateManager.setExpectedState(banana);
+        stateManager.deleteExpectedState(apple.getId());
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+        stateManager.close();
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+        stateManager.close();
+    }
+
+    @Test
+    public void testCompaction()
+    {
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 2);
+        stateManager.setExpectedState(apple);
+        stateManager.setExpectedState(banana);
+
+        // second record triggers compaction
+        File journalFile = new File(dataDir, JournaledFileStateManager.JOURNAL_FILE_NAME);
+        assertEquals(journalFile.length(), 0);
+
+        stateManager.deleteExpectedState(apple.getId());
+        assertTrue(journalFile.length() > 0);
+        stateManager.close();
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 2);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+        stateManager.close();
+    }
+
+    @Test
+    public void testWriteFailure()
+    {
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 1);
+        stateManager.setExpectedState(apple);
+
+        // every record triggers compaction, which fails while the directory is missing
+        deleteRecursively(dataDir);
+        try {
+            stateManager.setExpectedState(banana);
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException expected) {
+        }
+
+        // the failed write is not visible
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+
+        // and is not stored by the next commit
+        assertTrue(dataDir.mkdirs());
+        stateManager.deleteExpectedState(apple.getId());
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+        stateManager.close();
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1);
+        assertTrue(stateManager.getAllExpectedStates().isEmpty());
+        stateManager.close();
+    }
+
+    @Test
+    public void testTornRecord()
+            throws Exception
+    {
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        stateManager.setExpectedState(apple);
+        stateManager.close();
+
+        File journalFile = new File(dataDir, JournaledFileStateManager.JOURNAL_FILE_NAME);
+        Files.append("set {\"id\":", journalFile, Charsets.UTF_8);
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+        stateManager.setExpectedState(banana);
+        stateManager.close();
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+        stateManager.close();
+    }
+
+    @Test
+    public void testMigration()
+    {
+        FileStateManager legacyStateManager = new FileStateManager(dataDir, codec);
+        legacyStateManager.setExpectedState(apple);
+        legacyStateManager.setExpectedState(banana);
+
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+        stateManager.close();
+
+        // legacy files are left in place
+        assertTrue(new File(dataDir, apple.getId() + ".json").exists());
+
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+        stateManager.close();
+    }
+
+    @Test
+    public void testRevertToFiles()
+            throws Exception
+    {
+        FileStateManager legacyStateManager = new FileStateManager(dataDir, codec);
+        legacyStateManager.setExpectedState(apple);
+
+        // changes made while the journal is enabled are not in the per slot files
+        JournaledFileStateManager stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        ExpectedSlotStatus stoppedApple = new ExpectedSlotStatus(apple.getId(), STOPPED, APPLE_ASSIGNMENT);
+        stateManager.setExpectedState(stoppedApple);
+        stateManager.setExpectedState(banana);
+        stateManager.close();
+        assertEquals(ImmutableSet.copyOf(legacyStateManager.getAllExpectedStates()), ImmutableSet.of(apple));
+
+        JournaledFileStateManager.revertToFiles(dataDir, codec);
+        assertEquals(ImmutableSet.copyOf(legacyStateManager.getAllExpectedStates()), ImmutableSet.of(stoppedApple, banana));
+        assertFalse(new File(dataDir, JournaledFileStateManager.SNAPSHOT_FILE_NAME).exists());
+        assertFalse(new File(dataDir, JournaledFileStateManager.JOURNAL_FILE_NAME).exists());
+
+        // enabling the journal again imports the per slot files, including changes made without the journal
+        legacyStateManager.deleteExpectedState(banana.getId());
+        stateManager = new JournaledFileStateManager(dataDir, codec, 1000);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(stoppedApple));
+        stateManager.deleteExpectedState(apple.getId());
+        stateManager.close();
+
+        // deleted slots are removed from the per slot files
+        JournaledFileStateManager.revertToFiles(dataDir, codec);
+        assertTrue(legacyStateManager.getAllExpectedStates().isEmpty());
+    }
+}
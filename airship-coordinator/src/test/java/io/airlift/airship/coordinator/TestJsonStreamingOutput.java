@@ -0,0 +1,106 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import io.airlift.json.JsonCodec;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static io.airlift.airship.coordinator.JsonStreamingOutput.jsonStreamingOutput;
+import static io.airlift.json.JsonCodec.listJsonCodec;
+import static io.airlift.json.JsonCodec.mapJsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestJsonStreamingOutput
+{
+    private final JsonCodec<List<Map<String, Integer>>> codec = listJsonCodec(mapJsonCodec(String.class, Integer.class));
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        List<Map<String, Integer>> values = ImmutableList.<Map<String, Integer>>of(
+                ImmutableMap.of("cpu", 1),
+                ImmutableMap.of("cpu", 2, "memory", 512));
+        assertEquals(codec.fromJson(write(values)), values);
+    }
+
+    @Test
+    public void testEmpty()
+            throws Exception
+    {
+        assertEquals(codec.fromJson(write(ImmutableList.<Map<String, Integer>>of())), ImmutableList.of());
+    }
+
+    @Test
+    public void testLazyValues()
+            throws Exception
+    {
+        // each value is created while the output is written
+        Iterable<Map<String, Integer>> values = Iterables.transform(ImmutableList.of(1, 2, 3), new Function<Integer, Map<String, Integer>>()
+        {
+            @Override
+            public Map<String, Integer> apply(Integer cpu)
+            {
+                return ImmutableMap.of("cpu", cpu);
+            }
+        });
+        assertEquals(codec.fromJson(write(values)), ImmutableList.copyOf(values));
+    }
+
+    @Test
+    public void testFields()
+            throws Exception
+    {
+        List<Map<String, Integer>> values = ImmutableList.<Map<String, Integer>>of(
+                ImmutableMap.of("cpu", 1),
+                ImmutableMap.of("cpu", 2, "memory", 512, "disk", 10));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        jsonStreamingOutput(values, ImmutableSet.of("cpu", "memory")).write(output);
+        assertEquals(codec.fromJson(new String(output.toByteArray(), UTF_8)), ImmutableList.of(
+                ImmutableMap.of("cpu", 1),
+                ImmutableMap.of("cpu", 2, "memory", 512)));
+    }
+
+    @Test
+    public void testOutputNotClosed()
+            throws Exception
+    {
+        ClosingOutputStream output = new ClosingOutputStream();
+        jsonStreamingOutput(ImmutableList.of("apple")).write(output);
+        assertFalse(output.closed);
+        assertEquals(new String(output.toByteArray(), UTF_8), "[\"apple\"]");
+    }
+
+    private static String write(Iterable<?> values)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        jsonStreamingOutput(values).write(output);
+        return new String(output.toByteArray(), UTF_8);
+    }
+
+    private static class ClosingOutputStream
+            extends ByteArrayOutputStream
+    {
+        private boolean closed;
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+}
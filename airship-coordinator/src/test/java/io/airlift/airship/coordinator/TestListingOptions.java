@@ -0,0 +1,125 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.airship.coordinator.ListingOptions.Page;
+import io.airlift.airship.shared.MockUriInfo;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static io.airlift.airship.shared.HttpUriBuilder.uriBuilderFrom;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestListingOptions
+{
+    private static final Function<String, String> IDENTITY = Functions.identity();
+    private static final List<String> ITEMS = ImmutableList.of("d", "b", "e", "a", "c");
+
+    @Test
+    public void testFromUriInfo()
+    {
+        ListingOptions options = ListingOptions.fromUriInfo(MockUriInfo.from(URI.create("http://localhost/v1/slot?after=abc&limit=10&fields=id,status&fields=host")));
+        assertEquals(options.getAfter(), "abc");
+        assertEquals(options.getLimit(), 10);
+        assertEquals(options.getFields(), ImmutableSet.of("id", "status", "host"));
+        assertTrue(options.isPaged());
+    }
+
+    @Test
+    public void testFromUriInfoDefaults()
+    {
+        ListingOptions options = ListingOptions.fromUriInfo(MockUriInfo.from(URI.create("http://localhost/v1/slot?host=foo")));
+        assertNull(options.getAfter());
+        assertEquals(options.getLimit(), 0);
+        assertEquals(options.getFields(), ImmutableSet.of());
+        assertFalse(options.isPaged());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidLimit()
+    {
+        ListingOptions.fromUriInfo(MockUriInfo.from(URI.create("http://localhost/v1/slot?limit=zero")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testZeroLimit()
+    {
+        ListingOptions.fromUriInfo(MockUriInfo.from(URI.create("http://localhost/v1/slot?limit=0")));
+    }
+
+    @Test
+    public void testNotPaged()
+    {
+        Page<String> page = ListingOptions.ALL.page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ITEMS);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testPages()
+    {
+        Page<String> page = new ListingOptions(null, 2, ImmutableSet.<String>of()).page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("a", "b"));
+        assertEquals(page.getNextCursor(), "b");
+
+        page = new ListingOptions(page.getNextCursor(), 2, ImmutableSet.<String>of()).page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("c", "d"));
+        assertEquals(page.getNextCursor(), "d");
+
+        page = new ListingOptions(page.getNextCursor(), 2, ImmutableSet.<String>of()).page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("e"));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testExactPage()
+    {
+        // a full last page has no cursor
+        Page<String> page = new ListingOptions("c", 2, ImmutableSet.<String>of()).page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("d", "e"));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testCursorOfRemovedItem()
+    {
+        // the cursor does not need to match a current item
+        Page<String> page = new ListingOptions("bb", 0, ImmutableSet.<String>of()).page(ITEMS, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("c", "d", "e"));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testPageSorted()
+    {
+        List<String> sortedItems = ImmutableList.of("a", "b", "c", "d", "e");
+        Page<String> page = new ListingOptions("b", 2, ImmutableSet.<String>of()).pageSorted(sortedItems, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("c", "d"));
+        assertEquals(page.getNextCursor(), "d");
+
+        page = new ListingOptions("cc", 5, ImmutableSet.<String>of()).pageSorted(sortedItems, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of("d", "e"));
+        assertNull(page.getNextCursor());
+
+        // past the last item
+        page = new ListingOptions("z", 2, ImmutableSet.<String>of()).pageSorted(sortedItems, IDENTITY);
+        assertEquals(page.getItems(), ImmutableList.of());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testAddTo()
+    {
+        assertEquals(ListingOptions.ALL.addTo(uriBuilderFrom(URI.create("http://localhost/v1/slot"))).build(),
+                URI.create("http://localhost/v1/slot"));
+        assertEquals(new ListingOptions("abc", 10, ImmutableSet.of("id", "status")).addTo(uriBuilderFrom(URI.create("http://localhost/v1/slot"))).build(),
+                URI.create("http://localhost/v1/slot?after=abc&limit=10&fields=id,status"));
+    }
+}
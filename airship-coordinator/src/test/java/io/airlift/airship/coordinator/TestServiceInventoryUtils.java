@@ -0,0 +1,37 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.discovery.client.ServiceDescriptor;
+import io.airlift.discovery.client.ServiceState;
+import org.testng.annotations.Test;
+
+import static io.airlift.airship.coordinator.ServiceInventoryUtils.createServiceInventoryVersion;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestServiceInventoryUtils
+{
+    private final ServiceDescriptor apple = new ServiceDescriptor(null, "apple-slot", "apple", "general", "/location/apple", ServiceState.RUNNING, ImmutableMap.of("http", "http://apple"));
+    private final ServiceDescriptor banana = new ServiceDescriptor(null, "banana-slot", "banana", "general", "/location/banana", ServiceState.RUNNING, ImmutableMap.of("http", "http://banana"));
+
+    @Test
+    public void testVersionIgnoresOrder()
+    {
+        assertEquals(createServiceInventoryVersion(ImmutableList.of(apple, banana)), createServiceInventoryVersion(ImmutableList.of(banana, apple)));
+    }
+
+    @Test
+    public void testVersionChangesWithContent()
+    {
+        String version = createServiceInventoryVersion(ImmutableList.of(apple, banana));
+
+        ServiceDescriptor stoppedBanana = new ServiceDescriptor(null, "banana-slot", "banana", "general", "/location/banana", ServiceState.STOPPED, banana.getProperties());
+        assertFalse(version.equals(createServiceInventoryVersion(ImmutableList.of(apple, stoppedBanana))));
+
+        ServiceDescriptor movedBanana = new ServiceDescriptor(null, "banana-slot", "banana", "general", "/location/banana", ServiceState.RUNNING, ImmutableMap.of("http", "http://banana:8080"));
+        assertFalse(version.equals(createServiceInventoryVersion(ImmutableList.of(apple, movedBanana))));
+
+        assertFalse(version.equals(createServiceInventoryVersion(ImmutableList.of(apple))));
+    }
+}
@@ -0,0 +1,130 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.airship.shared.ExpectedSlotStatus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestSimpleDbStateManager
+{
+    private FakeSimpleDb simpleDb;
+    private SimpleDbStateManager stateManager;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        simpleDb = new FakeSimpleDb(10);
+        stateManager = new SimpleDbStateManager(simpleDb, "airship-test", 2);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        stateManager.stop();
+    }
+
+    @Test
+    public void testSetAndDelete()
+    {
+        ExpectedSlotStatus apple = new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT);
+        ExpectedSlotStatus banana = new ExpectedSlotStatus(UUID.randomUUID(), STOPPED, BANANA_ASSIGNMENT);
+
+        stateManager.setExpectedState(apple);
+        stateManager.setExpectedState(banana);
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(apple, banana));
+
+        stateManager.deleteExpectedState(apple.getId());
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.of(banana));
+    }
+
+    @Test
+    public void testPagination()
+    {
+        List<ExpectedSlotStatus> expectedStates = createExpectedStates(35);
+        stateManager.setExpectedStates(expectedStates);
+
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.copyOf(expectedStates));
+        assertEquals(simpleDb.getSelectRequests(), 4);
+    }
+
+    @Test
+    public void testBatchRequests()
+    {
+        List<ExpectedSlotStatus> expectedStates = createExpectedStates(120);
+        stateManager.setExpectedStates(expectedStates);
+        assertEquals(simpleDb.getItemCount(), 120);
+        assertEquals(simpleDb.getBatchRequests(), 5);
+
+        ImmutableList.Builder<UUID> slotIds = ImmutableList.builder();
+        for (ExpectedSlotStatus expectedState : expectedStates.subList(0, 60)) {
+            slotIds.add(expectedState.getId());
+        }
+        stateManager.deleteExpectedStates(slotIds.build());
+        assertEquals(simpleDb.getItemCount(), 60);
+        assertEquals(simpleDb.getBatchRequests(), 8);
+
+        assertEquals(ImmutableSet.copyOf(stateManager.getAllExpectedStates()), ImmutableSet.copyOf(expectedStates.subList(60, 120)));
+
+        // batches are issued in parallel, but never more than the limit at once
+        assertTrue(simpleDb.getMaxInFlightRequests() <= 2);
+    }
+
+    @Test
+    public void testLoadFailure()
+    {
+        stateManager.setExpectedStates(createExpectedStates(35));
+
+        // a failure part way through the pages fails the load instead of returning some of the states
+        simpleDb.failSelectsAfter(2);
+        try {
+            stateManager.getAllExpectedStates();
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException expected) {
+        }
+    }
+
+    @Test
+    public void testBatchWriteFailure()
+    {
+        List<ExpectedSlotStatus> expectedStates = createExpectedStates(60);
+
+        // a failed batch fails the write instead of being logged and dropped
+        simpleDb.failBatchesAfter(1);
+        try {
+            stateManager.setExpectedStates(expectedStates);
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException expected) {
+        }
+
+        try {
+            stateManager.deleteExpectedStates(ImmutableList.of(expectedStates.get(0).getId()));
+            fail("expected RuntimeException");
+        }
+        catch (RuntimeException expected) {
+        }
+    }
+
+    private static List<ExpectedSlotStatus> createExpectedStates(int count)
+    {
+        ImmutableList.Builder<ExpectedSlotStatus> expectedStates = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            expectedStates.add(new ExpectedSlotStatus(UUID.randomUUID(), RUNNING, APPLE_ASSIGNMENT));
+        }
+        return expectedStates.build();
+    }
+}
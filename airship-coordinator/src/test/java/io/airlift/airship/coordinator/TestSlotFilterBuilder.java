@@ -3,13 +3,17 @@ package io.airlift.airship.coordinator;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
 import io.airlift.airship.coordinator.SlotFilterBuilder.BinarySpecPredicate;
 import io.airlift.airship.coordinator.SlotFilterBuilder.ConfigSpecPredicate;
 import io.airlift.airship.coordinator.SlotFilterBuilder.HostPredicate;
 import io.airlift.airship.coordinator.SlotFilterBuilder.SlotUuidPredicate;
 import io.airlift.airship.coordinator.SlotFilterBuilder.StatePredicate;
+import io.airlift.airship.shared.AgentStatus;
 import io.airlift.airship.shared.Assignment;
 import io.airlift.airship.shared.MockUriInfo;
+import io.airlift.airship.shared.SlotLifecycleState;
 import io.airlift.airship.shared.SlotStatus;
 import org.testng.annotations.Test;
 
@@ -19,10 +23,13 @@ import java.util.List;
 import java.util.UUID;
 
 import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
 import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
 import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -249,4 +256,63 @@ public class TestSlotFilterBuilder
         assertFalse(buildFilter("!config", "@prod:a*:1.*").apply(status));
         assertTrue(buildFilter("!config", "@prod:apple:x:1.0").apply(status));
     }
+
+    @Test
+    public void testSelectSlots()
+    {
+        List<SlotStatus> slots = ImmutableList.of(
+                createSlot("fake://10.0.0.1", "fake://192.168.0.1", "i-a", RUNNING, APPLE_ASSIGNMENT),
+                createSlot("fake://10.0.0.1", "fake://192.168.0.1", "i-a", STOPPED, BANANA_ASSIGNMENT),
+                createSlot("fake://10.0.0.2", "fake://192.168.0.2", "i-b", RUNNING, BANANA_ASSIGNMENT),
+                createSlot("fake://10.0.0.2", "fake://192.168.0.2", "i-b", UNKNOWN, null),
+                createSlot("fake://localhost", "fake://localhost", null, RUNNING, APPLE_ASSIGNMENT));
+        FleetSnapshot snapshot = new FleetSnapshot(1, ImmutableList.<AgentStatus>of(), slots);
+        String shortId = slots.get(2).getId().toString().substring(0, snapshot.getSlotIdTrie().shortestUniquePrefix(4));
+
+        List<String> queries = ImmutableList.of(
+                "all",
+                "state=running",
+                "state=running&binary=*apple*",
+                "state=running&state=stopped&!binary=*banana*",
+                "binary=food.fruit:*",
+                "config=@prod:banana*",
+                "!config=@prod:banana*",
+                "host=10.0.0.2",
+                "host=192.168.*&!state=unknown",
+                "host=127.0.0.1",
+                "!host=10.0.0.*",
+                "machine=i-a",
+                "!machine=i-*",
+                "uuid=" + shortId,
+                "!uuid=" + shortId + "&state=running",
+                "uuid=ffffffff",
+                "all&!state=running");
+        // the snapshot index selects slots in uuid order
+        List<SlotStatus> sortedSlots = Ordering.natural().onResultOf(ListingOptions.SLOT_KEY).sortedCopy(slots);
+        for (String query : queries) {
+            MockUriInfo uriInfo = MockUriInfo.from("fake://localhost?" + query);
+            List<SlotStatus> expected = ImmutableList.copyOf(Iterables.filter(sortedSlots, SlotFilterBuilder.build(uriInfo, true, snapshot.getSlotIdTrie())));
+            assertEquals(SlotFilterBuilder.fromUriInfo(uriInfo).selectSlots(snapshot, true), expected, query);
+        }
+    }
+
+    @Test(expectedExceptions = InvalidSlotFilterException.class)
+    public void testSelectSlotsFilterRequired()
+    {
+        FleetSnapshot snapshot = new FleetSnapshot(1, ImmutableList.<AgentStatus>of(), ImmutableList.<SlotStatus>of());
+        SlotFilterBuilder.fromUriInfo(MockUriInfo.from("fake://localhost")).selectSlots(snapshot, true);
+    }
+
+    private static SlotStatus createSlot(String self, String externalUri, String instanceId, SlotLifecycleState state, Assignment assignment)
+    {
+        return createSlotStatus(UUID.randomUUID(),
+                URI.create(self),
+                URI.create(externalUri),
+                instanceId,
+                "/location",
+                state,
+                assignment,
+                "/install-path",
+                ImmutableMap.<String, Integer>of());
+    }
 }
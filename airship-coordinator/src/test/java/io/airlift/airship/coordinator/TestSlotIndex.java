@@ -0,0 +1,112 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.airship.shared.AgentLifecycleState;
+import io.airlift.airship.shared.AgentStatus;
+import io.airlift.airship.shared.Assignment;
+import io.airlift.airship.shared.CombinedVersion;
+import io.airlift.airship.shared.SlotLifecycleState;
+import io.airlift.airship.shared.SlotStatus;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+import static io.airlift.airship.shared.VersionsUtil.createAgentsVersion;
+import static io.airlift.airship.shared.VersionsUtil.createSlotsVersion;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestSlotIndex
+{
+    private final Map<String, AgentStatus> agentStatuses = new ConcurrentHashMap<>();
+    private final Map<String, RemoteAgent> agents = new ConcurrentHashMap<>();
+    private SlotIndex slotIndex;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        agentStatuses.clear();
+        agents.clear();
+        slotIndex = new SlotIndex();
+    }
+
+    @Test
+    public void testIndex()
+    {
+        SlotStatus apple = createSlot("apple-instance", "apple-host", APPLE_ASSIGNMENT, STOPPED);
+        SlotStatus banana = createSlot("banana-instance", "banana-host", BANANA_ASSIGNMENT, RUNNING);
+        addAgent("apple-instance", apple);
+        addAgent("banana-instance", banana);
+
+        slotIndex.update(agents);
+        assertEquals(slotIndex.getAllSlots().size(), 2);
+        assertEquals(slotIndex.getSlot(apple.getId()), apple);
+        assertEquals(slotIndex.getAgentKey(banana.getId()), "banana-instance");
+        assertEquals(slotIndex.getSlotsVersion().toString(), createSlotsVersion(ImmutableList.of(apple, banana)));
+    }
+
+    @Test
+    public void testUpdate()
+    {
+        SlotStatus apple = createSlot("apple-instance", "apple-host", APPLE_ASSIGNMENT, STOPPED);
+        addAgent("apple-instance", apple);
+        slotIndex.update(agents);
+
+        // change the slot state
+        SlotStatus runningApple = apple.changeState(RUNNING);
+        agentStatuses.put("apple-instance", agentStatuses.get("apple-instance").changeSlotStatus(runningApple));
+        slotIndex.update(agents);
+        assertEquals(slotIndex.getAllSlots(), ImmutableList.of(runningApple));
+        assertEquals(slotIndex.getSlot(apple.getId()), runningApple);
+        assertEquals(slotIndex.getSlotsVersion().toString(), createSlotsVersion(ImmutableList.of(runningApple)));
+        assertEquals(slotIndex.getAgentsVersion().toString(), createAgentsVersion(slotIndex.getAllAgents()));
+
+        // remove the agent
+        agents.remove("apple-instance");
+        slotIndex.update(agents);
+        assertTrue(slotIndex.getAllSlots().isEmpty());
+        assertNull(slotIndex.getSlot(apple.getId()));
+        assertNull(slotIndex.getAgentKey(apple.getId()));
+        assertEquals(slotIndex.getSlotsVersion(), CombinedVersion.EMPTY);
+        assertEquals(slotIndex.getAgentsVersion(), CombinedVersion.EMPTY);
+    }
+
+    private void addAgent(String instanceId, SlotStatus... slots)
+    {
+        agentStatuses.put(instanceId, new AgentStatus(UUID.randomUUID().toString(),
+                AgentLifecycleState.ONLINE,
+                instanceId,
+                URI.create("fake://agent/" + instanceId),
+                URI.create("fake://agent/" + instanceId),
+                "/location/" + instanceId,
+                "instance.type",
+                ImmutableList.copyOf(slots),
+                ImmutableMap.<String, Integer>of()));
+        agents.put(instanceId, new MockRemoteAgent(instanceId, agentStatuses));
+    }
+
+    private static SlotStatus createSlot(String instanceId, String host, Assignment assignment, SlotLifecycleState state)
+    {
+        UUID slotId = UUID.randomUUID();
+        return createSlotStatus(slotId,
+                URI.create("http://" + host + "/v1/agent/slot/" + slotId),
+                URI.create("http://" + host + "/v1/agent/slot/" + slotId),
+                instanceId,
+                "/location/" + host,
+                state,
+                assignment,
+                "/" + host,
+                ImmutableMap.<String, Integer>of());
+    }
+}
@@ -0,0 +1,80 @@
+package io.airlift.airship.coordinator;
+
+import io.airlift.airship.shared.CoordinatorLifecycleState;
+import io.airlift.airship.shared.CoordinatorStatus;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.Response;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+public class TestStatsResource
+{
+    private StatsResource resource;
+    private Coordinator coordinator;
+    private TestingMavenRepository repository;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        CoordinatorStatus coordinatorStatus = new CoordinatorStatus(UUID.randomUUID().toString(),
+                CoordinatorLifecycleState.ONLINE,
+                "this-coordinator-instance-id",
+                URI.create("fake://coordinator/internal"),
+                URI.create("fake://coordinator/external"),
+                "/test/location",
+                "this-coordinator-instance-type");
+
+        repository = new TestingMavenRepository();
+
+        MockProvisioner provisioner = new MockProvisioner();
+        coordinator = new Coordinator(coordinatorStatus,
+                provisioner.getCoordinatorFactory(),
+                provisioner.getAgentFactory(),
+                repository,
+                provisioner,
+                new InMemoryStateManager(),
+                new MockServiceInventory(),
+                new CoordinatorConfig().setStatusExpiration(new Duration(1, TimeUnit.DAYS)));
+        resource = new StatsResource(coordinator);
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        repository.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetStats()
+    {
+        long reads = (long) coordinator.getStateManagerStats().getGetAllExpectedStates().getAllTime().getCount();
+        coordinator.getExpectedStates();
+
+        Response response = resource.getStats();
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+
+        Map<String, Object> stats = (Map<String, Object>) response.getEntity();
+        assertNotNull(stats.get("agentPolls"));
+        assertNotNull(stats.get("repository"));
+
+        Map<String, Object> stateManager = (Map<String, Object>) stats.get("stateManager");
+        assertEquals(((Map<String, Object>) stateManager.get("getAllExpectedStates")).get("count"), reads + 1);
+
+        Map<String, Object> commands = (Map<String, Object>) stats.get("commands");
+        assertEquals(commands.get("queued"), 0);
+        assertEquals(((Map<String, Object>) commands.get("install")).get("count"), 0L);
+    }
+}
@@ -0,0 +1,127 @@
+package io.airlift.airship.coordinator;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestVersionedStatusHolder
+{
+    private static final Function<Integer, Integer> INCREMENT = new Function<Integer, Integer>()
+    {
+        @Override
+        public Integer apply(Integer input)
+        {
+            return input + 1;
+        }
+    };
+
+    @Test
+    public void testSet()
+    {
+        VersionedStatusHolder<String> holder = new VersionedStatusHolder<>("apple");
+        assertEquals(holder.get(), "apple");
+
+        holder.set("banana");
+        assertEquals(holder.get(), "banana");
+    }
+
+    @Test
+    public void testRefresh()
+    {
+        VersionedStatusHolder<Integer> holder = new VersionedStatusHolder<>(0);
+
+        long refreshSequence = holder.nextSequence();
+        assertTrue(holder.update(refreshSequence, INCREMENT));
+        assertEquals(holder.get(), (Integer) 1);
+
+        // the same refresh can not be applied twice
+        assertFalse(holder.update(refreshSequence, INCREMENT));
+        assertEquals(holder.get(), (Integer) 1);
+    }
+
+    @Test
+    public void testOutOfOrderRefreshDropped()
+    {
+        VersionedStatusHolder<String> holder = new VersionedStatusHolder<>("initial");
+
+        final long first = holder.nextSequence();
+        final long second = holder.nextSequence();
+
+        // second refresh completes first
+        assertTrue(holder.update(second, constant("second")));
+        assertFalse(holder.update(first, constant("first")));
+        assertEquals(holder.get(), "second");
+    }
+
+    @Test
+    public void testRefreshIssuedBeforeWriteDropped()
+    {
+        VersionedStatusHolder<String> holder = new VersionedStatusHolder<>("initial");
+
+        long refreshSequence = holder.nextSequence();
+        holder.set("written");
+
+        assertFalse(holder.update(refreshSequence, constant("refreshed")));
+        assertEquals(holder.get(), "written");
+
+        // a refresh issued after the write is applied
+        assertTrue(holder.update(holder.nextSequence(), constant("refreshed")));
+        assertEquals(holder.get(), "refreshed");
+    }
+
+    @Test
+    public void testConcurrentUpdates()
+            throws Exception
+    {
+        final VersionedStatusHolder<Integer> holder = new VersionedStatusHolder<>(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            ImmutableList.Builder<Callable<Void>> tasks = ImmutableList.builder();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        for (int j = 0; j < 10_000; j++) {
+                            holder.update(INCREMENT);
+                        }
+                        return null;
+                    }
+                });
+            }
+            List<Future<Void>> futures = executor.invokeAll(tasks.build());
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(holder.get(), (Integer) 80_000);
+    }
+
+    private static <T> Function<T, T> constant(final T value)
+    {
+        return new Function<T, T>()
+        {
+            @Override
+            public T apply(T input)
+            {
+                return value;
+            }
+        };
+    }
+}
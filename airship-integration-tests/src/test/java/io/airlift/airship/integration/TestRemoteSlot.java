@@ -27,10 +27,11 @@ import io.airlift.airship.agent.LifecycleManager;
 import io.airlift.airship.agent.MockDeploymentManagerFactory;
 import io.airlift.airship.agent.MockLifecycleManager;
 import io.airlift.airship.agent.Slot;
+import io.airlift.airship.coordinator.CoordinatorConfig;
 import io.airlift.airship.coordinator.HttpRemoteAgent;
 import io.airlift.airship.coordinator.HttpRemoteSlot;
 import io.airlift.airship.coordinator.RemoteSlot;
-import io.airlift.airship.shared.AgentStatusRepresentation;
+import io.airlift.airship.shared.AgentStatusDeltaRepresentation;
 import io.airlift.airship.shared.Installation;
 import io.airlift.airship.shared.InstallationRepresentation;
 import io.airlift.airship.shared.SlotStatus;
@@ -128,8 +129,9 @@ public class TestRemoteSlot
                 agent.getAgentStatus(),
                 "test",
                 client,
+                new CoordinatorConfig().getAgentHeartbeatTimeout(),
                 JsonCodec.jsonCodec(InstallationRepresentation.class),
-                JsonCodec.jsonCodec(AgentStatusRepresentation.class),
+                JsonCodec.jsonCodec(AgentStatusDeltaRepresentation.class),
                 JsonCodec.jsonCodec(SlotStatusRepresentation.class),
                 JsonCodec.jsonCodec(ServiceDescriptorsRepresentation.class));
     }
@@ -182,7 +184,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.assign(BANANA_INSTALLATION);
+        SlotStatus actual = remoteSlot.assign(BANANA_INSTALLATION).get();
 
         // verify
         SlotStatus status = slot.status();
@@ -200,7 +202,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.terminate();
+        SlotStatus actual = remoteSlot.terminate().get();
 
         // verify
         SlotStatus expected = createSlotStatus(slot.getId(),
@@ -225,7 +227,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.start();
+        SlotStatus actual = remoteSlot.start().get();
 
         // verify
         SlotStatus status = slot.status();
@@ -244,7 +246,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.stop();
+        SlotStatus actual = remoteSlot.stop().get();
 
         // verify
         SlotStatus status = slot.status();
@@ -263,7 +265,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.kill();
+        SlotStatus actual = remoteSlot.kill().get();
 
         // verify
         SlotStatus status = slot.status();
@@ -281,7 +283,7 @@ public class TestRemoteSlot
         // test
         remoteAgent.setStatus(agent.getAgentStatus());
         RemoteSlot remoteSlot = new HttpRemoteSlot(slot.status(), client, remoteAgent);
-        SlotStatus actual = remoteSlot.restart();
+        SlotStatus actual = remoteSlot.restart().get();
 
         // verify
         SlotStatus status = slot.status();
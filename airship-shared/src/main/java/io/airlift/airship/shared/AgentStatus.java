@@ -3,9 +3,7 @@ package io.airlift.airship.shared;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 
 import javax.annotation.concurrent.Immutable;
 
@@ -16,7 +14,6 @@ import java.util.UUID;
 
 import static com.google.common.base.Objects.firstNonNull;
 import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Maps.newHashMap;
 import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
 
 @Immutable
@@ -27,11 +24,17 @@ public class AgentStatus
     private final String instanceId;
     private final URI internalUri;
     private final URI externalUri;
-    private final Map<UUID, SlotStatus> slots;
+    private final SlotStatusMap slots;
     private final String location;
     private final String instanceType;
     private final Map<String, Integer> resources;
-    private final String version;
+
+    // agents from releases before the combined slots version report the legacy version format
+    // TODO: remove the legacy version format once no agent or coordinator runs a release older than the combined slots version
+    private final boolean legacyVersionFormat;
+
+    // built on first use, or carried over by changes such as a new internal uri; racing builds are equal
+    private String version;
 
     public AgentStatus(String agentId,
             AgentLifecycleState state,
@@ -59,16 +62,39 @@ public class AgentStatus
         {
             public SlotStatus apply(SlotStatus slotStatus)
             {
-                if (!Objects.equal(slotStatus.getInstanceId(), instanceId)) {
-                    slotStatus = slotStatus.changeInstanceId(instanceId);
-                }
-                return slotStatus;
+                return withInstanceId(slotStatus, instanceId);
             }
         });
-        this.slots = Maps.uniqueIndex(slots, SlotStatus.uuidGetter());
+        this.slots = SlotStatusMap.copyOf(slots);
 
         this.resources = ImmutableMap.copyOf(resources);
-        this.version = VersionsUtil.createAgentVersion(agentId, state, slots, resources);
+        this.legacyVersionFormat = false;
+    }
+
+    // slots must already carry the instance id, and resources must be immutable
+    AgentStatus(String agentId,
+            AgentLifecycleState state,
+            String instanceId,
+            URI internalUri,
+            URI externalUri,
+            String location,
+            String instanceType,
+            SlotStatusMap slots,
+            Map<String, Integer> resources,
+            boolean legacyVersionFormat,
+            String version)
+    {
+        this.agentId = agentId;
+        this.state = state;
+        this.instanceId = instanceId;
+        this.internalUri = internalUri;
+        this.externalUri = externalUri;
+        this.location = location;
+        this.instanceType = instanceType;
+        this.slots = slots;
+        this.resources = resources;
+        this.legacyVersionFormat = legacyVersionFormat;
+        this.version = version;
     }
 
     public String getAgentId()
@@ -88,34 +114,39 @@ public class AgentStatus
 
     public AgentStatus changeState(AgentLifecycleState state)
     {
-        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots.values(), resources);
+        Preconditions.checkNotNull(state, "state is null");
+        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots, resources, legacyVersionFormat, null);
     }
 
     public AgentStatus changeSlotStatus(SlotStatus slotStatus)
     {
-        Map<UUID, SlotStatus> slots = newHashMap(this.slots);
+        SlotStatusMap slots;
         if (slotStatus.getState() != TERMINATED) {
-            slots.put(slotStatus.getId(), slotStatus);
+            slots = this.slots.put(withInstanceId(slotStatus, instanceId));
         }
         else {
-            slots.remove(slotStatus.getId());
+            slots = this.slots.remove(slotStatus.getId());
         }
-        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots.values(), resources);
+        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots, resources, legacyVersionFormat, null);
     }
 
-    public AgentStatus changeAllSlotsState(SlotLifecycleState slotState)
+    public AgentStatus changeAllSlotsState(final SlotLifecycleState slotState)
     {
-        Map<UUID, SlotStatus> slots = newHashMap(this.slots);
-        for (SlotStatus slotStatus : slots.values()) {
-            // set all slots to unknown state
-            slots.put(slotStatus.getId(), slotStatus.changeState(slotState));
-        }
-        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots.values(), resources);
+        SlotStatusMap slots = this.slots.transformValues(new Function<SlotStatus, SlotStatus>()
+        {
+            @Override
+            public SlotStatus apply(SlotStatus slotStatus)
+            {
+                return slotStatus.changeState(slotState);
+            }
+        });
+        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots, resources, legacyVersionFormat, null);
     }
 
     public AgentStatus changeInternalUri(URI internalUri)
     {
-        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots.values(), resources);
+        // the internal uri is not part of the version
+        return new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots, resources, legacyVersionFormat, version);
     }
 
     public URI getInternalUri()
@@ -145,7 +176,12 @@ public class AgentStatus
 
     public List<SlotStatus> getSlotStatuses()
     {
-        return ImmutableList.copyOf(slots.values());
+        return slots.values();
+    }
+
+    SlotStatusMap getSlotStatusMap()
+    {
+        return slots;
     }
 
     public Map<String, Integer> getResources()
@@ -155,9 +191,50 @@ public class AgentStatus
 
     public String getVersion()
     {
+        String version = this.version;
+        if (version == null) {
+            if (legacyVersionFormat) {
+                version = getLegacyVersion();
+            }
+            else {
+                version = VersionsUtil.createAgentVersion(agentId, state, slots.getVersion(), resources);
+            }
+            this.version = version;
+        }
         return version;
     }
 
+    /**
+     * Returns the version in the format used by releases before the combined
+     * slots version, which digests the sorted slot versions.
+     * <p/>
+     * TODO: remove with the legacy version format
+     */
+    public String getLegacyVersion()
+    {
+        return VersionsUtil.createLegacyAgentVersion(agentId, state, slots.values(), resources);
+    }
+
+    /**
+     * Returns this status with the version format of the version reported by
+     * the agent, so the versions sent back to an agent from an older release
+     * match the ones it computes.  Unknown versions keep the current format.
+     * <p/>
+     * TODO: remove with the legacy version format
+     */
+    public AgentStatus withReportedVersion(String reportedVersion)
+    {
+        if (reportedVersion == null || reportedVersion.equals(getVersion())) {
+            return this;
+        }
+        boolean legacy = !legacyVersionFormat;
+        AgentStatus status = new AgentStatus(agentId, state, instanceId, internalUri, externalUri, location, instanceType, slots, resources, legacy, null);
+        if (reportedVersion.equals(status.getVersion())) {
+            return status;
+        }
+        return this;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -195,11 +272,19 @@ public class AgentStatus
         sb.append(", externalUri=").append(externalUri);
         sb.append(", slots=").append(slots.values());
         sb.append(", resources=").append(resources);
-        sb.append(", version=").append(version);
+        sb.append(", version=").append(getVersion());
         sb.append('}');
         return sb.toString();
     }
 
+    private static SlotStatus withInstanceId(SlotStatus slotStatus, String instanceId)
+    {
+        if (!Objects.equal(slotStatus.getInstanceId(), instanceId)) {
+            slotStatus = slotStatus.changeInstanceId(instanceId);
+        }
+        return slotStatus;
+    }
+
     public static Function<AgentStatus, String> idGetter()
     {
         return new Function<AgentStatus, String>()
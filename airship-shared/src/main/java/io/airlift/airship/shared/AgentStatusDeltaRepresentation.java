@@ -0,0 +1,201 @@
+package io.airlift.airship.shared;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.validation.constraints.NotNull;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.google.common.collect.Lists.transform;
+import static io.airlift.airship.shared.SlotStatusRepresentation.fromSlotStatus;
+
+/**
+ * Slots added, changed or removed on an agent since a given sequence number.
+ * A full delta carries every slot and replaces the receiver's slot list.
+ */
+public class AgentStatusDeltaRepresentation
+{
+    private final String agentId;
+    private final URI self;
+    private final URI externalUri;
+    private final String location;
+    private final Map<String, Integer> resources;
+    private final long sequence;
+    private final boolean full;
+    private final List<SlotStatusRepresentation> slots;
+    private final List<UUID> removedSlots;
+    private final String version;
+
+    public static AgentStatusDeltaRepresentation from(AgentStatus status, long sequence, boolean full, List<SlotStatus> changedSlots, List<UUID> removedSlots)
+    {
+        return new AgentStatusDeltaRepresentation(
+                status.getAgentId(),
+                status.getInternalUri(),
+                status.getExternalUri(),
+                status.getLocation(),
+                status.getResources(),
+                sequence,
+                full,
+                ImmutableList.copyOf(transform(changedSlots, fromSlotStatus(new SlotStatusRepresentation.SlotStatusRepresentationFactory()))),
+                removedSlots,
+                status.getVersion());
+    }
+
+    @JsonCreator
+    public AgentStatusDeltaRepresentation(
+            @JsonProperty("agentId") String agentId,
+            @JsonProperty("self") URI self,
+            @JsonProperty("externalUri") URI externalUri,
+            @JsonProperty("location") String location,
+            @JsonProperty("resources") Map<String, Integer> resources,
+            @JsonProperty("sequence") long sequence,
+            @JsonProperty("full") boolean full,
+            @JsonProperty("slots") List<SlotStatusRepresentation> slots,
+            @JsonProperty("removedSlots") List<UUID> removedSlots,
+            @JsonProperty("version") String version)
+    {
+        this.agentId = agentId;
+        this.self = self;
+        this.externalUri = externalUri;
+        this.location = location;
+        if (resources != null) {
+            this.resources = ImmutableMap.copyOf(resources);
+        }
+        else {
+            this.resources = ImmutableMap.of();
+        }
+        this.sequence = sequence;
+        this.full = full;
+        if (slots != null) {
+            this.slots = ImmutableList.copyOf(slots);
+        }
+        else {
+            this.slots = ImmutableList.of();
+        }
+        if (removedSlots != null) {
+            this.removedSlots = ImmutableList.copyOf(removedSlots);
+        }
+        else {
+            this.removedSlots = ImmutableList.of();
+        }
+        this.version = version;
+    }
+
+    @JsonProperty
+    @NotNull
+    public String getAgentId()
+    {
+        return agentId;
+    }
+
+    @JsonProperty
+    @NotNull
+    public URI getSelf()
+    {
+        return self;
+    }
+
+    @JsonProperty
+    public URI getExternalUri()
+    {
+        return externalUri;
+    }
+
+    @JsonProperty
+    public String getLocation()
+    {
+        return location;
+    }
+
+    @JsonProperty
+    public Map<String, Integer> getResources()
+    {
+        return resources;
+    }
+
+    @JsonProperty
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    @JsonProperty
+    public boolean isFull()
+    {
+        return full;
+    }
+
+    @JsonProperty
+    public List<SlotStatusRepresentation> getSlots()
+    {
+        return slots;
+    }
+
+    @JsonProperty
+    public List<UUID> getRemovedSlots()
+    {
+        return removedSlots;
+    }
+
+    @JsonProperty
+    @NotNull
+    public String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Applies this delta to the given status.  The caller should verify the
+     * version of the result matches {@link #getVersion()}, and request a full
+     * delta if it does not.
+     */
+    public AgentStatus applyTo(AgentStatus agentStatus)
+    {
+        Preconditions.checkNotNull(agentStatus, "agentStatus is null");
+
+        // unchanged slots, and the slots version, are shared with the previous status
+        String instanceId = agentStatus.getInstanceId();
+        SlotStatusMap slots = full ? SlotStatusMap.EMPTY : agentStatus.getSlotStatusMap();
+        for (UUID slotId : removedSlots) {
+            slots = slots.remove(slotId);
+        }
+        for (SlotStatusRepresentation slot : this.slots) {
+            slots = slots.put(slot.toSlotStatus(instanceId));
+        }
+
+        return new AgentStatus(agentId,
+                AgentLifecycleState.ONLINE,
+                instanceId,
+                self,
+                externalUri,
+                location,
+                agentStatus.getInstanceType(),
+                slots,
+                resources,
+                false,
+                null)
+                .withReportedVersion(version);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("AgentStatusDeltaRepresentation");
+        sb.append("{agentId='").append(agentId).append('\'');
+        sb.append(", sequence=").append(sequence);
+        sb.append(", full=").append(full);
+        sb.append(", slots=").append(slots);
+        sb.append(", removedSlots=").append(removedSlots);
+        sb.append(", version='").append(version).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
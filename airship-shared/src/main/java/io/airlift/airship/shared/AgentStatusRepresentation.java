@@ -263,7 +263,8 @@ public class AgentStatusRepresentation
         for (SlotStatusRepresentation slot : slots) {
             builder.add(slot.toSlotStatus(instanceId));
         }
-        return new AgentStatus(agentId, AgentLifecycleState.ONLINE, instanceId, self, externalUri, location, instanceType, builder.build(), resources);
+        return new AgentStatus(agentId, AgentLifecycleState.ONLINE, instanceId, self, externalUri, location, instanceType, builder.build(), resources)
+                .withReportedVersion(version);
     }
 
     @Override
@@ -0,0 +1,110 @@
+package io.airlift.airship.shared;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.UnsignedLongs;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Order independent version of a collection of versioned items.  Each item
+ * version is an MD5 hex digest, which is treated as a 128 bit number, and the
+ * collection version is the sum of the item versions.  Because the sum does
+ * not depend on order, no sorting is needed, and an item can be added to or
+ * removed from an existing collection version without revisiting the rest of
+ * the collection.
+ */
+@Immutable
+public final class CombinedVersion
+{
+    public static final CombinedVersion EMPTY = new CombinedVersion(0, 0);
+
+    private final long high;
+    private final long low;
+
+    private CombinedVersion(long high, long low)
+    {
+        this.high = high;
+        this.low = low;
+    }
+
+    public CombinedVersion add(String version)
+    {
+        long versionHigh = parseHigh(version);
+        long versionLow = parseLow(version);
+
+        long sumLow = low + versionLow;
+        long carry = UnsignedLongs.compare(sumLow, low) < 0 ? 1 : 0;
+        return new CombinedVersion(high + versionHigh + carry, sumLow);
+    }
+
+    public CombinedVersion remove(String version)
+    {
+        long versionHigh = parseHigh(version);
+        long versionLow = parseLow(version);
+
+        long differenceLow = low - versionLow;
+        long borrow = UnsignedLongs.compare(low, versionLow) < 0 ? 1 : 0;
+        return new CombinedVersion(high - versionHigh - borrow, differenceLow);
+    }
+
+    private static long parseHigh(String version)
+    {
+        Preconditions.checkNotNull(version, "version is null");
+        if (version.length() != 32) {
+            throw invalidVersion(version);
+        }
+        return parseHex(version, 0);
+    }
+
+    private static long parseLow(String version)
+    {
+        return parseHex(version, 16);
+    }
+
+    private static long parseHex(String version, int start)
+    {
+        long value = 0;
+        for (int i = start; i < start + 16; i++) {
+            int digit = Character.digit(version.charAt(i), 16);
+            if (digit < 0) {
+                throw invalidVersion(version);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalidVersion(String version)
+    {
+        return new IllegalArgumentException(String.format("version is not an MD5 hex digest: %s", version));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CombinedVersion that = (CombinedVersion) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (int) (high ^ (high >>> 32)) + (int) (low ^ (low >>> 32));
+    }
+
+    /**
+     * Returns the version as 32 hex digits, the same form as the item versions.
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%016x%016x", high, low);
+    }
+}
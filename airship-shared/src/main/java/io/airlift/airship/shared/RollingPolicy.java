@@ -0,0 +1,172 @@
+package io.airlift.airship.shared;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import io.airlift.units.Duration;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+/**
+ * Describes how a command is rolled out across slots: in batches of a fixed
+ * size or a percentage of the selected slots, waiting for each batch to reach
+ * its expected state before starting the next, and aborting once more than
+ * the allowed number of slots have failed.
+ * <p/>
+ * The policy is sent to the coordinator as a header in the form
+ * {@code batch-size=25%;batch-timeout=5m;spread-locations=true;max-failures=1}.
+ */
+public class RollingPolicy
+{
+    public static final Duration DEFAULT_BATCH_TIMEOUT = new Duration(5, TimeUnit.MINUTES);
+
+    private final int batchSize;
+    private final boolean batchPercentage;
+    private final Duration batchTimeout;
+    private final boolean spreadLocations;
+    private final int maxFailures;
+
+    /**
+     * Parses a batch size of the form {@code 5} or {@code 25%}.
+     */
+    public static RollingPolicy rollingPolicy(String batchSize, Duration batchTimeout, boolean spreadLocations, int maxFailures)
+    {
+        Preconditions.checkNotNull(batchSize, "batchSize is null");
+
+        batchSize = batchSize.trim();
+        boolean percentage = batchSize.endsWith("%");
+        if (percentage) {
+            batchSize = batchSize.substring(0, batchSize.length() - 1).trim();
+        }
+        int size;
+        try {
+            size = Integer.parseInt(batchSize);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        return new RollingPolicy(size, percentage, batchTimeout, spreadLocations, maxFailures);
+    }
+
+    /**
+     * Parses the header form of the policy.
+     */
+    public static RollingPolicy valueOf(String value)
+    {
+        Preconditions.checkNotNull(value, "value is null");
+
+        Map<String, String> properties = Splitter.on(';').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(value);
+        for (String name : properties.keySet()) {
+            checkArgument(name.equals("batch-size") || name.equals("batch-timeout") || name.equals("spread-locations") || name.equals("max-failures"),
+                    "Unknown rolling policy property: %s", name);
+        }
+
+        String batchSize = properties.get("batch-size");
+        checkArgument(batchSize != null, "Rolling policy does not specify a batch-size");
+
+        Duration batchTimeout = DEFAULT_BATCH_TIMEOUT;
+        if (properties.containsKey("batch-timeout")) {
+            batchTimeout = Duration.valueOf(properties.get("batch-timeout"));
+        }
+
+        boolean spreadLocations = Boolean.parseBoolean(properties.get("spread-locations"));
+
+        int maxFailures = 0;
+        if (properties.containsKey("max-failures")) {
+            try {
+                maxFailures = Integer.parseInt(properties.get("max-failures"));
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid max failures: " + properties.get("max-failures"));
+            }
+        }
+
+        return rollingPolicy(batchSize, batchTimeout, spreadLocations, maxFailures);
+    }
+
+    public RollingPolicy(int batchSize, boolean batchPercentage, Duration batchTimeout, boolean spreadLocations, int maxFailures)
+    {
+        checkArgument(batchSize > 0, "batchSize must be at least 1");
+        checkArgument(!batchPercentage || batchSize <= 100, "batch percentage must not be greater than 100");
+        Preconditions.checkNotNull(batchTimeout, "batchTimeout is null");
+        checkArgument(maxFailures >= 0, "maxFailures is negative");
+
+        this.batchSize = batchSize;
+        this.batchPercentage = batchPercentage;
+        this.batchTimeout = batchTimeout;
+        this.spreadLocations = spreadLocations;
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Returns the number of slots in each batch when the command is applied
+     * to the specified number of slots.  Percentages are rounded up, so every
+     * batch contains at least one slot.
+     */
+    public int getBatchSize(int slotCount)
+    {
+        if (!batchPercentage) {
+            return batchSize;
+        }
+        return Math.max(1, (int) Math.ceil(slotCount * batchSize / 100.0));
+    }
+
+    public Duration getBatchTimeout()
+    {
+        return batchTimeout;
+    }
+
+    public boolean isSpreadLocations()
+    {
+        return spreadLocations;
+    }
+
+    public int getMaxFailures()
+    {
+        return maxFailures;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        RollingPolicy that = (RollingPolicy) o;
+
+        return batchSize == that.batchSize &&
+                batchPercentage == that.batchPercentage &&
+                batchTimeout.equals(that.batchTimeout) &&
+                spreadLocations == that.spreadLocations &&
+                maxFailures == that.maxFailures;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(batchSize, batchPercentage, batchTimeout, spreadLocations, maxFailures);
+    }
+
+    /**
+     * Returns the header form of the policy.
+     */
+    @Override
+    public String toString()
+    {
+        Map<String, Object> properties = newLinkedHashMap();
+        properties.put("batch-size", batchSize + (batchPercentage ? "%" : ""));
+        properties.put("batch-timeout", batchTimeout);
+        properties.put("spread-locations", spreadLocations);
+        properties.put("max-failures", maxFailures);
+        return Joiner.on(';').withKeyValueSeparator("=").join(properties);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.airlift.airship.shared;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+
+import javax.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+/**
+ * A single command in a batch sent to an agent.  The command either moves
+ * the slot to a new lifecycle state or assigns a new installation to it.
+ */
+public class SlotCommandRepresentation
+{
+    private final UUID slotId;
+    private final String slotVersion;
+    private final String state;
+    private final InstallationRepresentation installation;
+
+    public static SlotCommandRepresentation setState(UUID slotId, String slotVersion, String state)
+    {
+        return new SlotCommandRepresentation(slotId, slotVersion, state, null);
+    }
+
+    public static SlotCommandRepresentation assign(UUID slotId, String slotVersion, InstallationRepresentation installation)
+    {
+        return new SlotCommandRepresentation(slotId, slotVersion, null, installation);
+    }
+
+    @JsonCreator
+    public SlotCommandRepresentation(
+            @JsonProperty("slotId") UUID slotId,
+            @JsonProperty("slotVersion") String slotVersion,
+            @JsonProperty("state") String state,
+            @JsonProperty("installation") InstallationRepresentation installation)
+    {
+        this.slotId = slotId;
+        this.slotVersion = slotVersion;
+        this.state = state;
+        this.installation = installation;
+    }
+
+    @JsonProperty
+    @NotNull(message = "is missing")
+    public UUID getSlotId()
+    {
+        return slotId;
+    }
+
+    @JsonProperty
+    public String getSlotVersion()
+    {
+        return slotVersion;
+    }
+
+    @JsonProperty
+    public String getState()
+    {
+        return state;
+    }
+
+    @JsonProperty
+    public InstallationRepresentation getInstallation()
+    {
+        return installation;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SlotCommandRepresentation that = (SlotCommandRepresentation) o;
+
+        return Objects.equal(slotId, that.slotId) &&
+                Objects.equal(slotVersion, that.slotVersion) &&
+                Objects.equal(state, that.state) &&
+                Objects.equal(installation, that.installation);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(slotId, slotVersion, state, installation);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SlotCommandRepresentation");
+        sb.append("{slotId=").append(slotId);
+        sb.append(", slotVersion='").append(slotVersion).append('\'');
+        sb.append(", state='").append(state).append('\'');
+        sb.append(", installation=").append(installation);
+        sb.append('}');
+        return sb.toString();
+    }
+}
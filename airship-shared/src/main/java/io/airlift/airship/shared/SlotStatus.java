@@ -14,6 +14,7 @@
 package io.airlift.airship.shared;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
@@ -39,7 +40,7 @@ public class SlotStatus
             String installPath,
             Map<String, Integer> resources)
     {
-        return new SlotStatus(id, self, externalUri, instanceId, location, state, assignment, installPath, resources, null, null, null);
+        return new SlotStatus(id, self, externalUri, instanceId, location, state, assignment, installPath, resources, null, null, null, null);
     }
 
     public static SlotStatus createSlotStatusWithExpectedState(UUID id,
@@ -55,7 +56,7 @@ public class SlotStatus
             Assignment expectedAssignment,
             String statusMessage)
     {
-        return new SlotStatus(id, self, externalUri, instanceId, location, state, assignment, installPath, resources, expectedState, expectedAssignment, statusMessage);
+        return new SlotStatus(id, self, externalUri, instanceId, location, state, assignment, installPath, resources, expectedState, expectedAssignment, statusMessage, null);
     }
 
     private final UUID id;
@@ -65,7 +66,9 @@ public class SlotStatus
     private final String location;
     private final Assignment assignment;
     private final SlotLifecycleState state;
-    private final String version;
+
+    // digest of the fields above, built lazily; threads that race build equal strings
+    private String version;
 
     private final SlotLifecycleState expectedState;
     private final Assignment expectedAssignment;
@@ -86,7 +89,8 @@ public class SlotStatus
             Map<String, Integer> resources,
             SlotLifecycleState expectedState,
             Assignment expectedAssignment,
-            String statusMessage)
+            String statusMessage,
+            String version)
     {
         Preconditions.checkNotNull(id, "id is null");
         Preconditions.checkNotNull(location, "location is null");
@@ -104,7 +108,7 @@ public class SlotStatus
         this.location = location;
         this.assignment = assignment;
         this.state = state;
-        this.version = VersionsUtil.createSlotVersion(id, state, assignment);
+        this.version = version;
         this.installPath = installPath;
         this.expectedState = expectedState;
         this.expectedAssignment = expectedAssignment;
@@ -149,6 +153,11 @@ public class SlotStatus
 
     public String getVersion()
     {
+        String version = this.version;
+        if (version == null) {
+            version = VersionsUtil.createSlotVersion(id, state, assignment);
+            this.version = version;
+        }
         return version;
     }
 
@@ -179,11 +188,7 @@ public class SlotStatus
 
     public SlotStatus changeState(SlotLifecycleState state)
     {
-        return createSlotStatusWithExpectedState(this.id,
-                this.self,
-                this.externalUri,
-                this.instanceId,
-                this.location,
+        return copy(this.instanceId,
                 state,
                 state == TERMINATED ? null : this.assignment,
                 state == TERMINATED ? null : this.installPath,
@@ -195,11 +200,7 @@ public class SlotStatus
 
     public SlotStatus changeInstanceId(String instanceId)
     {
-        return createSlotStatusWithExpectedState(this.id,
-                this.self,
-                this.externalUri,
-                instanceId,
-                this.location,
+        return copy(instanceId,
                 state,
                 state == TERMINATED ? null : this.assignment,
                 state == TERMINATED ? null : this.installPath,
@@ -211,11 +212,7 @@ public class SlotStatus
 
     public SlotStatus changeAssignment(SlotLifecycleState state, Assignment assignment, Map<String, Integer> resources)
     {
-        return createSlotStatusWithExpectedState(this.id,
-                this.self,
-                this.externalUri,
-                this.instanceId,
-                this.location,
+        return copy(this.instanceId,
                 state,
                 state == TERMINATED ? null : assignment,
                 state == TERMINATED ? null : this.installPath,
@@ -227,11 +224,7 @@ public class SlotStatus
 
     public SlotStatus changeExpectedState(SlotLifecycleState expectedState, Assignment expectedAssignment)
     {
-        return createSlotStatusWithExpectedState(this.id,
-                this.self,
-                this.externalUri,
-                this.instanceId,
-                this.location,
+        return copy(this.instanceId,
                 this.state,
                 this.assignment,
                 this.installPath,
@@ -243,11 +236,7 @@ public class SlotStatus
 
     public SlotStatus changeStatusMessage(String statusMessage)
     {
-        return createSlotStatusWithExpectedState(this.id,
-                this.self,
-                this.externalUri,
-                this.instanceId,
-                this.location,
+        return copy(this.instanceId,
                 this.state,
                 this.assignment,
                 this.installPath,
@@ -257,6 +246,23 @@ public class SlotStatus
                 statusMessage);
     }
 
+    private SlotStatus copy(String instanceId,
+            SlotLifecycleState state,
+            Assignment assignment,
+            String installPath,
+            Map<String, Integer> resources,
+            SlotLifecycleState expectedState,
+            Assignment expectedAssignment,
+            String statusMessage)
+    {
+        // the version only depends on the id, state and assignment, so a copy that keeps them keeps the version
+        String version = null;
+        if (state == this.state && Objects.equal(assignment, this.assignment)) {
+            version = this.version;
+        }
+        return new SlotStatus(id, self, externalUri, instanceId, location, state, assignment, installPath, resources, expectedState, expectedAssignment, statusMessage, version);
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -293,9 +299,6 @@ public class SlotStatus
         if (state != that.state) {
             return false;
         }
-        if (!version.equals(that.version)) {
-            return false;
-        }
         if (!resources.equals(that.resources)) {
             return false;
         }
@@ -319,7 +322,6 @@ public class SlotStatus
         result = 31 * result + location.hashCode();
         result = 31 * result + (assignment != null ? assignment.hashCode() : 0);
         result = 31 * result + state.hashCode();
-        result = 31 * result + version.hashCode();
         result = 31 * result + (installPath != null ? installPath.hashCode() : 0);
         result = 31 * result + resources.hashCode();
         result = 31 * result + (expectedState != null ? expectedState.hashCode() : 0);
@@ -339,7 +341,7 @@ public class SlotStatus
         sb.append(", location='").append(location).append('\'');
         sb.append(", assignment=").append(assignment);
         sb.append(", state=").append(state);
-        sb.append(", version='").append(version).append('\'');
+        sb.append(", version='").append(getVersion()).append('\'');
         sb.append(", expectedState=").append(expectedState);
         sb.append(", expectedAssignment=").append(expectedAssignment);
         sb.append(", statusMessage='").append(statusMessage).append('\'');
@@ -0,0 +1,394 @@
+package io.airlift.airship.shared;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent map from slot id to slot status.  The map is a hash array mapped
+ * trie, so replacing or removing one slot copies only the path to that slot,
+ * at most a few small nodes, and shares everything else with the previous map.
+ * <p/>
+ * The map also tracks the combined version of its slots.  The version is
+ * computed on first use, and after that is carried through each change by
+ * removing the old slot version and adding the new one.
+ */
+@Immutable
+public final class SlotStatusMap
+        implements Iterable<SlotStatus>
+{
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final Object[] NO_ENTRIES = new Object[0];
+    private static final Node EMPTY_NODE = new Node(0, NO_ENTRIES);
+
+    public static final SlotStatusMap EMPTY = new SlotStatusMap(EMPTY_NODE, 0, CombinedVersion.EMPTY);
+
+    private final Node root;
+    private final int size;
+
+    // null until getVersion() computes it, unless carried over from the previous map; racing computations are equal
+    private CombinedVersion version;
+
+    public static SlotStatusMap copyOf(Iterable<SlotStatus> slots)
+    {
+        Preconditions.checkNotNull(slots, "slots is null");
+
+        Node root = EMPTY_NODE;
+        int size = 0;
+        SlotStatus[] replaced = new SlotStatus[1];
+        for (SlotStatus slot : slots) {
+            Preconditions.checkNotNull(slot, "slots contains a null slot");
+            root = put(root, slot, hash(slot.getId()), 0, replaced);
+            Preconditions.checkArgument(replaced[0] == null, "duplicate slot id: %s", slot.getId());
+            size++;
+        }
+        return new SlotStatusMap(root, size, null);
+    }
+
+    private SlotStatusMap(Node root, int size, CombinedVersion version)
+    {
+        this.root = root;
+        this.size = size;
+        this.version = version;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public SlotStatus get(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+
+        long hash = hash(slotId);
+        Node node = root;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object entry = node.entries[node.index(bit)];
+            if (!(entry instanceof Node)) {
+                SlotStatus slot = (SlotStatus) entry;
+                return slot.getId().equals(slotId) ? slot : null;
+            }
+            node = (Node) entry;
+        }
+        return findCollision(node, slotId);
+    }
+
+    /**
+     * Returns a map that also contains the specified slot, replacing any slot
+     * with the same id.
+     */
+    public SlotStatusMap put(SlotStatus slot)
+    {
+        Preconditions.checkNotNull(slot, "slot is null");
+
+        SlotStatus[] replaced = new SlotStatus[1];
+        Node newRoot = put(root, slot, hash(slot.getId()), 0, replaced);
+        SlotStatus oldSlot = replaced[0];
+
+        CombinedVersion version = this.version;
+        if (version != null) {
+            if (oldSlot != null) {
+                version = version.remove(oldSlot.getVersion());
+            }
+            version = version.add(slot.getVersion());
+        }
+        return new SlotStatusMap(newRoot, oldSlot == null ? size + 1 : size, version);
+    }
+
+    /**
+     * Returns a map without the specified slot, or this map if it does not
+     * contain the slot.
+     */
+    public SlotStatusMap remove(UUID slotId)
+    {
+        Preconditions.checkNotNull(slotId, "slotId is null");
+
+        SlotStatus[] removed = new SlotStatus[1];
+        Node newRoot = remove(root, slotId, hash(slotId), 0, removed);
+        SlotStatus oldSlot = removed[0];
+        if (oldSlot == null) {
+            return this;
+        }
+
+        CombinedVersion version = this.version;
+        if (version != null) {
+            version = version.remove(oldSlot.getVersion());
+        }
+        return new SlotStatusMap(newRoot, size - 1, version);
+    }
+
+    /**
+     * Returns a map with each slot replaced by the result of the function,
+     * which must keep the slot id.  Each node is copied once, where a put
+     * for every slot would copy the path to each slot.
+     */
+    public SlotStatusMap transformValues(Function<SlotStatus, SlotStatus> function)
+    {
+        Preconditions.checkNotNull(function, "function is null");
+
+        if (size == 0) {
+            return this;
+        }
+        return new SlotStatusMap(transformValues(root, function), size, null);
+    }
+
+    /**
+     * Returns the slots in an unspecified but stable order.
+     */
+    public List<SlotStatus> values()
+    {
+        ImmutableList.Builder<SlotStatus> values = ImmutableList.builder();
+        collect(root, values);
+        return values.build();
+    }
+
+    @Override
+    public Iterator<SlotStatus> iterator()
+    {
+        return values().iterator();
+    }
+
+    /**
+     * Returns the combined version of the slots in this map.
+     */
+    public CombinedVersion getVersion()
+    {
+        CombinedVersion version = this.version;
+        if (version == null) {
+            version = CombinedVersion.EMPTY;
+            for (SlotStatus slot : values()) {
+                version = version.add(slot.getVersion());
+            }
+            this.version = version;
+        }
+        return version;
+    }
+
+    private static Node put(Node node, SlotStatus slot, long hash, int shift, SlotStatus[] replaced)
+    {
+        if (shift >= Long.SIZE) {
+            return putCollision(node, slot, replaced);
+        }
+
+        int bit = bit(hash, shift);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            return node.withEntry(bit, index, slot);
+        }
+
+        Object entry = node.entries[index];
+        if (entry instanceof Node) {
+            return node.replaceEntry(index, put((Node) entry, slot, hash, shift + BITS, replaced));
+        }
+
+        SlotStatus existing = (SlotStatus) entry;
+        if (existing.getId().equals(slot.getId())) {
+            replaced[0] = existing;
+            return node.replaceEntry(index, slot);
+        }
+
+        // two slots share this position, so push both down a level
+        SlotStatus[] ignored = new SlotStatus[1];
+        Node child = put(EMPTY_NODE, existing, hash(existing.getId()), shift + BITS, ignored);
+        child = put(child, slot, hash, shift + BITS, ignored);
+        return node.replaceEntry(index, child);
+    }
+
+    private static Node remove(Node node, UUID slotId, long hash, int shift, SlotStatus[] removed)
+    {
+        if (shift >= Long.SIZE) {
+            return removeCollision(node, slotId, removed);
+        }
+
+        int bit = bit(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+
+        int index = node.index(bit);
+        Object entry = node.entries[index];
+        if (entry instanceof Node) {
+            Node child = (Node) entry;
+            Node newChild = remove(child, slotId, hash, shift + BITS, removed);
+            if (newChild == child) {
+                return node;
+            }
+            if (newChild.entries.length == 0) {
+                return node.withoutEntry(bit, index);
+            }
+            if (newChild.entries.length == 1 && !(newChild.entries[0] instanceof Node)) {
+                // a single slot does not need a level of its own
+                return node.replaceEntry(index, newChild.entries[0]);
+            }
+            return node.replaceEntry(index, newChild);
+        }
+
+        SlotStatus existing = (SlotStatus) entry;
+        if (!existing.getId().equals(slotId)) {
+            return node;
+        }
+        removed[0] = existing;
+        return node.withoutEntry(bit, index);
+    }
+
+    /**
+     * Below the last level, the few slots whose ids have the same 64 bit hash
+     * are kept in a plain array.
+     */
+    private static Node putCollision(Node node, SlotStatus slot, SlotStatus[] replaced)
+    {
+        for (int i = 0; i < node.entries.length; i++) {
+            SlotStatus existing = (SlotStatus) node.entries[i];
+            if (existing.getId().equals(slot.getId())) {
+                replaced[0] = existing;
+                return node.replaceEntry(i, slot);
+            }
+        }
+        Object[] entries = new Object[node.entries.length + 1];
+        System.arraycopy(node.entries, 0, entries, 0, node.entries.length);
+        entries[node.entries.length] = slot;
+        return new Node(0, entries);
+    }
+
+    private static Node removeCollision(Node node, UUID slotId, SlotStatus[] removed)
+    {
+        for (int i = 0; i < node.entries.length; i++) {
+            SlotStatus existing = (SlotStatus) node.entries[i];
+            if (existing.getId().equals(slotId)) {
+                removed[0] = existing;
+                Object[] entries = new Object[node.entries.length - 1];
+                System.arraycopy(node.entries, 0, entries, 0, i);
+                System.arraycopy(node.entries, i + 1, entries, i, node.entries.length - i - 1);
+                return new Node(0, entries);
+            }
+        }
+        return node;
+    }
+
+    private static SlotStatus findCollision(Node node, UUID slotId)
+    {
+        for (Object entry : node.entries) {
+            SlotStatus slot = (SlotStatus) entry;
+            if (slot.getId().equals(slotId)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private static Node transformValues(Node node, Function<SlotStatus, SlotStatus> function)
+    {
+        Object[] entries = new Object[node.entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            Object entry = node.entries[i];
+            if (entry instanceof Node) {
+                entries[i] = transformValues((Node) entry, function);
+            }
+            else {
+                SlotStatus slot = (SlotStatus) entry;
+                SlotStatus newSlot = function.apply(slot);
+                Preconditions.checkNotNull(newSlot, "function returned a null slot");
+                Preconditions.checkArgument(newSlot.getId().equals(slot.getId()), "function changed the id of slot %s", slot.getId());
+                entries[i] = newSlot;
+            }
+        }
+        return new Node(node.bitmap, entries);
+    }
+
+    private static void collect(Node node, ImmutableList.Builder<SlotStatus> values)
+    {
+        for (Object entry : node.entries) {
+            if (entry instanceof Node) {
+                collect((Node) entry, values);
+            }
+            else {
+                values.add((SlotStatus) entry);
+            }
+        }
+    }
+
+    private static long hash(UUID slotId)
+    {
+        // random uuids are already well mixed, but other ids may not be
+        long hash = slotId.getMostSignificantBits() ^ slotId.getLeastSignificantBits();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int bit(long hash, int shift)
+    {
+        return 1 << ((int) (hash >>> shift) & MASK);
+    }
+
+    /**
+     * A trie level.  Each set bit of the bitmap has an entry, in bit order,
+     * that is either a slot status or the node for the next level.
+     */
+    @Immutable
+    private static final class Node
+    {
+        private final int bitmap;
+        private final Object[] entries;
+
+        private Node(int bitmap, Object[] entries)
+        {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        private int index(int bit)
+        {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node withEntry(int bit, int index, Object entry)
+        {
+            Object[] newEntries = new Object[entries.length + 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            newEntries[index] = entry;
+            System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+            return new Node(bitmap | bit, newEntries);
+        }
+
+        private Node replaceEntry(int index, Object entry)
+        {
+            Object[] newEntries = entries.clone();
+            newEntries[index] = entry;
+            return new Node(bitmap, newEntries);
+        }
+
+        private Node withoutEntry(int bit, int index)
+        {
+            Object[] newEntries = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+            return new Node(bitmap & ~bit, newEntries);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return values().toString();
+    }
+}
@@ -0,0 +1,83 @@
+package io.airlift.airship.shared;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary counterpart of {@link io.airlift.json.JsonCodec} using the Smile
+ * encoding.  The object mapper is configured like the airlift JSON mapper,
+ * so a value encodes to the same fields in either format.
+ */
+public class SmileCodec<T>
+{
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    private static final ObjectMapper OBJECT_MAPPER = createSmileObjectMapper();
+
+    private final JavaType type;
+
+    public static <T> SmileCodec<T> smileCodec(Class<T> type)
+    {
+        return new SmileCodec<>(OBJECT_MAPPER.getTypeFactory().constructType(type));
+    }
+
+    public static <T> SmileCodec<List<T>> listSmileCodec(Class<T> type)
+    {
+        return new SmileCodec<>(OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, type));
+    }
+
+    public static ObjectMapper createSmileObjectMapper()
+    {
+        ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.disable(MapperFeature.AUTO_DETECT_CREATORS);
+        objectMapper.disable(MapperFeature.AUTO_DETECT_FIELDS);
+        objectMapper.disable(MapperFeature.AUTO_DETECT_SETTERS);
+        objectMapper.disable(MapperFeature.AUTO_DETECT_GETTERS);
+        objectMapper.disable(MapperFeature.AUTO_DETECT_IS_GETTERS);
+        objectMapper.disable(MapperFeature.USE_GETTERS_AS_SETTERS);
+        objectMapper.disable(MapperFeature.INFER_PROPERTY_MUTATORS);
+        objectMapper.disable(MapperFeature.ALLOW_FINAL_FIELDS_AS_MUTATORS);
+        objectMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return objectMapper;
+    }
+
+    private SmileCodec(JavaType type)
+    {
+        this.type = Preconditions.checkNotNull(type, "type is null");
+    }
+
+    public T fromSmile(byte[] smile)
+            throws IllegalArgumentException
+    {
+        Preconditions.checkNotNull(smile, "smile is null");
+        try {
+            return OBJECT_MAPPER.readValue(smile, type);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Invalid Smile bytes for %s", type), e);
+        }
+    }
+
+    public byte[] toSmile(T instance)
+            throws IllegalArgumentException
+    {
+        Preconditions.checkNotNull(instance, "instance is null");
+        try {
+            return OBJECT_MAPPER.writerWithType(type).writeValueAsBytes(instance);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(String.format("%s could not be converted to Smile", instance.getClass().getName()), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.airlift.airship.shared;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static io.airlift.airship.shared.SmileCodec.APPLICATION_SMILE;
+import static io.airlift.airship.shared.SmileCodec.createSmileObjectMapper;
+
+/**
+ * Reads and writes Smile entities for resources that list
+ * {@link SmileCodec#APPLICATION_SMILE} in their media types.  Resources keep
+ * JSON as their first media type, so clients that do not ask for Smile still
+ * receive JSON.
+ */
+@Provider
+@Consumes(APPLICATION_SMILE)
+@Produces(APPLICATION_SMILE)
+public class SmileMapper
+        implements MessageBodyReader<Object>, MessageBodyWriter<Object>
+{
+    private final ObjectMapper objectMapper = createSmileObjectMapper();
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return true;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+            throws IOException
+    {
+        try {
+            return objectMapper.readValue(entityStream, objectMapper.getTypeFactory().constructType(genericType));
+        }
+        catch (JsonProcessingException e) {
+            throw new WebApplicationException(e, Response.status(Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity("Invalid Smile entity: " + e.getOriginalMessage())
+                    .build());
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return true;
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException
+    {
+        objectMapper.writerWithType(objectMapper.getTypeFactory().constructType(genericType)).writeValue(entityStream, value);
+    }
+}
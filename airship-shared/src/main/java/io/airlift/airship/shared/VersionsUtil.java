@@ -2,6 +2,7 @@ package io.airlift.airship.shared;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSortedMap;
 
 import java.util.ArrayList;
@@ -20,8 +21,14 @@ public class VersionsUtil
 
     public static final String AIRSHIP_COORDINATOR_VERSION_HEADER = "x-airship-coordinator-version";
 
+    public static final String AIRSHIP_SERVICE_INVENTORY_VERSION_HEADER = "x-airship-service-inventory-version";
+
     public static final String AIRSHIP_FORCE_HEADER = "x-airship-force";
 
+    public static final String AIRSHIP_ROLLING_HEADER = "x-airship-rolling";
+
+    public static final String AIRSHIP_NEXT_CURSOR_HEADER = "x-airship-next-cursor";
+
     private VersionsUtil()
     {
     }
@@ -61,7 +68,8 @@ public class VersionsUtil
             return;
         }
 
-        if (!expectedAgentStatus.equals(agentStatus.getVersion())) {
+        // coordinators from releases before the combined slots version send the legacy format
+        if (!expectedAgentStatus.equals(agentStatus.getVersion()) && !expectedAgentStatus.equals(agentStatus.getLegacyVersion())) {
             throw new VersionConflictException(AIRSHIP_AGENT_VERSION_HEADER, agentStatus.getVersion());
         }
     }
@@ -86,19 +94,40 @@ public class VersionsUtil
         return DigestUtils.md5Hex(data);
     }
 
+    /**
+     * Creates an order independent version of the specified slots by combining
+     * the individual slot versions.
+     */
     public static String createSlotsVersion(Iterable<SlotStatus> slots)
     {
         Preconditions.checkNotNull(slots, "slots is null");
 
-        // canonicalize slot order
-        Map<UUID, String> slotVersions = new TreeMap<UUID, String>();
+        CombinedVersion version = CombinedVersion.EMPTY;
         for (SlotStatus slot : slots) {
-            slotVersions.put(slot.getId(), slot.getVersion());
+            version = version.add(slot.getVersion());
         }
-        return DigestUtils.md5Hex(slotVersions.values().toString());
+        return version.toString();
     }
 
     public static String createAgentVersion(String agentId, AgentLifecycleState state, Iterable<SlotStatus> slots, Map<String, Integer> resources)
+    {
+        Preconditions.checkNotNull(slots, "slots is null");
+
+        CombinedVersion slotsVersion = CombinedVersion.EMPTY;
+        for (SlotStatus slot : slots) {
+            slotsVersion = slotsVersion.add(slot.getVersion());
+        }
+        return createAgentVersion(agentId, state, slotsVersion, resources);
+    }
+
+    /**
+     * Creates the agent version used by releases before the combined slots
+     * version.  It is only used to talk to agents and coordinators from those
+     * releases during an upgrade.
+     * <p/>
+     * TODO: remove once no agent or coordinator runs a release older than the combined slots version
+     */
+    public static String createLegacyAgentVersion(String agentId, AgentLifecycleState state, Iterable<SlotStatus> slots, Map<String, Integer> resources)
     {
         List<Object> parts = new ArrayList<Object>();
         parts.add(agentId);
@@ -118,16 +147,67 @@ public class VersionsUtil
         return DigestUtils.md5Hex(data);
     }
 
+    /**
+     * Creates the agent version from the combined version of its slots, so an
+     * agent that changes one slot does not need to revisit the others.
+     */
+    public static String createAgentVersion(String agentId, AgentLifecycleState state, CombinedVersion slotsVersion, Map<String, Integer> resources)
+    {
+        List<Object> parts = new ArrayList<Object>();
+        parts.add(agentId);
+        parts.add(state);
+        parts.add(slotsVersion);
+
+        // canonicalize resources
+        parts.add(Joiner.on("--").withKeyValueSeparator("=").join(ImmutableSortedMap.copyOf(resources)));
+
+        String data = Joiner.on("||").useForNull("--NULL--").join(parts);
+        return DigestUtils.md5Hex(data);
+    }
+
+    /**
+     * Creates an order independent version of the specified agents by
+     * combining the individual agent versions.
+     */
     public static String createAgentsVersion(Iterable<AgentStatus> agents)
     {
         Preconditions.checkNotNull(agents, "agents is null");
 
-        // canonicalize agent order
-        Map<String, String> agentVersions = new TreeMap<String, String>();
+        CombinedVersion version = CombinedVersion.EMPTY;
         for (AgentStatus agent : agents) {
-            agentVersions.put(agent.getAgentId() + agent.getInstanceId(), agent.getVersion());
+            version = version.add(agent.getVersion());
+        }
+        return version.toString();
+    }
+
+    public static String toEntityTag(String version)
+    {
+        Preconditions.checkNotNull(version, "version is null");
+        return '"' + version + '"';
+    }
+
+    public static boolean entityTagMatches(String ifNoneMatch, String version)
+    {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+
+        for (String tag : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+            if (tag.equals("*")) {
+                return true;
+            }
+            // versions are content hashes, so weak and strong validators are equivalent
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1);
+            }
+            if (tag.equals(version)) {
+                return true;
+            }
         }
-        return DigestUtils.md5Hex(agentVersions.values().toString());
+        return false;
     }
 
     public static String createVersion(String coordinatorId, CoordinatorLifecycleState state)
@@ -0,0 +1,164 @@
+package io.airlift.airship.shared;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonCodecFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
+
+/**
+ * Compares the JSON and Smile encodings of the agent status the coordinator
+ * polls from every agent: encode and decode time, and payload size with and
+ * without gzip.
+ * <p/>
+ * Usage: BenchmarkAgentStatusEncoding [slots] [iterations]
+ */
+public class BenchmarkAgentStatusEncoding
+{
+    public static void main(String[] args)
+            throws Exception
+    {
+        int slots = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        AgentStatusRepresentation agentStatus = createAgentStatus(slots);
+        Encoding json = new JsonEncoding();
+        Encoding smile = new SmileEncoding();
+
+        // warm up both encodings before measuring
+        run(json, agentStatus, iterations);
+        run(smile, agentStatus, iterations);
+
+        System.out.printf("agent status with %d slots, %,d iterations%n", slots, iterations);
+        report("json", json, agentStatus, run(json, agentStatus, iterations), iterations);
+        report("smile", smile, agentStatus, run(smile, agentStatus, iterations), iterations);
+    }
+
+    private static long[] run(Encoding encoding, AgentStatusRepresentation agentStatus, int iterations)
+    {
+        byte[] bytes = encoding.encode(agentStatus);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes = encoding.encode(agentStatus);
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (encoding.decode(bytes) == null) {
+                throw new AssertionError();
+            }
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        return new long[] {encodeNanos, decodeNanos};
+    }
+
+    private static void report(String name, Encoding encoding, AgentStatusRepresentation agentStatus, long[] nanos, int iterations)
+            throws IOException
+    {
+        byte[] bytes = encoding.encode(agentStatus);
+        System.out.printf("%-6s encode: %,8d ns/op   decode: %,8d ns/op   size: %,7d bytes   gzip: %,6d bytes%n",
+                name,
+                nanos[0] / iterations,
+                nanos[1] / iterations,
+                bytes.length,
+                gzip(bytes).length);
+    }
+
+    private static byte[] gzip(byte[] bytes)
+            throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static AgentStatusRepresentation createAgentStatus(int slots)
+    {
+        ImmutableList.Builder<SlotStatus> slotStatuses = ImmutableList.builder();
+        for (int i = 0; i < slots; i++) {
+            String name = "slot" + i;
+            slotStatuses.add(createSlotStatus(UUID.randomUUID(),
+                    URI.create("http://10.0.0.1:7777/v1/agent/slot/" + name),
+                    URI.create("http://agent1.example.com:7777/v1/agent/slot/" + name),
+                    "i-0123456789",
+                    "/us-east-1/us-east-1a/i-0123456789/" + name,
+                    RUNNING,
+                    i % 2 == 0 ? APPLE_ASSIGNMENT : BANANA_ASSIGNMENT,
+                    "/var/lib/airship/slots/" + name,
+                    ImmutableMap.of("cpu", 1, "memory", 1024)));
+        }
+
+        AgentStatus agentStatus = new AgentStatus(UUID.randomUUID().toString(),
+                ONLINE,
+                "i-0123456789",
+                URI.create("http://10.0.0.1:7777/"),
+                URI.create("http://agent1.example.com:7777/"),
+                "/us-east-1/us-east-1a/i-0123456789/agent",
+                "m3.xlarge",
+                slotStatuses.build(),
+                ImmutableMap.of("cpu", 64, "memory", 131072));
+        return AgentStatusRepresentation.from(agentStatus);
+    }
+
+    private interface Encoding
+    {
+        byte[] encode(AgentStatusRepresentation agentStatus);
+
+        AgentStatusRepresentation decode(byte[] bytes);
+    }
+
+    private static class JsonEncoding
+            implements Encoding
+    {
+        // compact, as written by the JAX-RS JSON provider
+        private final JsonCodec<AgentStatusRepresentation> codec = new JsonCodecFactory().jsonCodec(AgentStatusRepresentation.class);
+
+        @Override
+        public byte[] encode(AgentStatusRepresentation agentStatus)
+        {
+            return codec.toJson(agentStatus).getBytes(UTF_8);
+        }
+
+        @Override
+        public AgentStatusRepresentation decode(byte[] bytes)
+        {
+            return codec.fromJson(new String(bytes, UTF_8));
+        }
+    }
+
+    private static class SmileEncoding
+            implements Encoding
+    {
+        private final SmileCodec<AgentStatusRepresentation> codec = smileCodec(AgentStatusRepresentation.class);
+
+        @Override
+        public byte[] encode(AgentStatusRepresentation agentStatus)
+        {
+            return codec.toSmile(agentStatus);
+        }
+
+        @Override
+        public AgentStatusRepresentation decode(byte[] bytes)
+        {
+            return codec.fromSmile(bytes);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.airlift.airship.shared;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+
+/**
+ * Compares the combined slots version with the previous sorted MD5 version
+ * for the work the coordinator does on each request and each fleet snapshot:
+ * versioning a list of slots, merging the expected state into every slot and
+ * versioning the result, and updating the version after one slot changes.
+ * <p/>
+ * Usage: BenchmarkSlotsVersion [slots] [iterations]
+ */
+public class BenchmarkSlotsVersion
+{
+    public static void main(String[] args)
+    {
+        int slotCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        List<SlotStatus> slots = createSlots(slotCount);
+
+        // warm up
+        for (int i = 0; i < 3; i++) {
+            runAll(slots, iterations, false);
+        }
+        System.out.printf("%,d slots, %,d iterations%n", slotCount, iterations);
+        runAll(slots, iterations, true);
+    }
+
+    private static void runAll(List<SlotStatus> slots, int iterations, boolean report)
+    {
+        long sink = 0;
+
+        // version a listing
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += sortedSlotsVersion(slots).length();
+        }
+        long sortedList = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += VersionsUtil.createSlotsVersion(slots).length();
+        }
+        long combinedList = System.nanoTime() - start;
+
+        // merge expected state into every slot, then version the snapshot; the
+        // previous slot status computed an MD5 for every copy
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ImmutableList.Builder<SlotStatus> merged = ImmutableList.builder();
+            for (SlotStatus slot : slots) {
+                SlotStatus copy = slot.changeExpectedState(slot.getState(), slot.getAssignment());
+                sink += VersionsUtil.createSlotVersion(copy.getId(), copy.getState(), copy.getAssignment()).length();
+                merged.add(copy);
+            }
+            sink += sortedSlotsVersion(merged.build()).length();
+        }
+        long sortedSnapshot = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ImmutableList.Builder<SlotStatus> merged = ImmutableList.builder();
+            for (SlotStatus slot : slots) {
+                merged.add(slot.changeExpectedState(slot.getState(), slot.getAssignment()));
+            }
+            sink += VersionsUtil.createSlotsVersion(merged.build()).length();
+        }
+        long combinedSnapshot = System.nanoTime() - start;
+
+        // one slot changes state
+        SlotStatus before = slots.get(0);
+        SlotStatus after = before.changeState(STOPPED);
+        CombinedVersion version = CombinedVersion.EMPTY;
+        for (SlotStatus slot : slots) {
+            version = version.add(slot.getVersion());
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            CombinedVersion updated = version.remove(before.getVersion()).add(after.getVersion());
+            sink += updated.toString().length();
+        }
+        long incrementalUpdate = System.nanoTime() - start;
+
+        if (report) {
+            report("list version, sorted md5", sortedList, iterations);
+            report("list version, combined", combinedList, iterations);
+            report("snapshot rebuild, sorted md5", sortedSnapshot, iterations);
+            report("snapshot rebuild, combined", combinedSnapshot, iterations);
+            report("one slot changed, incremental", incrementalUpdate, iterations);
+        }
+        if (sink == 0) {
+            throw new AssertionError();
+        }
+    }
+
+    private static void report(String name, long nanos, int iterations)
+    {
+        System.out.printf("%-32s %,12d ns/op%n", name, nanos / iterations);
+    }
+
+    /**
+     * The slots version before versions were combined: sort the slot versions
+     * by id and digest their string form.
+     */
+    private static String sortedSlotsVersion(Iterable<SlotStatus> slots)
+    {
+        Map<UUID, String> slotVersions = new TreeMap<>();
+        for (SlotStatus slot : slots) {
+            slotVersions.put(slot.getId(), slot.getVersion());
+        }
+        return DigestUtils.md5Hex(slotVersions.values().toString());
+    }
+
+    private static List<SlotStatus> createSlots(int count)
+    {
+        ImmutableList.Builder<SlotStatus> slots = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            String name = "slot" + i;
+            SlotStatus slot = createSlotStatus(UUID.randomUUID(),
+                    URI.create("http://10.0.0.1:7777/v1/agent/slot/" + name),
+                    URI.create("http://agent1.example.com:7777/v1/agent/slot/" + name),
+                    "i-0123456789",
+                    "/us-east-1/us-east-1a/i-0123456789/" + name,
+                    RUNNING,
+                    i % 2 == 0 ? APPLE_ASSIGNMENT : BANANA_ASSIGNMENT,
+                    "/var/lib/airship/slots/" + name,
+                    ImmutableMap.of("cpu", 1, "memory", 1024));
+            // versions are computed once per slot as the index receives it
+            slot.getVersion();
+            slots.add(slot);
+        }
+        return slots.build();
+    }
+}
@@ -29,6 +29,7 @@ import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
 import static io.airlift.json.JsonCodec.jsonCodec;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 public class TestAgentStatusRepresentation
 {
@@ -115,4 +116,29 @@ public class TestAgentStatusRepresentation
         assertEquals(actual.getSlots(), expected.getSlots());
         assertEquals(actual.getVersion(), expected.getVersion());
     }
+
+    @Test
+    public void testLegacyVersion()
+    {
+        AgentStatus status = expected.toAgentStatus("instanceId", "instance.type");
+        assertEquals(status.getVersion(), VersionsUtil.createAgentVersion(status.getAgentId(), status.getState(), status.getSlotStatuses(), status.getResources()));
+        assertFalse(status.getVersion().equals(status.getLegacyVersion()));
+
+        // an agent from an older release reports the legacy version, which is used in requests back to it
+        AgentStatus legacyStatus = status.withReportedVersion(status.getLegacyVersion());
+        assertEquals(legacyStatus.getVersion(), status.getLegacyVersion());
+        assertEquals(AgentStatusRepresentation.from(legacyStatus).toAgentStatus("instanceId", "instance.type").getVersion(), status.getLegacyVersion());
+        assertEquals(legacyStatus.withReportedVersion(status.getVersion()).getVersion(), status.getVersion());
+
+        // the format is kept when the status changes
+        AgentStatus offlineStatus = legacyStatus.changeState(AgentLifecycleState.OFFLINE);
+        assertEquals(offlineStatus.getVersion(), offlineStatus.getLegacyVersion());
+
+        // unknown versions keep the current format
+        assertEquals(status.withReportedVersion("unknown").getVersion(), status.getVersion());
+
+        // agents accept both formats
+        VersionsUtil.checkAgentVersion(status, status.getVersion());
+        VersionsUtil.checkAgentVersion(status, status.getLegacyVersion());
+    }
 }
@@ -0,0 +1,79 @@
+package io.airlift.airship.shared;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestCombinedVersion
+{
+    private static final String APPLE = DigestUtils.md5Hex("apple");
+    private static final String BANANA = DigestUtils.md5Hex("banana");
+    private static final String CHERRY = DigestUtils.md5Hex("cherry");
+
+    @Test
+    public void testEmpty()
+    {
+        assertEquals(CombinedVersion.EMPTY.toString(), "00000000000000000000000000000000");
+        assertEquals(CombinedVersion.EMPTY.add(APPLE).toString(), APPLE);
+    }
+
+    @Test
+    public void testOrderIndependent()
+    {
+        assertEquals(combine(APPLE, BANANA, CHERRY), combine(CHERRY, APPLE, BANANA));
+        assertFalse(combine(APPLE, BANANA).equals(combine(APPLE, CHERRY)));
+    }
+
+    @Test
+    public void testDuplicatesDoNotCancel()
+    {
+        assertFalse(combine(APPLE, APPLE).equals(CombinedVersion.EMPTY));
+        assertFalse(combine(APPLE, APPLE, BANANA).equals(combine(BANANA)));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        assertEquals(combine(APPLE, BANANA, CHERRY).remove(BANANA), combine(APPLE, CHERRY));
+        assertEquals(combine(APPLE).remove(APPLE), CombinedVersion.EMPTY);
+    }
+
+    @Test
+    public void testCarry()
+    {
+        String max = "ffffffffffffffffffffffffffffffff";
+        String one = "00000000000000000000000000000001";
+        String lowMax = "0000000000000000ffffffffffffffff";
+
+        assertEquals(combine(lowMax, one).toString(), "00000000000000010000000000000000");
+        assertEquals(combine(lowMax, one).remove(one).toString(), lowMax);
+        assertEquals(combine(max, one), CombinedVersion.EMPTY);
+        assertEquals(CombinedVersion.EMPTY.remove(one).toString(), max);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidLength()
+    {
+        CombinedVersion.EMPTY.add("abc");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidDigit()
+    {
+        CombinedVersion.EMPTY.add("0000000000000000000000000000000g");
+    }
+
+    private static CombinedVersion combine(String... versions)
+    {
+        List<String> list = ImmutableList.copyOf(versions);
+        CombinedVersion version = CombinedVersion.EMPTY;
+        for (String item : list) {
+            version = version.add(item);
+        }
+        return version;
+    }
+}
@@ -0,0 +1,63 @@
+package io.airlift.airship.shared;
+
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.airship.shared.RollingPolicy.rollingPolicy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestRollingPolicy
+{
+    @Test
+    public void testBatchSize()
+    {
+        assertEquals(rollingPolicy("3", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0).getBatchSize(10), 3);
+        assertEquals(rollingPolicy("25%", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0).getBatchSize(10), 3);
+        assertEquals(rollingPolicy("10%", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0).getBatchSize(3), 1);
+        assertEquals(rollingPolicy("100%", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0).getBatchSize(7), 7);
+    }
+
+    @Test
+    public void testHeaderRoundTrip()
+    {
+        RollingPolicy expected = rollingPolicy("25%", new Duration(2, TimeUnit.MINUTES), true, 1);
+        assertEquals(RollingPolicy.valueOf(expected.toString()), expected);
+    }
+
+    @Test
+    public void testHeaderDefaults()
+    {
+        RollingPolicy policy = RollingPolicy.valueOf("batch-size=2");
+        assertEquals(policy.getBatchSize(10), 2);
+        assertEquals(policy.getBatchTimeout(), RollingPolicy.DEFAULT_BATCH_TIMEOUT);
+        assertFalse(policy.isSpreadLocations());
+        assertEquals(policy.getMaxFailures(), 0);
+
+        policy = RollingPolicy.valueOf("batch-size=50% ; spread-locations=true; max-failures=2");
+        assertEquals(policy.getBatchSize(10), 5);
+        assertTrue(policy.isSpreadLocations());
+        assertEquals(policy.getMaxFailures(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingBatchSize()
+    {
+        RollingPolicy.valueOf("max-failures=1");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownProperty()
+    {
+        RollingPolicy.valueOf("batch-size=1;batches=2");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPercentage()
+    {
+        rollingPolicy("150%", RollingPolicy.DEFAULT_BATCH_TIMEOUT, false, 0);
+    }
+}
@@ -27,6 +27,7 @@ import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
 import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
 import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
 import static io.airlift.testing.EquivalenceTester.equivalenceTester;
+import static org.testng.Assert.assertEquals;
 
 public class TestSlotStatus
 {
@@ -67,4 +68,22 @@ public class TestSlotStatus
                         createSlotStatus(appleId, appleSelf, appleExternalUri, "instance", "/location", UNKNOWN, APPLE_ASSIGNMENT, applePath, ImmutableMap.<String, Integer>of()))
                 .check();
     }
+
+    @Test
+    public void testVersion()
+    {
+        SlotStatus apple = createSlotStatus(UUID.randomUUID(), URI.create("internal://apple"), URI.create("external://apple"), "instance", "/location", RUNNING, APPLE_ASSIGNMENT, "/apple", ImmutableMap.<String, Integer>of());
+        assertEquals(apple.getVersion(), VersionsUtil.createSlotVersion(apple.getId(), RUNNING, APPLE_ASSIGNMENT));
+
+        // copies that keep the id, state and assignment keep the version
+        assertEquals(apple.changeExpectedState(STOPPED, BANANA_ASSIGNMENT).getVersion(), apple.getVersion());
+        assertEquals(apple.changeStatusMessage("message").getVersion(), apple.getVersion());
+        assertEquals(apple.changeInstanceId("other").getVersion(), apple.getVersion());
+
+        // copies that change them get a new version
+        assertEquals(apple.changeState(STOPPED).getVersion(), VersionsUtil.createSlotVersion(apple.getId(), STOPPED, APPLE_ASSIGNMENT));
+        assertEquals(apple.changeState(TERMINATED).getVersion(), VersionsUtil.createSlotVersion(apple.getId(), TERMINATED, null));
+        assertEquals(apple.changeAssignment(RUNNING, BANANA_ASSIGNMENT, ImmutableMap.<String, Integer>of()).getVersion(),
+                VersionsUtil.createSlotVersion(apple.getId(), RUNNING, BANANA_ASSIGNMENT));
+    }
 }
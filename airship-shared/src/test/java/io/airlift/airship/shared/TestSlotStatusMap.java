@@ -0,0 +1,211 @@
+package io.airlift.airship.shared;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static io.airlift.airship.shared.AgentLifecycleState.ONLINE;
+import static io.airlift.airship.shared.AssignmentHelper.APPLE_ASSIGNMENT;
+import static io.airlift.airship.shared.AssignmentHelper.BANANA_ASSIGNMENT;
+import static io.airlift.airship.shared.SlotLifecycleState.RUNNING;
+import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SlotLifecycleState.TERMINATED;
+import static io.airlift.airship.shared.SlotLifecycleState.UNKNOWN;
+import static io.airlift.airship.shared.SlotStatus.createSlotStatus;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestSlotStatusMap
+{
+    @Test
+    public void testEmpty()
+    {
+        assertEquals(SlotStatusMap.EMPTY.size(), 0);
+        assertTrue(SlotStatusMap.EMPTY.isEmpty());
+        assertEquals(SlotStatusMap.EMPTY.values(), ImmutableList.of());
+        assertEquals(SlotStatusMap.EMPTY.getVersion(), CombinedVersion.EMPTY);
+        assertNull(SlotStatusMap.EMPTY.get(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testPutAndRemove()
+    {
+        SlotStatus apple = createSlot(UUID.randomUUID(), RUNNING);
+        SlotStatus banana = createSlot(UUID.randomUUID(), RUNNING);
+
+        SlotStatusMap map = SlotStatusMap.copyOf(ImmutableList.of(apple, banana));
+        assertEquals(map.size(), 2);
+        assertSame(map.get(apple.getId()), apple);
+        assertSame(map.get(banana.getId()), banana);
+
+        SlotStatus stoppedApple = apple.changeState(STOPPED);
+        SlotStatusMap changed = map.put(stoppedApple);
+        assertEquals(changed.size(), 2);
+        assertSame(changed.get(apple.getId()), stoppedApple);
+
+        // the original map is unchanged
+        assertSame(map.get(apple.getId()), apple);
+
+        SlotStatusMap removed = changed.remove(banana.getId());
+        assertEquals(removed.size(), 1);
+        assertNull(removed.get(banana.getId()));
+        assertEquals(removed.values(), ImmutableList.of(stoppedApple));
+        assertSame(removed.remove(banana.getId()), removed);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateId()
+    {
+        SlotStatus apple = createSlot(UUID.randomUUID(), RUNNING);
+        SlotStatusMap.copyOf(ImmutableList.of(apple, apple.changeState(STOPPED)));
+    }
+
+    @Test
+    public void testHashCollision()
+    {
+        // ids with the same xor of their halves have the same hash
+        UUID first = new UUID(0x1234, 0x5678);
+        UUID second = new UUID(0x1234 ^ 0xff, 0x5678 ^ 0xff);
+        UUID third = new UUID(0x1234 ^ 0xf0f0, 0x5678 ^ 0xf0f0);
+
+        SlotStatusMap map = SlotStatusMap.EMPTY
+                .put(createSlot(first, RUNNING))
+                .put(createSlot(second, RUNNING))
+                .put(createSlot(third, RUNNING));
+        assertEquals(map.size(), 3);
+        assertEquals(map.get(second).getId(), second);
+
+        map = map.put(createSlot(second, STOPPED));
+        assertEquals(map.size(), 3);
+        assertEquals(map.get(second).getState(), STOPPED);
+
+        map = map.remove(first).remove(third);
+        assertEquals(map.size(), 1);
+        assertNull(map.get(first));
+        assertEquals(map.get(second).getState(), STOPPED);
+        assertEquals(map.getVersion(), CombinedVersion.EMPTY.add(map.get(second).getVersion()));
+    }
+
+    @Test
+    public void testTransformValues()
+    {
+        // include colliding ids so the collision level is transformed too
+        List<SlotStatus> slots = ImmutableList.of(
+                createSlot(new UUID(0x1234, 0x5678), RUNNING),
+                createSlot(new UUID(0x1234 ^ 0xff, 0x5678 ^ 0xff), RUNNING),
+                createSlot(UUID.randomUUID(), STOPPED),
+                createSlot(UUID.randomUUID(), RUNNING));
+        SlotStatusMap map = SlotStatusMap.copyOf(slots);
+
+        SlotStatusMap transformed = map.transformValues(new Function<SlotStatus, SlotStatus>()
+        {
+            @Override
+            public SlotStatus apply(SlotStatus slot)
+            {
+                return slot.changeState(UNKNOWN);
+            }
+        });
+        assertEquals(transformed.size(), slots.size());
+        for (SlotStatus slot : slots) {
+            assertEquals(transformed.get(slot.getId()), slot.changeState(UNKNOWN));
+            assertSame(map.get(slot.getId()), slot);
+        }
+        assertEquals(transformed.getVersion(), SlotStatusMap.copyOf(transformed.values()).getVersion());
+        assertSame(SlotStatusMap.EMPTY.transformValues(Functions.<SlotStatus>identity()), SlotStatusMap.EMPTY);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTransformValuesChangesId()
+    {
+        SlotStatusMap.copyOf(ImmutableList.of(createSlot(UUID.randomUUID(), RUNNING))).transformValues(new Function<SlotStatus, SlotStatus>()
+        {
+            @Override
+            public SlotStatus apply(SlotStatus slot)
+            {
+                return createSlot(UUID.randomUUID(), slot.getState());
+            }
+        });
+    }
+
+    @Test
+    public void testRandomChanges()
+    {
+        Random random = new Random(42);
+        List<UUID> ids = Lists.newArrayList();
+        Map<UUID, SlotStatus> expected = Maps.newHashMap();
+
+        SlotStatusMap map = SlotStatusMap.EMPTY;
+        for (int i = 0; i < 2000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                UUID id = ids.isEmpty() || random.nextBoolean() ? UUID.randomUUID() : ids.get(random.nextInt(ids.size()));
+                SlotStatus slot = createSlot(id, random.nextBoolean() ? RUNNING : STOPPED);
+                if (!expected.containsKey(id)) {
+                    ids.add(id);
+                }
+                expected.put(id, slot);
+                map = map.put(slot);
+            }
+            else {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                expected.remove(id);
+                map = map.remove(id);
+            }
+
+            assertEquals(map.size(), expected.size());
+            if (i % 100 == 0) {
+                assertEquals(ImmutableSet.copyOf(map.values()), ImmutableSet.copyOf(expected.values()));
+                for (SlotStatus slot : expected.values()) {
+                    assertSame(map.get(slot.getId()), slot);
+                }
+                // the incrementally maintained version matches a fresh computation
+                assertEquals(map.getVersion(), SlotStatusMap.copyOf(expected.values()).getVersion());
+            }
+        }
+    }
+
+    @Test
+    public void testAgentVersion()
+    {
+        List<SlotStatus> slots = ImmutableList.of(createSlot(UUID.randomUUID(), RUNNING), createSlot(UUID.randomUUID(), RUNNING), createSlot(UUID.randomUUID(), STOPPED));
+        AgentStatus agent = createAgent(slots);
+        assertEquals(agent.getVersion(), VersionsUtil.createAgentVersion("agent", ONLINE, slots, ImmutableMap.<String, Integer>of()));
+
+        // the updated agent has the version of an agent created with the updated slots
+        SlotStatus changed = slots.get(0).changeAssignment(RUNNING, BANANA_ASSIGNMENT, ImmutableMap.<String, Integer>of());
+        AgentStatus updated = agent.changeSlotStatus(changed);
+        assertEquals(updated.getVersion(), createAgent(ImmutableList.of(changed, slots.get(1), slots.get(2))).getVersion());
+
+        updated = updated.changeSlotStatus(slots.get(2).changeState(TERMINATED));
+        assertEquals(updated.getSlotStatuses().size(), 2);
+        assertEquals(updated.getVersion(), createAgent(ImmutableList.of(changed, slots.get(1))).getVersion());
+
+        updated = updated.changeAllSlotsState(UNKNOWN);
+        for (SlotStatus slot : updated.getSlotStatuses()) {
+            assertEquals(slot.getState(), UNKNOWN);
+        }
+        assertEquals(updated.getVersion(), createAgent(updated.getSlotStatuses()).getVersion());
+    }
+
+    private static AgentStatus createAgent(List<SlotStatus> slots)
+    {
+        return new AgentStatus("agent", ONLINE, "instance", URI.create("internal://agent"), URI.create("external://agent"), "/location", "instance.type", slots, ImmutableMap.<String, Integer>of());
+    }
+
+    private static SlotStatus createSlot(UUID id, SlotLifecycleState state)
+    {
+        return createSlotStatus(id, URI.create("internal://" + id), URI.create("external://" + id), "instance", "/location", state, APPLE_ASSIGNMENT, "/" + id, ImmutableMap.<String, Integer>of());
+    }
+}
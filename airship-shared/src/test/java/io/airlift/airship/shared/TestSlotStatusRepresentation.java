@@ -10,8 +10,10 @@ import java.net.URI;
 import java.util.UUID;
 
 import static io.airlift.airship.shared.SlotLifecycleState.STOPPED;
+import static io.airlift.airship.shared.SmileCodec.smileCodec;
 import static io.airlift.json.JsonCodec.jsonCodec;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestSlotStatusRepresentation
 {
@@ -45,6 +47,15 @@ public class TestSlotStatusRepresentation
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testSmileRoundTrip()
+    {
+        SmileCodec<SlotStatusRepresentation> smileCodec = smileCodec(SlotStatusRepresentation.class);
+        byte[] smile = smileCodec.toSmile(expected);
+        assertEquals(smileCodec.fromSmile(smile), expected);
+        assertTrue(smile.length < codec.toJson(expected).length());
+    }
+
     @Test
     public void testJsonDecode()
             throws Exception